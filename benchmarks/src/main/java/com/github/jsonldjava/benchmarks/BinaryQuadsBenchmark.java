@@ -0,0 +1,82 @@
+package com.github.jsonldjava.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.jsonldjava.core.BinaryQuadReader;
+import com.github.jsonldjava.core.BinaryQuadWriter;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.core.NQuadReader;
+import com.github.jsonldjava.core.RDFDataset;
+import com.github.jsonldjava.core.RDFDatasetUtils;
+
+/**
+ * Compares reading and writing the quads of a document produced by the
+ * {@link DocumentGenerator} as N-Quads and in the binary format of
+ * {@link BinaryQuadWriter}.
+ *
+ * The size of both serializations is listed in the README.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BinaryQuadsBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int nodes;
+
+    private RDFDataset dataset;
+    private String nquads;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setup() throws JsonLdError {
+        dataset = (RDFDataset) JsonLdProcessor.toRDF(DocumentGenerator.generate(nodes),
+                new JsonLdOptions(DocumentGenerator.BASE));
+        nquads = RDFDatasetUtils.toNQuads(dataset);
+        binary = writeBinary();
+    }
+
+    @Benchmark
+    public Object readNQuads() throws JsonLdError {
+        return new NQuadReader(nquads).parse();
+    }
+
+    @Benchmark
+    public Object readBinary() throws JsonLdError {
+        return new BinaryQuadReader(new ByteArrayInputStream(binary)).parse();
+    }
+
+    @Benchmark
+    public Object writeNQuads() {
+        return RDFDatasetUtils.toNQuads(dataset);
+    }
+
+    @Benchmark
+    public byte[] writeBinary() throws JsonLdError {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinaryQuadWriter writer = new BinaryQuadWriter(out);
+        writer.write(dataset);
+        writer.finish();
+        return out.toByteArray();
+    }
+}
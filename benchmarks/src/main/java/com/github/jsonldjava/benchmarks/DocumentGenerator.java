@@ -0,0 +1,105 @@
+package com.github.jsonldjava.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic JSON-LD documents of a given number of nodes.
+ * 
+ * The documents use a small compacting context, typed nodes with plain,
+ * typed and language tagged literals, references between nodes and an
+ * embedded blank node on every tenth node, so that all of the processing
+ * algorithms have some work to do. The output only depends on the number of
+ * nodes requested.
+ */
+public class DocumentGenerator {
+
+    public static final String VOCAB = "http://example.org/vocab#";
+    public static final String BASE = "http://example.org/node/";
+
+    private static final long SEED = 0x4a534f4e4c44L;
+
+    /**
+     * @return the context used by the generated documents, also used as the
+     *         compaction context by the benchmarks.
+     */
+    public static Map<String, Object> context() {
+        final Map<String, Object> ctx = new LinkedHashMap<String, Object>();
+        ctx.put("ex", VOCAB);
+        ctx.put("xsd", "http://www.w3.org/2001/XMLSchema#");
+        ctx.put("name", "ex:name");
+        ctx.put("label", new LinkedHashMap<String, Object>() {
+            {
+                put("@id", "ex:label");
+                put("@language", "en");
+            }
+        });
+        ctx.put("age", new LinkedHashMap<String, Object>() {
+            {
+                put("@id", "ex:age");
+                put("@type", "xsd:integer");
+            }
+        });
+        ctx.put("knows", new LinkedHashMap<String, Object>() {
+            {
+                put("@id", "ex:knows");
+                put("@type", "@id");
+            }
+        });
+        ctx.put("address", "ex:address");
+        ctx.put("street", "ex:street");
+        ctx.put("city", "ex:city");
+        return ctx;
+    }
+
+    /**
+     * @return a frame matching all of the ex:Person nodes in a generated
+     *         document.
+     */
+    public static Map<String, Object> frame() {
+        final Map<String, Object> frame = new LinkedHashMap<String, Object>();
+        frame.put("@context", context());
+        frame.put("@type", "ex:Person");
+        return frame;
+    }
+
+    /**
+     * Generates a document with the given number of top level nodes.
+     * 
+     * @param nodes
+     *            the number of nodes to generate.
+     * @return the generated document, which has an {@code @context} and an
+     *         {@code @graph} containing the nodes.
+     */
+    public static Map<String, Object> generate(int nodes) {
+        final Random random = new Random(SEED);
+        final List<Object> graph = new ArrayList<Object>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            final Map<String, Object> node = new LinkedHashMap<String, Object>();
+            node.put("@id", BASE + i);
+            node.put("@type", i % 3 == 0 ? "ex:Organization" : "ex:Person");
+            node.put("name", "Node " + i);
+            node.put("label", "label " + random.nextInt(1000));
+            node.put("age", Integer.toString(random.nextInt(100)));
+            final List<Object> knows = new ArrayList<Object>();
+            for (int j = 0; j < 3; j++) {
+                knows.add(BASE + random.nextInt(nodes));
+            }
+            node.put("knows", knows);
+            if (i % 10 == 0) {
+                final Map<String, Object> address = new LinkedHashMap<String, Object>();
+                address.put("street", i + " Main Street");
+                address.put("city", "City " + random.nextInt(50));
+                node.put("address", address);
+            }
+            graph.add(node);
+        }
+        final Map<String, Object> doc = new LinkedHashMap<String, Object>();
+        doc.put("@context", context());
+        doc.put("@graph", graph);
+        return doc;
+    }
+}
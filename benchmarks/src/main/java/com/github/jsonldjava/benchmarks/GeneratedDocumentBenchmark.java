@@ -0,0 +1,98 @@
+package com.github.jsonldjava.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+
+/**
+ * Benchmarks each of the {@link JsonLdProcessor} operations against
+ * documents produced by the {@link DocumentGenerator}.
+ * 
+ * Run with {@code -prof gc} to get the allocation rate of each operation.
+ * The largest documents need a correspondingly large heap, see the
+ * {@code -jvmArgs} option of the JMH runner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GeneratedDocumentBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int nodes;
+
+    private Map<String, Object> document;
+    private List<Object> expanded;
+    private Map<String, Object> context;
+    private Map<String, Object> frame;
+    private String nquads;
+
+    @Setup(Level.Trial)
+    public void setup() throws JsonLdError {
+        document = DocumentGenerator.generate(nodes);
+        context = DocumentGenerator.context();
+        frame = DocumentGenerator.frame();
+        expanded = JsonLdProcessor.expand(document, options());
+        final JsonLdOptions opts = options();
+        opts.format = "application/nquads";
+        nquads = (String) JsonLdProcessor.toRDF(expanded, opts);
+    }
+
+    private static JsonLdOptions options() {
+        return new JsonLdOptions(DocumentGenerator.BASE);
+    }
+
+    @Benchmark
+    public Object expand() throws JsonLdError {
+        return JsonLdProcessor.expand(document, options());
+    }
+
+    @Benchmark
+    public Object compact() throws JsonLdError {
+        return JsonLdProcessor.compact(expanded, context, options());
+    }
+
+    @Benchmark
+    public Object flatten() throws JsonLdError {
+        return JsonLdProcessor.flatten(expanded, context, options());
+    }
+
+    @Benchmark
+    public Object frame() throws JsonLdError {
+        return JsonLdProcessor.frame(expanded, frame, options());
+    }
+
+    @Benchmark
+    public Object toRDF() throws JsonLdError {
+        return JsonLdProcessor.toRDF(expanded, options());
+    }
+
+    @Benchmark
+    public Object fromRDF() throws JsonLdError {
+        return JsonLdProcessor.fromRDF(nquads, options());
+    }
+
+    @Benchmark
+    public Object normalize() throws JsonLdError {
+        return JsonLdProcessor.normalize(expanded, options());
+    }
+}
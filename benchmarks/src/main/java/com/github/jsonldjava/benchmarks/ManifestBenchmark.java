@@ -0,0 +1,211 @@
+package com.github.jsonldjava.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.jsonldjava.core.DocumentLoader;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.core.RemoteDocument;
+import com.github.jsonldjava.utils.JSONUtils;
+
+/**
+ * Runs all of the positive evaluation tests of one of the json-ld.org test
+ * suite manifests as a single benchmark operation.
+ * 
+ * The test suite is loaded from the test jar of the core module. Tests that
+ * fail with the current implementation are dropped during setup, so that the
+ * set of documents stays the same while the implementation changes underneath
+ * it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ManifestBenchmark {
+
+    private static final String TEST_DIR = "json-ld.org/";
+    private static final String TEST_BASE = "http://json-ld.org/test-suite/tests/";
+
+    @Param({ "expand", "compact", "flatten", "frame", "toRdf", "fromRdf", "normalize" })
+    public String manifest;
+
+    private final List<TestCase> tests = new ArrayList<TestCase>();
+
+    /**
+     * A single test from the manifest, with everything it needs read into
+     * memory.
+     */
+    private static class TestCase {
+        String type;
+        String name;
+        Object input;
+        Object context;
+        Object frame;
+        Map<String, Object> option;
+
+        JsonLdOptions options() {
+            final JsonLdOptions options = new JsonLdOptions(TEST_BASE + name);
+            options.documentLoader = LOADER;
+            if (option != null) {
+                if (option.containsKey("base")) {
+                    options.setBase((String) option.get("base"));
+                }
+                if (option.containsKey("compactArrays")) {
+                    options.setCompactArrays((Boolean) option.get("compactArrays"));
+                }
+                if (option.containsKey("useNativeTypes")) {
+                    options.setUseNativeTypes((Boolean) option.get("useNativeTypes"));
+                }
+                if (option.containsKey("useRdfType")) {
+                    options.setUseRdfType((Boolean) option.get("useRdfType"));
+                }
+                if (option.containsKey("produceGeneralizedRdf")) {
+                    options.setProduceGeneralizedRdf((Boolean) option
+                            .get("produceGeneralizedRdf"));
+                }
+            }
+            return options;
+        }
+
+        Object run() throws JsonLdError {
+            final JsonLdOptions options = options();
+            if ("expand".equals(type)) {
+                return JsonLdProcessor.expand(input, options);
+            } else if ("compact".equals(type)) {
+                return JsonLdProcessor.compact(input, context, options);
+            } else if ("flatten".equals(type)) {
+                return context == null ? JsonLdProcessor.flatten(input, options)
+                        : JsonLdProcessor.flatten(input, context, options);
+            } else if ("frame".equals(type)) {
+                return JsonLdProcessor.frame(input, frame, options);
+            } else if ("toRdf".equals(type)) {
+                options.format = "application/nquads";
+                return JsonLdProcessor.toRDF(input, options);
+            } else if ("fromRdf".equals(type)) {
+                return JsonLdProcessor.fromRDF(input, options);
+            } else {
+                options.format = "application/nquads";
+                return JsonLdProcessor.normalize(input, options);
+            }
+        }
+    }
+
+    /**
+     * Loads remote documents referenced by the test suite from the class
+     * path.
+     */
+    private static final DocumentLoader LOADER = new DocumentLoader() {
+        @Override
+        public RemoteDocument loadDocument(String url) throws JsonLdError {
+            if (!url.startsWith(TEST_BASE)) {
+                throw new JsonLdError(JsonLdError.Error.LOADING_DOCUMENT_FAILED, url);
+            }
+            final String name = url.substring(TEST_BASE.length());
+            try {
+                return new RemoteDocument(url, readJson(name));
+            } catch (final IOException e) {
+                throw new JsonLdError(JsonLdError.Error.LOADING_DOCUMENT_FAILED, url);
+            }
+        }
+    };
+
+    private static InputStream open(String name) throws IOException {
+        final InputStream in = ManifestBenchmark.class.getClassLoader().getResourceAsStream(
+                TEST_DIR + name);
+        if (in == null) {
+            throw new IOException("Unable to find test suite resource: " + name);
+        }
+        return in;
+    }
+
+    private static Object readJson(String name) throws IOException {
+        final InputStream in = open(name);
+        try {
+            return JSONUtils.fromInputStream(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String readNQuads(String name) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(open(name),
+                "UTF-8"));
+        try {
+            final StringBuilder sb = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0 || line.charAt(0) == '#') {
+                    continue;
+                }
+                sb.append(line).append('\n');
+            }
+            return sb.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final Map<String, Object> m = (Map<String, Object>) readJson(manifest
+                + "-manifest.jsonld");
+        for (final Map<String, Object> test : (List<Map<String, Object>>) m.get("sequence")) {
+            final List<String> types = (List<String>) test.get("@type");
+            if (!types.contains("jld:PositiveEvaluationTest")) {
+                continue;
+            }
+            final TestCase tc = new TestCase();
+            tc.type = manifest;
+            tc.name = (String) test.get("input");
+            tc.input = tc.name.endsWith(".jsonld") ? readJson(tc.name) : readNQuads(tc.name);
+            if (test.containsKey("context")) {
+                tc.context = readJson((String) test.get("context"));
+            }
+            if (test.containsKey("frame")) {
+                tc.frame = readJson((String) test.get("frame"));
+            }
+            tc.option = (Map<String, Object>) test.get("option");
+            try {
+                tc.run();
+            } catch (final JsonLdError e) {
+                continue;
+            }
+            tests.add(tc);
+        }
+        if (tests.isEmpty()) {
+            throw new IllegalStateException("No runnable tests found in manifest: " + manifest);
+        }
+    }
+
+    @Benchmark
+    public void run(Blackhole bh) throws JsonLdError {
+        for (final TestCase tc : tests) {
+            bh.consume(tc.run());
+        }
+    }
+}
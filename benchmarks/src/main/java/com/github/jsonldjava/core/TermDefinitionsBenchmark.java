@@ -0,0 +1,103 @@
+package com.github.jsonldjava.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the layered {@link TermDefinitions} of a context with copying all
+ * of the term definitions into a new map, as the context used to do, when
+ * nested contexts each add a couple of terms to a large context and the
+ * terms are then looked up.
+ *
+ * It lives in the core package as {@link TermDefinitions} is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TermDefinitionsBenchmark {
+
+    // the terms added by each nested context
+    private static final int ADDED_TERMS = 2;
+
+    @Param({ "10", "100", "1000" })
+    public int terms;
+
+    @Param({ "1", "4", "16" })
+    public int nesting;
+
+    private TermDefinitions layered;
+    private Map<String, Object> copied;
+    private List<String> lookups;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        layered = new TermDefinitions();
+        copied = new LinkedHashMap<String, Object>();
+        lookups = new ArrayList<String>();
+        for (int i = 0; i < terms; i++) {
+            final Map<String, Object> definition = definition("term" + i);
+            layered.put("term" + i, definition);
+            copied.put("term" + i, definition);
+            if (i % Math.max(1, terms / 20) == 0) {
+                lookups.add("term" + i);
+            }
+        }
+        for (int i = 0; i < nesting * ADDED_TERMS; i += ADDED_TERMS) {
+            lookups.add("nested" + i);
+        }
+    }
+
+    private static Map<String, Object> definition(String term) {
+        final Map<String, Object> definition = new LinkedHashMap<String, Object>();
+        definition.put("@id", "http://example.org/" + term);
+        return definition;
+    }
+
+    @Benchmark
+    public void layered(Blackhole bh) {
+        TermDefinitions current = layered;
+        for (int i = 0; i < nesting * ADDED_TERMS; i++) {
+            if (i % ADDED_TERMS == 0) {
+                current = current.fork();
+            }
+            current.put("nested" + i, definition("nested" + i));
+        }
+        for (final String term : lookups) {
+            bh.consume(current.get(term));
+        }
+    }
+
+    @Benchmark
+    public void copied(Blackhole bh) {
+        Map<String, Object> current = copied;
+        for (int i = 0; i < nesting * ADDED_TERMS; i++) {
+            if (i % ADDED_TERMS == 0) {
+                current = new LinkedHashMap<String, Object>(current);
+            }
+            current.put("nested" + i, definition("nested" + i));
+        }
+        for (final String term : lookups) {
+            bh.consume(current.get(term));
+        }
+    }
+}
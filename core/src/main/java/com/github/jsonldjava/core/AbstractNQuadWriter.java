@@ -0,0 +1,88 @@
+package com.github.jsonldjava.core;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * The part of the N-Quads serializers which turns quads into lines:
+ * subclasses decide what to do with each line.
+ *
+ * http://www.w3.org/TR/n-quads/
+ */
+public abstract class AbstractNQuadWriter implements QuadCallback {
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // reused for every quad
+    private final StringBuilder sb = new StringBuilder();
+
+    static Writer writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+    }
+
+    @Override
+    public void call(RDFDataset.Quad quad) throws JsonLdError {
+        write(quad);
+    }
+
+    /**
+     * Writes a quad, in the graph it names.
+     *
+     * @param quad
+     *            the quad.
+     * @throws JsonLdError
+     *             if the output can't be written.
+     */
+    public void write(RDFDataset.Quad quad) throws JsonLdError {
+        write(quad, quad.getGraph() == null ? null : quad.getGraph().getValue());
+    }
+
+    /**
+     * Writes a quad in the given graph.
+     *
+     * @param quad
+     *            the quad.
+     * @param graphName
+     *            the name of the graph, or null for the default graph.
+     * @throws JsonLdError
+     *             if the output can't be written.
+     */
+    public void write(RDFDataset.Quad quad, String graphName) throws JsonLdError {
+        sb.setLength(0);
+        RDFDatasetUtils.toNQuad(quad, graphName, null, sb);
+        writeLine(sb);
+    }
+
+    /**
+     * Writes all of the quads of a dataset, one graph after the other.
+     *
+     * @param dataset
+     *            the dataset.
+     * @throws JsonLdError
+     *             if the output can't be written.
+     */
+    public void write(RDFDataset dataset) throws JsonLdError {
+        for (final String graphName : dataset.graphNames()) {
+            final List<RDFDataset.Quad> quads = dataset.getQuads(graphName);
+            final String name = "@default".equals(graphName) ? null : graphName;
+            for (final RDFDataset.Quad quad : quads) {
+                write(quad, name);
+            }
+        }
+    }
+
+    /**
+     * Handles the N-Quads line of a quad, including its line break. The
+     * builder is reused for the next quad.
+     *
+     * @param line
+     *            the line.
+     * @throws JsonLdError
+     *             if the line can't be written.
+     */
+    protected abstract void writeLine(StringBuilder line) throws JsonLdError;
+}
@@ -0,0 +1,399 @@
+package com.github.jsonldjava.core;
+
+import static com.github.jsonldjava.core.BinaryQuadWriter.BLANK_NODE;
+import static com.github.jsonldjava.core.BinaryQuadWriter.DEFLATE;
+import static com.github.jsonldjava.core.BinaryQuadWriter.END;
+import static com.github.jsonldjava.core.BinaryQuadWriter.IRI;
+import static com.github.jsonldjava.core.BinaryQuadWriter.LANGUAGE;
+import static com.github.jsonldjava.core.BinaryQuadWriter.MAGIC;
+import static com.github.jsonldjava.core.BinaryQuadWriter.MAX_BLOCK_LENGTH;
+import static com.github.jsonldjava.core.BinaryQuadWriter.NAMESPACES;
+import static com.github.jsonldjava.core.BinaryQuadWriter.NEW_GRAPH;
+import static com.github.jsonldjava.core.BinaryQuadWriter.NEW_PREDICATE;
+import static com.github.jsonldjava.core.BinaryQuadWriter.NEW_SUBJECT;
+import static com.github.jsonldjava.core.BinaryQuadWriter.QUADS;
+import static com.github.jsonldjava.core.BinaryQuadWriter.RAW;
+import static com.github.jsonldjava.core.BinaryQuadWriter.STRING;
+import static com.github.jsonldjava.core.BinaryQuadWriter.TERMS;
+import static com.github.jsonldjava.core.BinaryQuadWriter.TYPED;
+import static com.github.jsonldjava.core.BinaryQuadWriter.TYPED_LANGUAGE;
+import static com.github.jsonldjava.core.BinaryQuadWriter.VERSION;
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_LANGSTRING;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_STRING;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.github.jsonldjava.core.JsonLdError.Error;
+
+/**
+ * Reads quads written by a {@link BinaryQuadWriter}.
+ *
+ * The input is read a block at a time, so each quad can be handed to a
+ * {@link QuadCallback} as soon as its block has been read; only the terms are
+ * kept in memory, each of them once.
+ */
+public class BinaryQuadReader {
+
+    private final InputStream in;
+    private final Inflater inflater = new Inflater();
+
+    private boolean started = false;
+    private boolean ended = false;
+
+    private final List<RDFDataset.Node> terms = new ArrayList<RDFDataset.Node>();
+    private final Map<String, String> namespaces = new LinkedHashMap<String, String>();
+
+    // the block being decoded
+    private byte[] block = new byte[8192];
+    private byte[] compressed = new byte[8192];
+    private int pos = 0;
+    private int limit = 0;
+    private String previous = "";
+    private final StringBuilder sb = new StringBuilder();
+
+    // the state of the quads block being decoded
+    private int remaining = 0;
+    private int graph;
+    private int subject;
+    private int predicate;
+    private int object;
+
+    public BinaryQuadReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads all of the remaining quads into a new dataset, which also gets
+     * the namespaces that were written. Duplicate quads are kept as they
+     * were written.
+     *
+     * @return the dataset.
+     * @throws JsonLdError
+     *             if the input is not valid or cannot be read.
+     */
+    public RDFDataset parse() throws JsonLdError {
+        final RDFDataset dataset = new RDFDataset();
+        RDFDataset.Quad quad;
+        while ((quad = next()) != null) {
+            final String name = quad.getGraph() == null ? "@default" : quad.getGraph()
+                    .getValue();
+            List<RDFDataset.Quad> quads = (List<RDFDataset.Quad>) dataset.get(name);
+            if (quads == null) {
+                quads = new ArrayList<RDFDataset.Quad>();
+                dataset.put(name, quads);
+            }
+            quads.add(quad);
+        }
+        for (final Map.Entry<String, String> entry : namespaces.entrySet()) {
+            dataset.setNamespace(entry.getKey(), entry.getValue());
+        }
+        return dataset;
+    }
+
+    /**
+     * Reads all of the remaining quads, passing each one to the callback.
+     *
+     * @param callback
+     *            the callback for each quad.
+     * @throws JsonLdError
+     *             if the input is not valid or cannot be read, or if the
+     *             callback throws an error.
+     */
+    public void parse(QuadCallback callback) throws JsonLdError {
+        RDFDataset.Quad quad;
+        while ((quad = next()) != null) {
+            callback.call(quad);
+        }
+    }
+
+    /**
+     * Reads the next quad.
+     *
+     * @return the quad, or null at the end of the input.
+     * @throws JsonLdError
+     *             if the input is not valid or cannot be read.
+     */
+    public RDFDataset.Quad next() throws JsonLdError {
+        while (remaining == 0) {
+            if (ended || !readBlock()) {
+                return null;
+            }
+        }
+        remaining--;
+        final int flags = readByte();
+        if ((flags & NEW_GRAPH) != 0) {
+            graph = readVarInt() - 1;
+        }
+        if ((flags & NEW_SUBJECT) != 0) {
+            subject += unZigZag(readVarInt());
+        }
+        if ((flags & NEW_PREDICATE) != 0) {
+            predicate = readVarInt();
+        }
+        object += unZigZag(readVarInt());
+        return new RDFDataset.Quad(term(subject), term(predicate), term(object),
+                graph == QuadTable.DEFAULT_GRAPH ? null : term(graph).getValue());
+    }
+
+    /**
+     * @return the namespaces read so far, as a map from prefix to namespace
+     *         IRI.
+     */
+    public Map<String, String> getNamespaces() {
+        return namespaces;
+    }
+
+    /**
+     * Closes the input.
+     */
+    public void close() throws JsonLdError {
+        if (!ended) {
+            ended = true;
+            inflater.end();
+        }
+        try {
+            in.close();
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the next block, decoding it unless it holds quads.
+     *
+     * @return false at the end of the data.
+     */
+    private boolean readBlock() throws JsonLdError {
+        final int type;
+        try {
+            if (!started) {
+                for (final byte b : MAGIC) {
+                    if (in.read() != b) {
+                        throw error("not binary RDF");
+                    }
+                }
+                final int version = in.read();
+                if (version != VERSION) {
+                    throw error("unsupported version " + version);
+                }
+                started = true;
+            }
+            type = in.read();
+            final int encoding = in.read();
+            if (encoding < 0) {
+                throw error("unexpected end of input");
+            }
+            final int length = readBlockLength();
+            if (encoding == RAW) {
+                if (block.length < length) {
+                    block = new byte[Math.max(length, block.length * 2)];
+                }
+                readFully(block, length);
+                limit = length;
+            } else if (encoding == DEFLATE) {
+                final int rawLength = readBlockLength();
+                if (compressed.length < length) {
+                    compressed = new byte[Math.max(length, compressed.length * 2)];
+                }
+                readFully(compressed, length);
+                if (block.length < rawLength) {
+                    block = new byte[Math.max(rawLength, block.length * 2)];
+                }
+                inflater.reset();
+                inflater.setInput(compressed, 0, length);
+                try {
+                    if (inflater.inflate(block, 0, rawLength) != rawLength
+                            || !inflater.finished() || inflater.getRemaining() != 0) {
+                        throw error("invalid compressed block");
+                    }
+                } catch (final DataFormatException e) {
+                    throw error("invalid compressed block: " + e.getMessage());
+                }
+                limit = rawLength;
+            } else {
+                throw error("unknown block encoding " + encoding);
+            }
+            pos = 0;
+            previous = "";
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.LOADING_DOCUMENT_FAILED, e.getMessage());
+        }
+        switch (type) {
+        case TERMS:
+            readTerms();
+            break;
+        case NAMESPACES:
+            for (int n = readVarInt(); n > 0; n--) {
+                final String prefix = readString();
+                namespaces.put(prefix, readString());
+            }
+            break;
+        case QUADS:
+            remaining = readVarInt();
+            graph = QuadTable.DEFAULT_GRAPH;
+            subject = 0;
+            predicate = 0;
+            object = 0;
+            break;
+        case END:
+            ended = true;
+            inflater.end();
+            return false;
+        default:
+            throw error("unknown block type " + type);
+        }
+        return true;
+    }
+
+    private void readTerms() throws JsonLdError {
+        for (int n = readVarInt(); n > 0; n--) {
+            final int kind = readByte();
+            final RDFDataset.Node term;
+            switch (kind) {
+            case IRI:
+                term = new RDFDataset.IRI(readString());
+                break;
+            case BLANK_NODE:
+                term = new RDFDataset.BlankNode(readString());
+                break;
+            case STRING:
+                term = new RDFDataset.Literal(readString(), XSD_STRING, null);
+                break;
+            case LANGUAGE: {
+                final String value = readString();
+                term = new RDFDataset.Literal(value, RDF_LANGSTRING, readString());
+                break;
+            }
+            case TYPED:
+            case TYPED_LANGUAGE: {
+                final String value = readString();
+                final String datatype = term(readVarInt()).getValue();
+                term = new RDFDataset.Literal(value, datatype, kind == TYPED ? null
+                        : readString());
+                break;
+            }
+            default:
+                throw error("unknown term kind " + kind);
+            }
+            terms.add(term);
+        }
+    }
+
+    private RDFDataset.Node term(int id) throws JsonLdError {
+        if (id < 0 || id >= terms.size()) {
+            throw error("undefined term " + id);
+        }
+        return terms.get(id);
+    }
+
+    private int readByte() throws JsonLdError {
+        if (pos >= limit) {
+            throw error("unexpected end of block");
+        }
+        return block[pos++] & 0xff;
+    }
+
+    private int readVarInt() throws JsonLdError {
+        int rval = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = readByte();
+            rval |= (b & 0x7f) << shift;
+            if (b < 0x80) {
+                return rval;
+            }
+        }
+        throw error("invalid number");
+    }
+
+    /**
+     * Reads a string written as the number of leading chars it shares with
+     * the previous string and the UTF-8 bytes of the rest.
+     */
+    private String readString() throws JsonLdError {
+        final int shared = readVarInt();
+        final int length = readVarInt();
+        if (shared > previous.length() || length < 0 || length > limit - pos) {
+            throw error("invalid string");
+        }
+        sb.setLength(0);
+        sb.append(previous, 0, shared);
+        final int end = pos + length;
+        while (pos < end) {
+            final int b = block[pos++] & 0xff;
+            if (b < 0x80) {
+                sb.append((char) b);
+            } else if (b < 0xe0) {
+                sb.append((char) (((b & 0x1f) << 6) | continuation(end)));
+            } else if (b < 0xf0) {
+                final int c = (b & 0x0f) << 12 | continuation(end) << 6;
+                sb.append((char) (c | continuation(end)));
+            } else {
+                int cp = (b & 0x07) << 18 | continuation(end) << 12;
+                cp |= continuation(end) << 6;
+                sb.appendCodePoint(cp | continuation(end));
+            }
+        }
+        previous = sb.toString();
+        return previous;
+    }
+
+    private int continuation(int end) throws JsonLdError {
+        if (pos >= end) {
+            throw error("invalid UTF-8");
+        }
+        return block[pos++] & 0x3f;
+    }
+
+    private int readStreamVarInt() throws IOException, JsonLdError {
+        int rval = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = in.read();
+            if (b < 0) {
+                throw error("unexpected end of input");
+            }
+            rval |= (b & 0x7f) << shift;
+            if (b < 0x80) {
+                return rval;
+            }
+        }
+        throw error("invalid number");
+    }
+
+    /**
+     * Reads the length of a block, which is checked before anything is
+     * allocated for it.
+     */
+    private int readBlockLength() throws IOException, JsonLdError {
+        final int length = readStreamVarInt();
+        if (length < 0 || length > MAX_BLOCK_LENGTH) {
+            throw error("invalid block length " + length);
+        }
+        return length;
+    }
+
+    private void readFully(byte[] buf, int length) throws IOException, JsonLdError {
+        int read = 0;
+        while (read < length) {
+            final int n = in.read(buf, read, length - read);
+            if (n < 0) {
+                throw error("unexpected end of input");
+            }
+            read += n;
+        }
+    }
+
+    static int unZigZag(int n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private JsonLdError error(String message) {
+        return new JsonLdError(Error.SYNTAX_ERROR, "Error while reading binary RDF; " + message);
+    }
+}
@@ -0,0 +1,543 @@
+package com.github.jsonldjava.core;
+
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_LANGSTRING;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_STRING;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import com.github.jsonldjava.core.JsonLdError.Error;
+
+/**
+ * Writes quads in a compact binary format, which can be read back with a
+ * {@link BinaryQuadReader} much faster than N-Quads can be parsed.
+ *
+ * Each distinct term is written once, in a block of terms, and the quads
+ * refer to the terms by the ids a {@link TermDictionary} gives them. A block
+ * of quads is preceded by a block with the terms that it uses for the first
+ * time. All numbers are written as variable-length ints (7 bits per byte),
+ * the subjects and objects as the difference from the previous quad, and a
+ * graph, subject or predicate which is the same as in the previous quad is
+ * left out. Strings are written as the number of leading chars they share
+ * with the previous string followed by the UTF-8 bytes of the rest, which
+ * keeps IRIs with a common namespace short. Each block can be compressed
+ * with Deflate.
+ *
+ * The blocks don't depend on each other apart from the term ids, so a block
+ * of quads can be decoded once the terms written before it are known.
+ *
+ * The output is buffered a block at a time, so it is not necessary to wrap
+ * the stream in a {@link java.io.BufferedOutputStream}.
+ */
+public class BinaryQuadWriter implements QuadCallback {
+
+    /**
+     * The media type of the format, which can be used as
+     * {@link JsonLdOptions#format} with {@link JsonLdProcessor}.
+     */
+    public static final String MEDIA_TYPE = "application/x-jsonld-binary-quads";
+
+    /**
+     * The default number of quads in a block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    /**
+     * The largest length of a block in bytes, before and after compression.
+     * Blocks of terms are split to stay below it, so only a single term
+     * which is longer than that can't be written.
+     */
+    static final int MAX_BLOCK_LENGTH = 64 * 1024 * 1024;
+
+    // the most bytes a quad can take: its flags and four varints
+    private static final int MAX_QUAD_LENGTH = 1 + 4 * 5;
+
+    /**
+     * The largest number of quads in a block.
+     */
+    public static final int MAX_BLOCK_SIZE = (MAX_BLOCK_LENGTH - 5) / MAX_QUAD_LENGTH;
+
+    static final byte[] MAGIC = { 'J', 'L', 'D', 'Q' };
+    static final int VERSION = 1;
+
+    // block types
+    static final int NAMESPACES = 'N';
+    static final int TERMS = 'T';
+    static final int QUADS = 'Q';
+    static final int END = 'E';
+
+    // block encodings
+    static final int RAW = 0;
+    static final int DEFLATE = 1;
+
+    // term kinds
+    static final int IRI = 0;
+    static final int BLANK_NODE = 1;
+    static final int STRING = 2;
+    static final int TYPED = 3;
+    static final int LANGUAGE = 4;
+    static final int TYPED_LANGUAGE = 5;
+
+    // flags for the parts of a quad which differ from the previous quad
+    static final int NEW_GRAPH = 1;
+    static final int NEW_SUBJECT = 2;
+    static final int NEW_PREDICATE = 4;
+
+    private final OutputStream out;
+    private final int blockSize;
+    private final Deflater deflater;
+
+    private final TermDictionary dictionary = new TermDictionary();
+    // the terms with a lower id have been written
+    private int writtenTerms = 0;
+    private final int[] quads;
+    private int count = 0;
+    private boolean started = false;
+    private boolean finished = false;
+
+    private final Bytes block = new Bytes();
+    private final Bytes compressed = new Bytes();
+    private final Bytes header = new Bytes();
+    private String previous = "";
+
+    public BinaryQuadWriter(OutputStream out) {
+        this(out, DEFAULT_BLOCK_SIZE, true);
+    }
+
+    /**
+     * @param out
+     *            the output.
+     * @param blockSize
+     *            the number of quads in a block, at most
+     *            {@link #MAX_BLOCK_SIZE}.
+     * @param compress
+     *            whether to compress the blocks with Deflate.
+     */
+    public BinaryQuadWriter(OutputStream out, int blockSize, boolean compress) {
+        if (blockSize < 1 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("blockSize must be between 1 and "
+                    + MAX_BLOCK_SIZE);
+        }
+        this.out = out;
+        this.blockSize = blockSize;
+        this.quads = new int[blockSize * 4];
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+    }
+
+    @Override
+    public void call(RDFDataset.Quad quad) throws JsonLdError {
+        write(quad);
+    }
+
+    /**
+     * Writes a quad, in the graph it names.
+     */
+    public void write(RDFDataset.Quad quad) throws JsonLdError {
+        final RDFDataset.Node graph = quad.getGraph();
+        write(quad, graph == null ? QuadTable.DEFAULT_GRAPH : dictionary.encode(graph));
+    }
+
+    /**
+     * Writes a quad in the given graph (or the default graph if null).
+     */
+    public void write(RDFDataset.Quad quad, String graphName) throws JsonLdError {
+        write(quad, graphName == null || "@default".equals(graphName) ? QuadTable.DEFAULT_GRAPH
+                : dictionary.encode(graphName.startsWith("_:") ? new RDFDataset.BlankNode(
+                        graphName) : new RDFDataset.IRI(graphName)));
+    }
+
+    /**
+     * Writes the namespaces and all of the quads of a dataset.
+     */
+    public void write(RDFDataset dataset) throws JsonLdError {
+        writeNamespaces(dataset.getNamespaces());
+        for (final String graphName : dataset.graphNames()) {
+            final List<RDFDataset.Quad> graph = dataset.getQuads(graphName);
+            final int g = "@default".equals(graphName) ? QuadTable.DEFAULT_GRAPH : dictionary
+                    .encode(graphName.startsWith("_:") ? new RDFDataset.BlankNode(graphName)
+                            : new RDFDataset.IRI(graphName));
+            for (final RDFDataset.Quad quad : graph) {
+                write(quad, g);
+            }
+        }
+    }
+
+    /**
+     * Writes namespace prefixes, which the reader adds to the dataset it
+     * returns.
+     *
+     * @param namespaces
+     *            a map from prefix to namespace IRI.
+     */
+    public void writeNamespaces(Map<String, String> namespaces) throws JsonLdError {
+        if (namespaces.isEmpty()) {
+            return;
+        }
+        flushQuads();
+        block.clear();
+        previous = "";
+        block.writeVarInt(namespaces.size());
+        for (final Map.Entry<String, String> entry : namespaces.entrySet()) {
+            writeString(entry.getKey());
+            writeString(entry.getValue());
+        }
+        writeBlock(NAMESPACES);
+    }
+
+    /**
+     * Writes all of the quads written so far and the end of the data, and
+     * flushes the output (which is not closed). Nothing can be written
+     * afterwards.
+     *
+     * @throws JsonLdError
+     *             if the output can't be written.
+     */
+    public void finish() throws JsonLdError {
+        if (finished) {
+            return;
+        }
+        flushQuads();
+        block.clear();
+        writeBlock(END);
+        finished = true;
+        if (deflater != null) {
+            deflater.end();
+        }
+        try {
+            out.flush();
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Finishes writing and closes the output.
+     */
+    public void close() throws JsonLdError {
+        finish();
+        try {
+            out.close();
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        }
+    }
+
+    private void write(RDFDataset.Quad quad, int graph) throws JsonLdError {
+        if (finished) {
+            throw new IllegalStateException("the writer has been finished");
+        }
+        final int i = count * 4;
+        quads[i] = graph;
+        quads[i + 1] = dictionary.encode(quad.getSubject());
+        quads[i + 2] = dictionary.encode(quad.getPredicate());
+        final RDFDataset.Node object = quad.getObject();
+        if (object.isLiteral() && hasDatatypeTerm(literalKind(object))) {
+            // the datatype is written as the id of an IRI term, which has to
+            // come before the literal
+            dictionary.encode(new RDFDataset.IRI(object.getDatatype()));
+        }
+        quads[i + 3] = dictionary.encode(object);
+        if (++count == blockSize) {
+            flushQuads();
+        }
+    }
+
+    /**
+     * Writes the new terms and the quads held in memory.
+     */
+    private void flushQuads() throws JsonLdError {
+        if (count == 0) {
+            return;
+        }
+        writeTerms();
+        block.clear();
+        block.writeVarInt(count);
+        int graph = QuadTable.DEFAULT_GRAPH;
+        int subject = 0;
+        int predicate = 0;
+        int object = 0;
+        for (int i = 0; i < count * 4; i += 4) {
+            final int g = quads[i];
+            final int s = quads[i + 1];
+            final int p = quads[i + 2];
+            final int o = quads[i + 3];
+            int flags = 0;
+            if (g != graph) {
+                flags |= NEW_GRAPH;
+            }
+            if (s != subject) {
+                flags |= NEW_SUBJECT;
+            }
+            if (p != predicate) {
+                flags |= NEW_PREDICATE;
+            }
+            block.write(flags);
+            if (g != graph) {
+                // the default graph (-1) is written as 0
+                block.writeVarInt(g + 1);
+                graph = g;
+            }
+            if (s != subject) {
+                block.writeVarInt(zigZag(s - subject));
+                subject = s;
+            }
+            if (p != predicate) {
+                block.writeVarInt(p);
+                predicate = p;
+            }
+            block.writeVarInt(zigZag(o - object));
+            object = o;
+        }
+        count = 0;
+        writeBlock(QUADS);
+    }
+
+    /**
+     * @return the kind of term a literal is written as.
+     */
+    static int literalKind(RDFDataset.Node literal) {
+        final String datatype = literal.getDatatype();
+        if (literal.getLanguage() == null) {
+            return XSD_STRING.equals(datatype) ? STRING : TYPED;
+        }
+        return RDF_LANGSTRING.equals(datatype) ? LANGUAGE : TYPED_LANGUAGE;
+    }
+
+    /**
+     * @return true if a literal of the given kind refers to its datatype by
+     *         the id of an IRI term.
+     */
+    static boolean hasDatatypeTerm(int kind) {
+        return kind == TYPED || kind == TYPED_LANGUAGE;
+    }
+
+    /**
+     * Writes the terms which haven't been written yet, in as many blocks as it
+     * takes to keep each one below {@link #MAX_BLOCK_LENGTH}.
+     */
+    private void writeTerms() throws JsonLdError {
+        final int size = dictionary.size();
+        while (writtenTerms < size) {
+            // the number of terms comes first
+            long length = 5;
+            int end = writtenTerms;
+            while (end < size) {
+                final long termLength = maxLength(dictionary.decode(end));
+                if (end > writtenTerms && length + termLength > MAX_BLOCK_LENGTH) {
+                    break;
+                }
+                length += termLength;
+                end++;
+            }
+            block.clear();
+            previous = "";
+            block.writeVarInt(end - writtenTerms);
+            for (int id = writtenTerms; id < end; id++) {
+                writeTerm(dictionary.decode(id));
+            }
+            writtenTerms = end;
+            writeBlock(TERMS);
+        }
+    }
+
+    private void writeTerm(RDFDataset.Node term) {
+        if (term.isIRI()) {
+            block.write(IRI);
+            writeString(term.getValue());
+        } else if (term.isBlankNode()) {
+            block.write(BLANK_NODE);
+            writeString(term.getValue());
+        } else {
+            final int kind = literalKind(term);
+            block.write(kind);
+            writeString(term.getValue());
+            if (hasDatatypeTerm(kind)) {
+                block.writeVarInt(dictionary.lookup(new RDFDataset.IRI(term.getDatatype())));
+            }
+            if (term.getLanguage() != null) {
+                writeString(term.getLanguage());
+            }
+        }
+    }
+
+    /**
+     * @return the most bytes the term can take: its kind, two strings of up
+     *         to three bytes per char with two varints each, and the id of its
+     *         datatype.
+     */
+    private static long maxLength(RDFDataset.Node term) {
+        final String language = term.getLanguage();
+        return 1 + 4 * 5 + 5 + 3L
+                * (term.getValue().length() + (language == null ? 0 : language.length()));
+    }
+
+    /**
+     * Writes a string as the number of leading chars it shares with the
+     * previous string and the UTF-8 bytes of the rest.
+     */
+    private void writeString(String value) {
+        final int max = Math.min(value.length(), previous.length());
+        int shared = 0;
+        while (shared < max && value.charAt(shared) == previous.charAt(shared)) {
+            shared++;
+        }
+        // don't split a surrogate pair
+        if (shared > 0 && shared < value.length()
+                && Character.isLowSurrogate(value.charAt(shared))) {
+            shared--;
+        }
+        block.writeVarInt(shared);
+        block.writeUtf8(value, shared);
+        previous = value;
+    }
+
+    /**
+     * Writes the block held in {@link #block}, preceded by its type, its
+     * encoding and its length.
+     */
+    private void writeBlock(int type) throws JsonLdError {
+        if (block.size() > MAX_BLOCK_LENGTH) {
+            throw new JsonLdError(Error.INVALID_INPUT, "a term is too long for binary RDF");
+        }
+        try {
+            if (!started) {
+                out.write(MAGIC);
+                out.write(VERSION);
+                started = true;
+            }
+            header.clear();
+            header.write(type);
+            Bytes data = block;
+            if (deflater != null && block.size() > 64) {
+                compressed.clear();
+                deflater.reset();
+                deflater.setInput(block.buffer(), 0, block.size());
+                deflater.finish();
+                while (!deflater.finished()) {
+                    compressed.ensureCapacity(block.size() / 2 + 64);
+                    compressed.setSize(compressed.size()
+                            + deflater.deflate(compressed.buffer(), compressed.size(),
+                                    compressed.buffer().length - compressed.size()));
+                }
+                if (compressed.size() < block.size()) {
+                    data = compressed;
+                }
+            }
+            if (data == compressed) {
+                header.write(DEFLATE);
+                header.writeVarInt(compressed.size());
+                header.writeVarInt(block.size());
+            } else {
+                header.write(RAW);
+                header.writeVarInt(block.size());
+            }
+            out.write(header.buffer(), 0, header.size());
+            out.write(data.buffer(), 0, data.size());
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        }
+    }
+
+    static int zigZag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    /**
+     * A growable byte array.
+     */
+    private static final class Bytes {
+        private byte[] buf = new byte[8192];
+        private int size = 0;
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void setSize(int size) {
+            this.size = size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void ensureCapacity(int free) {
+            if (buf.length - size < free) {
+                final byte[] grown = new byte[Math.max(buf.length * 2, size + free)];
+                System.arraycopy(buf, 0, grown, 0, size);
+                buf = grown;
+            }
+        }
+
+        void write(int b) {
+            ensureCapacity(1);
+            buf[size++] = (byte) b;
+        }
+
+        void writeVarInt(int n) {
+            ensureCapacity(5);
+            while ((n & ~0x7f) != 0) {
+                buf[size++] = (byte) ((n & 0x7f) | 0x80);
+                n >>>= 7;
+            }
+            buf[size++] = (byte) n;
+        }
+
+        /**
+         * Writes the byte length and the UTF-8 bytes of the chars of a string
+         * from the given index. An unpaired surrogate is written as '?', as
+         * String.getBytes does.
+         */
+        void writeUtf8(String value, int from) {
+            final int length = value.length();
+            int bytes = 0;
+            for (int i = from; i < length; i++) {
+                final char c = value.charAt(i);
+                if (c < 0x80) {
+                    bytes++;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    bytes += 4;
+                    i++;
+                } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                    bytes++;
+                } else {
+                    bytes += 3;
+                }
+            }
+            writeVarInt(bytes);
+            ensureCapacity(bytes);
+            for (int i = from; i < length; i++) {
+                final char c = value.charAt(i);
+                if (c < 0x80) {
+                    buf[size++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[size++] = (byte) (0xc0 | (c >> 6));
+                    buf[size++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    final int cp = Character.toCodePoint(c, value.charAt(++i));
+                    buf[size++] = (byte) (0xf0 | (cp >> 18));
+                    buf[size++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    buf[size++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    buf[size++] = (byte) (0x80 | (cp & 0x3f));
+                } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                    buf[size++] = '?';
+                } else {
+                    buf[size++] = (byte) (0xe0 | (c >> 12));
+                    buf[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    buf[size++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+        }
+    }
+}
@@ -8,23 +8,51 @@ import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.github.jsonldjava.core.JsonLdError.Error;
 import com.github.jsonldjava.utils.Obj;
+import com.github.jsonldjava.utils.BaseIri;
 import com.github.jsonldjava.utils.URL;
 
 /**
  * A helper class which still stores all the values in a map but gives member
  * variables easily access certain keys
  * 
+ * A context is created by {@link #parse(Object)}, which never modifies the
+ * context it is called on but returns a new one. Once a context has been
+ * created it can be used by any number of threads at the same time (e.g. for
+ * compaction or expansion), as long as none of them modifies it through the
+ * {@link Map} methods. The inverse context is created safely on first use.
+ * 
  * @author tristan
  * 
  */
 public class Context extends LinkedHashMap<String, Object> {
 
     private JsonLdOptions options;
-    private Map<String, Object> termDefinitions;
-    public Map<String, Object> inverse = null;
+    private TermDefinitions termDefinitions;
+    // created lazily by getInverse(), never modified once it has been set
+    private volatile Map<String, Object> inverse = null;
+
+    // memoized results of IRI compaction and term selection, only set once
+    // the context has been compiled (see compile())
+    private volatile ConcurrentMap<Object, Object> compactionCache = null;
+
+    // memoized results of IRI expansion outside of context processing, one
+    // table for each combination of the relative and vocab flags (see
+    // expandIri()); dropped whenever the context changes
+    private volatile List<ConcurrentMap<String, Object>> expansionCache = null;
+
+    // the parsed @base, created on first use and dropped when the context
+    // changes
+    private volatile BaseIri baseIri = null;
+
+    // stands for a null result in the compaction and expansion caches
+    private static final Object NO_TERM = new Object();
+    private static final int MAX_COMPACTION_CACHE_SIZE = 65536;
+    private static final int MAX_EXPANSION_CACHE_SIZE = 16384;
 
     public Context() {
         this(new JsonLdOptions());
@@ -55,7 +83,19 @@ public class Context extends LinkedHashMap<String, Object> {
         if (options.getBase() != null) {
             this.put("@base", options.getBase());
         }
-        this.termDefinitions = new LinkedHashMap<String, Object>();
+        this.termDefinitions = new TermDefinitions();
+    }
+
+    /**
+     * @return the term definitions of this context, ready to be modified (they
+     *         are shared with the contexts cloned from this one until then).
+     */
+    private TermDefinitions ownTermDefinitions() {
+        expansionCache = null;
+        if (termDefinitions.isFrozen()) {
+            termDefinitions = termDefinitions.fork();
+        }
+        return termDefinitions;
     }
 
     /**
@@ -149,27 +189,56 @@ public class Context extends LinkedHashMap<String, Object> {
             }
             // 3.2)
             else if (context instanceof String) {
-                String uri = (String) result.get("@base");
-                uri = URL.resolve(uri, (String) context);
+                final String uri = result.resolve((String) context);
                 // 3.2.2
                 if (remoteContexts.contains(uri)) {
                     throw new JsonLdError(Error.RECURSIVE_CONTEXT_INCLUSION, uri);
                 }
+
+                // the result of applying a remote context to an empty active
+                // context only depends on the remote context and the base IRI,
+                // so it can be reused as long as it doesn't include any of the
+                // remote contexts we are already processing
+                final ContextCache cache = this.options.getContextCache();
+                final boolean cacheable = cache != null && result.isEmptyContext();
+                final String base = (String) result.get("@base");
+                if (cacheable) {
+                    final ContextCache.ParsedContext parsed = cache.getParsedContext(uri, base);
+                    if (parsed != null
+                            && Collections.disjoint(parsed.remoteContexts, remoteContexts)) {
+                        remoteContexts.addAll(parsed.remoteContexts);
+                        result = parsed.context.clone();
+                        result.options = this.options;
+                        continue;
+                    }
+                }
                 remoteContexts.add(uri);
+                final int firstRemoteContext = remoteContexts.size() - 1;
 
                 // 3.2.3: Dereference context
-                final RemoteDocument rd = this.options.documentLoader.loadDocument(uri);
-                final Object remoteContext = rd.document;
-                if (!(remoteContext instanceof Map)
-                        || !((Map<String, Object>) remoteContext).containsKey("@context")) {
-                    // If the dereferenced document has no top-level JSON object
-                    // with an @context member
-                    throw new JsonLdError(Error.INVALID_REMOTE_CONTEXT, context);
+                Object remoteLocalContext = cache != null ? cache.getLocalContext(uri) : null;
+                if (remoteLocalContext == null) {
+                    final RemoteDocument rd = this.options.documentLoader.loadDocument(uri);
+                    final Object remoteContext = rd.document;
+                    if (!(remoteContext instanceof Map)
+                            || !((Map<String, Object>) remoteContext).containsKey("@context")) {
+                        // If the dereferenced document has no top-level JSON
+                        // object with an @context member
+                        throw new JsonLdError(Error.INVALID_REMOTE_CONTEXT, context);
+                    }
+                    remoteLocalContext = ((Map<String, Object>) remoteContext).get("@context");
+                    if (cache != null) {
+                        cache.putLocalContext(uri, remoteLocalContext);
+                    }
                 }
-                context = ((Map<String, Object>) remoteContext).get("@context");
+                context = remoteLocalContext;
 
                 // 3.2.4
                 result = result.parse(context, remoteContexts);
+                if (cacheable) {
+                    cache.putParsedContext(uri, base, result.clone(), remoteContexts.subList(
+                            firstRemoteContext, remoteContexts.size()));
+                }
                 // 3.2.5
                 continue;
             } else if (!(context instanceof Map)) {
@@ -190,7 +259,7 @@ public class Context extends LinkedHashMap<String, Object> {
                         if (!JsonLdUtils.isAbsoluteIri(baseUri)) {
                             throw new JsonLdError(Error.INVALID_BASE_IRI, baseUri);
                         }
-                        result.put("@base", URL.resolve(baseUri, (String) value));
+                        result.put("@base", result.resolve((String) value));
                     }
                 } else {
                     throw new JsonLdError(JsonLdError.Error.INVALID_BASE_IRI,
@@ -270,12 +339,12 @@ public class Context extends LinkedHashMap<String, Object> {
             throw new JsonLdError(Error.KEYWORD_REDEFINITION, term);
         }
 
-        this.termDefinitions.remove(term);
+        ownTermDefinitions().remove(term);
         Object value = context.get(term);
         if (value == null
                 || (value instanceof Map && ((Map<String, Object>) value).containsKey("@id") && ((Map<String, Object>) value)
                         .get("@id") == null)) {
-            this.termDefinitions.put(term, null);
+            ownTermDefinitions().put(term, null);
             defined.put(term, true);
             return;
         }
@@ -348,7 +417,7 @@ public class Context extends LinkedHashMap<String, Object> {
                 }
             }
             definition.put("@reverse", true);
-            this.termDefinitions.put(term, definition);
+            ownTermDefinitions().put(term, definition);
             defined.put(term, true);
             return;
         }
@@ -421,7 +490,7 @@ public class Context extends LinkedHashMap<String, Object> {
         }
 
         // 18)
-        this.termDefinitions.put(term, definition);
+        ownTermDefinitions().put(term, definition);
         defined.put(term, true);
     }
 
@@ -440,6 +509,37 @@ public class Context extends LinkedHashMap<String, Object> {
      */
     String expandIri(String value, boolean relative, boolean vocab, Map<String, Object> context,
             Map<String, Boolean> defined) throws JsonLdError {
+        // outside of context processing the result only depends on the
+        // arguments and this context
+        if (context == null && value != null) {
+            List<ConcurrentMap<String, Object>> caches = expansionCache;
+            if (caches == null) {
+                caches = new ArrayList<ConcurrentMap<String, Object>>(4);
+                for (int i = 0; i < 4; i++) {
+                    caches.add(new ConcurrentHashMap<String, Object>());
+                }
+                expansionCache = caches;
+            }
+            final ConcurrentMap<String, Object> cache = caches.get((relative ? 2 : 0)
+                    + (vocab ? 1 : 0));
+            final Object cached = cache.get(value);
+            if (cached != null) {
+                return cached == NO_TERM ? null : (String) cached;
+            }
+            final String rval = expandIriUncached(value, relative, vocab, null, null);
+            if (cache.size() >= MAX_EXPANSION_CACHE_SIZE) {
+                // start over rather than stop caching, so that the IRIs of
+                // the documents being expanded now are the ones cached
+                cache.clear();
+            }
+            cache.put(value, rval == null ? NO_TERM : rval);
+            return rval;
+        }
+        return expandIriUncached(value, relative, vocab, context, defined);
+    }
+
+    private String expandIriUncached(String value, boolean relative, boolean vocab,
+            Map<String, Object> context, Map<String, Boolean> defined) throws JsonLdError {
         // 1)
         if (value == null || JsonLdUtils.isKeyword(value)) {
             return value;
@@ -488,7 +588,7 @@ public class Context extends LinkedHashMap<String, Object> {
         }
         // 6)
         else if (relative) {
-            return URL.resolve((String) this.get("@base"), value);
+            return resolve(value);
         } else if (context != null && JsonLdUtils.isRelativeIri(value)) {
             throw new JsonLdError(Error.INVALID_IRI_MAPPING, "not an absolute IRI: " + value);
         }
@@ -522,6 +622,23 @@ public class Context extends LinkedHashMap<String, Object> {
             return null;
         }
 
+        // without a value the result only depends on the arguments (only
+        // vocabulary IRIs are memoized, as there is a bounded number of them)
+        if (compactionCache != null && value == null && relativeToVocab) {
+            final String key = (reverse ? "r" : "v") + iri;
+            String rval = (String) compactionCache.get(key);
+            if (rval == null) {
+                rval = compactIriUncached(iri, null, relativeToVocab, reverse);
+                memoize(key, rval);
+            }
+            return rval;
+        }
+        return compactIriUncached(iri, value, relativeToVocab, reverse);
+    }
+
+    private String compactIriUncached(String iri, Object value, boolean relativeToVocab,
+            boolean reverse) {
+
         // 2)
         if (relativeToVocab && getInverse().containsKey(iri)) {
             // 2.1)
@@ -680,13 +797,37 @@ public class Context extends LinkedHashMap<String, Object> {
             preferredValues.add("@none");
 
             // 2.14)
-            final String term = selectTerm(iri, containers, typeLanguage, preferredValues);
+            final String term = selectTermCached(iri, containers, typeLanguage, preferredValues);
             // 2.15)
             if (term != null) {
                 return term;
             }
         }
 
+        if (compactionCache == null || !relativeToVocab) {
+            return compactIriToPrefix(iri, value == null, relativeToVocab);
+        }
+        // the rest of the algorithm doesn't depend on the value itself
+        final String key = (value == null ? "p" : "P") + iri;
+        String rval = (String) compactionCache.get(key);
+        if (rval == null) {
+            rval = compactIriToPrefix(iri, value == null, relativeToVocab);
+            memoize(key, rval);
+        }
+        return rval;
+    }
+
+    private void memoize(Object key, Object value) {
+        if (value != null && compactionCache.size() < MAX_COMPACTION_CACHE_SIZE) {
+            compactionCache.put(key, value);
+        }
+    }
+
+    /**
+     * Steps 3-8 of the IRI compaction algorithm, used when no term was
+     * selected for the IRI.
+     */
+    private String compactIriToPrefix(String iri, boolean noValue, boolean relativeToVocab) {
         // 3)
         if (relativeToVocab && this.containsKey("@vocab")) {
             // determine if vocab is a prefix of the iri
@@ -725,7 +866,7 @@ public class Context extends LinkedHashMap<String, Object> {
             if ((compactIRI == null || compareShortestLeast(candidate, compactIRI) < 0)
                     && (!termDefinitions.containsKey(candidate) || (iri
                             .equals(((Map<String, Object>) termDefinitions.get(candidate))
-                                    .get("@id")) && value == null))) {
+                                    .get("@id")) && noValue))) {
                 compactIRI = candidate;
             }
 
@@ -738,7 +879,11 @@ public class Context extends LinkedHashMap<String, Object> {
 
         // 7)
         if (!relativeToVocab) {
-            return URL.removeBase(this.get("@base"), iri);
+            final Object base = this.get("@base");
+            if (base instanceof String) {
+                return getBaseIri().relativize(iri);
+            }
+            return URL.removeBase(base, iri);
         }
 
         // 8)
@@ -756,12 +901,110 @@ public class Context extends LinkedHashMap<String, Object> {
     @Override
     public Context clone() {
         final Context rval = (Context) super.clone();
-        // TODO: is this shallow copy enough? probably not, but it passes all
-        // the tests!
-        rval.termDefinitions = new LinkedHashMap<String, Object>(this.termDefinitions);
+        // the term definitions are shared until either context changes them
+        rval.termDefinitions = this.termDefinitions.fork();
+        // the clone is about to be modified, so it needs its own inverse
+        rval.inverse = null;
+        rval.compactionCache = null;
+        rval.expansionCache = null;
+        return rval;
+    }
+
+    /**
+     * Returns a copy of this context bound to the given options, sharing its
+     * term definitions, inverse context and memoized results, none of which
+     * depend on the options. Neither context may be modified afterwards.
+     */
+    Context withOptions(JsonLdOptions options) {
+        if (this.options == options) {
+            return this;
+        }
+        final Context rval = (Context) super.clone();
+        rval.options = options;
+        return rval;
+    }
+
+    /**
+     * Resolves an IRI against the base IRI of this context.
+     */
+    private String resolve(String iri) {
+        if (this.get("@base") == null) {
+            return iri;
+        }
+        return getBaseIri().resolve(iri);
+    }
+
+    private BaseIri getBaseIri() {
+        BaseIri rval = baseIri;
+        if (rval == null) {
+            rval = BaseIri.parse((String) this.get("@base"));
+            baseIri = rval;
+        }
         return rval;
     }
 
+    @Override
+    public Object put(String key, Object value) {
+        expansionCache = null;
+        baseIri = null;
+        return super.put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends Object> map) {
+        expansionCache = null;
+        baseIri = null;
+        super.putAll(map);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        expansionCache = null;
+        baseIri = null;
+        return super.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        expansionCache = null;
+        baseIri = null;
+        super.clear();
+    }
+
+    /**
+     * Prepares this context to be used for compacting any number of
+     * documents, possibly from multiple threads at once: the inverse context is
+     * created, the IRIs of all the term definitions are compacted up front,
+     * and from then on the results of IRI compaction and term selection are
+     * memoized. The context must not be modified afterwards.
+     * 
+     * @return this context.
+     */
+    Context compile() {
+        getInverse();
+        if (compactionCache == null) {
+            compactionCache = new ConcurrentHashMap<Object, Object>();
+            for (final Object definition : termDefinitions.values()) {
+                if (definition instanceof Map) {
+                    final Object id = ((Map<String, Object>) definition).get("@id");
+                    if (id instanceof String) {
+                        compactIri((String) id, true);
+                        compactIri((String) id, null, true, true);
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return true if this context has no term definitions, default language
+     *         or vocabulary mapping, i.e. it only (possibly) holds a base IRI.
+     */
+    private boolean isEmptyContext() {
+        return termDefinitions.isEmpty() && !containsKey("@vocab") && !containsKey("@language");
+    }
+
     /**
      * Inverse Context Creation
      * 
@@ -775,11 +1018,14 @@ public class Context extends LinkedHashMap<String, Object> {
     public Map<String, Object> getInverse() {
 
         // lazily create inverse
+        Map<String, Object> inverse = this.inverse;
         if (inverse != null) {
             return inverse;
         }
 
-        // 1)
+        // 1) NOTE: the inverse is built locally and only published once it is
+        // complete, so other threads never see a partial inverse (at worst it
+        // is created more than once)
         inverse = new LinkedHashMap<String, Object>();
 
         // 2)
@@ -878,9 +1124,69 @@ public class Context extends LinkedHashMap<String, Object> {
             }
         }
         // 4)
+        this.inverse = inverse;
         return inverse;
     }
 
+    /**
+     * Term selection, memoized in the compaction cache if there is one.
+     */
+    private String selectTermCached(String iri, List<String> containers, String typeLanguage,
+            List<String> preferredValues) {
+        if (compactionCache == null) {
+            return selectTerm(iri, containers, typeLanguage, preferredValues);
+        }
+        final TermSelection k = new TermSelection(iri, containers, typeLanguage, preferredValues);
+        final Object rval = compactionCache.get(k);
+        if (rval != null) {
+            return rval == NO_TERM ? null : (String) rval;
+        }
+        final String term = selectTerm(iri, containers, typeLanguage, preferredValues);
+        memoize(k, term == null ? NO_TERM : term);
+        return term;
+    }
+
+    /**
+     * The arguments of term selection, as a key of the compaction cache. The
+     * lists are not copied, as compactIri() doesn't change them afterwards.
+     */
+    private static final class TermSelection {
+        final String iri;
+        final List<String> containers;
+        final String typeLanguage;
+        final List<String> preferredValues;
+        final int hash;
+
+        TermSelection(String iri, List<String> containers, String typeLanguage,
+                List<String> preferredValues) {
+            this.iri = iri;
+            this.containers = containers;
+            this.typeLanguage = typeLanguage;
+            this.preferredValues = preferredValues;
+            int h = iri.hashCode();
+            h = 31 * h + typeLanguage.hashCode();
+            h = 31 * h + containers.hashCode();
+            this.hash = 31 * h + preferredValues.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TermSelection)) {
+                return false;
+            }
+            final TermSelection other = (TermSelection) o;
+            return hash == other.hash && iri.equals(other.iri)
+                    && typeLanguage.equals(other.typeLanguage)
+                    && containers.equals(other.containers)
+                    && preferredValues.equals(other.preferredValues);
+        }
+    }
+
     /**
      * Term Selection
      * 
@@ -0,0 +1,384 @@
+package com.github.jsonldjava.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.jsonldjava.utils.Obj;
+
+/**
+ * A bounded cache of remote contexts, shared between calls to the processor
+ * through {@link JsonLdOptions#setContextCache(ContextCache)}.
+ *
+ * For each dereferenced context URI the cache keeps the value of the
+ * {@code @context} member of the remote document, so that it doesn't have to
+ * be loaded again. When the remote context is applied to an otherwise empty
+ * active context the parsed {@link Context} is kept as well, keyed by the
+ * context URI and the base IRI of the active context, so that the context
+ * processing algorithm doesn't have to be run again either.
+ *
+ * The cache also keeps the active contexts that
+ * {@link JsonLdProcessor#compact(Object, Object, JsonLdOptions)},
+ * {@link JsonLdProcessor#flatten(Object, Object, JsonLdOptions)} and
+ * {@link JsonLdProcessor#frame(Object, Object, JsonLdOptions)} create from the
+ * context they are given, along with their inverse contexts, keyed by a copy
+ * of that context and the base IRI. Compacting many documents against the
+ * same (equal) context then only processes the context once. A cached active
+ * context is handed out bound to the options of each caller, so the options
+ * it was first created with are not kept.
+ *
+ * Entries are evicted in least recently used order once the cache holds more
+ * than {@code maxEntries} URIs (and separately, {@code maxEntries} active
+ * contexts), and are ignored once they are older than {@code timeToLive}
+ * milliseconds (if positive). A single instance can be used from multiple
+ * threads.
+ *
+ * The cache doesn't know which {@link DocumentLoader} the documents came from,
+ * so it should only be shared between options that load documents the same
+ * way.
+ */
+public class ContextCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final int maxEntries;
+    private final long timeToLive;
+    private final Map<String, RemoteContextEntry> entries;
+    private final Map<ActiveContextKey, ActiveContextEntry> activeContexts;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong activeContextHits = new AtomicLong();
+    private final AtomicLong activeContextMisses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * A parsed remote context along with the URIs of all of the remote
+     * contexts that were loaded to create it (starting with its own).
+     */
+    static class ParsedContext {
+        final Context context;
+        final List<String> remoteContexts;
+
+        ParsedContext(Context context, List<String> remoteContexts) {
+            this.context = context;
+            this.remoteContexts = remoteContexts;
+        }
+    }
+
+    private static class RemoteContextEntry {
+        final Object localContext;
+        final long created;
+        final Map<String, ParsedContext> parsed = new LinkedHashMap<String, ParsedContext>();
+
+        RemoteContextEntry(Object localContext, long created) {
+            this.localContext = localContext;
+            this.created = created;
+        }
+    }
+
+    /**
+     * The key of an active context: a private deep copy of the local context it
+     * was created from, so that it can't be changed by the caller, and the
+     * base IRI. Local contexts are compared by value.
+     */
+    private static class ActiveContextKey {
+        final Object localContext;
+        final String base;
+        final int hash;
+
+        ActiveContextKey(Object localContext, String base) {
+            this.localContext = localContext;
+            this.base = base;
+            this.hash = 31 * (localContext == null ? 0 : localContext.hashCode())
+                    + (base == null ? 0 : base.hashCode());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ActiveContextKey)) {
+                return false;
+            }
+            final ActiveContextKey other = (ActiveContextKey) o;
+            return hash == other.hash && Obj.equals(base, other.base)
+                    && Obj.equals(localContext, other.localContext);
+        }
+    }
+
+    private static class ActiveContextEntry {
+        final Context context;
+        final long created;
+
+        ActiveContextEntry(Context context, long created) {
+            this.context = context;
+            this.created = created;
+        }
+    }
+
+    /**
+     * Creates a cache holding up to {@link #DEFAULT_MAX_ENTRIES} remote
+     * contexts which never expire.
+     */
+    public ContextCache() {
+        this(DEFAULT_MAX_ENTRIES, 0);
+    }
+
+    /**
+     * @param maxEntries
+     *            the maximum number of remote contexts to keep.
+     * @param timeToLive
+     *            the number of milliseconds after which an entry is reloaded,
+     *            or zero (or less) if entries never expire.
+     */
+    public ContextCache(final int maxEntries, long timeToLive) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+        this.entries = new LinkedHashMap<String, RemoteContextEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RemoteContextEntry> eldest) {
+                if (size() > ContextCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.activeContexts = new LinkedHashMap<ActiveContextKey, ActiveContextEntry>(16, 0.75f,
+                true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<ActiveContextKey, ActiveContextEntry> eldest) {
+                if (size() > ContextCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the {@code @context} value of the remote document at the given
+     * URI, if it is cached.
+     *
+     * @param uri
+     *            the resolved URI of the remote context.
+     * @return the cached value, or null if it has to be loaded.
+     */
+    Object getLocalContext(String uri) {
+        final RemoteContextEntry entry = getEntry(uri);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.localContext;
+    }
+
+    synchronized void putLocalContext(String uri, Object localContext) {
+        entries.put(uri, new RemoteContextEntry(localContext, now()));
+    }
+
+    /**
+     * Returns the result of applying the remote context at the given URI to an
+     * empty active context with the given base IRI. A miss is not counted
+     * here, as the caller will try {@link #getLocalContext(String)} next.
+     *
+     * @param uri
+     *            the resolved URI of the remote context.
+     * @param base
+     *            the base IRI of the active context.
+     * @return the cached parsed context, which must not be modified, or null.
+     */
+    ParsedContext getParsedContext(String uri, String base) {
+        final RemoteContextEntry entry = getEntry(uri);
+        if (entry == null) {
+            return null;
+        }
+        final ParsedContext rval;
+        synchronized (this) {
+            rval = entry.parsed.get(base);
+        }
+        if (rval != null) {
+            hits.incrementAndGet();
+        }
+        return rval;
+    }
+
+    synchronized void putParsedContext(String uri, String base, Context context,
+            List<String> remoteContexts) {
+        final RemoteContextEntry entry = entries.get(uri);
+        if (entry != null) {
+            entry.parsed.put(base,
+                    new ParsedContext(context, Collections.unmodifiableList(new ArrayList<String>(
+                            remoteContexts))));
+        }
+    }
+
+    /**
+     * Returns the active context created by parsing the given local context
+     * against an empty active context with the given base IRI, if it is
+     * cached.
+     *
+     * @param localContext
+     *            the local context.
+     * @param base
+     *            the base IRI.
+     * @param options
+     *            the options of the caller, which the returned context uses.
+     * @return the cached context, which is compiled and must not be modified,
+     *         or null.
+     */
+    Context getActiveContext(Object localContext, String base, JsonLdOptions options) {
+        final ActiveContextKey key = new ActiveContextKey(localContext, base);
+        final ActiveContextEntry entry;
+        synchronized (this) {
+            entry = activeContexts.get(key);
+            if (entry != null && isExpired(entry.created, now())) {
+                activeContexts.remove(key);
+                evictions.incrementAndGet();
+                activeContextMisses.incrementAndGet();
+                return null;
+            }
+        }
+        if (entry == null) {
+            activeContextMisses.incrementAndGet();
+            return null;
+        }
+        activeContextHits.incrementAndGet();
+        return entry.context.withOptions(options);
+    }
+
+    /**
+     * Caches the active context created by parsing the given local context,
+     * compiling it first (see {@link Context#compile()}) so that it can be
+     * shared.
+     */
+    void putActiveContext(Object localContext, String base, Context context) {
+        context.compile();
+        final ActiveContextKey key = new ActiveContextKey(JsonLdUtils.deepCopy(localContext),
+                base);
+        synchronized (this) {
+            activeContexts.put(key, new ActiveContextEntry(context, now()));
+        }
+    }
+
+    private synchronized RemoteContextEntry getEntry(String uri) {
+        final RemoteContextEntry entry = entries.get(uri);
+        if (entry != null && isExpired(entry.created, now())) {
+            entries.remove(uri);
+            evictions.incrementAndGet();
+            return null;
+        }
+        return entry;
+    }
+
+    private boolean isExpired(long created, long now) {
+        return timeToLive > 0 && now - created >= timeToLive;
+    }
+
+    /**
+     * The current time in milliseconds, used for expiring entries.
+     *
+     * @return the current time.
+     */
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Removes all the entries which have expired.
+     */
+    public synchronized void purge() {
+        final long now = now();
+        final Iterator<RemoteContextEntry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (isExpired(it.next().created, now)) {
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        final Iterator<ActiveContextEntry> active = activeContexts.values().iterator();
+        while (active.hasNext()) {
+            if (isExpired(active.next().created, now)) {
+                active.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes all the entries (the counters are kept).
+     */
+    public synchronized void clear() {
+        entries.clear();
+        activeContexts.clear();
+    }
+
+    /**
+     * @return the number of remote contexts currently cached.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * @return the number of remote context lookups which did not need to load
+     *         a document.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of remote context lookups which had to load a
+     *         document.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of active context lookups which did not need to
+     *         process the context.
+     */
+    public long getActiveContextHits() {
+        return activeContextHits.get();
+    }
+
+    /**
+     * @return the number of active context lookups which had to process the
+     *         context.
+     */
+    public long getActiveContextMisses() {
+        return activeContextMisses.get();
+    }
+
+    /**
+     * @return the number of entries removed because the cache was full or
+     *         the entry had expired.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
@@ -7,6 +7,7 @@ import static com.github.jsonldjava.core.JSONLDConsts.RDF_REST;
 import static com.github.jsonldjava.core.JSONLDConsts.RDF_TYPE;
 import static com.github.jsonldjava.core.JsonLdUtils.isKeyword;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -20,9 +21,22 @@ import java.util.TreeMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.github.jsonldjava.core.JsonLdError.Error;
+import com.github.jsonldjava.utils.JSONUtils;
 import com.github.jsonldjava.utils.Obj;
 
+/**
+ * The JSON-LD algorithms.
+ * 
+ * An instance holds the state of a single invocation (e.g. the blank node
+ * identifiers generated so far), so it must not be shared between threads or
+ * reused for unrelated documents; creating one is cheap. The objects it works
+ * with can be shared though: the same {@link JsonLdOptions} (as long as they
+ * aren't modified) and the same parsed {@link Context} can be used by any
+ * number of instances at the same time.
+ */
 public class JsonLdApi {
 
     private static final Logger LOG = LoggerFactory.getLogger(JsonLdApi.class);
@@ -43,12 +57,28 @@ public class JsonLdApi {
         initialize(input, null, opts);
     }
 
-    public JsonLdApi(JsonLdOptions opts) {
-        if (opts == null) {
-            opts = new JsonLdOptions("");
-        } else {
-            this.opts = opts;
+    /**
+     * Creates an API object for input which belongs to the caller, such as a
+     * freshly expanded document: the input is used as it is rather than
+     * copied, and may be modified by the algorithms.
+     * 
+     * @param input
+     *            the input, which must not be used afterwards.
+     * @param opts
+     *            the options.
+     * @return the API object.
+     */
+    static JsonLdApi withOwnInput(Object input, JsonLdOptions opts) {
+        final JsonLdApi rval = new JsonLdApi(opts);
+        if (input instanceof List || input instanceof Map) {
+            rval.value = input;
         }
+        rval.context = new Context(rval.opts);
+        return rval;
+    }
+
+    public JsonLdApi(JsonLdOptions opts) {
+        this.opts = opts != null ? opts : new JsonLdOptions("");
     }
 
     private void initialize(Object input, Object context, JsonLdOptions opts) throws JsonLdError {
@@ -883,6 +913,125 @@ public class JsonLdApi {
         return expand(activeCtx, null, element);
     }
 
+    /**
+     * Streaming version of the Expansion Algorithm, which reads the document
+     * from the parser and passes each expanded top level node to the callback
+     * as soon as it is complete.
+     * 
+     * The members of a top level array, or of the {@code @graph} of a top
+     * level object whose only other member is a preceding {@code @context},
+     * are read and expanded one at a time, so only one of them is held in
+     * memory at once. Any other document is read completely before it is
+     * expanded. Members of the top level object which follow a streamed
+     * {@code @graph} may not make it a named graph (i.e. they must not expand
+     * to anything).
+     * 
+     * The final step of the expansion algorithm (unwrapping a top level
+     * {@code @graph}) is included.
+     * 
+     * @param activeCtx
+     *            the initial active context.
+     * @param input
+     *            the parser, either not yet started or positioned on the first
+     *            token of the document.
+     * @param callback
+     *            the callback for each expanded node.
+     * @throws JsonLdError
+     *             if the document is invalid or cannot be read.
+     */
+    public void expand(Context activeCtx, JsonParser input, JsonLdNodeCallback callback)
+            throws JsonLdError {
+        try {
+            JsonToken token = input.getCurrentToken();
+            if (token == null) {
+                token = input.nextToken();
+            }
+            if (token == JsonToken.START_ARRAY) {
+                while ((token = input.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw new JsonLdError(Error.SYNTAX_ERROR, "unexpected end of input");
+                    }
+                    emitExpanded(expand(activeCtx, null, JSONUtils.fromJsonParser(input)),
+                            callback);
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                expandStreamingObject(activeCtx, input, callback);
+            } else if (token != null) {
+                // top level scalars expand to nothing
+                JSONUtils.fromJsonParser(input);
+            }
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.LOADING_DOCUMENT_FAILED, e.getMessage());
+        }
+    }
+
+    private void expandStreamingObject(Context activeCtx, JsonParser input,
+            JsonLdNodeCallback callback) throws JsonLdError, IOException {
+        final Map<String, Object> buffered = new LinkedHashMap<String, Object>();
+        Context ctx = activeCtx;
+        boolean streamed = false;
+        JsonToken token;
+        while ((token = input.nextToken()) == JsonToken.FIELD_NAME) {
+            final String key = input.getCurrentName();
+            input.nextToken();
+            if (streamed) {
+                final Object value = JSONUtils.fromJsonParser(input);
+                final String expandedProperty = "@context".equals(key) ? key : ctx.expandIri(key,
+                        false, true, null, null);
+                // anything that would have been dropped in 7.3) is fine
+                if (expandedProperty != null
+                        && (expandedProperty.contains(":") || isKeyword(expandedProperty))) {
+                    throw new JsonLdError(Error.INVALID_INPUT, "cannot stream @graph followed by "
+                            + key + ", put @graph last or read the whole document instead");
+                }
+                LOG.debug("dropping {} : {} after streamed @graph", key, value);
+            } else if ("@context".equals(key) && buffered.isEmpty()) {
+                final Object context = JSONUtils.fromJsonParser(input);
+                buffered.put(key, context);
+                ctx = activeCtx.parse(context);
+            } else if (buffered.size() == 1 && buffered.containsKey("@context")
+                    && "@graph".equals(ctx.expandIri(key, false, true, null, null))) {
+                streamed = true;
+                if (input.getCurrentToken() == JsonToken.START_ARRAY) {
+                    while ((token = input.nextToken()) != JsonToken.END_ARRAY) {
+                        if (token == null) {
+                            throw new JsonLdError(Error.SYNTAX_ERROR, "unexpected end of input");
+                        }
+                        emitExpanded(expand(ctx, "@graph", JSONUtils.fromJsonParser(input)),
+                                callback);
+                    }
+                } else {
+                    emitExpanded(expand(ctx, "@graph", JSONUtils.fromJsonParser(input)), callback);
+                }
+            } else {
+                buffered.put(key, JSONUtils.fromJsonParser(input));
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonLdError(Error.SYNTAX_ERROR, "unexpected end of input");
+        }
+        if (!streamed) {
+            Object expanded = expand(activeCtx, null, buffered);
+            // final step of Expansion Algorithm
+            if (expanded instanceof Map && ((Map<String, Object>) expanded).containsKey("@graph")
+                    && ((Map<String, Object>) expanded).size() == 1) {
+                expanded = ((Map<String, Object>) expanded).get("@graph");
+            }
+            emitExpanded(expanded, callback);
+        }
+    }
+
+    private static void emitExpanded(Object expanded, JsonLdNodeCallback callback)
+            throws JsonLdError {
+        if (expanded instanceof List) {
+            for (final Object node : (List<Object>) expanded) {
+                callback.call((Map<String, Object>) node);
+            }
+        } else if (expanded != null) {
+            callback.call((Map<String, Object>) expanded);
+        }
+    }
+
     /***
      * _____ _ _ _ _ _ _ _ _ | ___| | __ _| |_| |_ ___ _ __ / \ | | __ _ ___ _
      * __(_) |_| |__ _ __ ___ | |_ | |/ _` | __| __/ _ \ '_ \ / _ \ | |/ _` |/ _
@@ -1076,12 +1225,37 @@ public class JsonLdApi {
 
     private final Map<String, String> blankNodeIdentifierMap = new LinkedHashMap<String, String>();
     private int blankNodeCounter = 0;
+    private String blankNodePrefix = "_:b";
+
+    /**
+     * Sets the prefix of the generated blank node identifiers (_:b by
+     * default), used to give temporary identifiers to the parts of a document
+     * processed in parallel.
+     */
+    void setBlankNodePrefix(String prefix) {
+        this.blankNodePrefix = prefix;
+    }
+
+    /**
+     * @return the number of blank node identifiers generated so far.
+     */
+    int getBlankNodeCount() {
+        return blankNodeCounter;
+    }
+
+    /**
+     * @return the generated identifiers of the blank nodes which had an
+     *         identifier in the input, keyed by that identifier.
+     */
+    Map<String, String> getBlankNodeIdentifierMap() {
+        return blankNodeIdentifierMap;
+    }
 
     String generateBlankNodeIdentifier(String id) {
         if (id != null && blankNodeIdentifierMap.containsKey(id)) {
             return blankNodeIdentifierMap.get(id);
         }
-        final String bnid = "_:b" + blankNodeCounter++;
+        final String bnid = blankNodePrefix + blankNodeCounter++;
         if (id != null) {
             blankNodeIdentifierMap.put(id, bnid);
         }
@@ -1101,10 +1275,14 @@ public class JsonLdApi {
      * |___/ |___/
      */
 
-    private class FramingContext {
+    private static class FramingContext {
         public boolean embed;
         public boolean explicit;
         public boolean omitDefault;
+        // the node map of the default graph of the input
+        public Map<String, Object> nodeMap;
+        // created when the whole node map is first filtered
+        public NodeMapIndex nodeMapIndex = null;
 
         public FramingContext() {
             embed = true;
@@ -1116,13 +1294,11 @@ public class JsonLdApi {
         public Map<String, EmbedNode> embeds = null;
     }
 
-    private class EmbedNode {
+    private static class EmbedNode {
         public Object parent = null;
         public String property = null;
     }
 
-    private Map<String, Object> nodeMap;
-
     /**
      * Performs JSON-LD framing.
      * 
@@ -1152,12 +1328,12 @@ public class JsonLdApi {
         // use tree map so keys are sotred by default
         final Map<String, Object> nodes = new TreeMap<String, Object>();
         generateNodeMap(input, nodes);
-        this.nodeMap = (Map<String, Object>) nodes.get("@default");
+        state.nodeMap = (Map<String, Object>) nodes.get("@default");
 
         final List<Object> framed = new ArrayList<Object>();
         // NOTE: frame validation is done by the function not allowing anything
         // other than list to me passed
-        frame(state, this.nodeMap,
+        frame(state, state.nodeMap,
                 (frame != null && frame.size() > 0 ? (Map<String, Object>) frame.get(0)
                         : new LinkedHashMap<String, Object>()), framed, null);
 
@@ -1290,7 +1466,7 @@ public class JsonLdApi {
                                             .get("@id");
                                     // TODO: nodes may need to be node_map,
                                     // which is global
-                                    tmp.put(itemid, this.nodeMap.get(itemid));
+                                    tmp.put(itemid, state.nodeMap.get(itemid));
                                     frame(state, tmp,
                                             (Map<String, Object>) ((List<Object>) frame.get(prop))
                                                     .get(0), list, "@list");
@@ -1308,7 +1484,7 @@ public class JsonLdApi {
                             final String itemid = (String) ((Map<String, Object>) item).get("@id");
                             // TODO: nodes may need to be node_map, which is
                             // global
-                            tmp.put(itemid, this.nodeMap.get(itemid));
+                            tmp.put(itemid, state.nodeMap.get(itemid));
                             frame(state, tmp,
                                     (Map<String, Object>) ((List<Object>) frame.get(prop)).get(0),
                                     output, prop);
@@ -1433,6 +1609,16 @@ public class JsonLdApi {
 
     private Map<String, Object> filterNodes(FramingContext state, Map<String, Object> nodes,
             Map<String, Object> frame) throws JsonLdError {
+        // use the indexes to filter the whole node map
+        if (nodes == state.nodeMap && nodes.size() > 1) {
+            if (state.nodeMapIndex == null) {
+                state.nodeMapIndex = new NodeMapIndex(nodes);
+            }
+            final int[] matches = state.nodeMapIndex.match(frame);
+            if (matches != null) {
+                return state.nodeMapIndex.select(matches);
+            }
+        }
         final Map<String, Object> rval = new LinkedHashMap<String, Object>();
         for (final String id : nodes.keySet()) {
             final Map<String, Object> element = (Map<String, Object>) nodes.get(id);
@@ -1461,6 +1647,12 @@ public class JsonLdApi {
                 return !((List<Object>) nodeTypes).isEmpty();
             } else {
                 for (final Object i : (List<Object>) nodeTypes) {
+                    if (i instanceof String) {
+                        if (((List<Object>) types).contains(i)) {
+                            return true;
+                        }
+                        continue;
+                    }
                     for (final Object j : (List<Object>) types) {
                         if (JsonLdUtils.deepCompare(i, j)) {
                             return true;
@@ -1537,7 +1729,7 @@ public class JsonLdApi {
 
                     // recurse into subject
                     o = new LinkedHashMap<String, Object>();
-                    Map<String, Object> s = (Map<String, Object>) this.nodeMap.get(sid);
+                    Map<String, Object> s = (Map<String, Object>) state.nodeMap.get(sid);
                     if (s == null) {
                         s = new LinkedHashMap<String, Object>();
                         s.put("@id", sid);
@@ -1851,6 +2043,39 @@ public class JsonLdApi {
         return dataset;
     }
 
+    /**
+     * Streaming version of {@link #toRDF()}, which converts a single expanded
+     * top level node (with anything embedded in it) to RDF and passes the
+     * quads to the callback, without building a node map for the whole
+     * document.
+     * 
+     * Blank node identifiers are generated by this api instance, so they are
+     * consistent between calls. Nodes which are described in more than one top
+     * level node are not merged, so the output contains the same quads as
+     * {@link #toRDF()} (in a different order), except that a quad stated in
+     * more than one top level node is emitted more than once.
+     * 
+     * @param node
+     *            the expanded node, which is modified.
+     * @param callback
+     *            the callback for each quad.
+     * @throws JsonLdError
+     */
+    public void toRDF(Map<String, Object> node, QuadCallback callback) throws JsonLdError {
+        final Map<String, Object> nodeMap = new LinkedHashMap<String, Object>();
+        nodeMap.put("@default", new LinkedHashMap<String, Object>());
+        generateNodeMap(node, nodeMap);
+
+        for (final String graphName : nodeMap.keySet()) {
+            // 4.1)
+            if (JsonLdUtils.isRelativeIri(graphName)) {
+                continue;
+            }
+            final Map<String, Object> graph = (Map<String, Object>) nodeMap.get(graphName);
+            RDFDataset.graphToRDF(this, graphName, graph, callback);
+        }
+    }
+
     /***
      * _ _ _ _ _ _ _ _ _ _ _ | \ | | ___ _ __ _ __ ___ __ _| (_)______ _| |_(_)
      * ___ _ __ / \ | | __ _ ___ _ __(_) |_| |__ _ __ ___ | \| |/ _ \| '__| '_ `
@@ -1873,28 +2098,27 @@ public class JsonLdApi {
      * @throws JSONLDProcessingError
      */
     public Object normalize(Map<String, Object> dataset) throws JsonLdError {
+        final String algorithm = opts.getNormalizationAlgorithm();
+        if (JsonLdOptions.URDNA2015.equals(algorithm)) {
+            return new URDNA2015Normalizer(namedQuads(dataset), opts).normalize();
+        } else if (algorithm != null && !JsonLdOptions.URGNA2012.equals(algorithm)) {
+            throw new JsonLdError(Error.NOT_IMPLEMENTED, "unknown normalization algorithm: "
+                    + algorithm);
+        }
+
         // create quads and map bnodes to their associated quads
         final List<Object> quads = new ArrayList<Object>();
         final Map<String, Object> bnodes = new LinkedHashMap<String, Object>();
         for (String graphName : dataset.keySet()) {
-            final List<Map<String, Object>> triples = (List<Map<String, Object>>) dataset
-                    .get(graphName);
+            final List<RDFDataset.Quad> triples = (List<RDFDataset.Quad>) dataset.get(graphName);
             if ("@default".equals(graphName)) {
                 graphName = null;
             }
-            for (final Map<String, Object> quad : triples) {
-                if (graphName != null) {
-                    if (graphName.indexOf("_:") == 0) {
-                        final Map<String, Object> tmp = new LinkedHashMap<String, Object>();
-                        tmp.put("type", "blank node");
-                        tmp.put("value", graphName);
-                        quad.put("name", tmp);
-                    } else {
-                        final Map<String, Object> tmp = new LinkedHashMap<String, Object>();
-                        tmp.put("type", "IRI");
-                        tmp.put("value", graphName);
-                        quad.put("name", tmp);
-                    }
+            for (RDFDataset.Quad quad : triples) {
+                if (graphName != null && quad.getGraph() == null) {
+                    // the quads are immutable, so a copy has to be named
+                    quad = new RDFDataset.Quad(quad.getSubject(), quad.getPredicate(),
+                            quad.getObject(), graphName);
                 }
                 quads.add(quad);
 
@@ -1925,4 +2149,23 @@ public class JsonLdApi {
         return normalizeUtils.hashBlankNodes(bnodes.keySet());
     }
 
+    /**
+     * @return the quads of all of the graphs of the dataset, with the graph
+     *         name set on the quads of named graphs.
+     */
+    private static List<RDFDataset.Quad> namedQuads(Map<String, Object> dataset) {
+        final List<RDFDataset.Quad> quads = new ArrayList<RDFDataset.Quad>();
+        for (final String graphName : dataset.keySet()) {
+            for (final RDFDataset.Quad quad : (List<RDFDataset.Quad>) dataset.get(graphName)) {
+                if (!"@default".equals(graphName) && quad.getGraph() == null) {
+                    quads.add(new RDFDataset.Quad(quad.getSubject(), quad.getPredicate(), quad
+                            .getObject(), graphName));
+                } else {
+                    quads.add(quad);
+                }
+            }
+        }
+        return quads;
+    }
+
 }
@@ -0,0 +1,59 @@
+package com.github.jsonldjava.core;
+
+import java.util.Map;
+
+/**
+ * Compacts documents against a fixed context, created by
+ * {@link JsonLdProcessor#compiler(Object, JsonLdOptions)}.
+ * 
+ * The context is processed only once, when the compactor is created, and its
+ * inverse context is created up front along with the compacted form of the
+ * IRIs of all of its term definitions. The results of IRI compaction and term
+ * selection for any other vocabulary IRIs are remembered as they are
+ * encountered, so compacting many documents which use the same vocabulary
+ * mostly skips those algorithms.
+ * 
+ * A compactor can be shared between threads, as long as the options it was
+ * created with aren't modified.
+ */
+public class JsonLdCompactor {
+
+    private final Object localContext;
+    private final Context activeCtx;
+    private final JsonLdOptions options;
+
+    JsonLdCompactor(Object context, JsonLdOptions opts) throws JsonLdError {
+        if (context instanceof Map && ((Map<String, Object>) context).containsKey("@context")) {
+            context = ((Map<String, Object>) context).get("@context");
+        }
+        // keep a private copy, so that changes to the given context don't
+        // affect this compactor
+        this.localContext = JsonLdUtils.deepCopy(context);
+        this.options = opts;
+        this.activeCtx = new Context(opts).parse(localContext).compile();
+    }
+
+    /**
+     * Compacts the given input using the context of this compactor, as
+     * {@link JsonLdProcessor#compact(Object, Object, JsonLdOptions)} would.
+     * 
+     * @param input
+     *            the JSON-LD input to compact.
+     * @return the compacted document.
+     * @throws JsonLdError
+     *             if the input is invalid.
+     */
+    public Map<String, Object> compact(Object input) throws JsonLdError {
+        final Object expanded = JsonLdProcessor.expand(input, options);
+        // each result gets its own copy of the context
+        return JsonLdProcessor.compact(expanded, JsonLdUtils.deepCopy(localContext), activeCtx,
+                options);
+    }
+
+    /**
+     * @return the context this compactor compacts with.
+     */
+    public Object getContext() {
+        return JsonLdUtils.deepCopy(localContext);
+    }
+}
@@ -43,7 +43,8 @@ public class JsonLdError extends Exception {
 
         // non spec related errors
         SYNTAX_ERROR("syntax error"), NOT_IMPLEMENTED("not implemnted"), UNKNOWN_FORMAT(
-                "unknown format"), INVALID_INPUT("invalid input"), PARSE_ERROR("parse error"), UNKNOWN_ERROR(
+                "unknown format"), INVALID_INPUT("invalid input"), PARSE_ERROR("parse error"), NORMALIZATION_LIMIT_EXCEEDED(
+                "normalization limit exceeded"), INTERRUPTED("interrupted"), IO_ERROR("io error"), UNKNOWN_ERROR(
                 "unknown error");
 
         private final String error;
@@ -0,0 +1,21 @@
+package com.github.jsonldjava.core;
+
+import java.util.Map;
+
+/**
+ * Receives the top level nodes of an expanded document one at a time, as they
+ * are produced by the streaming expansion algorithm.
+ */
+public interface JsonLdNodeCallback {
+
+    /**
+     * Called once for each top level node (or member of the top level
+     * {@code @graph}) of the expanded document, in document order.
+     * 
+     * @param node
+     *            the expanded node.
+     * @throws JsonLdError
+     *             to abort processing.
+     */
+    public void call(Map<String, Object> node) throws JsonLdError;
+}
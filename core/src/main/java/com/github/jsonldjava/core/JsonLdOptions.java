@@ -1,12 +1,33 @@
 package com.github.jsonldjava.core;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * http://json-ld.org/spec/latest/json-ld-api/#the-jsonldoptions-type
  * 
+ * The processor never modifies the options it is given, so the same options
+ * can be used by any number of threads at once, as long as they aren't
+ * modified while they are in use. Use {@link #clone()} to derive different
+ * options from shared ones.
+ * 
  * @author tristan
  * 
  */
 public class JsonLdOptions {
+
+    /**
+     * The normalization algorithm of the original JSON-LD normalization
+     * draft, used by default.
+     */
+    public static final String URGNA2012 = "URGNA2012";
+
+    /**
+     * The URDNA2015 RDF dataset normalization algorithm.
+     * 
+     * http://json-ld.github.io/normalization/spec/
+     */
+    public static final String URDNA2015 = "URDNA2015";
+
     public JsonLdOptions() {
         this.setBase("");
     }
@@ -15,9 +36,34 @@ public class JsonLdOptions {
         this.setBase(base);
     }
 
+    /**
+     * @return a copy of these options (the context cache, executor service,
+     *         normalization statistics, expand context and document loader
+     *         are shared with the copy).
+     */
     @Override
     public JsonLdOptions clone() {
         final JsonLdOptions rval = new JsonLdOptions(getBase());
+        rval.compactArrays = compactArrays;
+        rval.expandContext = expandContext;
+        rval.processingMode = processingMode;
+        rval.contextCache = contextCache;
+        rval.executorService = executorService;
+        rval.embed = embed;
+        rval.explicit = explicit;
+        rval.omitDefault = omitDefault;
+        rval.useRdfType = useRdfType;
+        rval.useNativeTypes = useNativeTypes;
+        rval.produceGeneralizedRdf = produceGeneralizedRdf;
+        rval.normalizationAlgorithm = normalizationAlgorithm;
+        rval.maxNormalizationPermutations = maxNormalizationPermutations;
+        rval.maxNormalizationRecursionDepth = maxNormalizationRecursionDepth;
+        rval.maxNormalizationTime = maxNormalizationTime;
+        rval.normalizationStats = normalizationStats;
+        rval.format = format;
+        rval.useNamespaces = useNamespaces;
+        rval.outputForm = outputForm;
+        rval.documentLoader = documentLoader;
         return rval;
     }
 
@@ -27,6 +73,8 @@ public class JsonLdOptions {
     private Boolean compactArrays = true;
     private Object expandContext = null;
     private String processingMode = "json-ld-1.0";
+    private ContextCache contextCache = null;
+    private ExecutorService executorService = null;
 
     // frame options
 
@@ -39,6 +87,13 @@ public class JsonLdOptions {
     Boolean useNativeTypes = false;
     private boolean produceGeneralizedRdf = false;
 
+    // normalization options
+    private String normalizationAlgorithm = URGNA2012;
+    private long maxNormalizationPermutations = 0;
+    private int maxNormalizationRecursionDepth = 0;
+    private long maxNormalizationTime = 0;
+    private NormalizationStats normalizationStats = null;
+
     public Boolean getEmbed() {
         return embed;
     }
@@ -87,6 +142,41 @@ public class JsonLdOptions {
         this.processingMode = processingMode;
     }
 
+    public ContextCache getContextCache() {
+        return contextCache;
+    }
+
+    /**
+     * Sets the cache used for remote contexts. The same cache can be set on
+     * any number of options objects to share it between calls, by default no
+     * cache is used.
+     * 
+     * @param contextCache
+     *            the cache, or null to always load remote contexts.
+     */
+    public void setContextCache(ContextCache contextCache) {
+        this.contextCache = contextCache;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Sets the executor used to process large documents in parallel. By
+     * default (or if null) everything is done on the calling thread. The
+     * output is the same either way.
+     * 
+     * Any {@link ExecutorService} can be used (a ForkJoinPool, for instance),
+     * the processor only submits tasks to it and never shuts it down.
+     * 
+     * @param executorService
+     *            the executor, or null.
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
     public String getBase() {
         return base;
     }
@@ -120,6 +210,89 @@ public class JsonLdOptions {
         this.produceGeneralizedRdf = produceGeneralizedRdf;
     }
 
+    public String getNormalizationAlgorithm() {
+        return normalizationAlgorithm;
+    }
+
+    /**
+     * Sets the algorithm used by
+     * {@link JsonLdProcessor#normalize(Object, JsonLdOptions)}, either
+     * {@link #URGNA2012} (the default) or {@link #URDNA2015}. The two
+     * algorithms may name the blank nodes of the same dataset differently.
+     * 
+     * @param normalizationAlgorithm
+     *            the name of the algorithm.
+     */
+    public void setNormalizationAlgorithm(String normalizationAlgorithm) {
+        this.normalizationAlgorithm = normalizationAlgorithm;
+    }
+
+    public long getMaxNormalizationPermutations() {
+        return maxNormalizationPermutations;
+    }
+
+    /**
+     * Limits the number of permutations of blank nodes normalization may try.
+     * Normalization fails with a
+     * {@link JsonLdError.Error#NORMALIZATION_LIMIT_EXCEEDED} error once the
+     * limit is exceeded, which protects against inputs with many
+     * indistinguishable blank nodes.
+     * 
+     * @param maxNormalizationPermutations
+     *            the maximum number of permutations, or zero (the default) for
+     *            no limit.
+     */
+    public void setMaxNormalizationPermutations(long maxNormalizationPermutations) {
+        this.maxNormalizationPermutations = maxNormalizationPermutations;
+    }
+
+    public int getMaxNormalizationRecursionDepth() {
+        return maxNormalizationRecursionDepth;
+    }
+
+    /**
+     * Limits the depth of the recursion when hashing the paths between blank
+     * nodes during normalization (see
+     * {@link #setMaxNormalizationPermutations(long)}).
+     * 
+     * @param maxNormalizationRecursionDepth
+     *            the maximum depth, or zero (the default) for no limit.
+     */
+    public void setMaxNormalizationRecursionDepth(int maxNormalizationRecursionDepth) {
+        this.maxNormalizationRecursionDepth = maxNormalizationRecursionDepth;
+    }
+
+    public long getMaxNormalizationTime() {
+        return maxNormalizationTime;
+    }
+
+    /**
+     * Limits the time spent hashing the blank nodes of a dataset during
+     * normalization (see {@link #setMaxNormalizationPermutations(long)}).
+     * 
+     * @param maxNormalizationTime
+     *            the maximum time in milliseconds, or zero (the default) for no
+     *            limit.
+     */
+    public void setMaxNormalizationTime(long maxNormalizationTime) {
+        this.maxNormalizationTime = maxNormalizationTime;
+    }
+
+    public NormalizationStats getNormalizationStats() {
+        return normalizationStats;
+    }
+
+    /**
+     * Sets the statistics updated by each normalization. The same instance can
+     * be set on any number of options to collect the statistics of many calls.
+     * 
+     * @param normalizationStats
+     *            the statistics, or null (the default).
+     */
+    public void setNormalizationStats(NormalizationStats normalizationStats) {
+        this.normalizationStats = normalizationStats;
+    }
+
     // TODO: THE FOLLOWING ONLY EXIST SO I DON'T HAVE TO DELETE A LOT OF CODE,
     // REMOVE IT WHEN DONE
     public String format = null;
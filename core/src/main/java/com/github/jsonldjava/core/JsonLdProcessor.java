@@ -1,16 +1,26 @@
 package com.github.jsonldjava.core;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.github.jsonldjava.core.JsonLdError.Error;
+import com.github.jsonldjava.impl.BinaryRDFParser;
+import com.github.jsonldjava.impl.BinaryTripleCallback;
 import com.github.jsonldjava.impl.NQuadRDFParser;
 import com.github.jsonldjava.impl.NQuadTripleCallback;
 import com.github.jsonldjava.impl.TurtleRDFParser;
 import com.github.jsonldjava.impl.TurtleTripleCallback;
+import com.github.jsonldjava.utils.JSONUtils;
 
 /**
  * http://json-ld.org/spec/latest/json-ld-api/#the-jsonldprocessor-interface
@@ -22,6 +32,7 @@ public class JsonLdProcessor {
 
     public static Map<String, Object> compact(Object input, Object context, JsonLdOptions opts)
             throws JsonLdError {
+        opts = withDocumentBase(input, opts);
         // 1)
         // TODO: look into java futures/promises
 
@@ -31,8 +42,103 @@ public class JsonLdProcessor {
         if (context instanceof Map && ((Map<String, Object>) context).containsKey("@context")) {
             context = ((Map<String, Object>) context).get("@context");
         }
-        Context activeCtx = new Context(opts);
-        activeCtx = activeCtx.parse(context);
+        final Context activeCtx = parseContext(context, opts);
+        // 8-9)
+        return compact(expanded, context, activeCtx, opts);
+    }
+
+    /**
+     * Compacts the input like {@link #compact(Object, Object, JsonLdOptions)},
+     * but writes the result to the generator one top level node at a time
+     * rather than building it in memory first. The {@code @context} is
+     * written before the nodes. The generator is not flushed or closed.
+     * 
+     * @param input
+     *            the JSON-LD input.
+     * @param context
+     *            the context to compact with.
+     * @param opts
+     *            the options to use.
+     * @param out
+     *            the generator the compacted document is written to.
+     * @throws JsonLdError
+     *             if the input is invalid or the output cannot be written.
+     */
+    public static void compact(Object input, Object context, JsonLdOptions opts,
+            JsonGenerator out) throws JsonLdError {
+        opts = withDocumentBase(input, opts);
+        final List<Object> expanded = expand(input, opts);
+        if (context instanceof Map && ((Map<String, Object>) context).containsKey("@context")) {
+            context = ((Map<String, Object>) context).get("@context");
+        }
+        final Context activeCtx = parseContext(context, opts);
+        final JsonLdApi api = new JsonLdApi(opts);
+        try {
+            out.writeStartObject();
+            if ((context instanceof Map && !((Map<String, Object>) context).isEmpty())
+                    || (context instanceof List && !((List<Object>) context).isEmpty())) {
+                out.writeFieldName("@context");
+                JSONUtils.write(out, context);
+            }
+            // a single node is written as the document itself (if arrays are
+            // compacted), so it is held back until the next one turns up
+            Map<String, Object> first = null;
+            boolean graph = false;
+            for (final Object node : expanded) {
+                final Object compacted = api.compact(activeCtx, null, node,
+                        opts.getCompactArrays());
+                if (compacted == null) {
+                    continue;
+                }
+                if (!graph && first == null && opts.getCompactArrays()) {
+                    first = (Map<String, Object>) compacted;
+                    continue;
+                }
+                if (!graph) {
+                    out.writeFieldName(activeCtx.compactIri("@graph", true));
+                    out.writeStartArray();
+                    graph = true;
+                    if (first != null) {
+                        JSONUtils.write(out, first);
+                        first = null;
+                    }
+                }
+                JSONUtils.write(out, compacted);
+            }
+            if (graph) {
+                out.writeEndArray();
+            } else if (first != null) {
+                writeFields(out, first);
+            }
+            out.writeEndObject();
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a compactor which compacts documents using the given context,
+     * which is processed once up front rather than on every call.
+     * 
+     * @param context
+     *            the context to compact with.
+     * @param opts
+     *            the options to use, which must not be modified while the
+     *            compactor is in use.
+     * @return the compactor, which can be used from multiple threads.
+     * @throws JsonLdError
+     *             if the context is invalid.
+     */
+    public static JsonLdCompactor compiler(Object context, JsonLdOptions opts) throws JsonLdError {
+        return new JsonLdCompactor(context, opts);
+    }
+
+    /**
+     * Steps 8 and 9 of compaction: compacts the expanded input using the
+     * active context and adds the local context to the result.
+     */
+    static Map<String, Object> compact(Object expanded, Object context, Context activeCtx,
+            JsonLdOptions opts) throws JsonLdError {
         // 8)
         Object compacted = new JsonLdApi(opts).compact(activeCtx, null, expanded,
                 opts.getCompactArrays());
@@ -62,38 +168,51 @@ public class JsonLdProcessor {
         return (Map<String, Object>) compacted;
     }
 
+    /**
+     * @return true if the input is the URL of a remote document.
+     */
+    private static boolean isDocumentUrl(Object input) {
+        // TODO: better verification of DOMString IRI
+        return input instanceof String && ((String) input).contains(":");
+    }
+
+    /**
+     * Returns the options to process the input with. If the input is the URL
+     * of a remote document and no base is set, that is a copy of the options
+     * with the URL as the base, which is then also used to compact the
+     * output. The given options are left as they are.
+     */
+    private static JsonLdOptions withDocumentBase(Object input, JsonLdOptions opts) {
+        // if set the base in options should override the base iri in the
+        // active context
+        // thus only set this as the base iri if it's not already set in
+        // options
+        if (isDocumentUrl(input) && opts.getBase() == null) {
+            opts = opts.clone();
+            opts.setBase((String) input);
+        }
+        return opts;
+    }
+
     public static List<Object> expand(Object input, JsonLdOptions opts) throws JsonLdError {
         // 1)
         // TODO: look into java futures/promises
 
-        // 2) TODO: better verification of DOMString IRI
-        if (input instanceof String && ((String) input).contains(":")) {
+        // 2)
+        if (isDocumentUrl(input)) {
+            final String url = (String) input;
             try {
-                final RemoteDocument tmp = opts.documentLoader.loadDocument((String) input);
+                final RemoteDocument tmp = opts.documentLoader.loadDocument(url);
                 input = tmp.document;
                 // TODO: figure out how to deal with remote context
             } catch (final Exception e) {
                 throw new JsonLdError(Error.LOADING_DOCUMENT_FAILED, e.getMessage());
             }
-            // if set the base in options should override the base iri in the
-            // active context
-            // thus only set this as the base iri if it's not already set in
-            // options
-            if (opts.getBase() == null) {
-                opts.setBase((String) input);
-            }
+            opts = withDocumentBase(url, opts);
         }
 
-        // 3)
-        Context activeCtx = new Context(opts);
-        // 4)
-        if (opts.getExpandContext() != null) {
-            Object exCtx = opts.getExpandContext();
-            if (exCtx instanceof Map && ((Map<String, Object>) exCtx).containsKey("@context")) {
-                exCtx = ((Map<String, Object>) exCtx).get("@context");
-            }
-            activeCtx = activeCtx.parse(exCtx);
-        }
+        // 3-4)
+        final Context activeCtx = initialExpandContext(opts);
 
         // 5)
         // TODO: add support for getting a context from HTTP when content-type
@@ -123,14 +242,148 @@ public class JsonLdProcessor {
         return expand(input, new JsonLdOptions(""));
     }
 
+    /**
+     * Expands the document read from the parser, passing each top level node
+     * of the expanded output to the callback as soon as it has been expanded
+     * rather than returning them all at once.
+     * 
+     * See {@link JsonLdApi#expand(Context, JsonParser, JsonLdNodeCallback)}
+     * for which documents can be expanded without reading them into memory
+     * first.
+     * 
+     * @param input
+     *            a parser for the JSON-LD document.
+     * @param callback
+     *            the callback for each expanded node.
+     * @param opts
+     *            the options to use.
+     * @throws JsonLdError
+     *             if the document is invalid or cannot be read.
+     */
+    public static void expand(JsonParser input, JsonLdNodeCallback callback, JsonLdOptions opts)
+            throws JsonLdError {
+        new JsonLdApi(opts).expand(initialExpandContext(opts), input, callback);
+    }
+
+    /**
+     * Processes the given local context against a new active context, reusing
+     * the result of a previous call with an equal context if the options have
+     * a {@link ContextCache}. The returned context must not be modified.
+     */
+    private static Context parseContext(Object context, JsonLdOptions opts) throws JsonLdError {
+        final ContextCache cache = opts.getContextCache();
+        if (cache == null) {
+            return new Context(opts).parse(context);
+        }
+        final Context activeCtx = new Context(opts);
+        final String base = (String) activeCtx.get("@base");
+        Context rval = cache.getActiveContext(context, base, opts);
+        if (rval == null) {
+            rval = activeCtx.parse(context);
+            cache.putActiveContext(context, base, rval);
+        }
+        return rval;
+    }
+
+    private static Context initialExpandContext(JsonLdOptions opts) throws JsonLdError {
+        // 3)
+        Context activeCtx = new Context(opts);
+        // 4)
+        if (opts.getExpandContext() != null) {
+            Object exCtx = opts.getExpandContext();
+            if (exCtx instanceof Map && ((Map<String, Object>) exCtx).containsKey("@context")) {
+                exCtx = ((Map<String, Object>) exCtx).get("@context");
+            }
+            activeCtx = activeCtx.parse(exCtx);
+        }
+        return activeCtx;
+    }
+
     public static Object flatten(Object input, Object context, JsonLdOptions opts)
             throws JsonLdError {
-        // 2-6) NOTE: these are all the same steps as in expand
-        final Object expanded = expand(input, opts);
+        opts = withDocumentBase(input, opts);
         // 7)
         if (context instanceof Map && ((Map<String, Object>) context).containsKey("@context")) {
             context = ((Map<String, Object>) context).get("@context");
         }
+        final List<Object> flattened = flattenNodes(input, opts);
+        // 8)
+        if (context != null && !flattened.isEmpty()) {
+            final Context activeCtx = parseContext(context, opts);
+            // TODO: only instantiate one jsonldapi
+            Object compacted = new JsonLdApi(opts).compact(activeCtx, null, flattened,
+                    opts.getCompactArrays());
+            if (!(compacted instanceof List)) {
+                final List<Object> tmp = new ArrayList<Object>();
+                tmp.add(compacted);
+                compacted = tmp;
+            }
+            final String alias = activeCtx.compactIri("@graph");
+            final Map<String, Object> rval = activeCtx.serialize();
+            rval.put(alias, compacted);
+            return rval;
+        }
+        return flattened;
+    }
+
+    /**
+     * Flattens the input like
+     * {@link #flatten(Object, Object, JsonLdOptions)}, but writes the result
+     * to the generator one node at a time rather than building it in memory
+     * first. The generator is not flushed or closed.
+     * 
+     * @param input
+     *            the JSON-LD input.
+     * @param context
+     *            the context to compact with, or null to write the flattened
+     *            nodes as they are.
+     * @param opts
+     *            the options to use.
+     * @param out
+     *            the generator the flattened document is written to.
+     * @throws JsonLdError
+     *             if the input is invalid or the output cannot be written.
+     */
+    public static void flatten(Object input, Object context, JsonLdOptions opts,
+            JsonGenerator out) throws JsonLdError {
+        opts = withDocumentBase(input, opts);
+        if (context instanceof Map && ((Map<String, Object>) context).containsKey("@context")) {
+            context = ((Map<String, Object>) context).get("@context");
+        }
+        final List<Object> flattened = flattenNodes(input, opts);
+        try {
+            if (context == null || flattened.isEmpty()) {
+                JSONUtils.write(out, flattened);
+                return;
+            }
+            final Context activeCtx = parseContext(context, opts);
+            final JsonLdApi api = new JsonLdApi(opts);
+            out.writeStartObject();
+            writeFields(out, activeCtx.serialize());
+            out.writeFieldName(activeCtx.compactIri("@graph"));
+            out.writeStartArray();
+            for (final Object node : flattened) {
+                final Object compacted = api.compact(activeCtx, null, node,
+                        opts.getCompactArrays());
+                if (compacted != null) {
+                    JSONUtils.write(out, compacted);
+                }
+            }
+            out.writeEndArray();
+            out.writeEndObject();
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Steps 2-6 and 9.1-9.6 of flattening: expands the input and returns the
+     * flattened nodes.
+     */
+    private static List<Object> flattenNodes(Object input, JsonLdOptions opts)
+            throws JsonLdError {
+        // 2-6) NOTE: these are all the same steps as in expand
+        final Object expanded = expand(input, opts);
         // 8) NOTE: blank node generation variables are members of JsonLdApi
         // 9) NOTE: the next block is the Flattening Algorithm described in
         // http://json-ld.org/spec/latest/json-ld-api/#flattening-algorithm
@@ -138,8 +391,8 @@ public class JsonLdProcessor {
         // 1)
         final Map<String, Object> nodeMap = new LinkedHashMap<String, Object>();
         nodeMap.put("@default", new LinkedHashMap<String, Object>());
-        // 2)
-        new JsonLdApi(opts).generateNodeMap(expanded, nodeMap);
+        // 2) NOTE: in parallel if the options have an executor service
+        ParallelNodeMapGenerator.generateNodeMap(expanded, nodeMap, opts);
         // 3)
         final Map<String, Object> defaultGraph = (Map<String, Object>) nodeMap.remove("@default");
         // 4)
@@ -181,23 +434,6 @@ public class JsonLdProcessor {
                 flattened.add(node);
             }
         }
-        // 8)
-        if (context != null && !flattened.isEmpty()) {
-            Context activeCtx = new Context(opts);
-            activeCtx = activeCtx.parse(context);
-            // TODO: only instantiate one jsonldapi
-            Object compacted = new JsonLdApi(opts).compact(activeCtx, null, flattened,
-                    opts.getCompactArrays());
-            if (!(compacted instanceof List)) {
-                final List<Object> tmp = new ArrayList<Object>();
-                tmp.add(compacted);
-                compacted = tmp;
-            }
-            final String alias = activeCtx.compactIri("@graph");
-            final Map<String, Object> rval = activeCtx.serialize();
-            rval.put(alias, compacted);
-            return rval;
-        }
         return flattened;
     }
 
@@ -207,20 +443,18 @@ public class JsonLdProcessor {
 
     public static Map<String, Object> frame(Object input, Object frame, JsonLdOptions options)
             throws JsonLdError {
+        options = withDocumentBase(input, options);
 
         if (frame instanceof Map) {
             frame = JsonLdUtils.clone(frame);
         }
         // TODO string/IO input
 
-        final Object expandedInput = expand(input, options);
-        final List<Object> expandedFrame = expand(frame, options);
-
-        final JsonLdApi api = new JsonLdApi(expandedInput, options);
-        final List<Object> framed = api.frame(expandedInput, expandedFrame);
-        final Context activeCtx = api.context.parse(((Map<String, Object>) frame).get("@context"));
+        final List<Object> framed = frameNodes(input, frame, options);
+        final Context activeCtx = parseContext(((Map<String, Object>) frame).get("@context"),
+                options);
 
-        Object compacted = api.compact(activeCtx, null, framed);
+        Object compacted = new JsonLdApi(options).compact(activeCtx, null, framed);
         if (!(compacted instanceof List)) {
             final List<Object> tmp = new ArrayList<Object>();
             tmp.add(compacted);
@@ -233,19 +467,118 @@ public class JsonLdProcessor {
         return rval;
     }
 
+    /**
+     * Frames the input like {@link #frame(Object, Object, JsonLdOptions)},
+     * but writes the result to the generator one node at a time rather than
+     * building it in memory first. The generator is not flushed or closed.
+     * 
+     * @param input
+     *            the JSON-LD input.
+     * @param frame
+     *            the frame.
+     * @param options
+     *            the options to use.
+     * @param out
+     *            the generator the framed document is written to.
+     * @throws JsonLdError
+     *             if the input is invalid or the output cannot be written.
+     */
+    public static void frame(Object input, Object frame, JsonLdOptions options,
+            JsonGenerator out) throws JsonLdError {
+        options = withDocumentBase(input, options);
+        if (frame instanceof Map) {
+            frame = JsonLdUtils.clone(frame);
+        }
+        final List<Object> framed = frameNodes(input, frame, options);
+        final Context activeCtx = parseContext(((Map<String, Object>) frame).get("@context"),
+                options);
+        final JsonLdApi api = new JsonLdApi(options);
+        final String alias = activeCtx.compactIri("@graph");
+        // as removePreserve does in the tree, a single node is written on its
+        // own if arrays are compacted and the key has no container (which
+        // @graph always has), so the first node is only written once there is
+        // a second one
+        final boolean unwrapSingle = options.getCompactArrays()
+                && activeCtx.getContainer(alias) == null;
+        try {
+            out.writeStartObject();
+            writeFields(out, (Map<String, Object>) JsonLdUtils.removePreserve(activeCtx,
+                    activeCtx.serialize(), options));
+            out.writeFieldName(alias);
+            Object first = null;
+            boolean inArray = !unwrapSingle;
+            if (inArray) {
+                out.writeStartArray();
+            }
+            for (final Object node : framed) {
+                Object compacted = api.compact(activeCtx, null, node);
+                if (compacted != null) {
+                    compacted = JsonLdUtils.removePreserve(activeCtx, compacted, options);
+                }
+                if (compacted == null) {
+                    continue;
+                }
+                if (inArray) {
+                    JSONUtils.write(out, compacted);
+                } else if (first == null) {
+                    first = compacted;
+                } else {
+                    out.writeStartArray();
+                    JSONUtils.write(out, first);
+                    JSONUtils.write(out, compacted);
+                    inArray = true;
+                }
+            }
+            if (inArray) {
+                out.writeEndArray();
+            } else if (first != null) {
+                JSONUtils.write(out, first);
+            } else {
+                out.writeStartArray();
+                out.writeEndArray();
+            }
+            out.writeEndObject();
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Expands the input and the frame and returns the framed nodes, before
+     * compaction.
+     */
+    private static List<Object> frameNodes(Object input, Object frame, JsonLdOptions options)
+            throws JsonLdError {
+        final Object expandedInput = expand(input, options);
+        final List<Object> expandedFrame = expand(frame, options);
+
+        // the expanded input is a new object, so it doesn't have to be copied
+        return JsonLdApi.withOwnInput(expandedInput, options).frame(expandedInput,
+                expandedFrame);
+    }
+
+    private static void writeFields(JsonGenerator out, Map<String, Object> map)
+            throws IOException {
+        for (final Map.Entry<String, Object> entry : map.entrySet()) {
+            out.writeFieldName(entry.getKey());
+            JSONUtils.write(out, entry.getValue());
+        }
+    }
+
     /**
      * a registry for RDF Parsers (in this case, JSONLDSerializers) used by
      * fromRDF if no specific serializer is specified and options.format is set.
      * 
      * TODO: this would fit better in the document loader class
      */
-    private static Map<String, RDFParser> rdfParsers = new LinkedHashMap<String, RDFParser>() {
-        {
-            // automatically register nquad serializer
-            put("application/nquads", new NQuadRDFParser());
-            put("text/turtle", new TurtleRDFParser());
-        }
-    };
+    private static final Map<String, RDFParser> rdfParsers;
+    static {
+        rdfParsers = new ConcurrentHashMap<String, RDFParser>();
+        // automatically register nquad serializer
+        rdfParsers.put("application/nquads", new NQuadRDFParser());
+        rdfParsers.put("text/turtle", new TurtleRDFParser());
+        rdfParsers.put(BinaryQuadWriter.MEDIA_TYPE, new BinaryRDFParser());
+    }
 
     public static void registerRDFParser(String format, RDFParser parser) {
         rdfParsers.put(format, parser);
@@ -273,17 +606,17 @@ public class JsonLdProcessor {
     public static Object fromRDF(Object dataset, JsonLdOptions options) throws JsonLdError {
         // handle non specified serializer case
 
-        RDFParser parser = null;
-
-        if (options.format == null && dataset instanceof String) {
+        String format = options.format;
+        if (format == null
+                && (dataset instanceof String || dataset instanceof Reader
+                        || dataset instanceof InputStream || dataset instanceof File)) {
             // attempt to parse the input as nquads
-            options.format = "application/nquads";
+            format = "application/nquads";
         }
 
-        if (rdfParsers.containsKey(options.format)) {
-            parser = rdfParsers.get(options.format);
-        } else {
-            throw new JsonLdError(JsonLdError.Error.UNKNOWN_FORMAT, options.format);
+        final RDFParser parser = format != null ? rdfParsers.get(format) : null;
+        if (parser == null) {
+            throw new JsonLdError(JsonLdError.Error.UNKNOWN_FORMAT, format);
         }
 
         // convert from RDF
@@ -301,7 +634,9 @@ public class JsonLdProcessor {
     public static Object fromRDF(Object input, JsonLdOptions options, RDFParser parser)
             throws JsonLdError {
 
-        final RDFDataset dataset = parser.parse(input);
+        // the N-Quads parser can read files in parallel
+        final RDFDataset dataset = parser instanceof NQuadRDFParser ? ((NQuadRDFParser) parser)
+                .parse(input, options.getExecutorService()) : parser.parse(input);
 
         // convert from RDF
         final Object rval = new JsonLdApi(options).fromRDF(dataset);
@@ -342,10 +677,12 @@ public class JsonLdProcessor {
      */
     public static Object toRDF(Object input, JSONLDTripleCallback callback, JsonLdOptions options)
             throws JsonLdError {
+        options = withDocumentBase(input, options);
 
         final Object expandedInput = expand(input, options);
 
-        final JsonLdApi api = new JsonLdApi(expandedInput, options);
+        // the expanded input is a new object, so it doesn't have to be copied
+        final JsonLdApi api = JsonLdApi.withOwnInput(expandedInput, options);
         final RDFDataset dataset = api.toRDF();
 
         // generate namespaces from context
@@ -373,6 +710,8 @@ public class JsonLdProcessor {
                 return new NQuadTripleCallback().call(dataset);
             } else if ("text/turtle".equals(options.format)) {
                 return new TurtleTripleCallback().call(dataset);
+            } else if (BinaryQuadWriter.MEDIA_TYPE.equals(options.format)) {
+                return new BinaryTripleCallback().call(dataset);
             } else {
                 throw new JsonLdError(JsonLdError.Error.UNKNOWN_FORMAT, options.format);
             }
@@ -380,6 +719,38 @@ public class JsonLdProcessor {
         return dataset;
     }
 
+    /**
+     * Outputs the RDF quads found in the JSON-LD document read from the
+     * parser, passing each one to the callback as soon as the top level node
+     * it belongs to has been read and expanded. Neither the whole expanded
+     * document nor its node map is built, so memory use does not depend on the
+     * size of the document (as long as it can be expanded incrementally, see
+     * {@link #expand(JsonParser, JsonLdNodeCallback, JsonLdOptions)}).
+     * 
+     * Statements about the same node in different top level nodes are not
+     * merged, so the same quad may be emitted more than once.
+     * 
+     * @param input
+     *            a parser for the JSON-LD document.
+     * @param callback
+     *            the callback for each quad.
+     * @param options
+     *            the options to use.
+     * @throws JsonLdError
+     *             if the document is invalid or cannot be read, or if the
+     *             callback throws an error.
+     */
+    public static void toRDFStreaming(JsonParser input, final QuadCallback callback,
+            JsonLdOptions options) throws JsonLdError {
+        final JsonLdApi api = new JsonLdApi(options);
+        api.expand(initialExpandContext(options), input, new JsonLdNodeCallback() {
+            @Override
+            public void call(Map<String, Object> node) throws JsonLdError {
+                api.toRDF(node, callback);
+            }
+        });
+    }
+
     public static Object toRDF(Object input, JsonLdOptions options) throws JsonLdError {
         return toRDF(input, null, options);
     }
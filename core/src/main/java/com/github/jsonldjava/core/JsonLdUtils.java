@@ -6,9 +6,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import com.fasterxml.jackson.core.JsonParseException;
@@ -914,8 +920,58 @@ public class JsonLdUtils {
         return false;
     }
 
-    static Object clone(Object value) {// throws
-        // CloneNotSupportedException {
+    /**
+     * Copies a JSON value: maps and lists are copied recursively, anything
+     * else (strings, numbers, booleans and null) is returned as it is.
+     * 
+     * @param value
+     *            the value to copy.
+     * @return the copy.
+     */
+    static Object deepCopy(Object value) {
+        if (value instanceof Map) {
+            final Map<String, Object> rval = new LinkedHashMap<String, Object>();
+            for (final Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                rval.put(entry.getKey(), deepCopy(entry.getValue()));
+            }
+            return rval;
+        } else if (value instanceof List) {
+            final List<Object> rval = new ArrayList<Object>(((List<Object>) value).size());
+            for (final Object item : (List<Object>) value) {
+                rval.add(deepCopy(item));
+            }
+            return rval;
+        }
+        return value;
+    }
+
+    /**
+     * Copies a value the way its clone method would: maps and lists are
+     * copied, but not the values they contain, strings, numbers, booleans and
+     * null are returned as they are. The usual JSON types are copied directly,
+     * other cloneable objects through their clone method.
+     * 
+     * @param value
+     *            the value to copy.
+     * @return the copy.
+     * @see #deepCopy(Object)
+     */
+    static Object clone(Object value) {
+        if (value == null || value instanceof String || value instanceof Number
+                || value instanceof Boolean) {
+            // strings numbers and booleans are immutable
+            return value;
+        }
+        final Class<?> type = value.getClass();
+        if (type == LinkedHashMap.class) {
+            return new LinkedHashMap<String, Object>((Map<String, Object>) value);
+        } else if (type == ArrayList.class) {
+            return new ArrayList<Object>((List<Object>) value);
+        } else if (type == HashMap.class) {
+            return new HashMap<String, Object>((Map<String, Object>) value);
+        } else if (type == TreeMap.class) {
+            return new TreeMap<String, Object>((TreeMap<String, Object>) value);
+        }
         Object rval = null;
         if (value instanceof Cloneable) {
             try {
@@ -925,20 +981,13 @@ public class JsonLdUtils {
             }
         }
         if (rval == null || rval instanceof Exception) {
-            // the object wasn't cloneable, or an error occured
-            if (value == null || value instanceof String || value instanceof Number
-                    || value instanceof Boolean) {
-                // strings numbers and booleans are immutable
-                rval = value;
-            } else {
-                // TODO: making this throw runtime exception so it doesn't have
-                // to be caught
-                // because simply it should never fail in the case of JSON-LD
-                // and means that
-                // the input JSON-LD is invalid
-                throw new RuntimeException(new CloneNotSupportedException(
-                        (rval instanceof Exception ? ((Exception) rval).getMessage() : "")));
-            }
+            // TODO: making this throw runtime exception so it doesn't have
+            // to be caught
+            // because simply it should never fail in the case of JSON-LD
+            // and means that
+            // the input JSON-LD is invalid
+            throw new RuntimeException(new CloneNotSupportedException(
+                    (rval instanceof Exception ? ((Exception) rval).getMessage() : "")));
         }
         return rval;
     }
@@ -998,4 +1047,131 @@ public class JsonLdUtils {
         // TODO: should this return true for arrays of strings as well?
         return (v instanceof String);
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs the given tasks on the executor and waits for all of them to
+     * complete, or runs them one after the other on the calling thread if
+     * there is no executor.
+     * 
+     * @param executor
+     *            the executor, or null.
+     * @param tasks
+     *            the tasks.
+     * @return the results of the tasks, in the same order.
+     * @throws JsonLdError
+     *             if a task failed (the remaining tasks are cancelled) or the
+     *             calling thread was interrupted.
+     */
+    static <T> List<T> invokeAll(ExecutorService executor, List<? extends Callable<T>> tasks)
+            throws JsonLdError {
+        final List<T> rval = new ArrayList<T>(tasks.size());
+        if (executor == null) {
+            for (final Callable<T> task : tasks) {
+                try {
+                    rval.add(task.call());
+                } catch (final Exception e) {
+                    throw rethrow(e);
+                }
+            }
+            return rval;
+        }
+        final List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+        try {
+            for (final Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (final Future<T> future : futures) {
+                rval.add(getResult(future));
+            }
+            return rval;
+        } finally {
+            for (final Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Work done on a chunk of a list by
+     * {@link JsonLdUtils#invokeInChunks(ExecutorService, List, int, ChunkTask)}.
+     */
+    interface ChunkTask<T> {
+        void run(List<T> chunk) throws JsonLdError;
+    }
+
+    /**
+     * Splits the items into chunks of at least the given size, up to four per
+     * processor, and runs the task on each chunk on the executor. Nothing is
+     * done if there would be fewer than two chunks, as the caller is expected
+     * to go through all of the items itself afterwards.
+     * 
+     * @param executor
+     *            the executor.
+     * @param items
+     *            the items.
+     * @param minChunkSize
+     *            the smallest number of items in a chunk.
+     * @param task
+     *            the work done for each chunk, which must only touch its own
+     *            items.
+     * @throws JsonLdError
+     *             if a task failed or the calling thread was interrupted.
+     */
+    static <T> void invokeInChunks(ExecutorService executor, List<T> items, int minChunkSize,
+            final ChunkTask<T> task) throws JsonLdError {
+        final int chunks = Math.min(items.size() / minChunkSize, Runtime.getRuntime()
+                .availableProcessors() * 4);
+        if (chunks < 2) {
+            return;
+        }
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            final List<T> chunk = items.subList(items.size() * i / chunks, items.size() * (i + 1)
+                    / chunks);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws JsonLdError {
+                    task.run(chunk);
+                    return null;
+                }
+            });
+        }
+        invokeAll(executor, tasks);
+    }
+
+    /**
+     * Waits for the result of a task, rethrowing the error it failed with.
+     * 
+     * @param future
+     *            the task.
+     * @return the result.
+     * @throws JsonLdError
+     *             if the task failed or the calling thread was interrupted.
+     */
+    static <T> T getResult(Future<T> future) throws JsonLdError {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JsonLdError(JsonLdError.Error.INTERRUPTED, e);
+        } catch (final ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    /**
+     * Rethrows a {@link RuntimeException} or {@link Error} that a task failed
+     * with as it is, and returns any other failure as a {@link JsonLdError}
+     * for the caller to throw.
+     */
+    private static JsonLdError rethrow(Throwable cause) {
+        if (cause instanceof JsonLdError) {
+            return (JsonLdError) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new JsonLdError(JsonLdError.Error.UNKNOWN_ERROR, cause);
+    }
+}
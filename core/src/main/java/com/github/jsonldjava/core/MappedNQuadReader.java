@@ -0,0 +1,301 @@
+package com.github.jsonldjava.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.github.jsonldjava.core.JsonLdError.Error;
+
+/**
+ * An N-Quads parser for files, which memory-maps the file instead of reading
+ * it onto the heap.
+ *
+ * The file is split into chunks of about the given size, each ending after a
+ * '\n' byte (which can't be part of any other character in UTF-8), and each
+ * chunk is decoded as it is parsed by an {@link NQuadReader}, so only the
+ * quads themselves are created on the heap. With an
+ * {@link ExecutorService} the chunks are parsed in parallel, a limited number
+ * at a time; the quads are still passed on in the order of the file, from
+ * the calling thread, so the callback doesn't have to be thread-safe. The
+ * result is the same either way, including the line numbers of errors.
+ */
+public class MappedNQuadReader {
+
+    /**
+     * The default size of a chunk, in bytes.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int maxPendingChunks;
+
+    public MappedNQuadReader(File file) {
+        this(file, null);
+    }
+
+    /**
+     * @param file
+     *            the N-Quads file.
+     * @param executor
+     *            the executor to parse the chunks with, or null to parse them
+     *            on the calling thread.
+     */
+    public MappedNQuadReader(File file, ExecutorService executor) {
+        this(file, executor, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param file
+     *            the N-Quads file.
+     * @param executor
+     *            the executor to parse the chunks with, or null to parse them
+     *            on the calling thread.
+     * @param chunkSize
+     *            the number of bytes after which a chunk ends at the next line
+     *            break.
+     */
+    public MappedNQuadReader(File file, ExecutorService executor, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.file = file;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        // enough to keep every thread busy while the quads of the first
+        // chunk are passed on, without holding the whole file in memory
+        this.maxPendingChunks = 2 * Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Reads all of the quads into a new dataset, ignoring duplicate quads
+     * within each graph.
+     *
+     * @return the dataset.
+     * @throws JsonLdError
+     *             if the file is not valid N-Quads or cannot be read.
+     */
+    public RDFDataset parse() throws JsonLdError {
+        final NQuadReader.DatasetCollector collector = new NQuadReader.DatasetCollector();
+        parse(collector);
+        return collector.dataset;
+    }
+
+    /**
+     * Reads all of the quads, passing them to the callback in the order of
+     * the file. Duplicates are not removed.
+     *
+     * @param callback
+     *            the callback for each quad.
+     * @throws JsonLdError
+     *             if the file is not valid N-Quads or cannot be read, or if
+     *             the callback throws an error.
+     */
+    public void parse(QuadCallback callback) throws JsonLdError {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            final FileChannel channel = raf.getChannel();
+            if (executor == null) {
+                parseSequentially(channel, callback);
+            } else {
+                parseInParallel(channel, callback);
+            }
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.LOADING_DOCUMENT_FAILED, e.getMessage());
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (final IOException e) {
+                    // nothing was written, so nothing can be lost
+                }
+            }
+        }
+    }
+
+    private void parseSequentially(FileChannel channel, QuadCallback callback)
+            throws IOException, JsonLdError {
+        final long size = channel.size();
+        long start = 0;
+        int line = 1;
+        while (start < size) {
+            final long end = chunkEnd(channel, start, size);
+            final NQuadReader reader = reader(map(channel, start, end), line);
+            reader.parse(callback);
+            line = reader.getLine();
+            start = end;
+        }
+    }
+
+    private void parseInParallel(FileChannel channel, QuadCallback callback)
+            throws IOException, JsonLdError {
+        final long size = channel.size();
+        final LinkedList<Chunk> pending = new LinkedList<Chunk>();
+        long start = 0;
+        int line = 1;
+        try {
+            while (start < size || !pending.isEmpty()) {
+                while (start < size && pending.size() < maxPendingChunks) {
+                    final long end = chunkEnd(channel, start, size);
+                    final Chunk chunk = new Chunk(map(channel, start, end));
+                    chunk.future = executor.submit(chunk);
+                    pending.add(chunk);
+                    start = end;
+                }
+                final Chunk chunk = pending.removeFirst();
+                final List<RDFDataset.Quad> quads;
+                try {
+                    quads = JsonLdUtils.getResult(chunk.future);
+                } catch (final JsonLdError e) {
+                    // parse the chunk again, knowing its first line, to get
+                    // the right line number in the error
+                    reader(chunk.buffer.duplicate(), line).parse(new QuadCallback() {
+                        @Override
+                        public void call(RDFDataset.Quad quad) {
+                        }
+                    });
+                    throw e;
+                }
+                for (final RDFDataset.Quad quad : quads) {
+                    callback.call(quad);
+                }
+                line += chunk.lines;
+            }
+        } finally {
+            for (final Chunk chunk : pending) {
+                chunk.future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Parses a chunk into a list of quads.
+     */
+    private static final class Chunk implements Callable<List<RDFDataset.Quad>> {
+        final ByteBuffer buffer;
+        Future<List<RDFDataset.Quad>> future;
+        // the number of line breaks in the chunk
+        int lines;
+
+        Chunk(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public List<RDFDataset.Quad> call() throws JsonLdError {
+            final NQuadReader reader = reader(buffer.duplicate(), 1);
+            final List<RDFDataset.Quad> quads = new ArrayList<RDFDataset.Quad>();
+            RDFDataset.Quad quad;
+            while ((quad = reader.next()) != null) {
+                quads.add(quad);
+            }
+            lines = reader.getLine() - 1;
+            return quads;
+        }
+    }
+
+    /**
+     * @return the position after the first '\n' at or after start +
+     *         chunkSize, or the size of the file if there is none.
+     */
+    private long chunkEnd(FileChannel channel, long start, long size) throws IOException {
+        long pos = start + chunkSize;
+        if (pos >= size) {
+            return size;
+        }
+        final ByteBuffer window = ByteBuffer.allocate(4096);
+        while (pos < size) {
+            window.clear();
+            final int n = channel.read(window, pos);
+            if (n < 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (window.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private static ByteBuffer map(FileChannel channel, long start, long end)
+            throws IOException, JsonLdError {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new JsonLdError(Error.SYNTAX_ERROR,
+                    "Error while parsing N-Quads; line too long at byte " + start);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+
+    private static NQuadReader reader(ByteBuffer buffer, int firstLine) {
+        return new NQuadReader(new ByteBufferReader(buffer), 8192, firstLine);
+    }
+
+    /**
+     * Decodes UTF-8 from a buffer holding the whole input, replacing
+     * malformed input as an InputStreamReader does.
+     */
+    private static final class ByteBufferReader extends Reader {
+        private final ByteBuffer in;
+        private final CharsetDecoder decoder = UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        // the second half of a surrogate pair that didn't fit
+        private int pending = -1;
+
+        ByteBufferReader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int n = 0;
+            if (pending >= 0) {
+                cbuf[off] = (char) pending;
+                pending = -1;
+                n = 1;
+            }
+            final CharBuffer out = CharBuffer.wrap(cbuf, off + n, len - n);
+            decoder.decode(in, out, true);
+            n += out.position() - (off + n);
+            if (n == 0 && in.hasRemaining()) {
+                // only room for one char of a surrogate pair
+                final CharBuffer pair = CharBuffer.allocate(2);
+                decoder.decode(in, pair, true);
+                pair.flip();
+                cbuf[off] = pair.get();
+                if (pair.hasRemaining()) {
+                    pending = pair.get();
+                }
+                return 1;
+            }
+            return n == 0 ? -1 : n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package com.github.jsonldjava.core;
+
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_LANGSTRING;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_STRING;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.jsonldjava.core.JsonLdError.Error;
+
+/**
+ * A streaming N-Quads parser.
+ *
+ * The input is scanned one character at a time from a buffered
+ * {@link Reader}, so the whole document never has to be held in memory and
+ * each quad can be handed to a {@link QuadCallback} as soon as it has been
+ * read. Alternatively the quads can be collected into an {@link RDFDataset},
+ * in which case duplicate quads are dropped.
+ *
+ * http://www.w3.org/TR/n-quads/
+ */
+public class NQuadReader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int EOF = -1;
+
+    private final Reader in;
+    private final char[] buf;
+    private int pos = 0;
+    private int limit = 0;
+
+    private int line;
+    private int column = 1;
+
+    // reused for every term, only turned into a String once complete
+    private final StringBuilder sb = new StringBuilder();
+
+    public NQuadReader(Reader in) {
+        this(in, 8192);
+    }
+
+    public NQuadReader(Reader in, int bufferSize) {
+        this(in, bufferSize, 1);
+    }
+
+    /**
+     * @param firstLine
+     *            the line number of the start of the input, for the error
+     *            messages, when it is part of a larger document.
+     */
+    NQuadReader(Reader in, int bufferSize, int firstLine) {
+        this.in = in;
+        this.buf = new char[Math.max(bufferSize, 16)];
+        this.line = firstLine;
+    }
+
+    public NQuadReader(InputStream in) {
+        this(new InputStreamReader(in, UTF_8));
+    }
+
+    public NQuadReader(String in) {
+        this(new StringReader(in));
+    }
+
+    /**
+     * Reads all of the remaining quads into a new dataset, ignoring duplicate
+     * quads within each graph.
+     *
+     * @return the dataset.
+     * @throws JsonLdError
+     *             if the input is not valid N-Quads or cannot be read.
+     */
+    public RDFDataset parse() throws JsonLdError {
+        final DatasetCollector collector = new DatasetCollector();
+        parse(collector);
+        return collector.dataset;
+    }
+
+    /**
+     * Reads all of the remaining quads, passing each one to the callback as
+     * soon as it has been read. Duplicates are not removed.
+     *
+     * @param callback
+     *            the callback for each quad.
+     * @throws JsonLdError
+     *             if the input is not valid N-Quads or cannot be read, or if
+     *             the callback throws an error.
+     */
+    public void parse(QuadCallback callback) throws JsonLdError {
+        RDFDataset.Quad quad;
+        while ((quad = next()) != null) {
+            callback.call(quad);
+        }
+    }
+
+    /**
+     * Reads the next quad.
+     *
+     * @return the quad, or null at the end of the input.
+     * @throws JsonLdError
+     *             if the input is not valid N-Quads or cannot be read.
+     */
+    public RDFDataset.Quad next() throws JsonLdError {
+        while (true) {
+            skipWhitespace();
+            int c = peek(0);
+            if (c == EOF) {
+                return null;
+            }
+            if (c == '#') {
+                skipComment();
+                c = peek(0);
+            }
+            if (c == '\r' || c == '\n') {
+                readEndOfLine();
+                continue;
+            }
+            if (c == EOF) {
+                return null;
+            }
+
+            // subject
+            final RDFDataset.Node subject;
+            if (c == '<') {
+                subject = new RDFDataset.IRI(readIri());
+            } else if (c == '_') {
+                subject = new RDFDataset.BlankNode(readBlankNode());
+            } else {
+                throw error();
+            }
+            skipWhitespace();
+
+            // predicate
+            if (peek(0) != '<') {
+                throw error();
+            }
+            final RDFDataset.Node predicate = new RDFDataset.IRI(readIri());
+            skipWhitespace();
+
+            // object
+            final RDFDataset.Node object;
+            c = peek(0);
+            if (c == '<') {
+                object = new RDFDataset.IRI(readIri());
+            } else if (c == '_') {
+                object = new RDFDataset.BlankNode(readBlankNode());
+            } else if (c == '"') {
+                object = readLiteral();
+            } else {
+                throw error();
+            }
+            skipWhitespace();
+
+            // graph name ('@default' is used for the default graph)
+            String name = "@default";
+            c = peek(0);
+            if (c == '<') {
+                name = readIri();
+                skipWhitespace();
+            } else if (c == '_') {
+                name = readBlankNode();
+                skipWhitespace();
+            }
+            if (read() != '.') {
+                throw error();
+            }
+
+            // nothing but whitespace and comments until the end of the line
+            skipWhitespace();
+            c = peek(0);
+            if (c == '#') {
+                skipComment();
+                c = peek(0);
+            }
+            if (c == '\r' || c == '\n') {
+                readEndOfLine();
+            } else if (c != EOF) {
+                throw error();
+            }
+            return new RDFDataset.Quad(subject, predicate, object, name);
+        }
+    }
+
+    /**
+     * Adds quads to a dataset, ignoring duplicate quads within each graph.
+     */
+    static final class DatasetCollector implements QuadCallback {
+        final RDFDataset dataset = new RDFDataset();
+        private final Map<String, Set<RDFDataset.Quad>> seen = new HashMap<String, Set<RDFDataset.Quad>>();
+
+        @Override
+        public void call(RDFDataset.Quad quad) {
+            final String name = quad.getGraph() == null ? "@default" : quad.getGraph()
+                    .getValue();
+            Set<RDFDataset.Quad> quads = seen.get(name);
+            if (quads == null) {
+                quads = new HashSet<RDFDataset.Quad>();
+                seen.put(name, quads);
+                if (!dataset.containsKey(name)) {
+                    dataset.put(name, new ArrayList<RDFDataset.Quad>());
+                }
+            }
+            if (quads.add(quad)) {
+                ((List<RDFDataset.Quad>) dataset.get(name)).add(quad);
+            }
+        }
+    }
+
+    /**
+     * @return the current line number, starting at 1.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the current column number, starting at 1.
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    private JsonLdError error() {
+        return new JsonLdError(Error.SYNTAX_ERROR,
+                "Error while parsing N-Quads; invalid quad. line:" + line + " column:" + column);
+    }
+
+    private String readIri() throws JsonLdError {
+        read(); // <
+        sb.setLength(0);
+        while (true) {
+            final int c = read();
+            if (c == '>') {
+                break;
+            } else if (c == '\\') {
+                readEscape();
+            } else if (c == EOF || c == '\r' || c == '\n') {
+                throw error();
+            } else {
+                sb.append((char) c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private String readBlankNode() throws JsonLdError {
+        read(); // _
+        if (read() != ':') {
+            throw error();
+        }
+        sb.setLength(0);
+        sb.append("_:");
+        while (true) {
+            final int c = peek(0);
+            // a label may contain but not end with '.'
+            if (isLabelChar(c) || (c == '.' && isLabelChar(peek(1)))) {
+                sb.append((char) read());
+            } else {
+                break;
+            }
+        }
+        if (sb.length() == 2) {
+            throw error();
+        }
+        return sb.toString();
+    }
+
+    private static boolean isLabelChar(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c == '-' || c > 0x7F;
+    }
+
+    private RDFDataset.Node readLiteral() throws JsonLdError {
+        read(); // "
+        sb.setLength(0);
+        while (true) {
+            final int c = read();
+            if (c == '"') {
+                break;
+            } else if (c == '\\') {
+                readEscape();
+            } else if (c == EOF || c == '\r' || c == '\n') {
+                throw error();
+            } else {
+                sb.append((char) c);
+            }
+        }
+        final String value = sb.toString();
+        String datatype = XSD_STRING;
+        String language = null;
+        final int c = peek(0);
+        if (c == '^') {
+            read();
+            if (read() != '^' || peek(0) != '<') {
+                throw error();
+            }
+            datatype = readIri();
+        } else if (c == '@') {
+            read();
+            language = readLanguage();
+            datatype = RDF_LANGSTRING;
+        }
+        return new RDFDataset.Literal(value, datatype, language);
+    }
+
+    private String readLanguage() throws JsonLdError {
+        sb.setLength(0);
+        int c = peek(0);
+        while ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+            sb.append((char) read());
+            c = peek(0);
+        }
+        if (sb.length() == 0) {
+            throw error();
+        }
+        while (c == '-') {
+            sb.append((char) read());
+            final int start = sb.length();
+            c = peek(0);
+            while ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                sb.append((char) read());
+                c = peek(0);
+            }
+            if (sb.length() == start) {
+                throw error();
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads the escape sequence following a backslash, appending the
+     * unescaped character(s) to the string builder. Unknown escapes are kept
+     * as they are.
+     */
+    private void readEscape() throws JsonLdError {
+        final int c = read();
+        switch (c) {
+        case 't':
+            sb.append('\t');
+            break;
+        case 'b':
+            sb.append('\b');
+            break;
+        case 'n':
+            sb.append('\n');
+            break;
+        case 'r':
+            sb.append('\r');
+            break;
+        case 'f':
+            sb.append('\f');
+            break;
+        case '"':
+            sb.append('"');
+            break;
+        case '\'':
+            sb.append('\'');
+            break;
+        case '\\':
+            sb.append('\\');
+            break;
+        case 'u':
+            sb.appendCodePoint(readHex(4));
+            break;
+        case 'U':
+            sb.appendCodePoint(readHex(8));
+            break;
+        case EOF:
+        case '\r':
+        case '\n':
+            throw error();
+        default:
+            sb.append('\\').append((char) c);
+        }
+    }
+
+    private int readHex(int digits) throws JsonLdError {
+        int v = 0;
+        for (int i = 0; i < digits; i++) {
+            final int d = Character.digit(read(), 16);
+            if (d < 0) {
+                throw error();
+            }
+            v = (v << 4) | d;
+        }
+        if (!Character.isValidCodePoint(v)) {
+            throw error();
+        }
+        return v;
+    }
+
+    private void skipWhitespace() throws JsonLdError {
+        int c = peek(0);
+        while (c == ' ' || c == '\t') {
+            read();
+            c = peek(0);
+        }
+    }
+
+    private void skipComment() throws JsonLdError {
+        int c = peek(0);
+        while (c != EOF && c != '\r' && c != '\n') {
+            read();
+            c = peek(0);
+        }
+    }
+
+    private void readEndOfLine() throws JsonLdError {
+        if (read() == '\r' && peek(0) == '\n') {
+            read();
+        }
+        line++;
+        column = 1;
+    }
+
+    private int read() throws JsonLdError {
+        if (pos >= limit && !fill(1)) {
+            return EOF;
+        }
+        column++;
+        return buf[pos++];
+    }
+
+    private int peek(int offset) throws JsonLdError {
+        if (pos + offset >= limit && !fill(offset + 1)) {
+            return EOF;
+        }
+        return buf[pos + offset];
+    }
+
+    /**
+     * Makes sure that at least the given number of characters are available
+     * in the buffer.
+     *
+     * @return false if the end of the input was reached first.
+     */
+    private boolean fill(int needed) throws JsonLdError {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        try {
+            while (limit < needed) {
+                final int n = in.read(buf, limit, buf.length - limit);
+                if (n < 0) {
+                    return false;
+                }
+                limit += n;
+            }
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.LOADING_DOCUMENT_FAILED, e.getMessage());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.jsonldjava.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import com.github.jsonldjava.core.JsonLdError.Error;
+
+/**
+ * A streaming N-Quads serializer.
+ *
+ * Each quad is written to the {@link Writer} as soon as it is given, through
+ * a single reused buffer, so serializing a dataset takes time linear in the
+ * size of the output and hardly creates any garbage. The quads are written in
+ * the order they are given; use a {@link SortingNQuadWriter} for the sorted
+ * (canonical) output of {@link RDFDatasetUtils#toNQuads(RDFDataset)}.
+ *
+ * Since this is a {@link QuadCallback}, it can be handed to the streaming
+ * parsers and toRDF directly.
+ *
+ * http://www.w3.org/TR/n-quads/
+ */
+public class NQuadWriter extends AbstractNQuadWriter {
+
+    private final Writer out;
+    private char[] chars = new char[256];
+
+    public NQuadWriter(Writer out) {
+        this.out = out;
+    }
+
+    public NQuadWriter(OutputStream out) {
+        this(writer(out));
+    }
+
+    @Override
+    protected void writeLine(StringBuilder line) throws JsonLdError {
+        final int length = line.length();
+        if (length > chars.length) {
+            chars = new char[Math.max(length, 2 * chars.length)];
+        }
+        line.getChars(0, length, chars, 0);
+        try {
+            out.write(chars, 0, length);
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        }
+    }
+
+    public void flush() throws JsonLdError {
+        try {
+            out.flush();
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        }
+    }
+
+    public void close() throws JsonLdError {
+        try {
+            out.close();
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.github.jsonldjava.core;
+
+import static com.github.jsonldjava.core.JsonLdUtils.isKeyword;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.jsonldjava.core.JsonLdError.Error;
+
+/**
+ * Indexes of the nodes of a node map by type and by property, used by the
+ * framing algorithm to find the nodes matching a frame with a few lookups and
+ * set operations rather than by testing every node against the frame.
+ * 
+ * Each node is identified by its position in the node map, and all the sets
+ * are sorted arrays of positions, so that the matches can be returned in the
+ * same order as the node map. The indexes are created the first time they are
+ * needed, and the node map must not be modified while the index is in use.
+ */
+class NodeMapIndex {
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] ids;
+    private final Map<String, Object>[] nodes;
+
+    private Map<String, int[]> byType = null;
+    private int[] typed = null;
+    private Map<String, int[]> byProperty = null;
+
+    NodeMapIndex(Map<String, Object> nodeMap) {
+        ids = new String[nodeMap.size()];
+        nodes = new Map[nodeMap.size()];
+        int i = 0;
+        for (final Map.Entry<String, Object> entry : nodeMap.entrySet()) {
+            ids[i] = entry.getKey();
+            nodes[i] = (Map<String, Object>) entry.getValue();
+            i++;
+        }
+    }
+
+    /**
+     * Finds the nodes which match the given frame, with the same rules as
+     * filtering each node (see JsonLdApi.filterNode).
+     * 
+     * @param frame
+     *            the frame.
+     * @return the positions of the matching nodes, or null if the frame can't
+     *         be matched using the indexes.
+     * @throws JsonLdError
+     *             if the frame @type isn't an array.
+     */
+    int[] match(Map<String, Object> frame) throws JsonLdError {
+        final Object types = frame.get("@type");
+        if (types != null) {
+            if (!(types instanceof List)) {
+                throw new JsonLdError(Error.SYNTAX_ERROR, "frame @type must be an array");
+            }
+            final List<Object> frameTypes = (List<Object>) types;
+            indexTypes();
+            if (frameTypes.size() == 1 && frameTypes.get(0) instanceof Map
+                    && ((Map<String, Object>) frameTypes.get(0)).size() == 0) {
+                return typed;
+            }
+            int[] rval = NONE;
+            for (final Object type : frameTypes) {
+                if (!(type instanceof String)) {
+                    // only the types of the nodes (which are strings) are
+                    // indexed
+                    return null;
+                }
+                final int[] withType = byType.get(type);
+                if (withType != null) {
+                    rval = union(rval, withType);
+                }
+            }
+            return rval;
+        }
+        if (frame.containsKey("@id")) {
+            return NONE;
+        }
+        int[] rval = null;
+        for (final String key : frame.keySet()) {
+            if (isKeyword(key)) {
+                continue;
+            }
+            indexProperties();
+            final int[] withProperty = byProperty.get(key);
+            if (withProperty == null) {
+                return NONE;
+            }
+            rval = rval == null ? withProperty : intersect(rval, withProperty);
+            if (rval.length == 0) {
+                return rval;
+            }
+        }
+        if (rval == null) {
+            // no properties to match, every node matches
+            rval = new int[nodes.length];
+            for (int i = 0; i < rval.length; i++) {
+                rval[i] = i;
+            }
+        }
+        return rval;
+    }
+
+    /**
+     * @param positions
+     *            the sorted positions of some nodes.
+     * @return the nodes at the given positions, in node map order.
+     */
+    Map<String, Object> select(int[] positions) {
+        final Map<String, Object> rval = new LinkedHashMap<String, Object>();
+        for (final int i : positions) {
+            if (nodes[i] != null) {
+                rval.put(ids[i], nodes[i]);
+            }
+        }
+        return rval;
+    }
+
+    private void indexTypes() throws JsonLdError {
+        if (byType != null) {
+            return;
+        }
+        final Map<String, IntList> types = new HashMap<String, IntList>();
+        final IntList withTypes = new IntList();
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] == null) {
+                continue;
+            }
+            final Object nodeTypes = nodes[i].get("@type");
+            if (nodeTypes == null) {
+                continue;
+            } else if (!(nodeTypes instanceof List)) {
+                throw new JsonLdError(Error.SYNTAX_ERROR, "node @type must be an array");
+            }
+            if (!((List<Object>) nodeTypes).isEmpty()) {
+                withTypes.add(i);
+            }
+            for (final Object type : (List<Object>) nodeTypes) {
+                if (type instanceof String) {
+                    IntList list = types.get(type);
+                    if (list == null) {
+                        list = new IntList();
+                        types.put((String) type, list);
+                    }
+                    // a node may list the same type more than once
+                    if (list.size == 0 || list.last() != i) {
+                        list.add(i);
+                    }
+                }
+            }
+        }
+        typed = withTypes.toArray();
+        byType = toArrays(types);
+    }
+
+    private void indexProperties() {
+        if (byProperty != null) {
+            return;
+        }
+        final Map<String, IntList> properties = new HashMap<String, IntList>();
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] == null) {
+                continue;
+            }
+            for (final String property : nodes[i].keySet()) {
+                IntList list = properties.get(property);
+                if (list == null) {
+                    list = new IntList();
+                    properties.put(property, list);
+                }
+                list.add(i);
+            }
+        }
+        byProperty = toArrays(properties);
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, IntList> lists) {
+        final Map<String, int[]> rval = new HashMap<String, int[]>(lists.size() * 4 / 3 + 1);
+        for (final Map.Entry<String, IntList> entry : lists.entrySet()) {
+            rval.put(entry.getKey(), entry.getValue().toArray());
+        }
+        return rval;
+    }
+
+    static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        } else if (b.length == 0) {
+            return a;
+        }
+        final int[] rval = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                rval[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                rval[n++] = b[j++];
+            } else {
+                rval[n++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            rval[n++] = a[i++];
+        }
+        while (j < b.length) {
+            rval[n++] = b[j++];
+        }
+        return n == rval.length ? rval : Arrays.copyOf(rval, n);
+    }
+
+    static int[] intersect(int[] a, int[] b) {
+        final int[] rval = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                rval[n++] = a[i++];
+                j++;
+            }
+        }
+        return n == rval.length ? rval : Arrays.copyOf(rval, n);
+    }
+
+    private static class IntList {
+        int[] values = new int[4];
+        int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int last() {
+            return values[size - 1];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.jsonldjava.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.jsonldjava.core.JsonLdError.Error;
+
+/**
+ * The limits on the work done by a single normalization, set on the options,
+ * and the work done so far. The hashing of blank node paths reports each
+ * permutation it tries and each recursion, the other loops of the
+ * normalization call {@link #check()} for each item, and the normalization is
+ * stopped with a {@link Error#NORMALIZATION_LIMIT_EXCEEDED} error as soon as a
+ * limit is exceeded, or with an {@link Error#INTERRUPTED} error if the thread
+ * is interrupted (which leaves it interrupted). Can be shared by the threads
+ * hashing in parallel.
+ */
+class NormalizationBudget {
+
+    private final long maxPermutations;
+    private final int maxRecursionDepth;
+    private final long maxTime;
+    private final NormalizationStats stats;
+
+    private final long start = System.nanoTime();
+    private final AtomicLong permutations = new AtomicLong();
+    private final AtomicInteger recursionDepth = new AtomicInteger();
+
+    NormalizationBudget(JsonLdOptions options) {
+        this.maxPermutations = options.getMaxNormalizationPermutations();
+        this.maxRecursionDepth = options.getMaxNormalizationRecursionDepth();
+        this.maxTime = options.getMaxNormalizationTime();
+        this.stats = options.getNormalizationStats();
+    }
+
+    /**
+     * Counts a permutation of blank nodes.
+     */
+    void permutation() throws JsonLdError {
+        final long count = permutations.incrementAndGet();
+        if (maxPermutations > 0 && count > maxPermutations) {
+            throw new JsonLdError(Error.NORMALIZATION_LIMIT_EXCEEDED, "more than "
+                    + maxPermutations + " permutations");
+        }
+        check();
+    }
+
+    /**
+     * Counts a (possibly recursive) call to hash the paths of a blank node.
+     * 
+     * @param depth
+     *            the depth of the recursion, 1 for the outermost call.
+     */
+    void recursion(int depth) throws JsonLdError {
+        int current = recursionDepth.get();
+        while (depth > current && !recursionDepth.compareAndSet(current, depth)) {
+            current = recursionDepth.get();
+        }
+        if (maxRecursionDepth > 0 && depth > maxRecursionDepth) {
+            throw new JsonLdError(Error.NORMALIZATION_LIMIT_EXCEEDED, "recursion deeper than "
+                    + maxRecursionDepth);
+        }
+        check();
+    }
+
+    /**
+     * Checks the time limit, and whether the thread was interrupted.
+     */
+    void check() throws JsonLdError {
+        if (maxTime > 0 && elapsed() > maxTime) {
+            throw new JsonLdError(Error.NORMALIZATION_LIMIT_EXCEEDED, "took more than " + maxTime
+                    + "ms");
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new JsonLdError(Error.INTERRUPTED, "normalization was interrupted");
+        }
+    }
+
+    private long elapsed() {
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    /**
+     * Adds the work done to the statistics of the options, if any.
+     * 
+     * @param limitExceeded
+     *            true if the normalization was stopped by a limit.
+     */
+    void finish(boolean limitExceeded) {
+        if (stats != null) {
+            stats.record(permutations.get(), recursionDepth.get(), elapsed(), limitExceeded);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.jsonldjava.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the work done to normalize datasets, shared between calls to
+ * the processor through {@link JsonLdOptions#setNormalizationStats}.
+ *
+ * Along with the totals, the largest amount of each kind of work done by a
+ * single normalization is kept, which can be compared to the limits set on the
+ * options (see {@link JsonLdOptions#setMaxNormalizationPermutations(long)})
+ * to find inputs which come close to them. A single instance can be used from
+ * multiple threads.
+ */
+public class NormalizationStats {
+
+    private final AtomicLong normalizations = new AtomicLong();
+    private final AtomicLong limitsExceeded = new AtomicLong();
+    private final AtomicLong permutations = new AtomicLong();
+    private final AtomicLong maxPermutations = new AtomicLong();
+    private final AtomicLong maxRecursionDepth = new AtomicLong();
+    private final AtomicLong maxTime = new AtomicLong();
+
+    void record(long permutations, int recursionDepth, long time, boolean limitExceeded) {
+        normalizations.incrementAndGet();
+        if (limitExceeded) {
+            limitsExceeded.incrementAndGet();
+        }
+        this.permutations.addAndGet(permutations);
+        max(maxPermutations, permutations);
+        max(maxRecursionDepth, recursionDepth);
+        max(maxTime, time);
+    }
+
+    private static void max(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Sets all the counters back to zero.
+     */
+    public void reset() {
+        normalizations.set(0);
+        limitsExceeded.set(0);
+        permutations.set(0);
+        maxPermutations.set(0);
+        maxRecursionDepth.set(0);
+        maxTime.set(0);
+    }
+
+    /**
+     * @return the number of datasets normalized (or which failed to be
+     *         normalized because a limit was exceeded).
+     */
+    public long getNormalizations() {
+        return normalizations.get();
+    }
+
+    /**
+     * @return the number of normalizations which were stopped because a
+     *         limit was exceeded.
+     */
+    public long getLimitsExceeded() {
+        return limitsExceeded.get();
+    }
+
+    /**
+     * @return the total number of permutations of blank nodes tried.
+     */
+    public long getPermutations() {
+        return permutations.get();
+    }
+
+    /**
+     * @return the largest number of permutations tried by a single
+     *         normalization.
+     */
+    public long getMaxPermutations() {
+        return maxPermutations.get();
+    }
+
+    /**
+     * @return the deepest recursion of the path hashing of a single
+     *         normalization.
+     */
+    public long getMaxRecursionDepth() {
+        return maxRecursionDepth.get();
+    }
+
+    /**
+     * @return the longest time taken by a single normalization, in
+     *         milliseconds.
+     */
+    public long getMaxTime() {
+        return maxTime.get();
+    }
+}
@@ -13,15 +13,22 @@ import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import com.github.jsonldjava.utils.Obj;
 
 class NormalizeUtils {
 
+    /**
+     * The smallest number of blank nodes whose quads are hashed by a task.
+     */
+    static final int MIN_PARALLEL_HASHES = 256;
+
     private final UniqueNamer namer;
     private final Map<String, Object> bnodes;
     private final List<Object> quads;
     private final JsonLdOptions options;
+    private final NormalizationBudget budget;
 
     public NormalizeUtils(List<Object> quads, Map<String, Object> bnodes, UniqueNamer namer,
             JsonLdOptions options) {
@@ -29,15 +36,38 @@ class NormalizeUtils {
         this.quads = quads;
         this.bnodes = bnodes;
         this.namer = namer;
+        this.budget = new NormalizationBudget(options);
+    }
+
+    /**
+     * Names the blank nodes and returns the normalized dataset, within the
+     * limits set on the options.
+     */
+    public Object hashBlankNodes(Collection<String> unnamed) throws JsonLdError {
+        boolean limitExceeded = false;
+        try {
+            return hashAndNameBlankNodes(unnamed);
+        } catch (final JsonLdError e) {
+            limitExceeded = e.getType() == JsonLdError.Error.NORMALIZATION_LIMIT_EXCEEDED;
+            throw e;
+        } finally {
+            budget.finish(limitExceeded);
+        }
     }
 
     // generates unique and duplicate hashes for bnodes
-    public Object hashBlankNodes(Collection<String> unnamed_) throws JsonLdError {
+    private Object hashAndNameBlankNodes(Collection<String> unnamed_) throws JsonLdError {
         List<String> unnamed = new ArrayList<String>(unnamed_);
         List<String> nextUnnamed = new ArrayList<String>();
         Map<String, List<String>> duplicates = new LinkedHashMap<String, List<String>>();
         Map<String, String> unique = new LinkedHashMap<String, String>();
 
+        // the quad hashes don't depend on the names, compute them all first
+        // if they can be computed in parallel
+        if (options.getExecutorService() != null) {
+            hashQuadsInParallel(unnamed);
+        }
+
         // NOTE: not using the same structure as javascript here to avoid
         // possible stack overflows
         // hash quads for each unnamed bnode
@@ -91,95 +121,49 @@ class NormalizeUtils {
 
                             // update bnode names in each quad and serialize
                             for (int cai = 0; cai < quads.size(); ++cai) {
-                                final Map<String, Object> quad = (Map<String, Object>) quads
-                                        .get(cai);
-                                for (final String attr : new String[] { "subject", "object", "name" }) {
-                                    if (quad.containsKey(attr)) {
-                                        final Map<String, Object> qa = (Map<String, Object>) quad
-                                                .get(attr);
-                                        if (qa != null
-                                                && "blank node".equals(qa.get("type"))
-                                                && ((String) qa.get("value")).indexOf("_:c14n") != 0) {
-                                            qa.put("value",
-                                                    namer.getName((String) qa.get(("value"))));
-                                        }
-                                    }
-                                }
-                                normalized
-                                        .add(toNQuad(
-                                                (RDFDataset.Quad) quad,
-                                                quad.containsKey("name")
-                                                        && quad.get("name") != null ? (String) ((Map<String, Object>) quad
-                                                        .get("name")).get("value") : null));
+                                budget.check();
+                                final RDFDataset.Quad quad = (RDFDataset.Quad) quads.get(cai);
+                                final RDFDataset.Node graph = rename(quad.getGraph());
+                                normalized.add(toNQuad(
+                                        new RDFDataset.Quad(rename(quad.getSubject()), quad
+                                                .getPredicate(), rename(quad.getObject()),
+                                                graph == null ? null : graph.getValue()),
+                                        graph == null ? null : graph.getValue()));
                             }
 
                             // sort normalized output
                             Collections.sort(normalized);
 
-                            // handle output format
-                            if (options.format != null) {
-                                if ("application/nquads".equals(options.format)) {
-                                    String rval = "";
-                                    for (final String n : normalized) {
-                                        rval += n;
-                                    }
-                                    return rval;
-                                } else {
-                                    throw new JsonLdError(JsonLdError.Error.UNKNOWN_FORMAT,
-                                            options.format);
-                                }
-                            }
-                            String rval = "";
-                            for (final String n : normalized) {
-                                rval += n;
-                            }
-                            return parseNQuads(rval);
+                            return toOutputFormat(normalized, options);
                         }
 
                         // name each group member
                         final List<String> group = duplicates.get(hashes.get(pgi));
-                        final List<HashResult> results = new ArrayList<HashResult>();
-                        for (int n = 0;; n++) {
-                            if (n == group.size()) {
-                                // name bnodes in hash order
-                                Collections.sort(results, new Comparator<HashResult>() {
-                                    @Override
-                                    public int compare(HashResult a, HashResult b) {
-                                        final int res = a.hash.compareTo(b.hash);
-                                        return res;
-                                    }
-                                });
-                                for (final HashResult r : results) {
-                                    // name all bnodes in path namer in
-                                    // key-entry order
-                                    // Note: key-order is preserved in
-                                    // javascript
-                                    for (final String key : r.pathNamer.existing().keySet()) {
-                                        namer.getName(key);
-                                    }
-                                }
-                                // processGroup(i+1);
-                                break;
-                            } else {
-                                // skip already-named bnodes
-                                final String bnode = group.get(n);
-                                if (namer.isNamed(bnode)) {
-                                    continue;
-                                }
-
-                                // hash bnode paths
-                                final UniqueNamer pathNamer = new UniqueNamer("_:b");
-                                pathNamer.getName(bnode);
-
-                                final HashResult result = hashPaths(bnode, bnodes, namer, pathNamer);
-                                results.add(result);
+                        final List<HashResult> results = hashGroupPaths(group);
+                        // name bnodes in hash order
+                        Collections.sort(results, new Comparator<HashResult>() {
+                            @Override
+                            public int compare(HashResult a, HashResult b) {
+                                final int res = a.hash.compareTo(b.hash);
+                                return res;
+                            }
+                        });
+                        for (final HashResult r : results) {
+                            // name all bnodes in path namer in
+                            // key-entry order
+                            // Note: key-order is preserved in
+                            // javascript
+                            for (final String key : r.pathNamer.existing().keySet()) {
+                                namer.getName(key);
                             }
                         }
+                        // processGroup(i+1);
                     }
                 }
             }
 
             // hash unnamed bnode
+            budget.check();
             final String bnode = unnamed.get(hui);
             final String hash = hashQuads(bnode, bnodes, namer);
 
@@ -201,6 +185,83 @@ class NormalizeUtils {
         }
     }
 
+    /**
+     * Joins the sorted N-Quads of a normalized dataset, returning them as a
+     * string if the options ask for N-Quads and as a dataset otherwise.
+     */
+    static Object toOutputFormat(List<String> normalized, JsonLdOptions options)
+            throws JsonLdError {
+        if (options.format != null && !"application/nquads".equals(options.format)) {
+            throw new JsonLdError(JsonLdError.Error.UNKNOWN_FORMAT, options.format);
+        }
+        final StringBuilder rval = new StringBuilder();
+        for (final String n : normalized) {
+            rval.append(n);
+        }
+        if (options.format != null) {
+            return rval.toString();
+        }
+        return parseNQuads(rval.toString());
+    }
+
+    /**
+     * Returns the given node, or a blank node with its canonical name if it is
+     * a blank node which hasn't been renamed yet (the quads are immutable, so
+     * they can't be updated in place).
+     */
+    private RDFDataset.Node rename(RDFDataset.Node node) {
+        if (node != null && node.isBlankNode() && node.getValue().indexOf("_:c14n") != 0) {
+            return new RDFDataset.BlankNode(namer.getName(node.getValue()));
+        }
+        return node;
+    }
+
+    /**
+     * Hashes the quads of the given blank nodes on the executor, in chunks.
+     * Each task only updates the entries of its own blank nodes.
+     */
+    private void hashQuadsInParallel(List<String> ids) throws JsonLdError {
+        JsonLdUtils.invokeInChunks(options.getExecutorService(), ids, MIN_PARALLEL_HASHES,
+                new JsonLdUtils.ChunkTask<String>() {
+                    @Override
+                    public void run(List<String> chunk) throws JsonLdError {
+                        for (final String id : chunk) {
+                            budget.check();
+                            hashQuads(id, bnodes, namer);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Hashes the paths of the members of a group of blank nodes with the same
+     * quad hash which haven't been named yet, in parallel if there is an
+     * executor. The paths of the members of a group are independent: the
+     * canonical names are only read until the whole group has been hashed.
+     * 
+     * @return the results, in the order of the group.
+     */
+    private List<HashResult> hashGroupPaths(List<String> group) throws JsonLdError {
+        final List<Callable<HashResult>> tasks = new ArrayList<Callable<HashResult>>();
+        for (final String bnode : group) {
+            // skip already-named bnodes
+            if (namer.isNamed(bnode)) {
+                continue;
+            }
+            tasks.add(new Callable<HashResult>() {
+                @Override
+                public HashResult call() throws JsonLdError {
+                    // hash bnode paths
+                    final UniqueNamer pathNamer = new UniqueNamer("_:b");
+                    pathNamer.getName(bnode);
+                    return hashPaths(bnode, bnodes, namer, pathNamer, budget, 1);
+                }
+            });
+        }
+        return JsonLdUtils.invokeAll(tasks.size() > 1 ? options.getExecutorService() : null,
+                tasks);
+    }
+
     private static class HashResult {
         String hash;
         UniqueNamer pathNamer;
@@ -220,11 +281,16 @@ class NormalizeUtils {
      *            the canonical bnode namer.
      * @param pathNamer
      *            the namer used to assign names to adjacent bnodes.
-     * @param callback
-     *            (err, result) called once the operation completes.
+     * @param budget
+     *            the limits of the normalization.
+     * @param depth
+     *            the depth of the recursion.
+     * @throws JsonLdError
+     *             if a limit of the normalization is exceeded.
      */
     private static HashResult hashPaths(String id, Map<String, Object> bnodes, UniqueNamer namer,
-            UniqueNamer pathNamer) {
+            UniqueNamer pathNamer, NormalizationBudget budget, int depth) throws JsonLdError {
+        budget.recursion(depth);
         try {
             // create SHA-1 digest
             final MessageDigest md = MessageDigest.getInstance("SHA-1");
@@ -258,6 +324,7 @@ class NormalizeUtils {
                         while (true) {
                             Boolean contPermutation = false;
                             Boolean breakOut = false;
+                            budget.permutation();
                             final List<String> permutation = permutator.next();
                             UniqueNamer pathNamerCopy = pathNamer.clone();
 
@@ -325,7 +392,7 @@ class NormalizeUtils {
                                 // do recursion
                                 final String bnode = recurse.get(nrn);
                                 final HashResult result = hashPaths(bnode, bnodes, namer,
-                                        pathNamerCopy);
+                                        pathNamerCopy, budget, depth + 1);
                                 path += pathNamerCopy.getName(bnode) + "<" + result.hash + ">";
                                 pathNamerCopy = result.pathNamer;
 
@@ -467,13 +534,15 @@ class NormalizeUtils {
         }
     }
 
-    // TODO: this is something to optimize
-    private static String encodeHex(final byte[] data) {
-        String rval = "";
-        for (final byte b : data) {
-            rval += String.format("%02x", b);
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    static String encodeHex(final byte[] data) {
+        final char[] rval = new char[data.length * 2];
+        for (int i = 0; i < data.length; i++) {
+            rval[2 * i] = HEX_DIGITS[(data[i] >> 4) & 0xF];
+            rval[2 * i + 1] = HEX_DIGITS[data[i] & 0xF];
         }
-        return rval;
+        return new String(rval);
     }
 
     /**
@@ -494,14 +563,14 @@ class NormalizeUtils {
                 .get("value") : null;
     }
 
-    private static class Permutator {
+    static class Permutator {
 
         private final List<String> list;
         private boolean done;
         private final Map<String, Boolean> left;
 
         public Permutator(List<String> list) {
-            this.list = (List<String>) JsonLdUtils.clone(list);
+            this.list = new ArrayList<String>(list);
             Collections.sort(this.list);
             this.done = false;
             this.left = new LinkedHashMap<String, Boolean>();
@@ -526,7 +595,7 @@ class NormalizeUtils {
          * @return the next permutation.
          */
         public List<String> next() {
-            final List<String> rval = (List<String>) JsonLdUtils.clone(this.list);
+            final List<String> rval = new ArrayList<String>(this.list);
 
             // Calculate the next permutation using Steinhaus-Johnson-Trotter
             // permutation algoritm
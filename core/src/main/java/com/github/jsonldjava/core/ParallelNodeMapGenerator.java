@@ -0,0 +1,235 @@
+package com.github.jsonldjava.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.github.jsonldjava.core.JsonLdError.Error;
+
+/**
+ * Generates the node map of a large expanded document on several threads.
+ * 
+ * The top level array of the document is split into contiguous chunks and the
+ * node map of each chunk is generated by a separate task, giving the blank
+ * nodes temporary identifiers with a prefix unique to the chunk. The partial
+ * node maps are then merged in document order, replaying the temporary
+ * identifiers through a single blank node generator so that each blank node
+ * gets the identifier that the node map generation algorithm would have
+ * given it on a single thread. The merged node map is therefore identical to
+ * the one generated by {@link JsonLdApi#generateNodeMap(Object, Map)},
+ * including the order of the properties and values of each node.
+ */
+class ParallelNodeMapGenerator {
+
+    /**
+     * The smallest number of top level elements handed to a task, documents
+     * with fewer than twice as many are always processed on the calling
+     * thread.
+     */
+    static final int MIN_CHUNK_SIZE = 64;
+
+    private static class Chunk {
+        final JsonLdApi api;
+        final Map<String, Object> nodeMap = new LinkedHashMap<String, Object>();
+
+        Chunk(JsonLdOptions opts, String blankNodePrefix) {
+            api = new JsonLdApi(opts);
+            api.setBlankNodePrefix(blankNodePrefix);
+        }
+    }
+
+    /**
+     * Adds the nodes of the given expanded element to the node map, in
+     * parallel if the options have an executor service and the element is
+     * large enough.
+     * 
+     * @param element
+     *            the expanded element.
+     * @param nodeMap
+     *            the node map.
+     * @param opts
+     *            the options.
+     * @throws JsonLdError
+     *             if the node map can't be generated.
+     */
+    static void generateNodeMap(Object element, Map<String, Object> nodeMap, JsonLdOptions opts)
+            throws JsonLdError {
+        final int chunks = element instanceof List ? Math.min(Runtime.getRuntime()
+                .availableProcessors(), ((List<Object>) element).size() / MIN_CHUNK_SIZE) : 0;
+        generateNodeMap(element, nodeMap, opts, chunks);
+    }
+
+    /**
+     * Adds the nodes of the given expanded element to the node map, splitting
+     * it into the given number of chunks if the options have an executor
+     * service.
+     */
+    static void generateNodeMap(Object element, Map<String, Object> nodeMap,
+            final JsonLdOptions opts, int chunks) throws JsonLdError {
+        final ExecutorService executor = opts.getExecutorService();
+        if (executor == null || chunks < 2 || !(element instanceof List)
+                || ((List<Object>) element).size() < chunks) {
+            new JsonLdApi(opts).generateNodeMap(element, nodeMap);
+            return;
+        }
+
+        final List<Object> input = (List<Object>) element;
+        // the temporary identifiers must not clash with any in the input
+        final String nonce = "_:" + UUID.randomUUID() + "-";
+        final List<String> prefixes = new ArrayList<String>(chunks);
+        final List<Future<Chunk>> futures = new ArrayList<Future<Chunk>>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            final List<Object> items = input.subList(input.size() * i / chunks, input.size()
+                    * (i + 1) / chunks);
+            final String prefix = nonce + i + "-";
+            prefixes.add(prefix);
+            futures.add(executor.submit(new Callable<Chunk>() {
+                @Override
+                public Chunk call() throws JsonLdError {
+                    final Chunk chunk = new Chunk(opts, prefix);
+                    chunk.api.generateNodeMap(items, chunk.nodeMap);
+                    return chunk;
+                }
+            }));
+        }
+
+        final JsonLdApi labeler = new JsonLdApi(opts);
+        try {
+            for (int i = 0; i < chunks; i++) {
+                final Chunk chunk = JsonLdUtils.getResult(futures.get(i));
+                merge(nodeMap, chunk.nodeMap, relabel(chunk, prefixes.get(i), labeler));
+            }
+        } finally {
+            for (final Future<Chunk> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Maps the temporary blank node identifiers of a chunk to their final
+     * values, generating them in the order they were generated in the chunk.
+     * Identifiers from the input which were already seen in an earlier chunk
+     * keep the identifier they were given then, just as they would on a
+     * single thread.
+     * 
+     * An identifier generated in the chunk may itself be relabeled (the
+     * algorithm does so for the references added by reverse properties), in
+     * which case it is looked up by its final value, as other chunks may
+     * relabel the same node.
+     */
+    private static Map<String, String> relabel(Chunk chunk, String prefix, JsonLdApi labeler) {
+        final int count = chunk.api.getBlankNodeCount();
+        final Map<String, String> sources = new HashMap<String, String>();
+        for (final Map.Entry<String, String> entry : chunk.api.getBlankNodeIdentifierMap()
+                .entrySet()) {
+            sources.put(entry.getValue(), entry.getKey());
+        }
+        final Map<String, String> names = new HashMap<String, String>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            final String label = prefix + i;
+            String source = sources.get(label);
+            if (source != null && names.containsKey(source)) {
+                source = names.get(source);
+            }
+            names.put(label, labeler.generateBlankNodeIdentifier(source));
+        }
+        return names;
+    }
+
+    private static void merge(Map<String, Object> nodeMap, Map<String, Object> partial,
+            Map<String, String> names) throws JsonLdError {
+        for (final Map.Entry<String, Object> entry : partial.entrySet()) {
+            final String graphName = name(entry.getKey(), names);
+            Map<String, Object> graph = (Map<String, Object>) nodeMap.get(graphName);
+            if (graph == null) {
+                graph = new LinkedHashMap<String, Object>();
+                nodeMap.put(graphName, graph);
+            }
+            for (final Object node : ((Map<String, Object>) entry.getValue()).values()) {
+                mergeNode(graph, (Map<String, Object>) node, names);
+            }
+        }
+    }
+
+    private static void mergeNode(Map<String, Object> graph, Map<String, Object> partial,
+            Map<String, String> names) throws JsonLdError {
+        final String id = name((String) partial.get("@id"), names);
+        Map<String, Object> node = (Map<String, Object>) graph.get(id);
+        final boolean created = node == null;
+        if (created) {
+            node = new LinkedHashMap<String, Object>();
+            node.put("@id", id);
+            graph.put(id, node);
+        }
+        for (final Map.Entry<String, Object> entry : partial.entrySet()) {
+            final String key = entry.getKey();
+            if ("@id".equals(key)) {
+                continue;
+            } else if ("@index".equals(key)) {
+                if (node.containsKey("@index")) {
+                    if (!JsonLdUtils.deepCompare(node.get("@index"), entry.getValue())) {
+                        throw new JsonLdError(Error.CONFLICTING_INDEXES);
+                    }
+                } else {
+                    node.put("@index", entry.getValue());
+                }
+                continue;
+            }
+            final String property = name(key, names);
+            final List<Object> values = (List<Object>) entry.getValue();
+            for (int i = 0; i < values.size(); i++) {
+                values.set(i, rename(values.get(i), names));
+            }
+            if (created) {
+                // the values of the chunk have no duplicates already
+                node.put(property, values);
+            } else {
+                if (!node.containsKey(property)) {
+                    node.put(property, new ArrayList<Object>());
+                }
+                for (final Object value : values) {
+                    JsonLdUtils.mergeValue(node, property, value);
+                }
+            }
+        }
+    }
+
+    private static String name(String label, Map<String, String> names) {
+        final String name = names.get(label);
+        return name == null ? label : name;
+    }
+
+    /**
+     * Replaces the temporary blank node identifiers in a value, reference or
+     * list object (in place, as they belong to the chunk).
+     */
+    private static Object rename(Object value, Map<String, String> names) {
+        if (value instanceof String) {
+            return name((String) value, names);
+        } else if (value instanceof List) {
+            final List<Object> list = (List<Object>) value;
+            for (int i = 0; i < list.size(); i++) {
+                list.set(i, rename(list.get(i), names));
+            }
+        } else if (value instanceof Map) {
+            final Map<String, Object> map = (Map<String, Object>) value;
+            if (map.get("@id") instanceof String) {
+                map.put("@id", name((String) map.get("@id"), names));
+            }
+            if (map.containsKey("@type")) {
+                map.put("@type", rename(map.get("@type"), names));
+            }
+            if (map.containsKey("@list")) {
+                rename(map.get("@list"), names);
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.jsonldjava.core;
+
+/**
+ * Receives quads one at a time, as they are produced by a streaming parser or
+ * serializer, instead of collecting them into an {@link RDFDataset}.
+ * 
+ * This is the equivalent of the QuadCallback of the JSON-LD RDF API.
+ */
+public interface QuadCallback {
+
+    /**
+     * Called once for each quad.
+     * 
+     * @param quad
+     *            the quad, with a null graph for the default graph.
+     * @throws JsonLdError
+     *             to abort processing.
+     */
+    public void call(RDFDataset.Quad quad) throws JsonLdError;
+}
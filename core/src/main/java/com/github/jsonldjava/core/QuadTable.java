@@ -0,0 +1,373 @@
+package com.github.jsonldjava.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact store of quads, held as the {@link TermDictionary} ids of their
+ * terms in parallel int arrays (4 ints per quad), so that sorting, removing
+ * duplicates and looking up quads only has to compare ints.
+ *
+ * The quads can be added by id, or as {@link RDFDataset.Quad}s, which are
+ * encoded using the dictionary; a table can also be passed as the
+ * {@link QuadCallback} of a parser, e.g.
+ * {@link NQuadReader#parse(QuadCallback)}. Note that sorting orders the quads
+ * by the ids of their terms, which is the order in which the terms were first
+ * added to the dictionary, not by their values.
+ *
+ * A table is not safe for concurrent use.
+ */
+public class QuadTable implements QuadCallback {
+
+    /**
+     * The graph id of the quads in the default graph.
+     */
+    public static final int DEFAULT_GRAPH = -1;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final TermDictionary dictionary;
+    private int[] subjects;
+    private int[] predicates;
+    private int[] objects;
+    private int[] graphs;
+    private int size = 0;
+    private boolean sorted = true;
+
+    public QuadTable() {
+        this(new TermDictionary());
+    }
+
+    public QuadTable(TermDictionary dictionary) {
+        this(dictionary, 1024);
+    }
+
+    /**
+     * @param dictionary
+     *            the dictionary used to encode and decode the terms.
+     * @param initialCapacity
+     *            the number of quads the table can hold before it has to
+     *            grow.
+     */
+    public QuadTable(TermDictionary dictionary, int initialCapacity) {
+        this.dictionary = dictionary;
+        final int capacity = Math.max(16, initialCapacity);
+        subjects = new int[capacity];
+        predicates = new int[capacity];
+        objects = new int[capacity];
+        graphs = new int[capacity];
+    }
+
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Adds a quad given the ids of its terms.
+     *
+     * @param subject
+     *            the id of the subject.
+     * @param predicate
+     *            the id of the predicate.
+     * @param object
+     *            the id of the object.
+     * @param graph
+     *            the id of the graph name, or {@link #DEFAULT_GRAPH}.
+     * @return the index of the new quad.
+     */
+    public int add(int subject, int predicate, int object, int graph) {
+        if (size == subjects.length) {
+            final int capacity = size + (size >> 1);
+            subjects = Arrays.copyOf(subjects, capacity);
+            predicates = Arrays.copyOf(predicates, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+            graphs = Arrays.copyOf(graphs, capacity);
+        }
+        subjects[size] = subject;
+        predicates[size] = predicate;
+        objects[size] = object;
+        graphs[size] = graph;
+        if (sorted && size > 0 && compare(size - 1, size) > 0) {
+            sorted = false;
+        }
+        return size++;
+    }
+
+    /**
+     * Adds a quad, adding its terms to the dictionary if needed.
+     *
+     * @param quad
+     *            the quad.
+     * @return the index of the new quad.
+     */
+    public int add(RDFDataset.Quad quad) {
+        return add(dictionary.encode(quad.getSubject()), dictionary.encode(quad.getPredicate()),
+                dictionary.encode(quad.getObject()), quad.getGraph() == null ? DEFAULT_GRAPH
+                        : dictionary.encode(quad.getGraph()));
+    }
+
+    /**
+     * Adds all of the quads of a dataset.
+     *
+     * @param dataset
+     *            the dataset.
+     */
+    public void addAll(RDFDataset dataset) {
+        for (final String graphName : dataset.graphNames()) {
+            final List<RDFDataset.Quad> quads = dataset.getQuads(graphName);
+            final int graph = "@default".equals(graphName) ? DEFAULT_GRAPH : dictionary
+                    .encode(graphName.startsWith("_:") ? new RDFDataset.BlankNode(graphName)
+                            : new RDFDataset.IRI(graphName));
+            for (final RDFDataset.Quad quad : quads) {
+                add(dictionary.encode(quad.getSubject()), dictionary.encode(quad.getPredicate()),
+                        dictionary.encode(quad.getObject()), graph);
+            }
+        }
+    }
+
+    @Override
+    public void call(RDFDataset.Quad quad) {
+        add(quad);
+    }
+
+    /**
+     * @return the number of quads.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getSubject(int index) {
+        checkIndex(index);
+        return subjects[index];
+    }
+
+    public int getPredicate(int index) {
+        checkIndex(index);
+        return predicates[index];
+    }
+
+    public int getObject(int index) {
+        checkIndex(index);
+        return objects[index];
+    }
+
+    /**
+     * @param index
+     *            the index of a quad.
+     * @return the id of the graph name, or {@link #DEFAULT_GRAPH}.
+     */
+    public int getGraph(int index) {
+        checkIndex(index);
+        return graphs[index];
+    }
+
+    /**
+     * Decodes the quad at the given index.
+     *
+     * @param index
+     *            the index of the quad.
+     * @return the quad.
+     */
+    public RDFDataset.Quad getQuad(int index) {
+        checkIndex(index);
+        return new RDFDataset.Quad(dictionary.decode(subjects[index]),
+                dictionary.decode(predicates[index]), dictionary.decode(objects[index]),
+                graphs[index] == DEFAULT_GRAPH ? null : dictionary.decode(graphs[index])
+                        .getValue());
+    }
+
+    /**
+     * Returns the index of a quad with the given term ids, using a binary
+     * search if the table is sorted.
+     *
+     * @return the index of the quad, or -1 if there is no such quad.
+     */
+    public int indexOf(int subject, int predicate, int object, int graph) {
+        if (sorted) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final int cmp = compare(mid, graph, subject, predicate, object);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+        for (int i = 0; i < size; i++) {
+            if (compare(i, graph, subject, predicate, object) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param quad
+     *            the quad.
+     * @return true if the table contains the quad.
+     */
+    public boolean contains(RDFDataset.Quad quad) {
+        final int s = dictionary.lookup(quad.getSubject());
+        final int p = dictionary.lookup(quad.getPredicate());
+        final int o = dictionary.lookup(quad.getObject());
+        final int g = quad.getGraph() == null ? DEFAULT_GRAPH : dictionary.lookup(quad
+                .getGraph());
+        if (s == TermDictionary.NOT_FOUND || p == TermDictionary.NOT_FOUND
+                || o == TermDictionary.NOT_FOUND || g == TermDictionary.NOT_FOUND) {
+            return false;
+        }
+        return indexOf(s, p, o, g) >= 0;
+    }
+
+    /**
+     * Sorts the quads by the ids of their graph name, subject, predicate and
+     * object (in that order).
+     */
+    public void sort() {
+        if (!sorted) {
+            sort(0, size - 1);
+            sorted = true;
+        }
+    }
+
+    /**
+     * Sorts the quads (see {@link #sort()}) and removes the duplicates.
+     */
+    public void distinct() {
+        sort();
+        if (size < 2) {
+            return;
+        }
+        int last = 0;
+        for (int i = 1; i < size; i++) {
+            if (compare(last, i) != 0) {
+                last++;
+                if (last != i) {
+                    subjects[last] = subjects[i];
+                    predicates[last] = predicates[i];
+                    objects[last] = objects[i];
+                    graphs[last] = graphs[i];
+                }
+            }
+        }
+        size = last + 1;
+    }
+
+    /**
+     * Decodes all of the quads into a new dataset, in the order of the table.
+     *
+     * @return the dataset.
+     */
+    public RDFDataset toDataset() {
+        final RDFDataset dataset = new RDFDataset();
+        for (int i = 0; i < size; i++) {
+            final RDFDataset.Quad quad = getQuad(i);
+            final String graphName = quad.getGraph() == null ? "@default" : quad.getGraph()
+                    .getValue();
+            List<RDFDataset.Quad> quads = dataset.getQuads(graphName);
+            if (quads == null) {
+                quads = new ArrayList<RDFDataset.Quad>();
+                dataset.put(graphName, quads);
+            }
+            quads.add(quad);
+        }
+        return dataset;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static int compareIds(int a, int b) {
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+
+    private int compare(int i, int graph, int subject, int predicate, int object) {
+        int rval = compareIds(graphs[i], graph);
+        if (rval == 0) {
+            rval = compareIds(subjects[i], subject);
+            if (rval == 0) {
+                rval = compareIds(predicates[i], predicate);
+                if (rval == 0) {
+                    rval = compareIds(objects[i], object);
+                }
+            }
+        }
+        return rval;
+    }
+
+    private int compare(int i, int j) {
+        return compare(i, graphs[j], subjects[j], predicates[j], objects[j]);
+    }
+
+    private void swap(int i, int j) {
+        int tmp = subjects[i];
+        subjects[i] = subjects[j];
+        subjects[j] = tmp;
+        tmp = predicates[i];
+        predicates[i] = predicates[j];
+        predicates[j] = tmp;
+        tmp = objects[i];
+        objects[i] = objects[j];
+        objects[j] = tmp;
+        tmp = graphs[i];
+        graphs[i] = graphs[j];
+        graphs[j] = tmp;
+    }
+
+    // quicksort on all four arrays at once, recursing into the smaller
+    // partition so that the stack depth stays logarithmic
+    private void sort(int low, int high) {
+        while (high - low >= INSERTION_SORT_THRESHOLD) {
+            // median of three as the pivot, moved to low
+            final int mid = (low + high) >>> 1;
+            if (compare(mid, low) < 0) {
+                swap(mid, low);
+            }
+            if (compare(high, low) < 0) {
+                swap(high, low);
+            }
+            if (compare(high, mid) < 0) {
+                swap(high, mid);
+            }
+            swap(low, mid);
+
+            int i = low;
+            int j = high + 1;
+            while (true) {
+                while (compare(++i, low) < 0 && i < high) {
+                }
+                while (compare(--j, low) > 0) {
+                }
+                if (i >= j) {
+                    break;
+                }
+                swap(i, j);
+            }
+            swap(low, j);
+
+            if (j - low < high - j) {
+                sort(low, j - 1);
+                low = j + 1;
+            } else {
+                sort(j + 1, high);
+                high = j - 1;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(j - 1, j) > 0; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+}
@@ -16,27 +16,163 @@ import static com.github.jsonldjava.core.JsonLdUtils.isString;
 import static com.github.jsonldjava.core.JsonLdUtils.isValue;
 
 import java.text.DecimalFormat;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
  * Starting to migrate away from using plain java Maps as the internal RDF
- * dataset store. Currently each item just wraps a Map based on the old format
- * so everything doesn't break. Will phase this out once everything is using the
- * new format.
+ * dataset store. The quads and nodes are immutable objects, but can still be
+ * read as (unmodifiable) Maps in the old format so everything doesn't break.
+ * Will phase this out once everything is using the new format.
  * 
  * @author Tristan
  * 
  */
 public class RDFDataset extends LinkedHashMap<String, Object> {
 
-    public static class Quad extends LinkedHashMap<String, Object> implements Comparable<Quad> {
+    /**
+     * The datatypes that literals share instead of keeping their own copy of
+     * the IRI. This is a fixed set, so that it can be looked up by the String
+     * without ever growing.
+     */
+    private static final Map<String, String> KNOWN_DATATYPES = new HashMap<String, String>();
+    static {
+        for (final String datatype : new String[] { XSD_STRING, RDF_LANGSTRING, XSD_INTEGER,
+                XSD_DOUBLE, XSD_BOOLEAN, JSONLDConsts.XSD_DECIMAL, JSONLDConsts.XSD_FLOAT,
+                JSONLDConsts.XSD_ANYURI }) {
+            KNOWN_DATATYPES.put(datatype, datatype);
+        }
+    }
+
+    private static String knownDatatype(String datatype) {
+        final String known = KNOWN_DATATYPES.get(datatype);
+        return known != null ? known : datatype;
+    }
+
+    private static Node graphNode(String graph) {
+        if (graph == null || "@default".equals(graph)) {
+            return null;
+        }
+        return graph.startsWith("_:") ? new BlankNode(graph) : new IRI(graph);
+    }
+
+    private static boolean eq(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Base class for the immutable RDF terms and quads. The values are held in
+     * final fields, but are also exposed as a read-only map using the keys of
+     * the old map based format (e.g. "type" and "value" for a node), so that
+     * existing code reading the quads as maps keeps working.
+     */
+    static abstract class ValueMap extends AbstractMap<String, Object> {
+        // cached hash code, 0 if it hasn't been calculated yet
+        private int hash;
+
+        /**
+         * @return the keys this map has a value for, in iteration order.
+         */
+        abstract String[] keys();
+
+        @Override
+        public abstract Object get(Object key);
+
+        @Override
+        public boolean containsKey(Object key) {
+            for (final String k : keys()) {
+                if (k.equals(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return keys().length;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            final String[] keys = keys();
+            return new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new Iterator<Map.Entry<String, Object>>() {
+                        private int i = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < keys.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next() {
+                            if (i >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            final String key = keys[i++];
+                            return new AbstractMap.SimpleImmutableEntry<String, Object>(key,
+                                    get(key));
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+
+        /**
+         * The same hash code as any other map with the same entries, but
+         * calculated without creating the entries and only once.
+         */
+        @Override
+        public int hashCode() {
+            int h = hash;
+            if (h == 0) {
+                for (final String key : keys()) {
+                    final Object value = get(key);
+                    h += key.hashCode() ^ (value == null ? 0 : value.hashCode());
+                }
+                hash = h;
+            }
+            return h;
+        }
+    }
+
+    public static class Quad extends ValueMap implements Comparable<Quad> {
+        private static final String[] TRIPLE_KEYS = { "subject", "predicate", "object" };
+        private static final String[] QUAD_KEYS = { "subject", "predicate", "object", "name" };
+
+        private final Node subject;
+        private final Node predicate;
+        private final Node object;
+        private final Node graph;
+
         public Quad(final String subject, final String predicate, final String object,
                 final String graph) {
             this(subject, predicate, object.startsWith("_:") ? new BlankNode(object) : new IRI(
@@ -55,31 +191,73 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
         };
 
         public Quad(final Node subject, final Node predicate, final Node object, final String graph) {
-            super();
-            put("subject", subject);
-            put("predicate", predicate);
-            put("object", object);
-            if (graph != null && !"@default".equals(graph)) {
-                // TODO: i'm not yet sure if this should be added or if the
-                // graph should only be represented by the keys in the dataset
-                put("name", graph.startsWith("_:") ? new BlankNode(graph) : new IRI(graph));
-            }
+            // TODO: i'm not yet sure if the graph should be part of the quad or
+            // if the graph should only be represented by the keys in the
+            // dataset
+            this(subject, predicate, object, graphNode(graph));
+        }
+
+        /**
+         * @param graph
+         *            the graph name, or null for the default graph.
+         */
+        Quad(final Node subject, final Node predicate, final Node object, final Node graph) {
+            this.subject = subject;
+            this.predicate = predicate;
+            this.object = object;
+            this.graph = graph;
         }
 
         public Node getSubject() {
-            return (Node) get("subject");
+            return subject;
         }
 
         public Node getPredicate() {
-            return (Node) get("predicate");
+            return predicate;
         }
 
         public Node getObject() {
-            return (Node) get("object");
+            return object;
         }
 
+        /**
+         * @return the graph name, or null for the default graph.
+         */
         public Node getGraph() {
-            return (Node) get("name");
+            return graph;
+        }
+
+        @Override
+        String[] keys() {
+            return graph == null ? TRIPLE_KEYS : QUAD_KEYS;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if ("subject".equals(key)) {
+                return subject;
+            } else if ("predicate".equals(key)) {
+                return predicate;
+            } else if ("object".equals(key)) {
+                return object;
+            } else if ("name".equals(key)) {
+                return graph;
+            }
+            return null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (o instanceof Quad) {
+                final Quad q = (Quad) o;
+                return hashCode() == q.hashCode() && subject.equals(q.subject)
+                        && predicate.equals(q.predicate) && object.equals(q.object)
+                        && eq(graph, q.graph);
+            }
+            return super.equals(o);
         }
 
         @Override
@@ -87,7 +265,13 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
             if (o == null) {
                 return 1;
             }
-            int rval = getGraph().compareTo(o.getGraph());
+            // the default graph comes first
+            int rval;
+            if (getGraph() == null || o.getGraph() == null) {
+                rval = getGraph() == null ? (o.getGraph() == null ? 0 : -1) : 1;
+            } else {
+                rval = getGraph().compareTo(o.getGraph());
+            }
             if (rval != 0) {
                 return rval;
             }
@@ -103,24 +287,70 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
         }
     }
 
-    public static abstract class Node extends LinkedHashMap<String, Object> implements
-            Comparable<Node> {
+    public static abstract class Node extends ValueMap implements Comparable<Node> {
+        private static final String[] KEYS = { "type", "value" };
+
+        final String value;
+
+        protected Node(String value) {
+            this.value = value;
+        }
+
         public abstract boolean isLiteral();
 
         public abstract boolean isIRI();
 
         public abstract boolean isBlankNode();
 
+        /**
+         * @return the type of this node, either "IRI", "blank node" or
+         *         "literal".
+         */
+        public abstract String getType();
+
         public String getValue() {
-            return (String) get("value");
+            return value;
         }
 
         public String getDatatype() {
-            return (String) get("datatype");
+            return null;
         }
 
         public String getLanguage() {
-            return (String) get("language");
+            return null;
+        }
+
+        @Override
+        String[] keys() {
+            return KEYS;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if ("type".equals(key)) {
+                return getType();
+            } else if ("value".equals(key)) {
+                return value;
+            } else if ("datatype".equals(key)) {
+                return getDatatype();
+            } else if ("language".equals(key)) {
+                return getLanguage();
+            }
+            return null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (o instanceof Node) {
+                final Node n = (Node) o;
+                return getClass() == n.getClass() && hashCode() == n.hashCode()
+                        && eq(value, n.value) && eq(getDatatype(), n.getDatatype())
+                        && eq(getLanguage(), n.getLanguage());
+            }
+            return super.equals(o);
         }
 
         @Override
@@ -228,14 +458,36 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
     }
 
     public static class Literal extends Node {
+        private static final String[] KEYS = { "type", "value", "datatype" };
+        private static final String[] LANGUAGE_KEYS = { "type", "value", "datatype", "language" };
+
+        private final String datatype;
+        private final String language;
+
         public Literal(String value, String datatype, String language) {
-            super();
-            put("type", "literal");
-            put("value", value);
-            put("datatype", datatype != null ? datatype : XSD_STRING);
-            if (language != null) {
-                put("language", language);
-            }
+            super(value);
+            this.datatype = datatype != null ? knownDatatype(datatype) : XSD_STRING;
+            this.language = language;
+        }
+
+        @Override
+        public String getType() {
+            return "literal";
+        }
+
+        @Override
+        public String getDatatype() {
+            return datatype;
+        }
+
+        @Override
+        public String getLanguage() {
+            return language;
+        }
+
+        @Override
+        String[] keys() {
+            return language == null ? KEYS : LANGUAGE_KEYS;
         }
 
         @Override
@@ -284,9 +536,12 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
 
     public static class IRI extends Node {
         public IRI(String iri) {
-            super();
-            put("type", "IRI");
-            put("value", iri);
+            super(iri);
+        }
+
+        @Override
+        public String getType() {
+            return "IRI";
         }
 
         @Override
@@ -307,9 +562,12 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
 
     public static class BlankNode extends Node {
         public BlankNode(String attribute) {
-            super();
-            put("type", "blank node");
-            put("value", attribute);
+            super(attribute);
+        }
+
+        @Override
+        public String getType() {
+            return "blank node";
         }
 
         @Override
@@ -337,6 +595,11 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
     // private UniqueNamer namer;
     private JsonLdApi api;
 
+    // if set, the terms of the quads added to this dataset are shared
+    private TermDictionary dictionary;
+    // otherwise only the predicates and graph names are shared, by IRI
+    private final Map<String, Node> sharedIris = new HashMap<String, Node>();
+
     public RDFDataset() {
         super();
         put("@default", new ArrayList<Quad>());
@@ -355,6 +618,92 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
         this.api = jsonLdApi;
     }
 
+    /**
+     * Sets a dictionary through which the terms of all the quads added to
+     * this dataset from now on are shared, so that a term used by many quads
+     * is only held in memory once.
+     * 
+     * @param dictionary
+     *            the dictionary, or null to stop sharing terms.
+     */
+    public void setTermDictionary(TermDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public TermDictionary getTermDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Encodes all of the quads of this dataset into a new {@link QuadTable},
+     * using the term dictionary of this dataset if it has one.
+     * 
+     * @return the quad table.
+     */
+    public QuadTable toQuadTable() {
+        final QuadTable table = new QuadTable(dictionary != null ? dictionary
+                : new TermDictionary());
+        table.addAll(this);
+        return table;
+    }
+
+    /**
+     * Returns the quad with the terms shared with the other quads of this
+     * dataset: all of them if there is a term dictionary, otherwise only the
+     * predicate and the graph name, which are repeated in most quads.
+     */
+    private Quad share(Quad quad) {
+        if (dictionary != null) {
+            return new Quad(dictionary.intern(quad.getSubject()), dictionary.intern(quad
+                    .getPredicate()), dictionary.intern(quad.getObject()),
+                    quad.getGraph() == null ? null : dictionary.intern(quad.getGraph()));
+        }
+        final Node predicate = shareIri(quad.getPredicate());
+        final Node graph = shareIri(quad.getGraph());
+        if (predicate == quad.getPredicate() && graph == quad.getGraph()) {
+            return quad;
+        }
+        return new Quad(quad.getSubject(), predicate, quad.getObject(), graph);
+    }
+
+    private Node shareIri(Node node) {
+        if (node == null || !node.isIRI()) {
+            return node;
+        }
+        final Node shared = sharedIris.get(node.getValue());
+        if (shared != null) {
+            return shared;
+        }
+        sharedIris.put(node.getValue(), node);
+        return node;
+    }
+
+    private Node sharedIri(String iri) {
+        Node shared = sharedIris.get(iri);
+        if (shared == null) {
+            shared = new IRI(iri);
+            sharedIris.put(iri, shared);
+        }
+        return shared;
+    }
+
+    private Node sharedNode(String value) {
+        return value.startsWith("_:") ? new BlankNode(value) : sharedIri(value);
+    }
+
+    private static Node node(String value) {
+        return value.startsWith("_:") ? new BlankNode(value) : new IRI(value);
+    }
+
+    private void add(String graph, String subject, String predicate, Node object) {
+        if (!containsKey(graph)) {
+            put(graph, new ArrayList<Quad>());
+        }
+        final Node name = "@default".equals(graph) ? null : sharedNode(graph);
+        ((ArrayList<Quad>) get(graph)).add(share(new Quad(node(subject), sharedIri(predicate),
+                object, name)));
+    }
+
     public void setNamespace(String ns, String prefix) {
         context.put(ns, prefix);
     }
@@ -462,10 +811,7 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
         if (graph == null) {
             graph = "@default";
         }
-        if (!containsKey(graph)) {
-            put(graph, new ArrayList<Quad>());
-        }
-        ((ArrayList<Quad>) get(graph)).add(new Quad(s, p, value, datatype, language, graph));
+        add(graph, s, p, new Literal(value, datatype, language));
     }
 
     /**
@@ -508,10 +854,7 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
         if (graph == null) {
             graph = "@default";
         }
-        if (!containsKey(graph)) {
-            put(graph, new ArrayList<Quad>());
-        }
-        ((ArrayList<Quad>) get(graph)).add(new Quad(s, p, o, graph));
+        add(graph, s, p, node(o));
     }
 
     /**
@@ -520,9 +863,36 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
      * @param graph
      *            the graph to create RDF triples for.
      */
-    void graphToRDF(String graphName, Map<String, Object> graph) {
+    void graphToRDF(String graphName, Map<String, Object> graph) throws JsonLdError {
         // 4.2)
         final List<Quad> triples = new ArrayList<Quad>();
+        graphToRDF(api, graphName, graph, new QuadCallback() {
+            @Override
+            public void call(Quad quad) {
+                triples.add(share(quad));
+            }
+        });
+        put(graphName, triples);
+    }
+
+    /**
+     * Creates the RDF triples for the given graph, passing each one to the
+     * callback as soon as it is created.
+     * 
+     * @param api
+     *            the api used for the options and to generate blank node
+     *            identifiers for lists.
+     * @param graphName
+     *            the name of the graph.
+     * @param graph
+     *            the graph to create RDF triples for.
+     * @param triples
+     *            the callback for each triple.
+     * @throws JsonLdError
+     *             if the callback throws an error.
+     */
+    static void graphToRDF(JsonLdApi api, String graphName, Map<String, Object> graph,
+            QuadCallback triples) throws JsonLdError {
         // 4.3)
         final List<String> subjects = new ArrayList<String>(graph.keySet());
         // Collections.sort(subjects);
@@ -582,30 +952,29 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
                             last = objectToRDF(list.get(list.size() - 1));
                             firstBNode = new BlankNode(api.generateBlankNodeIdentifier());
                         }
-                        triples.add(new Quad(subject, predicate, firstBNode, graphName));
+                        triples.call(new Quad(subject, predicate, firstBNode, graphName));
                         for (int i = 0; i < list.size() - 1; i++) {
                             final Node object = objectToRDF(list.get(i));
-                            triples.add(new Quad(firstBNode, first, object, graphName));
+                            triples.call(new Quad(firstBNode, first, object, graphName));
                             final Node restBNode = new BlankNode(api.generateBlankNodeIdentifier());
-                            triples.add(new Quad(firstBNode, rest, restBNode, graphName));
+                            triples.call(new Quad(firstBNode, rest, restBNode, graphName));
                             firstBNode = restBNode;
                         }
                         if (last != null) {
-                            triples.add(new Quad(firstBNode, first, last, graphName));
-                            triples.add(new Quad(firstBNode, rest, nil, graphName));
+                            triples.call(new Quad(firstBNode, first, last, graphName));
+                            triples.call(new Quad(firstBNode, rest, nil, graphName));
                         }
                     }
                     // convert value or node object to triple
                     else {
                         final Node object = objectToRDF(item);
                         if (object != null) {
-                            triples.add(new Quad(subject, predicate, object, graphName));
+                            triples.call(new Quad(subject, predicate, object, graphName));
                         }
                     }
                 }
             }
         }
-        put(graphName, triples);
     }
 
     /**
@@ -619,7 +988,7 @@ public class RDFDataset extends LinkedHashMap<String, Object> {
      * 
      * @return the RDF literal or RDF resource.
      */
-    private Node objectToRDF(Object item) {
+    private static Node objectToRDF(Object item) {
         // convert value object to RDF
         if (isValue(item)) {
             final Object value = ((Map<String, Object>) item).get("@value");
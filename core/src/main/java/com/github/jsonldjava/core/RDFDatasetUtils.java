@@ -15,6 +15,8 @@ import static com.github.jsonldjava.core.JsonLdUtils.isObject;
 import static com.github.jsonldjava.core.JsonLdUtils.isValue;
 import static com.github.jsonldjava.core.Regex.HEX;
 
+import java.io.Reader;
+import java.io.Writer;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -213,87 +215,117 @@ public class RDFDatasetUtils {
 
     public static String toNQuads(RDFDataset dataset) {
         final List<String> quads = new ArrayList<String>();
+        final StringBuilder sb = new StringBuilder();
+        int length = 0;
         for (String graphName : dataset.graphNames()) {
             final List<RDFDataset.Quad> triples = dataset.getQuads(graphName);
             if ("@default".equals(graphName)) {
                 graphName = null;
             }
             for (final RDFDataset.Quad triple : triples) {
-                quads.add(toNQuad(triple, graphName));
+                sb.setLength(0);
+                toNQuad(triple, graphName, null, sb);
+                quads.add(sb.toString());
+                length += sb.length();
             }
         }
         Collections.sort(quads);
-        String rval = "";
+        final StringBuilder rval = new StringBuilder(length);
         for (final String quad : quads) {
-            rval += quad;
+            rval.append(quad);
         }
-        return rval;
+        return rval.toString();
+    }
+
+    /**
+     * Writes a dataset as sorted N-Quads, the same as
+     * {@link #toNQuads(RDFDataset)} returns, without building the whole
+     * output in memory. If the quads don't fit in the buffer of a
+     * {@link SortingNQuadWriter} they are sorted using temporary files.
+     * 
+     * @param dataset
+     *            the dataset.
+     * @param out
+     *            the writer, which is flushed but not closed.
+     * @throws JsonLdError
+     *             if the output can't be written.
+     */
+    public static void toNQuads(RDFDataset dataset, Writer out) throws JsonLdError {
+        final SortingNQuadWriter writer = new SortingNQuadWriter(out);
+        writer.write(dataset);
+        writer.finish();
     }
 
     static String toNQuad(RDFDataset.Quad triple, String graphName, String bnode) {
+        final StringBuilder sb = new StringBuilder();
+        toNQuad(triple, graphName, bnode, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Appends a quad as a line of N-Quads to the string builder.
+     */
+    static void toNQuad(RDFDataset.Quad triple, String graphName, String bnode,
+            StringBuilder quad) {
         final RDFDataset.Node s = triple.getSubject();
         final RDFDataset.Node p = triple.getPredicate();
         final RDFDataset.Node o = triple.getObject();
 
-        String quad = "";
-
         // subject is an IRI or bnode
         if (s.isIRI()) {
-            quad += "<" + escape(s.getValue()) + ">";
+            escape(s.getValue(), quad.append('<')).append('>');
         }
         // normalization mode
         else if (bnode != null) {
-            quad += bnode.equals(s.getValue()) ? "_:a" : "_:z";
+            quad.append(bnode.equals(s.getValue()) ? "_:a" : "_:z");
         }
         // normal mode
         else {
-            quad += s.getValue();
+            quad.append(s.getValue());
         }
 
         if (p.isIRI()) {
-            quad += " <" + escape(p.getValue()) + "> ";
+            escape(p.getValue(), quad.append(" <")).append("> ");
         }
         // otherwise it must be a bnode (TODO: can we only allow this if the
         // flag is set in options?)
         else {
-            quad += " " + escape(p.getValue()) + " ";
+            escape(p.getValue(), quad.append(' ')).append(' ');
         }
 
         // object is IRI, bnode or literal
         if (o.isIRI()) {
-            quad += "<" + escape(o.getValue()) + ">";
+            escape(o.getValue(), quad.append('<')).append('>');
         } else if (o.isBlankNode()) {
             // normalization mode
             if (bnode != null) {
-                quad += bnode.equals(o.getValue()) ? "_:a" : "_:z";
+                quad.append(bnode.equals(o.getValue()) ? "_:a" : "_:z");
             }
             // normal mode
             else {
-                quad += o.getValue();
+                quad.append(o.getValue());
             }
         } else {
-            final String escaped = escape(o.getValue());
-            quad += "\"" + escaped + "\"";
+            escape(o.getValue(), quad.append('"')).append('"');
             if (RDF_LANGSTRING.equals(o.getDatatype())) {
-                quad += "@" + o.getLanguage();
+                quad.append('@').append(o.getLanguage());
             } else if (!XSD_STRING.equals(o.getDatatype())) {
-                quad += "^^<" + escape(o.getDatatype()) + ">";
+                escape(o.getDatatype(), quad.append("^^<")).append('>');
             }
         }
 
         // graph
         if (graphName != null) {
             if (graphName.indexOf("_:") != 0) {
-                quad += " <" + escape(graphName) + ">";
+                escape(graphName, quad.append(" <")).append('>');
             } else if (bnode != null) {
-                quad += " _:g";
+                quad.append(" _:g");
             } else {
-                quad += " " + graphName;
+                quad.append(' ').append(graphName);
             }
         }
 
-        quad += " .\n";
-        return quad;
+        quad.append(" .\n");
     }
 
     static String toNQuad(RDFDataset.Quad triple, String graphName) {
@@ -371,10 +403,34 @@ public class RDFDatasetUtils {
     }
 
     public static String escape(String str) {
-        String rval = "";
         for (int i = 0; i < str.length(); i++) {
+            if (needsEscape(str.charAt(i))) {
+                return escape(str, new StringBuilder(str.length() + 16)).toString();
+            }
+        }
+        return str;
+    }
+
+    private static boolean needsEscape(char c) {
+        return c < 0x20 || c >= 0x7F || c == '"' || c == '\\';
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Appends the escaped string to the string builder, without creating any
+     * intermediate objects.
+     * 
+     * @return the string builder.
+     */
+    static StringBuilder escape(String str, StringBuilder rval) {
+        final int length = str.length();
+        for (int i = 0; i < length; i++) {
             final char hi = str.charAt(i);
-            if (hi <= 0x8 || hi == 0xB || hi == 0xC || (hi >= 0xE && hi <= 0x1F)
+            if (!needsEscape(hi)) {
+                // just put the char as is
+                rval.append(hi);
+            } else if (hi <= 0x8 || hi == 0xB || hi == 0xC || (hi >= 0xE && hi <= 0x1F)
                     || (hi >= 0x7F && hi <= 0xA0) || // 0xA0 is end of
                                                      // non-printable latin-1
                                                      // supplement
@@ -385,42 +441,36 @@ public class RDFDatasetUtils {
                     // shouldn't be escaped that
                     // fall outside these ranges, this is one example from the
                     // json-ld tests
-                    )) {
-                rval += String.format("\\u%04x", (int) hi);
+                    ) || (Character.isHighSurrogate(hi) && i + 1 == length)) {
+                appendHex(rval.append("\\u"), hi, 4);
             } else if (Character.isHighSurrogate(hi)) {
                 final char lo = str.charAt(++i);
                 final int c = (hi << 10) + lo + (0x10000 - (0xD800 << 10) - 0xDC00);
-                rval += String.format("\\U%08x", c);
+                appendHex(rval.append("\\U"), c, 8);
             } else {
                 switch (hi) {
-                case '\b':
-                    rval += "\\b";
-                    break;
                 case '\n':
-                    rval += "\\n";
+                    rval.append("\\n");
                     break;
                 case '\t':
-                    rval += "\\t";
-                    break;
-                case '\f':
-                    rval += "\\f";
+                    rval.append("\\t");
                     break;
                 case '\r':
-                    rval += "\\r";
+                    rval.append("\\r");
                     break;
                 // case '\'':
                 // rval += "\\'";
                 // break;
                 case '\"':
-                    rval += "\\\"";
+                    rval.append("\\\"");
                     // rval += "\\u0022";
                     break;
                 case '\\':
-                    rval += "\\\\";
+                    rval.append("\\\\");
                     break;
                 default:
                     // just put the char as is
-                    rval += hi;
+                    rval.append(hi);
                     break;
                 }
             }
@@ -428,33 +478,10 @@ public class RDFDatasetUtils {
         return rval;
     }
 
-    private static class Regex {
-        // define partial regexes
-        // final public static Pattern IRI =
-        // Pattern.compile("(?:<([^:]+:[^>]*)>)");
-        final public static Pattern IRI = Pattern.compile("(?:<([^>]*)>)");
-        final public static Pattern BNODE = Pattern.compile("(_:(?:[A-Za-z][A-Za-z0-9]*))");
-        final public static Pattern PLAIN = Pattern.compile("\"([^\"\\\\]*(?:\\\\.[^\"\\\\]*)*)\"");
-        final public static Pattern DATATYPE = Pattern.compile("(?:\\^\\^" + IRI + ")");
-        final public static Pattern LANGUAGE = Pattern.compile("(?:@([a-z]+(?:-[a-zA-Z0-9]+)*))");
-        final public static Pattern LITERAL = Pattern.compile("(?:" + PLAIN + "(?:" + DATATYPE
-                + "|" + LANGUAGE + ")?)");
-        final public static Pattern WS = Pattern.compile("[ \\t]+");
-        final public static Pattern WSO = Pattern.compile("[ \\t]*");
-        final public static Pattern EOLN = Pattern.compile("(?:\r\n)|(?:\n)|(?:\r)");
-        final public static Pattern EMPTY = Pattern.compile("^" + WSO + "$");
-
-        // define quad part regexes
-        final public static Pattern SUBJECT = Pattern.compile("(?:" + IRI + "|" + BNODE + ")" + WS);
-        final public static Pattern PROPERTY = Pattern.compile(IRI.pattern() + WS.pattern());
-        final public static Pattern OBJECT = Pattern.compile("(?:" + IRI + "|" + BNODE + "|"
-                + LITERAL + ")" + WSO);
-        final public static Pattern GRAPH = Pattern.compile("(?:\\.|(?:(?:" + IRI + "|" + BNODE
-                + ")" + WSO + "\\.))");
-
-        // full quad regex
-        final public static Pattern QUAD = Pattern.compile("^" + WSO + SUBJECT + PROPERTY + OBJECT
-                + GRAPH + WSO + "$");
+    private static void appendHex(StringBuilder sb, int value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            sb.append(HEX_DIGITS[(value >> shift) & 0xF]);
+        }
     }
 
     /**
@@ -466,77 +493,31 @@ public class RDFDatasetUtils {
      * @return an RDF dataset.
      */
     public static RDFDataset parseNQuads(String input) throws JsonLdError {
-        // build RDF dataset
-        final RDFDataset dataset = new RDFDataset();
-
-        // split N-Quad input into lines
-        final String[] lines = Regex.EOLN.split(input);
-        int lineNumber = 0;
-        for (final String line : lines) {
-            lineNumber++;
-
-            // skip empty lines
-            if (Regex.EMPTY.matcher(line).matches()) {
-                continue;
-            }
-
-            // parse quad
-            final Matcher match = Regex.QUAD.matcher(line);
-            if (!match.matches()) {
-                throw new JsonLdError(JsonLdError.Error.SYNTAX_ERROR,
-                        "Error while parsing N-Quads; invalid quad. line:" + lineNumber);
-            }
-
-            // get subject
-            RDFDataset.Node subject;
-            if (match.group(1) != null) {
-                subject = new RDFDataset.IRI(unescape(match.group(1)));
-            } else {
-                subject = new RDFDataset.BlankNode(unescape(match.group(2)));
-            }
-
-            // get predicate
-            final RDFDataset.Node predicate = new RDFDataset.IRI(unescape(match.group(3)));
-
-            // get object
-            RDFDataset.Node object;
-            if (match.group(4) != null) {
-                object = new RDFDataset.IRI(unescape(match.group(4)));
-            } else if (match.group(5) != null) {
-                object = new RDFDataset.BlankNode(unescape(match.group(5)));
-            } else {
-                final String language = unescape(match.group(8));
-                final String datatype = match.group(7) != null ? unescape(match.group(7)) : match
-                        .group(8) != null ? RDF_LANGSTRING : XSD_STRING;
-                final String unescaped = unescape(match.group(6));
-                object = new RDFDataset.Literal(unescaped, datatype, language);
-            }
-
-            // get graph name ('@default' is used for the default graph)
-            String name = "@default";
-            if (match.group(9) != null) {
-                name = unescape(match.group(9));
-            } else if (match.group(10) != null) {
-                name = unescape(match.group(10));
-            }
-
-            final RDFDataset.Quad triple = new RDFDataset.Quad(subject, predicate, object, name);
+        return new NQuadReader(input).parse();
+    }
 
-            // initialise graph in dataset
-            if (!dataset.containsKey(name)) {
-                final List<RDFDataset.Quad> tmp = new ArrayList<RDFDataset.Quad>();
-                tmp.add(triple);
-                dataset.put(name, tmp);
-            }
-            // add triple if unique to its graph
-            else {
-                final List<RDFDataset.Quad> triples = (List<RDFDataset.Quad>) dataset.get(name);
-                if (!triples.contains(triple)) {
-                    triples.add(triple);
-                }
-            }
-        }
+    /**
+     * Parses RDF in the form of N-Quads, reading the input as it goes.
+     * 
+     * @param input
+     *            the N-Quads input to parse.
+     * 
+     * @return an RDF dataset.
+     */
+    public static RDFDataset parseNQuads(Reader input) throws JsonLdError {
+        return new NQuadReader(input).parse();
+    }
 
-        return dataset;
+    /**
+     * Parses RDF in the form of N-Quads, passing each quad to the callback as
+     * soon as it has been read rather than building a dataset.
+     * 
+     * @param input
+     *            the N-Quads input to parse.
+     * @param callback
+     *            the callback for each quad.
+     */
+    public static void parseNQuads(Reader input, QuadCallback callback) throws JsonLdError {
+        new NQuadReader(input).parse(callback);
     }
 }
@@ -0,0 +1,223 @@
+package com.github.jsonldjava.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.github.jsonldjava.core.JsonLdError.Error;
+
+/**
+ * An N-Quads serializer which writes the lines in sorted order, giving the
+ * same output as {@link RDFDatasetUtils#toNQuads(RDFDataset)}.
+ *
+ * The lines are kept in memory until they add up to more than the given
+ * number of characters, at which point they are sorted and written to a
+ * temporary file. When {@link #finish()} is called the sorted files are
+ * merged into the output, so that datasets which are too large to be sorted
+ * in memory can be serialized as well. The temporary files are deleted once
+ * they have been merged.
+ */
+public class SortingNQuadWriter extends AbstractNQuadWriter {
+
+    /**
+     * The default number of characters kept in memory before they are sorted
+     * into a temporary file.
+     */
+    public static final long DEFAULT_MAX_BUFFERED_CHARS = 32L * 1024 * 1024;
+
+    private final Writer out;
+    private final long maxBufferedChars;
+    private final File tempDir;
+
+    private final List<String> lines = new ArrayList<String>();
+    private long bufferedChars = 0;
+    private final List<File> runs = new ArrayList<File>();
+
+    public SortingNQuadWriter(Writer out) {
+        this(out, DEFAULT_MAX_BUFFERED_CHARS, null);
+    }
+
+    public SortingNQuadWriter(OutputStream out) {
+        this(writer(out));
+    }
+
+    /**
+     * @param out
+     *            the output.
+     * @param maxBufferedChars
+     *            the number of characters of N-Quads to keep in memory before
+     *            sorting them into a temporary file.
+     * @param tempDir
+     *            the directory for the temporary files, or null for the
+     *            default temporary directory.
+     */
+    public SortingNQuadWriter(Writer out, long maxBufferedChars, File tempDir) {
+        this.out = out;
+        this.maxBufferedChars = maxBufferedChars;
+        this.tempDir = tempDir;
+    }
+
+    @Override
+    protected void writeLine(StringBuilder line) throws JsonLdError {
+        lines.add(line.toString());
+        bufferedChars += line.length();
+        if (bufferedChars > maxBufferedChars) {
+            spill();
+        }
+    }
+
+    /**
+     * @return the number of temporary files written so far.
+     */
+    public int getTemporaryFileCount() {
+        return runs.size();
+    }
+
+    /**
+     * Writes all of the quads added so far, in sorted order, and flushes the
+     * output (which is not closed).
+     *
+     * @throws JsonLdError
+     *             if the output or the temporary files can't be written.
+     */
+    public void finish() throws JsonLdError {
+        try {
+            if (runs.isEmpty()) {
+                Collections.sort(lines);
+                for (final String line : lines) {
+                    out.write(line);
+                }
+                lines.clear();
+                bufferedChars = 0;
+            } else {
+                spill();
+                merge();
+            }
+            out.flush();
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        } finally {
+            deleteRuns();
+        }
+    }
+
+    /**
+     * Finishes writing and closes the output.
+     */
+    public void close() throws JsonLdError {
+        finish();
+        try {
+            out.close();
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Sorts the lines held in memory into a new temporary file. If that
+     * fails all of the temporary files are deleted, as the quads written so
+     * far are lost.
+     */
+    private void spill() throws JsonLdError {
+        if (lines.isEmpty()) {
+            return;
+        }
+        Collections.sort(lines);
+        Writer writer = null;
+        boolean spilled = false;
+        try {
+            final File run = File.createTempFile("nquads", ".sort", tempDir);
+            runs.add(run);
+            writer = writer(new FileOutputStream(run));
+            for (final String line : lines) {
+                writer.write(line);
+            }
+            writer.close();
+            spilled = true;
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        } finally {
+            if (!spilled) {
+                if (writer != null) {
+                    try {
+                        writer.close();
+                    } catch (final IOException e) {
+                        // the first error is the one reported
+                    }
+                }
+                deleteRuns();
+            }
+        }
+        lines.clear();
+        bufferedChars = 0;
+    }
+
+    private void deleteRuns() {
+        for (final File run : runs) {
+            run.delete();
+        }
+        runs.clear();
+    }
+
+    private static class Run {
+        final BufferedReader reader;
+        String line;
+
+        Run(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        boolean next() throws IOException {
+            line = reader.readLine();
+            return line != null;
+        }
+    }
+
+    /**
+     * Merges the sorted temporary files into the output. The lines are
+     * compared without their line endings, which gives the same order since
+     * nothing below ' ' is left unescaped in a line.
+     */
+    private void merge() throws IOException {
+        final PriorityQueue<Run> queue = new PriorityQueue<Run>(runs.size(),
+                new Comparator<Run>() {
+                    @Override
+                    public int compare(Run a, Run b) {
+                        return a.line.compareTo(b.line);
+                    }
+                });
+        final List<Run> open = new ArrayList<Run>(runs.size());
+        try {
+            for (final File file : runs) {
+                final Run run = new Run(new BufferedReader(new InputStreamReader(
+                        new FileInputStream(file), UTF_8)));
+                open.add(run);
+                if (run.next()) {
+                    queue.add(run);
+                }
+            }
+            while (!queue.isEmpty()) {
+                final Run run = queue.poll();
+                out.write(run.line);
+                out.write('\n');
+                if (run.next()) {
+                    queue.add(run);
+                }
+            }
+        } finally {
+            for (final Run run : open) {
+                run.reader.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.github.jsonldjava.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The term definitions of a {@link Context}, stored as a layer of changes
+ * over the (frozen) term definitions of the context it was cloned from, so
+ * that cloning a context and adding a few terms to it doesn't copy all the
+ * terms of the parent.
+ *
+ * A layer is frozen by {@link #fork()}, which returns a new, empty layer over
+ * it; the owner of a frozen layer has to fork it as well before modifying it
+ * (see {@link #isFrozen()}). Lookups walk down the layers, so once there are
+ * more than {@link #MAX_DEPTH} of them the changes of all the layers above the
+ * bottom one are merged into a single layer, which all the forks of the same
+ * layer share. Merging only takes as long as the changes, so the terms of a
+ * large context at the bottom are never copied.
+ *
+ * Iteration follows the order of a {@link LinkedHashMap} which all the
+ * changes had been applied to: terms keep their position when they are
+ * replaced and move to the end when they are removed and added again.
+ */
+class TermDefinitions extends AbstractMap<String, Object> {
+
+    static final int MAX_DEPTH = 3;
+
+    private final TermDefinitions parent;
+    private final int depth;
+    // terms which are not visible in the parent, in insertion order
+    private final Map<String, Object> added;
+    // terms of the parent which were replaced in place
+    private final Map<String, Object> replaced;
+    // terms of the parent which are hidden (they may have been added again)
+    private final Set<String> removed;
+    private int size;
+    private volatile boolean frozen = false;
+    private volatile TermDefinitions flattened = null;
+    // the terms of a frozen layer, in order, created on first use
+    private volatile List<String> frozenKeys = null;
+
+    TermDefinitions() {
+        this(null, new LinkedHashMap<String, Object>());
+    }
+
+    private TermDefinitions(TermDefinitions parent, Map<String, Object> added) {
+        this.parent = parent;
+        this.depth = parent == null ? 0 : parent.depth + 1;
+        this.added = added;
+        this.replaced = new HashMap<String, Object>();
+        this.removed = new HashSet<String>();
+        this.size = (parent == null ? 0 : parent.size) + added.size();
+    }
+
+    /**
+     * Freezes this layer and returns a new, empty layer over it.
+     *
+     * @return the new layer, holding the same terms as this one.
+     */
+    TermDefinitions fork() {
+        frozen = true;
+        return new TermDefinitions(depth < MAX_DEPTH ? this : flattened(),
+                new LinkedHashMap<String, Object>());
+    }
+
+    /**
+     * @return a (frozen) layer over the bottom layer holding the same terms as
+     *         this frozen layer, created once and shared by all the forks.
+     */
+    private TermDefinitions flattened() {
+        TermDefinitions rval = flattened;
+        if (rval == null) {
+            final List<TermDefinitions> layers = new ArrayList<TermDefinitions>(depth);
+            TermDefinitions bottom = this;
+            while (bottom.parent != null) {
+                layers.add(bottom);
+                bottom = bottom.parent;
+            }
+            rval = new TermDefinitions(bottom, new LinkedHashMap<String, Object>());
+            // apply the changes of each layer, starting from the lowest one
+            for (int i = layers.size() - 1; i >= 0; i--) {
+                rval.merge(layers.get(i));
+            }
+            rval.size = size;
+            rval.frozen = true;
+            flattened = rval;
+        }
+        return rval;
+    }
+
+    /**
+     * Applies the changes of a layer over the terms this layer holds, which
+     * are the terms of the parent of that layer.
+     */
+    private void merge(TermDefinitions layer) {
+        for (final String term : layer.removed) {
+            if (added.containsKey(term)) {
+                added.remove(term);
+            } else {
+                removed.add(term);
+                replaced.remove(term);
+            }
+        }
+        for (final Map.Entry<String, Object> entry : layer.replaced.entrySet()) {
+            if (added.containsKey(entry.getKey())) {
+                added.put(entry.getKey(), entry.getValue());
+            } else {
+                replaced.put(entry.getKey(), entry.getValue());
+            }
+        }
+        added.putAll(layer.added);
+    }
+
+    /**
+     * @return true if this layer has been forked and must not be modified
+     *         anymore.
+     */
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    private boolean inParent(Object term) {
+        return parent != null && !removed.contains(term) && parent.containsKey(term);
+    }
+
+    @Override
+    public boolean containsKey(Object term) {
+        return added.containsKey(term) || inParent(term);
+    }
+
+    @Override
+    public Object get(Object term) {
+        if (added.containsKey(term)) {
+            return added.get(term);
+        }
+        if (replaced.containsKey(term)) {
+            return replaced.get(term);
+        }
+        if (parent == null || removed.contains(term)) {
+            return null;
+        }
+        return parent.get(term);
+    }
+
+    @Override
+    public Object put(String term, Object definition) {
+        checkNotFrozen();
+        if (added.containsKey(term)) {
+            return added.put(term, definition);
+        }
+        if (inParent(term)) {
+            final Object old = get(term);
+            replaced.put(term, definition);
+            return old;
+        }
+        added.put(term, definition);
+        size++;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object term) {
+        checkNotFrozen();
+        if (added.containsKey(term)) {
+            size--;
+            return added.remove(term);
+        }
+        if (inParent(term)) {
+            final Object old = get(term);
+            removed.add((String) term);
+            replaced.remove(term);
+            size--;
+            return old;
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        checkNotFrozen();
+        if (parent != null) {
+            for (final String term : parent.keys()) {
+                removed.add(term);
+            }
+        }
+        replaced.clear();
+        added.clear();
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("term definitions are shared and can't be modified");
+        }
+    }
+
+    /**
+     * @return the terms, in order.
+     */
+    List<String> keys() {
+        List<String> rval = frozenKeys;
+        if (rval != null) {
+            return rval;
+        }
+        rval = new ArrayList<String>(size);
+        if (parent != null) {
+            for (final String term : parent.keys()) {
+                if (!removed.contains(term)) {
+                    rval.add(term);
+                }
+            }
+        }
+        rval.addAll(added.keySet());
+        if (frozen) {
+            rval = Collections.unmodifiableList(rval);
+            frozenKeys = rval;
+        }
+        return rval;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                final Iterator<String> terms = keys().iterator();
+                return new Iterator<Map.Entry<String, Object>>() {
+                    private String last = null;
+
+                    @Override
+                    public boolean hasNext() {
+                        return terms.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        last = terms.next();
+                        return new SimpleImmutableEntry<String, Object>(last, get(last));
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        TermDefinitions.this.remove(last);
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
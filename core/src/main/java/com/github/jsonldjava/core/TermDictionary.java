@@ -0,0 +1,101 @@
+package com.github.jsonldjava.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns a dense int id to each distinct RDF term (IRI, blank node or
+ * literal), starting at 0, so that quads can be stored as ints in a
+ * {@link QuadTable} and each term only has to be held in memory once.
+ *
+ * Terms are compared by value, so two literals with the same value but a
+ * different datatype or language get different ids. A dictionary is not safe
+ * for concurrent use.
+ */
+public class TermDictionary {
+
+    /**
+     * The id returned by {@link #lookup(RDFDataset.Node)} for terms that are
+     * not in the dictionary.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private final Map<RDFDataset.Node, Integer> ids;
+    private final List<RDFDataset.Node> terms;
+
+    public TermDictionary() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedSize
+     *            the expected number of distinct terms.
+     */
+    public TermDictionary(int expectedSize) {
+        ids = new HashMap<RDFDataset.Node, Integer>(Math.max(16, expectedSize * 4 / 3 + 1));
+        terms = new ArrayList<RDFDataset.Node>(Math.max(16, expectedSize));
+    }
+
+    /**
+     * Returns the id of the given term, adding it to the dictionary if it
+     * isn't there yet.
+     *
+     * @param term
+     *            the term.
+     * @return the id of the term.
+     */
+    public int encode(RDFDataset.Node term) {
+        final Integer id = ids.get(term);
+        if (id != null) {
+            return id;
+        }
+        final int rval = terms.size();
+        terms.add(term);
+        ids.put(term, rval);
+        return rval;
+    }
+
+    /**
+     * @param term
+     *            the term.
+     * @return the id of the term, or {@link #NOT_FOUND} if it isn't in the
+     *         dictionary.
+     */
+    public int lookup(RDFDataset.Node term) {
+        final Integer id = ids.get(term);
+        return id == null ? NOT_FOUND : id;
+    }
+
+    /**
+     * @param id
+     *            the id of a term.
+     * @return the term with the given id.
+     * @throws IndexOutOfBoundsException
+     *             if no term has the given id.
+     */
+    public RDFDataset.Node decode(int id) {
+        return terms.get(id);
+    }
+
+    /**
+     * Returns the instance held by the dictionary for a term equal to the
+     * given one, adding the term if it isn't there yet. This can be used to
+     * share the same instance between all the quads using a term.
+     *
+     * @param term
+     *            the term.
+     * @return the shared instance.
+     */
+    public RDFDataset.Node intern(RDFDataset.Node term) {
+        return terms.get(encode(term));
+    }
+
+    /**
+     * @return the number of distinct terms.
+     */
+    public int size() {
+        return terms.size();
+    }
+}
@@ -0,0 +1,462 @@
+package com.github.jsonldjava.core;
+
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_LANGSTRING;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_STRING;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The URDNA2015 RDF dataset normalization algorithm.
+ *
+ * http://json-ld.github.io/normalization/spec/
+ *
+ * Each thread reuses a single digest for all of its hashes and serializes
+ * quads into a reusable buffer, and the first degree hash of each blank node
+ * is only computed once. If the options have an executor service, the first
+ * degree hashes and the paths of the blank nodes sharing a first degree hash
+ * are computed in parallel; the result is the same either way.
+ */
+class URDNA2015Normalizer {
+
+    /**
+     * The hash algorithm of URDNA2015.
+     */
+    static final String DEFAULT_HASH_ALGORITHM = "SHA-256";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final List<RDFDataset.Quad> quads;
+    private final JsonLdOptions options;
+    private final String hashAlgorithm;
+    private final Hasher hasher;
+    private final NormalizationBudget budget;
+
+    private final Map<String, List<RDFDataset.Quad>> blankNodeQuads = new LinkedHashMap<String, List<RDFDataset.Quad>>();
+    private final Map<String, String> firstDegreeHashes = new ConcurrentHashMap<String, String>();
+    // only read while hashes are being computed
+    private final UniqueNamer canonicalNamer = new UniqueNamer("_:c14n");
+
+    private static class HashResult {
+        final String hash;
+        final UniqueNamer namer;
+
+        HashResult(String hash, UniqueNamer namer) {
+            this.hash = hash;
+            this.namer = namer;
+        }
+    }
+
+    URDNA2015Normalizer(List<RDFDataset.Quad> quads, JsonLdOptions options) {
+        this(quads, options, DEFAULT_HASH_ALGORITHM);
+    }
+
+    /**
+     * @param quads
+     *            the quads of the dataset, with the graph name set on the
+     *            quads of named graphs.
+     * @param options
+     *            the options (only the format is used).
+     * @param hashAlgorithm
+     *            the name of the {@link MessageDigest} algorithm used instead
+     *            of SHA-256.
+     */
+    URDNA2015Normalizer(List<RDFDataset.Quad> quads, JsonLdOptions options, String hashAlgorithm) {
+        this.quads = quads;
+        this.options = options;
+        this.hashAlgorithm = hashAlgorithm;
+        this.hasher = new Hasher();
+        this.budget = new NormalizationBudget(options);
+    }
+
+    /**
+     * Normalizes the dataset.
+     *
+     * @return the normalized dataset, as an N-Quads string if the format
+     *         option is "application/nquads" and as an {@link RDFDataset}
+     *         otherwise.
+     * @throws JsonLdError
+     *             if the format is unknown or a limit set on the options is
+     *             exceeded.
+     */
+    public Object normalize() throws JsonLdError {
+        boolean limitExceeded = false;
+        try {
+            return canonicalize();
+        } catch (final JsonLdError e) {
+            limitExceeded = e.getType() == JsonLdError.Error.NORMALIZATION_LIMIT_EXCEEDED;
+            throw e;
+        } finally {
+            budget.finish(limitExceeded);
+        }
+    }
+
+    private Object canonicalize() throws JsonLdError {
+        // 2) map each blank node to the quads it appears in
+        for (final RDFDataset.Quad quad : quads) {
+            addBlankNodeQuad(quad.getSubject(), quad);
+            addBlankNodeQuad(quad.getObject(), quad);
+            addBlankNodeQuad(quad.getGraph(), quad);
+        }
+
+        // 3-5) name the blank nodes with unique first degree hashes, the
+        // hashes don't depend on the names issued so one pass is enough
+        final List<String> ids = new ArrayList<String>(blankNodeQuads.keySet());
+        if (options.getExecutorService() != null) {
+            hashFirstDegreeQuadsInParallel(ids);
+        }
+        final Map<String, List<String>> hashToBlankNodes = new TreeMap<String, List<String>>();
+        for (final String id : ids) {
+            budget.check();
+            final String hash = hasher.hashFirstDegreeQuads(id);
+            List<String> group = hashToBlankNodes.get(hash);
+            if (group == null) {
+                group = new ArrayList<String>(1);
+                hashToBlankNodes.put(hash, group);
+            }
+            group.add(id);
+        }
+        for (final List<String> group : hashToBlankNodes.values()) {
+            if (group.size() == 1) {
+                canonicalNamer.getName(group.get(0));
+            }
+        }
+
+        // 6) name the others by hashing their paths, in hash order
+        for (final List<String> group : hashToBlankNodes.values()) {
+            if (group.size() == 1) {
+                continue;
+            }
+            final List<HashResult> results = hashGroupPaths(group);
+            Collections.sort(results, new Comparator<HashResult>() {
+                @Override
+                public int compare(HashResult a, HashResult b) {
+                    return a.hash.compareTo(b.hash);
+                }
+            });
+            for (final HashResult result : results) {
+                for (final String id : result.namer.existing().keySet()) {
+                    canonicalNamer.getName(id);
+                }
+            }
+        }
+
+        // 7) serialize the quads with the canonical names
+        final List<String> normalized = new ArrayList<String>(quads.size());
+        for (final RDFDataset.Quad quad : quads) {
+            budget.check();
+            normalized.add(hasher.toNQuad(quad, null));
+        }
+        Collections.sort(normalized);
+        return NormalizeUtils.toOutputFormat(normalized, options);
+    }
+
+    private void addBlankNodeQuad(RDFDataset.Node node, RDFDataset.Quad quad) {
+        if (node == null || !node.isBlankNode()) {
+            return;
+        }
+        List<RDFDataset.Quad> list = blankNodeQuads.get(node.getValue());
+        if (list == null) {
+            list = new ArrayList<RDFDataset.Quad>();
+            blankNodeQuads.put(node.getValue(), list);
+        }
+        // a quad may refer to the same blank node more than once
+        if (list.isEmpty() || list.get(list.size() - 1) != quad) {
+            list.add(quad);
+        }
+    }
+
+    /**
+     * Computes the first degree hashes of the given blank nodes on the
+     * executor, in chunks.
+     */
+    private void hashFirstDegreeQuadsInParallel(List<String> ids) throws JsonLdError {
+        JsonLdUtils.invokeInChunks(options.getExecutorService(), ids,
+                NormalizeUtils.MIN_PARALLEL_HASHES, new JsonLdUtils.ChunkTask<String>() {
+                    @Override
+                    public void run(List<String> chunk) throws JsonLdError {
+                        final Hasher chunkHasher = new Hasher();
+                        for (final String id : chunk) {
+                            budget.check();
+                            chunkHasher.hashFirstDegreeQuads(id);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Hashes the paths of the members of a group of blank nodes with the same
+     * first degree hash which haven't been named yet, in parallel if there is
+     * an executor. The canonical names are only read until the whole group
+     * has been hashed, so the members are independent.
+     *
+     * @return the results, in the order of the group.
+     */
+    private List<HashResult> hashGroupPaths(List<String> group) throws JsonLdError {
+        final List<String> unnamed = new ArrayList<String>(group.size());
+        for (final String id : group) {
+            if (!canonicalNamer.isNamed(id)) {
+                unnamed.add(id);
+            }
+        }
+        final ExecutorService executor = options.getExecutorService();
+        if (executor == null || unnamed.size() < 2) {
+            final List<HashResult> results = new ArrayList<HashResult>(unnamed.size());
+            for (final String id : unnamed) {
+                final UniqueNamer namer = new UniqueNamer("_:b");
+                namer.getName(id);
+                results.add(hasher.hashNDegreeQuads(id, namer, 1));
+            }
+            return results;
+        }
+        final List<Callable<HashResult>> tasks = new ArrayList<Callable<HashResult>>(
+                unnamed.size());
+        for (final String id : unnamed) {
+            tasks.add(new Callable<HashResult>() {
+                @Override
+                public HashResult call() throws JsonLdError {
+                    final UniqueNamer namer = new UniqueNamer("_:b");
+                    namer.getName(id);
+                    return new Hasher().hashNDegreeQuads(id, namer, 1);
+                }
+            });
+        }
+        return JsonLdUtils.invokeAll(executor, tasks);
+    }
+
+    /**
+     * Hashes the blank nodes with its own digest and buffer, so that there is
+     * one instance per thread.
+     */
+    private class Hasher {
+        private final MessageDigest md;
+        private final StringBuilder buffer = new StringBuilder();
+
+        Hasher() {
+            try {
+                md = MessageDigest.getInstance(hashAlgorithm);
+            } catch (final NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        /**
+         * Hash First Degree Quads: hashes the quads of a blank node, naming it
+         * _:a and every other blank node _:z.
+         */
+        private String hashFirstDegreeQuads(String id) {
+            String hash = firstDegreeHashes.get(id);
+            if (hash == null) {
+                final List<RDFDataset.Quad> bnodeQuads = blankNodeQuads.get(id);
+                final List<String> nquads = new ArrayList<String>(bnodeQuads.size());
+                for (final RDFDataset.Quad quad : bnodeQuads) {
+                    nquads.add(toNQuad(quad, id));
+                }
+                Collections.sort(nquads);
+                md.reset();
+                for (final String nquad : nquads) {
+                    md.update(nquad.getBytes(UTF_8));
+                }
+                hash = NormalizeUtils.encodeHex(md.digest());
+                firstDegreeHashes.put(id, hash);
+            }
+            return hash;
+        }
+
+        /**
+         * Hash Related Blank Node: hashes the position of a blank node related to
+         * the one being hashed, and its name or first degree hash.
+         */
+        private String hashRelatedBlankNode(String related, RDFDataset.Quad quad, UniqueNamer namer,
+                char position) {
+            final String id;
+            if (canonicalNamer.isNamed(related)) {
+                id = canonicalNamer.getName(related);
+            } else if (namer.isNamed(related)) {
+                id = namer.getName(related);
+            } else {
+                id = hashFirstDegreeQuads(related);
+            }
+            buffer.setLength(0);
+            buffer.append(position);
+            if (position != 'g') {
+                buffer.append('<').append(quad.getPredicate().getValue()).append('>');
+            }
+            buffer.append(id);
+            return hash(buffer.toString());
+        }
+
+        /**
+         * Hash N-Degree Quads: hashes the paths from a blank node to the related
+         * blank nodes, choosing the lexicographically least path for each group
+         * of related blank nodes with the same hash.
+         */
+        private HashResult hashNDegreeQuads(String id, UniqueNamer namer, int depth)
+                throws JsonLdError {
+            budget.recursion(depth);
+            // 1-3) group the related blank nodes by hash
+            final Map<String, List<String>> hashToRelated = new TreeMap<String, List<String>>();
+            for (final RDFDataset.Quad quad : blankNodeQuads.get(id)) {
+                addRelated(hashToRelated, id, quad.getSubject(), quad, namer, 's');
+                addRelated(hashToRelated, id, quad.getObject(), quad, namer, 'o');
+                addRelated(hashToRelated, id, quad.getGraph(), quad, namer, 'g');
+            }
+
+            // 4-5) hash the chosen path of each group
+            final StringBuilder dataToHash = new StringBuilder();
+            for (final Map.Entry<String, List<String>> entry : hashToRelated.entrySet()) {
+                dataToHash.append(entry.getKey());
+                String chosenPath = null;
+                UniqueNamer chosenNamer = null;
+                final NormalizeUtils.Permutator permutator = new NormalizeUtils.Permutator(
+                        entry.getValue());
+                permutations: while (permutator.hasNext()) {
+                    budget.permutation();
+                    final List<String> permutation = permutator.next();
+                    UniqueNamer namerCopy = namer.clone();
+                    final StringBuilder path = new StringBuilder();
+                    final List<String> recursionList = new ArrayList<String>();
+                    for (final String related : permutation) {
+                        if (canonicalNamer.isNamed(related)) {
+                            path.append(canonicalNamer.getName(related));
+                        } else {
+                            if (!namerCopy.isNamed(related)) {
+                                recursionList.add(related);
+                            }
+                            path.append(namerCopy.getName(related));
+                        }
+                        if (isWorse(path, chosenPath)) {
+                            continue permutations;
+                        }
+                    }
+                    for (final String related : recursionList) {
+                        final HashResult result = hashNDegreeQuads(related, namerCopy,
+                                depth + 1);
+                        path.append(namerCopy.getName(related)).append('<').append(result.hash)
+                                .append('>');
+                        namerCopy = result.namer;
+                        if (isWorse(path, chosenPath)) {
+                            continue permutations;
+                        }
+                    }
+                    if (chosenPath == null || path.toString().compareTo(chosenPath) < 0) {
+                        chosenPath = path.toString();
+                        chosenNamer = namerCopy;
+                    }
+                }
+                dataToHash.append(chosenPath);
+                namer = chosenNamer;
+            }
+            return new HashResult(hash(dataToHash.toString()), namer);
+        }
+
+        private void addRelated(Map<String, List<String>> hashToRelated, String id,
+                RDFDataset.Node node, RDFDataset.Quad quad, UniqueNamer namer, char position) {
+            if (node == null || !node.isBlankNode() || id.equals(node.getValue())) {
+                return;
+            }
+            final String related = node.getValue();
+            final String hash = hashRelatedBlankNode(related, quad, namer, position);
+            List<String> list = hashToRelated.get(hash);
+            if (list == null) {
+                list = new ArrayList<String>();
+                hashToRelated.put(hash, list);
+            }
+            list.add(related);
+        }
+
+        /**
+         * @return true if the path is already longer than and greater than the
+         *         chosen path, so that no permutation starting with it can be
+         *         chosen.
+         */
+        private boolean isWorse(StringBuilder path, String chosenPath) {
+            return chosenPath != null && path.length() >= chosenPath.length()
+                    && path.toString().compareTo(chosenPath) > 0;
+        }
+
+        private String hash(String data) {
+            md.reset();
+            return NormalizeUtils.encodeHex(md.digest(data.getBytes(UTF_8)));
+        }
+
+        /**
+         * Serializes a quad in canonical N-Quads form. The blank nodes are
+         * written as _:a (for the given reference blank node) and _:z (for the
+         * others) if a reference is given, and with their canonical names
+         * otherwise.
+         */
+        private String toNQuad(RDFDataset.Quad quad, String reference) {
+            buffer.setLength(0);
+            appendNode(quad.getSubject(), reference);
+            buffer.append(' ');
+            appendNode(quad.getPredicate(), reference);
+            buffer.append(' ');
+            appendNode(quad.getObject(), reference);
+            if (quad.getGraph() != null) {
+                buffer.append(' ');
+                appendNode(quad.getGraph(), reference);
+            }
+            buffer.append(" .\n");
+            return buffer.toString();
+        }
+
+        private void appendNode(RDFDataset.Node node, String reference) {
+            if (node.isIRI()) {
+                buffer.append('<').append(node.getValue()).append('>');
+            } else if (node.isBlankNode()) {
+                if (reference == null) {
+                    buffer.append(canonicalNamer.getName(node.getValue()));
+                } else {
+                    buffer.append(reference.equals(node.getValue()) ? "_:a" : "_:z");
+                }
+            } else {
+                buffer.append('"');
+                escape(node.getValue());
+                buffer.append('"');
+                if (RDF_LANGSTRING.equals(node.getDatatype())) {
+                    buffer.append('@').append(node.getLanguage());
+                } else if (!XSD_STRING.equals(node.getDatatype())) {
+                    buffer.append("^^<").append(node.getDatatype()).append('>');
+                }
+            }
+        }
+
+        /**
+         * Appends a literal value, escaping only the characters canonical N-Quads
+         * escapes.
+         */
+        private void escape(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                default:
+                    buffer.append(c);
+                }
+            }
+        }
+    }
+}
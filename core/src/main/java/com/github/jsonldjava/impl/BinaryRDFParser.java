@@ -0,0 +1,46 @@
+package com.github.jsonldjava.impl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.github.jsonldjava.core.BinaryQuadReader;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.RDFDataset;
+import com.github.jsonldjava.core.RDFParser;
+
+/**
+ * Parses the binary format written by
+ * {@link com.github.jsonldjava.core.BinaryQuadWriter}.
+ */
+public class BinaryRDFParser implements RDFParser {
+    @Override
+    public RDFDataset parse(Object input) throws JsonLdError {
+        if (input instanceof byte[]) {
+            return new BinaryQuadReader(new ByteArrayInputStream((byte[]) input)).parse();
+        } else if (input instanceof InputStream) {
+            return new BinaryQuadReader((InputStream) input).parse();
+        } else if (input instanceof File) {
+            // the file is read a block at a time, so it never has to be held
+            // in memory
+            final BinaryQuadReader reader;
+            try {
+                reader = new BinaryQuadReader(new BufferedInputStream(new FileInputStream(
+                        (File) input)));
+            } catch (final IOException e) {
+                throw new JsonLdError(JsonLdError.Error.LOADING_DOCUMENT_FAILED, e.getMessage());
+            }
+            try {
+                return reader.parse();
+            } finally {
+                reader.close();
+            }
+        } else {
+            throw new JsonLdError(JsonLdError.Error.INVALID_INPUT,
+                    "Binary RDF Parser expected byte[], InputStream or File input.");
+        }
+    }
+}
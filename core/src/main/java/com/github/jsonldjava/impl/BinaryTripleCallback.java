@@ -0,0 +1,28 @@
+package com.github.jsonldjava.impl;
+
+import java.io.ByteArrayOutputStream;
+
+import com.github.jsonldjava.core.BinaryQuadWriter;
+import com.github.jsonldjava.core.JSONLDTripleCallback;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.RDFDataset;
+
+/**
+ * Serializes a dataset in the binary format of {@link BinaryQuadWriter},
+ * returning a byte[].
+ */
+public class BinaryTripleCallback implements JSONLDTripleCallback {
+    @Override
+    public Object call(RDFDataset dataset) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinaryQuadWriter writer = new BinaryQuadWriter(out);
+        try {
+            writer.write(dataset);
+            writer.finish();
+        } catch (final JsonLdError e) {
+            // a ByteArrayOutputStream can't fail
+            throw new RuntimeException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -2,18 +2,48 @@ package com.github.jsonldjava.impl;
 
 import static com.github.jsonldjava.core.RDFDatasetUtils.parseNQuads;
 
+import java.io.File;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.concurrent.ExecutorService;
+
 import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.MappedNQuadReader;
+import com.github.jsonldjava.core.NQuadReader;
 import com.github.jsonldjava.core.RDFDataset;
 import com.github.jsonldjava.core.RDFParser;
 
 public class NQuadRDFParser implements RDFParser {
     @Override
     public RDFDataset parse(Object input) throws JsonLdError {
+        return parse(input, null);
+    }
+
+    /**
+     * Parses the input, using the executor to parse a File in parallel (see
+     * {@link MappedNQuadReader}).
+     *
+     * @param input
+     *            a String, Reader, InputStream or File with the N-Quads.
+     * @param executor
+     *            the executor to parse a File with, or null to parse it on the
+     *            calling thread.
+     * @return the dataset.
+     * @throws JsonLdError
+     *             if the input is not valid N-Quads or cannot be read.
+     */
+    public RDFDataset parse(Object input, ExecutorService executor) throws JsonLdError {
         if (input instanceof String) {
             return parseNQuads((String) input);
+        } else if (input instanceof Reader) {
+            return parseNQuads((Reader) input);
+        } else if (input instanceof InputStream) {
+            return new NQuadReader((InputStream) input).parse();
+        } else if (input instanceof File) {
+            return new MappedNQuadReader((File) input, executor).parse();
         } else {
             throw new JsonLdError(JsonLdError.Error.INVALID_INPUT,
-                    "NQuad Parser expected string input.");
+                    "NQuad Parser expected string, Reader, InputStream or File input.");
         }
     }
 
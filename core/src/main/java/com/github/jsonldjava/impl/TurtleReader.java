@@ -0,0 +1,862 @@
+package com.github.jsonldjava.impl;
+
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_FIRST;
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_LANGSTRING;
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_NIL;
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_REST;
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_TYPE;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_BOOLEAN;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_DECIMAL;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_DOUBLE;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_INTEGER;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_STRING;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdError.Error;
+import com.github.jsonldjava.core.QuadCallback;
+import com.github.jsonldjava.core.RDFDataset;
+import com.github.jsonldjava.core.UniqueNamer;
+import com.github.jsonldjava.utils.BaseIri;
+
+/**
+ * A streaming Turtle parser.
+ *
+ * The input is read one character at a time from a buffered {@link Reader}
+ * and parsed by recursive descent, so parsing takes time linear in the size of
+ * the document, and each triple can be handed to a {@link QuadCallback} as
+ * soon as it has been read. Alternatively the triples can be collected into an
+ * {@link RDFDataset}.
+ *
+ * Blank node labels are replaced with new labels ("_:b0", "_:b1", ...) which
+ * are shared with the blank nodes created for "[ ]" and collections. Relative
+ * IRIs are resolved against the base IRI (given to the constructor or set by
+ * the document), and kept as they are if there is none.
+ *
+ * http://www.w3.org/TR/turtle/
+ */
+public class TurtleReader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int EOF = -1;
+
+    private static final RDFDataset.Node TYPE = new RDFDataset.IRI(RDF_TYPE);
+    private static final RDFDataset.Node FIRST = new RDFDataset.IRI(RDF_FIRST);
+    private static final RDFDataset.Node REST = new RDFDataset.IRI(RDF_REST);
+    private static final RDFDataset.Node NIL = new RDFDataset.IRI(RDF_NIL);
+
+    private final Reader in;
+    private final char[] buf;
+    private int pos = 0;
+    private int limit = 0;
+
+    private int line = 1;
+    private int column = 1;
+
+    // reused for every token, only turned into a String once complete
+    private final StringBuilder sb = new StringBuilder();
+
+    private BaseIri base;
+    private final Map<String, String> namespaces = new LinkedHashMap<String, String>();
+    private final UniqueNamer namer = new UniqueNamer("_:b");
+    private QuadCallback callback;
+
+    public TurtleReader(Reader in) {
+        this(in, null);
+    }
+
+    /**
+     * @param in
+     *            the input.
+     * @param base
+     *            the IRI which relative IRIs are resolved against until the
+     *            document sets one, or null.
+     */
+    public TurtleReader(Reader in, String base) {
+        this(in, base, 8192);
+    }
+
+    public TurtleReader(Reader in, String base, int bufferSize) {
+        this.in = in;
+        this.base = base == null ? null : BaseIri.parse(base);
+        this.buf = new char[Math.max(bufferSize, 16)];
+    }
+
+    public TurtleReader(InputStream in) {
+        this(new InputStreamReader(in, UTF_8));
+    }
+
+    public TurtleReader(String in) {
+        this(new StringReader(in));
+    }
+
+    /**
+     * Reads all of the remaining triples into the default graph of a new
+     * dataset, which also gets the prefixes declared by the document.
+     *
+     * @return the dataset.
+     * @throws JsonLdError
+     *             if the input is not valid Turtle or cannot be read.
+     */
+    public RDFDataset parse() throws JsonLdError {
+        final RDFDataset dataset = new RDFDataset();
+        final List<RDFDataset.Quad> quads = dataset.getQuads("@default");
+        parse(new QuadCallback() {
+            @Override
+            public void call(RDFDataset.Quad quad) {
+                quads.add(quad);
+            }
+        });
+        for (final Map.Entry<String, String> namespace : namespaces.entrySet()) {
+            dataset.setNamespace(namespace.getKey(), namespace.getValue());
+        }
+        return dataset;
+    }
+
+    /**
+     * Reads all of the remaining triples, passing each one to the callback
+     * (as a quad in the default graph) as soon as it has been read.
+     *
+     * @param callback
+     *            the callback for each triple.
+     * @throws JsonLdError
+     *             if the input is not valid Turtle or cannot be read, or if
+     *             the callback throws an error.
+     */
+    public void parse(QuadCallback callback) throws JsonLdError {
+        this.callback = callback;
+        while (statement()) {
+            // keep going
+        }
+    }
+
+    /**
+     * @return the prefixes declared so far, in order.
+     */
+    public Map<String, String> getNamespaces() {
+        return namespaces;
+    }
+
+    /**
+     * @return the current line number, starting at 1.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the current column number, starting at 1.
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    private JsonLdError error(String message) {
+        return error(message, line, column);
+    }
+
+    private JsonLdError error(String message, int line, int column) {
+        return new JsonLdError(Error.PARSE_ERROR, "Error while parsing Turtle; " + message
+                + ". line:" + line + " column:" + column);
+    }
+
+    private JsonLdError unexpected() throws JsonLdError {
+        final int c = peek(0);
+        return error(c == EOF ? "unexpected end of input" : "unexpected '" + (char) c + "'");
+    }
+
+    private void emit(RDFDataset.Node subject, RDFDataset.Node predicate, RDFDataset.Node object)
+            throws JsonLdError {
+        callback.call(new RDFDataset.Quad(subject, predicate, object, "@default"));
+    }
+
+    /**
+     * Reads a directive or a set of triples.
+     *
+     * @return false at the end of the input.
+     */
+    private boolean statement() throws JsonLdError {
+        skipWhitespace();
+        final int c = peek(0);
+        if (c == EOF) {
+            return false;
+        }
+        if (c == '@') {
+            read();
+            final String keyword = readWord();
+            if ("prefix".equals(keyword)) {
+                prefix();
+            } else if ("base".equals(keyword)) {
+                base();
+            } else {
+                throw error("unknown directive @" + keyword);
+            }
+            expect('.');
+        } else if (lookingAtKeyword("PREFIX")) {
+            prefix();
+        } else if (lookingAtKeyword("BASE")) {
+            base();
+        } else {
+            triples();
+            expect('.');
+        }
+        return true;
+    }
+
+    private void prefix() throws JsonLdError {
+        skipWhitespace();
+        final String prefix = readPrefix();
+        if (read() != ':') {
+            throw error("expected ':' after the prefix");
+        }
+        skipWhitespace();
+        namespaces.put(prefix, readIri());
+    }
+
+    private void base() throws JsonLdError {
+        skipWhitespace();
+        base = BaseIri.parse(readIri());
+    }
+
+    /**
+     * @return true if the input continues with the given (case insensitive)
+     *         keyword, which is then skipped.
+     */
+    private boolean lookingAtKeyword(String keyword) throws JsonLdError {
+        final int length = keyword.length();
+        for (int i = 0; i < length; i++) {
+            final int c = peek(i);
+            if (c == EOF || Character.toUpperCase((char) c) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        final int next = peek(length);
+        if (isPnChars(next) || next == ':' || next == '.') {
+            // a prefixed name
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            read();
+        }
+        return true;
+    }
+
+    private void triples() throws JsonLdError {
+        final RDFDataset.Node subject;
+        final int c = peek(0);
+        if (c == '[') {
+            read();
+            skipWhitespace();
+            subject = blankNode();
+            if (peek(0) == ']') {
+                read();
+                predicateObjectList(subject);
+                return;
+            }
+            predicateObjectList(subject);
+            expect(']');
+            skipWhitespace();
+            if (peek(0) != '.') {
+                predicateObjectList(subject);
+            }
+            return;
+        } else if (c == '<') {
+            subject = iri(readIri());
+        } else if (c == '_') {
+            subject = readBlankNode();
+        } else if (c == '(') {
+            subject = collection();
+        } else if (isPnCharsBase(c) || c == ':') {
+            subject = iri(readPrefixedName());
+        } else {
+            throw unexpected();
+        }
+        predicateObjectList(subject);
+    }
+
+    private void predicateObjectList(RDFDataset.Node subject) throws JsonLdError {
+        while (true) {
+            skipWhitespace();
+            final RDFDataset.Node predicate = verb();
+            do {
+                skipWhitespace();
+                object(subject, predicate);
+                skipWhitespace();
+            } while (skip(','));
+            if (!skip(';')) {
+                return;
+            }
+            // any number of ';' may follow, and the last one may end the list
+            do {
+                skipWhitespace();
+            } while (skip(';'));
+            final int c = peek(0);
+            if (c == '.' || c == ']' || c == EOF) {
+                return;
+            }
+        }
+    }
+
+    private RDFDataset.Node verb() throws JsonLdError {
+        final int c = peek(0);
+        if (c == '<') {
+            return iri(readIri());
+        }
+        if (c == 'a') {
+            final int next = peek(1);
+            if (!isPnChars(next) && next != ':' && next != '.') {
+                read();
+                return TYPE;
+            }
+        }
+        if (isPnCharsBase(c) || c == ':') {
+            return iri(readPrefixedName());
+        }
+        throw unexpected();
+    }
+
+    private void object(RDFDataset.Node subject, RDFDataset.Node predicate) throws JsonLdError {
+        final int c = peek(0);
+        final RDFDataset.Node object;
+        if (c == '<') {
+            object = iri(readIri());
+        } else if (c == '_') {
+            object = readBlankNode();
+        } else if (c == '[') {
+            read();
+            skipWhitespace();
+            object = blankNode();
+            emit(subject, predicate, object);
+            if (peek(0) != ']') {
+                predicateObjectList(object);
+            }
+            expect(']');
+            return;
+        } else if (c == '(') {
+            object = collection();
+        } else if (c == '"' || c == '\'') {
+            object = readLiteral();
+        } else if ((c >= '0' && c <= '9') || c == '+' || c == '-'
+                || (c == '.' && isDigit(peek(1)))) {
+            object = readNumber();
+        } else if (isPnCharsBase(c) || c == ':') {
+            // a prefixed name, or true or false
+            final String prefix = readPrefix();
+            if (peek(0) == ':') {
+                object = iri(readLocalName(prefix));
+            } else if ("true".equals(prefix) || "false".equals(prefix)) {
+                object = new RDFDataset.Literal(prefix, XSD_BOOLEAN, null);
+            } else {
+                throw unexpected();
+            }
+        } else {
+            throw unexpected();
+        }
+        emit(subject, predicate, object);
+    }
+
+    /**
+     * Reads a collection, emitting the triples of its list.
+     *
+     * @return the head of the list.
+     */
+    private RDFDataset.Node collection() throws JsonLdError {
+        read(); // (
+        skipWhitespace();
+        if (skip(')')) {
+            return NIL;
+        }
+        final RDFDataset.Node head = blankNode();
+        RDFDataset.Node node = head;
+        while (true) {
+            object(node, FIRST);
+            skipWhitespace();
+            if (skip(')')) {
+                emit(node, REST, NIL);
+                return head;
+            }
+            final RDFDataset.Node next = blankNode();
+            emit(node, REST, next);
+            node = next;
+        }
+    }
+
+    private RDFDataset.Node blankNode() {
+        return new RDFDataset.BlankNode(namer.getName());
+    }
+
+    private RDFDataset.Node iri(String iri) {
+        return new RDFDataset.IRI(iri);
+    }
+
+    private String resolve(String iri) {
+        return base == null ? iri : base.resolve(iri);
+    }
+
+    /**
+     * Reads an IRIREF and resolves it against the base IRI.
+     */
+    private String readIri() throws JsonLdError {
+        if (read() != '<') {
+            throw error("expected an IRI");
+        }
+        sb.setLength(0);
+        while (true) {
+            final int atLine = line;
+            final int atColumn = column;
+            int c = read();
+            if (c == '>') {
+                break;
+            } else if (c == '\\') {
+                c = read();
+                if (c == 'u') {
+                    c = readHex(4);
+                } else if (c == 'U') {
+                    c = readHex(8);
+                } else {
+                    throw error("invalid escape in IRI");
+                }
+            } else if (c == EOF) {
+                throw error("unexpected end of input");
+            }
+            if (c <= 0x20 || c == '<' || c == '>' || c == '"' || c == '{' || c == '}'
+                    || c == '|' || c == '^' || c == '`' || c == '\\') {
+                throw error("invalid character in IRI", atLine, atColumn);
+            }
+            sb.appendCodePoint(c);
+        }
+        return resolve(sb.toString());
+    }
+
+    private String readPrefixedName() throws JsonLdError {
+        final String prefix = readPrefix();
+        if (peek(0) != ':') {
+            throw unexpected();
+        }
+        return readLocalName(prefix);
+    }
+
+    /**
+     * Reads a (possibly empty) PN_PREFIX, stopping before the ':'.
+     */
+    private String readPrefix() throws JsonLdError {
+        sb.setLength(0);
+        if (!isPnCharsBase(peek(0))) {
+            return "";
+        }
+        sb.append((char) read());
+        while (true) {
+            final int c = peek(0);
+            if (isPnChars(c)) {
+                sb.append((char) read());
+            } else if (c == '.' && dotsFollowedBy(false)) {
+                sb.append((char) read());
+            } else {
+                return sb.toString();
+            }
+        }
+    }
+
+    /**
+     * Reads the ':' and PN_LOCAL which follow the given prefix, returning the
+     * expanded IRI.
+     */
+    private String readLocalName(String prefix) throws JsonLdError {
+        final String namespace = namespaces.get(prefix);
+        if (namespace == null) {
+            // the prefix is always on the current line
+            throw error("undefined prefix '" + prefix + ":'", line, column - prefix.length());
+        }
+        read(); // :
+        sb.setLength(0);
+        sb.append(namespace);
+        final int start = sb.length();
+        while (true) {
+            final int c = peek(0);
+            // PN_CHARS other than PN_CHARS_U and digits can't start the name
+            if (c == ':' || isPnCharsU(c) || isDigit(c)
+                    || (sb.length() > start && isPnChars(c))) {
+                sb.append((char) read());
+            } else if (c == '%') {
+                sb.append((char) read());
+                for (int i = 0; i < 2; i++) {
+                    if (Character.digit(peek(0), 16) < 0) {
+                        throw error("invalid percent encoding");
+                    }
+                    sb.append((char) read());
+                }
+            } else if (c == '\\') {
+                read();
+                final int e = read();
+                if (e == EOF || "_~.-!$&'()*+,;=/?#@%".indexOf(e) < 0) {
+                    throw error("invalid escape in local name");
+                }
+                sb.append((char) e);
+            } else if (c == '.' && sb.length() > start && dotsFollowedBy(true)) {
+                sb.append((char) read());
+            } else {
+                break;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return true if the '.'s at the current position are followed by a
+     *         character which may continue a name (so they are part of it
+     *         rather than the end of a statement).
+     */
+    private boolean dotsFollowedBy(boolean local) throws JsonLdError {
+        int i = 1;
+        while (peek(i) == '.') {
+            i++;
+            if (i >= buf.length - 1) {
+                throw error("name too long");
+            }
+        }
+        final int c = peek(i);
+        return isPnChars(c) || (local && (c == ':' || c == '%' || c == '\\'));
+    }
+
+    private RDFDataset.Node readBlankNode() throws JsonLdError {
+        read(); // _
+        if (read() != ':') {
+            throw error("expected ':' in blank node label");
+        }
+        sb.setLength(0);
+        sb.append("_:");
+        int c = peek(0);
+        if (!isPnCharsU(c) && !isDigit(c)) {
+            throw error("invalid blank node label");
+        }
+        sb.append((char) read());
+        while (true) {
+            c = peek(0);
+            if (isPnChars(c)) {
+                sb.append((char) read());
+            } else if (c == '.' && dotsFollowedBy(false)) {
+                sb.append((char) read());
+            } else {
+                break;
+            }
+        }
+        return new RDFDataset.BlankNode(namer.getName(sb.toString()));
+    }
+
+    private RDFDataset.Node readLiteral() throws JsonLdError {
+        final int quote = read();
+        sb.setLength(0);
+        if (peek(0) == quote && peek(1) == quote) {
+            // long string
+            read();
+            read();
+            while (true) {
+                final int c = read();
+                if (c == quote && peek(0) == quote && peek(1) == quote) {
+                    read();
+                    read();
+                    break;
+                } else if (c == '\\') {
+                    readEscape();
+                } else if (c == EOF) {
+                    throw error("unexpected end of input in string");
+                } else {
+                    sb.append((char) c);
+                }
+            }
+        } else {
+            while (true) {
+                final int c = peek(0);
+                if (c == EOF || c == '\r' || c == '\n') {
+                    throw error("unterminated string");
+                }
+                read();
+                if (c == quote) {
+                    break;
+                } else if (c == '\\') {
+                    readEscape();
+                } else {
+                    sb.append((char) c);
+                }
+            }
+        }
+        final String value = sb.toString();
+        final int c = peek(0);
+        if (c == '@') {
+            read();
+            return new RDFDataset.Literal(value, RDF_LANGSTRING, readLanguage());
+        } else if (c == '^' && peek(1) == '^') {
+            read();
+            read();
+            final String datatype = peek(0) == '<' ? readIri() : readPrefixedName();
+            return new RDFDataset.Literal(value, datatype, null);
+        }
+        return new RDFDataset.Literal(value, XSD_STRING, null);
+    }
+
+    private String readLanguage() throws JsonLdError {
+        sb.setLength(0);
+        int c = peek(0);
+        while ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+            sb.append((char) read());
+            c = peek(0);
+        }
+        if (sb.length() == 0) {
+            throw error("invalid language tag");
+        }
+        while (c == '-') {
+            sb.append((char) read());
+            final int start = sb.length();
+            c = peek(0);
+            while ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c)) {
+                sb.append((char) read());
+                c = peek(0);
+            }
+            if (sb.length() == start) {
+                throw error("invalid language tag");
+            }
+        }
+        return sb.toString();
+    }
+
+    private RDFDataset.Node readNumber() throws JsonLdError {
+        sb.setLength(0);
+        int c = peek(0);
+        if (c == '+' || c == '-') {
+            sb.append((char) read());
+        }
+        int digits = readDigits();
+        String datatype = XSD_INTEGER;
+        if (peek(0) == '.' && (isDigit(peek(1)) || (digits > 0 && isExponent(1)))) {
+            sb.append((char) read());
+            digits += readDigits();
+            datatype = XSD_DECIMAL;
+        }
+        if (digits == 0) {
+            throw error("invalid number");
+        }
+        if (isExponent(0)) {
+            sb.append((char) read());
+            c = peek(0);
+            if (c == '+' || c == '-') {
+                sb.append((char) read());
+            }
+            readDigits();
+            datatype = XSD_DOUBLE;
+        }
+        return new RDFDataset.Literal(sb.toString(), datatype, null);
+    }
+
+    private int readDigits() throws JsonLdError {
+        int n = 0;
+        while (isDigit(peek(0))) {
+            sb.append((char) read());
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * @return true if there is an exponent at the given offset.
+     */
+    private boolean isExponent(int offset) throws JsonLdError {
+        final int c = peek(offset);
+        if (c != 'e' && c != 'E') {
+            return false;
+        }
+        final int next = peek(offset + 1);
+        return isDigit(next) || ((next == '+' || next == '-') && isDigit(peek(offset + 2)));
+    }
+
+    /**
+     * Reads the escape sequence following a backslash in a string, appending
+     * the unescaped character to the string builder.
+     */
+    private void readEscape() throws JsonLdError {
+        final int c = read();
+        switch (c) {
+        case 't':
+            sb.append('\t');
+            break;
+        case 'b':
+            sb.append('\b');
+            break;
+        case 'n':
+            sb.append('\n');
+            break;
+        case 'r':
+            sb.append('\r');
+            break;
+        case 'f':
+            sb.append('\f');
+            break;
+        case '"':
+            sb.append('"');
+            break;
+        case '\'':
+            sb.append('\'');
+            break;
+        case '\\':
+            sb.append('\\');
+            break;
+        case 'u':
+            sb.appendCodePoint(readHex(4));
+            break;
+        case 'U':
+            sb.appendCodePoint(readHex(8));
+            break;
+        default:
+            throw error("invalid escape in string");
+        }
+    }
+
+    private int readHex(int digits) throws JsonLdError {
+        int v = 0;
+        for (int i = 0; i < digits; i++) {
+            final int d = Character.digit(read(), 16);
+            if (d < 0) {
+                throw error("invalid escape");
+            }
+            v = (v << 4) | d;
+        }
+        if (!Character.isValidCodePoint(v)) {
+            throw error("invalid escape");
+        }
+        return v;
+    }
+
+    /**
+     * Reads a run of letters (a directive name).
+     */
+    private String readWord() throws JsonLdError {
+        sb.setLength(0);
+        int c = peek(0);
+        while ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+            sb.append((char) read());
+            c = peek(0);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Skips the expected character, after any whitespace.
+     */
+    private void expect(int expected) throws JsonLdError {
+        skipWhitespace();
+        if (peek(0) != expected) {
+            throw error(peek(0) == EOF ? "unexpected end of input, expected '" + (char) expected
+                    + "'" : "expected '" + (char) expected + "'");
+        }
+        read();
+    }
+
+    /**
+     * @return true if the next character was the given one, and was skipped.
+     */
+    private boolean skip(int c) throws JsonLdError {
+        if (peek(0) == c) {
+            read();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skips whitespace and comments.
+     */
+    private void skipWhitespace() throws JsonLdError {
+        while (true) {
+            final int c = peek(0);
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                read();
+            } else if (c == '#') {
+                int d = read();
+                while (d != EOF && d != '\r' && d != '\n') {
+                    d = read();
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static boolean isPnCharsBase(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= 0xC0 && c <= 0xD6)
+                || (c >= 0xD8 && c <= 0xF6) || (c >= 0xF8 && c <= 0x2FF)
+                || (c >= 0x370 && c <= 0x37D) || (c >= 0x37F && c <= 0x1FFF)
+                || (c >= 0x200C && c <= 0x200D) || (c >= 0x2070 && c <= 0x218F)
+                || (c >= 0x2C00 && c <= 0x2FEF) || (c >= 0x3001 && c <= 0xD7FF)
+                // surrogate pairs, for the characters above 0x10000
+                || (c >= 0xD800 && c <= 0xDFFF) || (c >= 0xF900 && c <= 0xFDCF)
+                || (c >= 0xFDF0 && c <= 0xFFFD);
+    }
+
+    static boolean isPnCharsU(int c) {
+        return c == '_' || isPnCharsBase(c);
+    }
+
+    static boolean isPnChars(int c) {
+        return isPnCharsU(c) || c == '-' || isDigit(c) || c == 0xB7
+                || (c >= 0x300 && c <= 0x36F) || (c >= 0x203F && c <= 0x2040);
+    }
+
+    private int read() throws JsonLdError {
+        if (pos >= limit && !fill(1)) {
+            return EOF;
+        }
+        final char c = buf[pos++];
+        if (c == '\n' || (c == '\r' && peek(0) != '\n')) {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
+        return c;
+    }
+
+    private int peek(int offset) throws JsonLdError {
+        if (pos + offset >= limit && !fill(offset + 1)) {
+            return EOF;
+        }
+        return buf[pos + offset];
+    }
+
+    /**
+     * Makes sure that at least the given number of characters are available
+     * in the buffer.
+     *
+     * @return false if the end of the input was reached first.
+     */
+    private boolean fill(int needed) throws JsonLdError {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        try {
+            while (limit < needed) {
+                final int n = in.read(buf, limit, buf.length - limit);
+                if (n < 0) {
+                    return false;
+                }
+                limit += n;
+            }
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.LOADING_DOCUMENT_FAILED, e.getMessage());
+        }
+        return true;
+    }
+}
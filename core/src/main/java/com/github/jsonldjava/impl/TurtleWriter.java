@@ -0,0 +1,479 @@
+package com.github.jsonldjava.impl;
+
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_FIRST;
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_NIL;
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_REST;
+import static com.github.jsonldjava.core.JSONLDConsts.RDF_TYPE;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_BOOLEAN;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_DECIMAL;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_DOUBLE;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_INTEGER;
+import static com.github.jsonldjava.core.JSONLDConsts.XSD_STRING;
+import static com.github.jsonldjava.core.RDFDatasetUtils.escape;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdError.Error;
+import com.github.jsonldjava.core.QuadCallback;
+import com.github.jsonldjava.core.RDFDataset;
+import com.github.jsonldjava.core.Regex;
+
+/**
+ * A streaming Turtle serializer.
+ *
+ * The quads are expected to be grouped by subject (as they are in a sorted
+ * dataset or in the output of toRDF). The quads of each subject which isn't a
+ * blank node are written as soon as the next subject starts, with the objects
+ * of each predicate grouped together. The quads of blank node subjects are
+ * kept until {@link #finish()}, so that a blank node which is only referred to
+ * once can be nested as "[ ... ]" (or written as a collection "( ... )" if it
+ * is the head of a well-formed list) where it is referred to, instead of
+ * being written with its label.
+ *
+ * A subject which refers to a blank node that could still be nested is kept
+ * as well, since it isn't known yet how often the blank node is referred to.
+ * At most {@link #MAX_DEFERRED_SUBJECTS} of them are kept: beyond that, the
+ * subject which has been kept the longest is written, referring to its blank
+ * nodes by label. So the part of the graph held in memory is its blank nodes
+ * and the quads of up to that many other subjects.
+ *
+ * Turtle has no named graphs, so the quads of all graphs are written as
+ * triples. All of the prefixes given to the constructor are declared at the
+ * start of the output.
+ *
+ * http://www.w3.org/TR/turtle/
+ */
+public class TurtleWriter implements QuadCallback {
+
+    private static final int MAX_LINE_LENGTH = 160;
+    private static final String INDENT = "    ";
+
+    /**
+     * The number of subjects referring to blank nodes which are kept until
+     * {@link #finish()}, so that the blank nodes can be nested.
+     */
+    public static final int MAX_DEFERRED_SUBJECTS = 1000;
+
+    private final Writer out;
+    // prefix -> IRI
+    private final Map<String, String> namespaces;
+    private boolean started = false;
+    private int column = 0;
+
+    // the quads of the current subject, which isn't a blank node
+    private RDFDataset.Node subject = null;
+    private final List<RDFDataset.Quad> subjectQuads = new ArrayList<RDFDataset.Quad>();
+
+    // the quads of each blank node subject
+    private final Map<String, List<RDFDataset.Quad>> blankNodes = new LinkedHashMap<String, List<RDFDataset.Quad>>();
+    // the number of times each blank node is used as an object
+    private final Map<String, Integer> references = new HashMap<String, Integer>();
+    // blank nodes whose quads have been written
+    private final Set<String> written = new HashSet<String>();
+    // blank nodes which have been referred to by their label
+    private final Set<String> labelled = new HashSet<String>();
+    // the quads of the subjects which refer to a blank node that could still
+    // be nested, in the order they ended
+    private final LinkedList<List<RDFDataset.Quad>> deferred = new LinkedList<List<RDFDataset.Quad>>();
+    // true once all of the references to blank nodes are known
+    private boolean complete = false;
+
+    public TurtleWriter(Writer out) {
+        this(out, new LinkedHashMap<String, String>());
+    }
+
+    /**
+     * @param out
+     *            the output.
+     * @param namespaces
+     *            the prefixes to declare and use, from prefix to IRI (as
+     *            returned by {@link RDFDataset#getNamespaces()}).
+     */
+    public TurtleWriter(Writer out, Map<String, String> namespaces) {
+        this.out = out;
+        this.namespaces = namespaces;
+    }
+
+    @Override
+    public void call(RDFDataset.Quad quad) throws JsonLdError {
+        write(quad);
+    }
+
+    /**
+     * Adds a quad, writing the quads of the previous subject if this one has
+     * another subject.
+     *
+     * @throws JsonLdError
+     *             if the output can't be written.
+     */
+    public void write(RDFDataset.Quad quad) throws JsonLdError {
+        index(quad);
+        if (!quad.getSubject().isBlankNode()) {
+            add(quad);
+        }
+    }
+
+    /**
+     * Adds all of the quads of a dataset. {@link #finish()} still has to be
+     * called afterwards.
+     *
+     * @throws JsonLdError
+     *             if the output can't be written.
+     */
+    public void write(RDFDataset dataset) throws JsonLdError {
+        for (final String graphName : dataset.graphNames()) {
+            for (final RDFDataset.Quad quad : dataset.getQuads(graphName)) {
+                write(quad);
+            }
+        }
+    }
+
+    /**
+     * Writes the remaining quads, including all of the blank nodes, and
+     * flushes the output (which is not closed).
+     */
+    public void finish() throws JsonLdError {
+        try {
+            if (subject != null) {
+                endSubject();
+            }
+            complete = true;
+            for (final List<RDFDataset.Quad> quads : deferred) {
+                writeSubject(quads);
+            }
+            deferred.clear();
+            final List<String> ids = new ArrayList<String>(blankNodes.keySet());
+            // the blank nodes which aren't nested in another one
+            for (final String id : ids) {
+                if (!written.contains(id) && (references(id) != 1 || labelled.contains(id))) {
+                    writeBlankNodeSubject(id);
+                }
+            }
+            // the only ones left refer to each other in a cycle
+            for (final String id : ids) {
+                if (!written.contains(id)) {
+                    writeBlankNodeSubject(id);
+                }
+            }
+            if (!started) {
+                start();
+            }
+            out.flush();
+        } catch (final IOException e) {
+            throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+        }
+    }
+
+    private void index(RDFDataset.Quad quad) {
+        if (quad.getObject().isBlankNode()) {
+            final String id = quad.getObject().getValue();
+            references.put(id, references(id) + 1);
+        }
+        if (quad.getSubject().isBlankNode()) {
+            final String id = quad.getSubject().getValue();
+            List<RDFDataset.Quad> quads = blankNodes.get(id);
+            if (quads == null) {
+                quads = new ArrayList<RDFDataset.Quad>();
+                blankNodes.put(id, quads);
+            }
+            quads.add(quad);
+        }
+    }
+
+    private void add(RDFDataset.Quad quad) throws JsonLdError {
+        if (subject != null && !subject.equals(quad.getSubject())) {
+            try {
+                endSubject();
+            } catch (final IOException e) {
+                throw new JsonLdError(Error.IO_ERROR, e.getMessage());
+            }
+        }
+        subject = quad.getSubject();
+        subjectQuads.add(quad);
+    }
+
+    private int references(String id) {
+        final Integer count = references.get(id);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * @return true if the blank node can be written where it is referred to.
+     */
+    private boolean canNest(String id) {
+        return complete && references(id) == 1 && !written.contains(id)
+                && !labelled.contains(id);
+    }
+
+    private void start() throws IOException {
+        started = true;
+        for (final Map.Entry<String, String> namespace : namespaces.entrySet()) {
+            print("@prefix " + namespace.getKey() + ": <" + escape(namespace.getValue())
+                    + "> .\n");
+        }
+        if (!namespaces.isEmpty()) {
+            print("\n");
+        }
+    }
+
+    private void startStatement() throws IOException {
+        if (!started) {
+            start();
+        } else {
+            print("\n");
+        }
+    }
+
+    /**
+     * Writes the quads of the current subject, unless it refers to a blank
+     * node which could still be nested.
+     */
+    private void endSubject() throws IOException {
+        if (refersToOpenBlankNode(subjectQuads)) {
+            deferred.add(new ArrayList<RDFDataset.Quad>(subjectQuads));
+            if (deferred.size() > MAX_DEFERRED_SUBJECTS) {
+                writeSubject(deferred.removeFirst());
+            }
+        } else {
+            writeSubject(subjectQuads);
+        }
+        subject = null;
+        subjectQuads.clear();
+    }
+
+    private boolean refersToOpenBlankNode(List<RDFDataset.Quad> quads) {
+        for (final RDFDataset.Quad quad : quads) {
+            if (quad.getObject().isBlankNode()) {
+                final String id = quad.getObject().getValue();
+                if (references(id) == 1 && !written.contains(id) && !labelled.contains(id)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void writeSubject(List<RDFDataset.Quad> quads) throws IOException {
+        startStatement();
+        print(term(quads.get(0).getSubject()));
+        print(" ");
+        writePredicates(quads, 1);
+        print(" .\n");
+    }
+
+    private void writeBlankNodeSubject(String id) throws IOException {
+        written.add(id);
+        startStatement();
+        if (references(id) == 0) {
+            print("[ ");
+            writePredicates(blankNodes.get(id), 1);
+            print(" ] .\n");
+        } else {
+            labelled.add(id);
+            print(id);
+            print(" ");
+            writePredicates(blankNodes.get(id), 1);
+            print(" .\n");
+        }
+    }
+
+    /**
+     * Writes the predicates and objects of a subject, grouping the objects of
+     * each predicate.
+     */
+    private void writePredicates(List<RDFDataset.Quad> quads, int indent) throws IOException {
+        final Map<String, List<RDFDataset.Node>> predicates = new LinkedHashMap<String, List<RDFDataset.Node>>();
+        for (final RDFDataset.Quad quad : quads) {
+            final String predicate = quad.getPredicate().getValue();
+            List<RDFDataset.Node> objects = predicates.get(predicate);
+            if (objects == null) {
+                objects = new ArrayList<RDFDataset.Node>();
+                predicates.put(predicate, objects);
+            }
+            objects.add(quad.getObject());
+        }
+        boolean first = true;
+        for (final Map.Entry<String, List<RDFDataset.Node>> predicate : predicates.entrySet()) {
+            if (!first) {
+                print(" ;\n");
+                indent(indent);
+            }
+            first = false;
+            print(RDF_TYPE.equals(predicate.getKey()) ? "a" : iri(predicate.getKey()));
+            print(" ");
+            final List<RDFDataset.Node> objects = predicate.getValue();
+            for (int i = 0; i < objects.size(); i++) {
+                if (i > 0) {
+                    print(", ");
+                }
+                writeObject(objects.get(i), indent);
+            }
+        }
+    }
+
+    private void writeObject(RDFDataset.Node object, int indent) throws IOException {
+        if (object.isBlankNode()) {
+            final String id = object.getValue();
+            if (canNest(id)) {
+                if (isCollection(id)) {
+                    writeCollection(id, indent);
+                    return;
+                }
+                written.add(id);
+                final List<RDFDataset.Quad> quads = blankNodes.get(id);
+                if (quads == null) {
+                    print("[]");
+                } else {
+                    print("[ ");
+                    writePredicates(quads, indent + 1);
+                    print(" ]");
+                }
+                return;
+            }
+            labelled.add(id);
+        }
+        final String term = term(object);
+        if (column + term.length() > MAX_LINE_LENGTH && column > (indent + 1) * INDENT.length()) {
+            print("\n");
+            indent(indent + 1);
+        }
+        print(term);
+    }
+
+    /**
+     * @return true if the blank node is the head of a list which can be
+     *         written as a collection: each node of the list is only referred
+     *         to once, and has just one rdf:first and one rdf:rest.
+     */
+    private boolean isCollection(String id) {
+        final Set<String> seen = new HashSet<String>();
+        String node = id;
+        while (true) {
+            if (!canNest(node) || !seen.add(node)) {
+                return false;
+            }
+            final List<RDFDataset.Quad> quads = blankNodes.get(node);
+            if (quads == null || quads.size() != 2) {
+                return false;
+            }
+            final RDFDataset.Node rest = listObject(quads, RDF_REST);
+            if (listObject(quads, RDF_FIRST) == null || rest == null) {
+                return false;
+            }
+            if (rest.isIRI() && RDF_NIL.equals(rest.getValue())) {
+                return true;
+            }
+            if (!rest.isBlankNode()) {
+                return false;
+            }
+            node = rest.getValue();
+        }
+    }
+
+    private static RDFDataset.Node listObject(List<RDFDataset.Quad> quads, String predicate) {
+        for (final RDFDataset.Quad quad : quads) {
+            if (predicate.equals(quad.getPredicate().getValue())) {
+                return quad.getObject();
+            }
+        }
+        return null;
+    }
+
+    private void writeCollection(String id, int indent) throws IOException {
+        print("(");
+        String node = id;
+        while (true) {
+            written.add(node);
+            final List<RDFDataset.Quad> quads = blankNodes.get(node);
+            print(" ");
+            writeObject(listObject(quads, RDF_FIRST), indent);
+            final RDFDataset.Node rest = listObject(quads, RDF_REST);
+            if (!rest.isBlankNode()) {
+                break;
+            }
+            node = rest.getValue();
+        }
+        print(" )");
+    }
+
+    private String term(RDFDataset.Node node) {
+        if (node.isIRI()) {
+            return iri(node.getValue());
+        } else if (node.isBlankNode()) {
+            return node.getValue();
+        }
+        final String value = node.getValue();
+        final String datatype = node.getDatatype();
+        final String language = node.getLanguage();
+        if (language != null) {
+            return "\"" + escape(value) + "\"@" + language;
+        }
+        // the datatypes which can be written without quotes
+        if ((XSD_BOOLEAN.equals(datatype) && ("true".equals(value) || "false".equals(value)))
+                || (XSD_INTEGER.equals(datatype) && Regex.INTEGER.matcher(value).matches())
+                || (XSD_DECIMAL.equals(datatype) && Regex.DECIMAL.matcher(value).matches())
+                || (XSD_DOUBLE.equals(datatype) && Regex.DOUBLE.matcher(value).matches())) {
+            return value;
+        }
+        if (datatype == null || XSD_STRING.equals(datatype)) {
+            return "\"" + escape(value) + "\"";
+        }
+        return "\"" + escape(value) + "\"^^" + iri(datatype);
+    }
+
+    /**
+     * @return the IRI as a prefixed name if one of the prefixes can be used,
+     *         otherwise as an IRI reference.
+     */
+    private String iri(String iri) {
+        for (final Map.Entry<String, String> namespace : namespaces.entrySet()) {
+            final String prefix = namespace.getValue();
+            if (iri.startsWith(prefix) && isLocalName(iri, prefix.length())) {
+                return namespace.getKey() + ":" + iri.substring(prefix.length());
+            }
+        }
+        return "<" + escape(iri) + ">";
+    }
+
+    /**
+     * @return true if the rest of the IRI can be written as a local name
+     *         without escapes.
+     */
+    private static boolean isLocalName(String iri, int start) {
+        final int length = iri.length();
+        for (int i = start; i < length; i++) {
+            final char c = iri.charAt(i);
+            if (i == start) {
+                if (!TurtleReader.isPnCharsU(c) && c != ':' && !(c >= '0' && c <= '9')) {
+                    return false;
+                }
+            } else if (!TurtleReader.isPnChars(c) && c != ':'
+                    && (c != '.' || i == length - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void indent(int indent) throws IOException {
+        for (int i = 0; i < indent; i++) {
+            print(INDENT);
+        }
+    }
+
+    private void print(String s) throws IOException {
+        out.write(s);
+        final int newline = s.lastIndexOf('\n');
+        column = newline < 0 ? column + s.length() : s.length() - newline - 1;
+    }
+}
@@ -0,0 +1,364 @@
+package com.github.jsonldjava.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A base IRI, split into its components once so that any number of IRIs can
+ * be resolved against it (RFC 3986 section 5.2) or made relative to it,
+ * without regular expressions and without creating any objects other than the
+ * resulting string.
+ *
+ * Only hierarchical base IRIs (with a scheme and either an authority or an
+ * absolute path) are handled here; other bases (relative or opaque ones) are
+ * still resolved with {@link java.net.URI}, and IRIs which aren't made
+ * relative in the usual way are passed on to
+ * {@link URL#removeBase(Object, String)}.
+ *
+ * A base IRI is immutable and can be shared between threads.
+ */
+public final class BaseIri {
+
+    private final String iri;
+    // the scheme and authority, e.g. "http://example.org", null if the base
+    // isn't hierarchical
+    private final String prefix;
+    private final boolean hasAuthority;
+    private final String path;
+    // the base without its fragment
+    private final String withoutFragment;
+    // the path up to and including its last '/'
+    private final String directory;
+    private final boolean directoryHasDotSegments;
+
+    // used by relativize(): the normalized path and its segments, as the
+    // URL.removeBase(Object, String) algorithm sees them
+    private final String[] segments;
+    private final boolean endsWithSlash;
+
+    private BaseIri(String iri) {
+        this.iri = iri;
+        final int length = iri.length();
+        final int schemeEnd = schemeEnd(iri);
+        int pathStart = schemeEnd < 0 ? 0 : schemeEnd + 1;
+        hasAuthority = iri.startsWith("//", pathStart);
+        if (hasAuthority) {
+            pathStart = indexOf(iri, pathStart + 2, length, "/?#");
+        }
+        final int pathEnd = indexOf(iri, pathStart, length, "?#");
+        final int fragment = iri.indexOf('#', pathEnd);
+        path = iri.substring(pathStart, pathEnd);
+        withoutFragment = fragment < 0 ? iri : iri.substring(0, fragment);
+
+        if (schemeEnd >= 0 && (hasAuthority || path.startsWith("/"))) {
+            prefix = iri.substring(0, pathStart);
+            if (hasAuthority && path.length() == 0) {
+                directory = "/";
+            } else {
+                directory = path.substring(0, path.lastIndexOf('/') + 1);
+            }
+            directoryHasDotSegments = hasDotSegments(directory, 0, directory.length());
+        } else {
+            prefix = null;
+            directory = null;
+            directoryHasDotSegments = false;
+        }
+
+        if (prefix != null && hasAuthority) {
+            final boolean nonEmptyAuthority = pathStart > schemeEnd + 3;
+            final String normalizedPath = URL.removeDotSegments(nonEmptyAuthority
+                    && path.length() == 0 ? "/" : path, nonEmptyAuthority);
+            final List<String> list = new ArrayList<String>(Arrays.asList(normalizedPath
+                    .split("/")));
+            endsWithSlash = normalizedPath.endsWith("/");
+            if (endsWithSlash) {
+                list.add("");
+            }
+            segments = list.toArray(new String[list.size()]);
+        } else {
+            segments = null;
+            endsWithSlash = false;
+        }
+    }
+
+    /**
+     * Parses a base IRI.
+     *
+     * @param iri
+     *            the base IRI.
+     * @return the parsed base IRI.
+     */
+    public static BaseIri parse(String iri) {
+        return new BaseIri(iri);
+    }
+
+    /**
+     * Resolves an IRI against this base, following RFC 3986 section 5.2 (but
+     * an empty or blank IRI resolves to the whole base IRI, as it always has).
+     *
+     * @param reference
+     *            the (possibly relative) IRI.
+     * @return the absolute IRI.
+     */
+    public String resolve(String reference) {
+        if (reference == null || isBlank(reference)) {
+            return iri;
+        }
+        if (prefix == null) {
+            return URL.resolveWithUri(iri, reference);
+        }
+        final int length = reference.length();
+        final int schemeEnd = schemeEnd(reference);
+        int pathStart = schemeEnd < 0 ? 0 : schemeEnd + 1;
+        if (reference.startsWith("//", pathStart)) {
+            pathStart = indexOf(reference, pathStart + 2, length, "/?#");
+        }
+        final int pathEnd = indexOf(reference, pathStart, length, "?#");
+        final boolean dotSegments = hasDotSegments(reference, pathStart, pathEnd);
+
+        // absolute IRI
+        if (schemeEnd >= 0) {
+            if (!dotSegments) {
+                return reference;
+            }
+            final StringBuilder sb = new StringBuilder(length);
+            sb.append(reference, 0, pathStart);
+            removeDotSegments(reference, pathStart, pathEnd, sb);
+            return sb.append(reference, pathEnd, length).toString();
+        }
+
+        final StringBuilder sb = new StringBuilder(prefix.length() + directory.length() + length);
+        if (pathStart > 0) {
+            // network-path reference
+            sb.append(prefix, 0, prefix.indexOf(':') + 1).append(reference, 0, pathStart);
+            removeDotSegments(reference, pathStart, pathEnd, sb);
+        } else if (pathEnd == 0) {
+            if (reference.charAt(0) == '#') {
+                return sb.append(withoutFragment).append(reference).toString();
+            }
+            sb.append(prefix).append(path);
+        } else if (reference.charAt(0) == '/') {
+            sb.append(prefix);
+            removeDotSegments(reference, 0, pathEnd, sb);
+        } else {
+            sb.append(prefix);
+            if (directoryHasDotSegments || dotSegments) {
+                final String merged = directory + reference.substring(0, pathEnd);
+                removeDotSegments(merged, 0, merged.length(), sb);
+            } else {
+                sb.append(directory).append(reference, 0, pathEnd);
+            }
+        }
+        return sb.append(reference, pathEnd, length).toString();
+    }
+
+    /**
+     * Makes an IRI relative to this base, if it can be, using the same
+     * algorithm as {@link URL#removeBase(Object, String)}.
+     *
+     * @param absolute
+     *            the absolute IRI.
+     * @return the relative IRI, or the IRI itself if it isn't relative to this
+     *         base.
+     */
+    public String relativize(String absolute) {
+        if (segments == null) {
+            return URL.removeBase(iri, absolute);
+        }
+        if (!absolute.startsWith(prefix)) {
+            return absolute;
+        }
+        final int length = absolute.length();
+        final int start = prefix.length();
+        if (start < length) {
+            final char c = absolute.charAt(start);
+            if (c != '/' && c != '?' && c != '#') {
+                // e.g. http://example.com.au isn't relative to
+                // http://example.com
+                return absolute;
+            }
+        }
+        int end = indexOf(absolute, start, length, "?#");
+        final int emptySegment = absolute.indexOf("//", start);
+        if ((emptySegment >= 0 && emptySegment < end) || hasDotSegments(absolute, start, end)) {
+            // the segments wouldn't be the ones the URL algorithm sees
+            return URL.removeBase(iri, absolute);
+        }
+        if (end - start == 1) {
+            // "/" has the same (single empty) segment as ""
+            end = start;
+        }
+
+        // skip the segments the IRI has in common with the base
+        int segment = 0;
+        int segmentStart = start;
+        while (segment < segments.length && segmentStart <= end) {
+            int segmentEnd = absolute.indexOf('/', segmentStart);
+            if (segmentEnd < 0 || segmentEnd > end) {
+                segmentEnd = end;
+            }
+            final String baseSegment = segments[segment];
+            if (baseSegment.length() != segmentEnd - segmentStart
+                    || !absolute.regionMatches(segmentStart, baseSegment, 0, baseSegment.length())) {
+                break;
+            }
+            segment++;
+            segmentStart = segmentEnd + 1;
+        }
+
+        // use '../' for each non-matching base segment
+        int up = segments.length - segment;
+        if (up > 0 && (!endsWithSlash || "".equals(segments[segment]))) {
+            up--;
+        }
+        final StringBuilder sb = new StringBuilder(3 * up + length - start);
+        for (int i = 0; i < up; i++) {
+            sb.append("../");
+        }
+        // the remaining segments
+        if (segmentStart <= end) {
+            sb.append(absolute, segmentStart, end);
+        }
+        // the query and fragment, if not empty
+        final int hash = absolute.indexOf('#', start);
+        final int queryEnd = hash < 0 ? length : hash;
+        final int query = absolute.indexOf('?', start);
+        if (query >= 0 && query < queryEnd - 1) {
+            sb.append(absolute, query, queryEnd);
+        }
+        if (hash >= 0 && hash < length - 1) {
+            sb.append(absolute, hash, length);
+        }
+        if (sb.length() == 0) {
+            return "./";
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return iri;
+    }
+
+    /**
+     * Remove Dot Segments (RFC 3986 section 5.2.4), appending the result to
+     * the given builder.
+     */
+    private static void removeDotSegments(String input, int from, int to, StringBuilder output) {
+        final int outputStart = output.length();
+        int i = from;
+        while (i < to) {
+            // A)
+            if (matches(input, i, to, "../")) {
+                i += 3;
+            } else if (matches(input, i, to, "./")) {
+                i += 2;
+            }
+            // B)
+            else if (matches(input, i, to, "/./")) {
+                i += 2;
+            } else if (to - i == 2 && matches(input, i, to, "/.")) {
+                output.append('/');
+                return;
+            }
+            // C)
+            else if (matches(input, i, to, "/../")) {
+                i += 3;
+                removeLastSegment(output, outputStart);
+            } else if (to - i == 3 && matches(input, i, to, "/..")) {
+                removeLastSegment(output, outputStart);
+                output.append('/');
+                return;
+            }
+            // D)
+            else if ((to - i == 1 && input.charAt(i) == '.')
+                    || (to - i == 2 && matches(input, i, to, ".."))) {
+                return;
+            }
+            // E)
+            else {
+                int next = input.indexOf('/', input.charAt(i) == '/' ? i + 1 : i);
+                if (next < 0 || next > to) {
+                    next = to;
+                }
+                output.append(input, i, next);
+                i = next;
+            }
+        }
+    }
+
+    private static void removeLastSegment(StringBuilder output, int outputStart) {
+        final int slash = output.lastIndexOf("/");
+        output.setLength(slash < outputStart ? outputStart : slash);
+    }
+
+    private static boolean matches(String s, int i, int to, String prefix) {
+        return to - i >= prefix.length() && s.startsWith(prefix, i);
+    }
+
+    /**
+     * @return true if the path between from and to has a "." or ".." segment.
+     */
+    private static boolean hasDotSegments(String s, int from, int to) {
+        for (int i = s.indexOf('.', from); i >= 0 && i < to; i = s.indexOf('.', i + 1)) {
+            if (i == from || s.charAt(i - 1) == '/') {
+                int next = i + 1;
+                if (next < to && s.charAt(next) == '.') {
+                    next++;
+                }
+                if (next == to || s.charAt(next) == '/') {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the index of the ':' after the scheme, or -1 if there is no
+     *         scheme.
+     */
+    private static int schemeEnd(String s) {
+        final int length = s.length();
+        if (length == 0 || !isAlpha(s.charAt(0))) {
+            return -1;
+        }
+        for (int i = 1; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c == ':') {
+                return i;
+            }
+            if (!isAlpha(c) && !(c >= '0' && c <= '9') && c != '+' && c != '-' && c != '.') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isAlpha(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isBlank(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the index of the first of the given characters at or after
+     *         from, or to if there is none before it.
+     */
+    private static int indexOf(String s, int from, int to, String chars) {
+        for (int i = from; i < to; i++) {
+            if (chars.indexOf(s.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return to;
+    }
+}
@@ -8,6 +8,8 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.net.URL;
 import java.util.List;
 import java.util.Map;
@@ -89,12 +91,109 @@ public class JSONUtils {
         return rval;
     }
 
+    /**
+     * Creates a streaming parser with the same configuration as the one used
+     * by {@link #fromReader(Reader)}.
+     * 
+     * @param r
+     *            the JSON input.
+     * @return a parser positioned before the first token.
+     * @throws IOException
+     *             if the parser cannot be created.
+     */
+    public static JsonParser createParser(Reader r) throws IOException {
+        return JSON_FACTORY.createParser(r);
+    }
+
+    /**
+     * Reads the value the parser is positioned on (or the next value if the
+     * parser hasn't been started yet) into Maps, Lists and scalars, leaving
+     * the parser on the last token of the value. The parser doesn't need to
+     * have a codec.
+     * 
+     * @param jp
+     *            the parser.
+     * @return the value, which is null for a JSON null or the end of the
+     *         input.
+     * @throws IOException
+     *             if the JSON is not valid.
+     */
+    public static Object fromJsonParser(JsonParser jp) throws IOException {
+        JsonToken token = jp.getCurrentToken();
+        if (token == null) {
+            token = jp.nextToken();
+        }
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return null;
+        } else if (token == JsonToken.START_ARRAY) {
+            return JSON_MAPPER.readValue(jp, List.class);
+        } else if (token == JsonToken.START_OBJECT) {
+            return JSON_MAPPER.readValue(jp, Map.class);
+        } else if (token == JsonToken.VALUE_STRING) {
+            return jp.getText();
+        } else if (token == JsonToken.VALUE_FALSE || token == JsonToken.VALUE_TRUE) {
+            return jp.getBooleanValue();
+        } else if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return JSON_MAPPER.readValue(jp, Number.class);
+        }
+        throw new JsonParseException("expected a json value but found: " + token,
+                jp.getCurrentLocation());
+    }
+
     public static void write(Writer w, Object jsonObject) throws JsonGenerationException,
             JsonMappingException, IOException {
         final JsonGenerator jw = JSON_FACTORY.createGenerator(w);
         jw.writeObject(jsonObject);
     }
 
+    /**
+     * Writes the value, made of Maps, Lists and scalars, to the generator,
+     * which doesn't need to have a codec (unless the value holds other types
+     * of objects). The generator is not flushed or closed.
+     * 
+     * @param jw
+     *            the generator.
+     * @param jsonObject
+     *            the value.
+     * @throws IOException
+     *             if the value cannot be written.
+     */
+    public static void write(JsonGenerator jw, Object jsonObject) throws IOException {
+        if (jsonObject == null) {
+            jw.writeNull();
+        } else if (jsonObject instanceof String) {
+            jw.writeString((String) jsonObject);
+        } else if (jsonObject instanceof Map) {
+            jw.writeStartObject();
+            for (final Map.Entry<String, Object> entry : ((Map<String, Object>) jsonObject)
+                    .entrySet()) {
+                jw.writeFieldName(entry.getKey());
+                write(jw, entry.getValue());
+            }
+            jw.writeEndObject();
+        } else if (jsonObject instanceof List) {
+            jw.writeStartArray();
+            for (final Object item : (List<Object>) jsonObject) {
+                write(jw, item);
+            }
+            jw.writeEndArray();
+        } else if (jsonObject instanceof Boolean) {
+            jw.writeBoolean((Boolean) jsonObject);
+        } else if (jsonObject instanceof Integer) {
+            jw.writeNumber((Integer) jsonObject);
+        } else if (jsonObject instanceof Long) {
+            jw.writeNumber((Long) jsonObject);
+        } else if (jsonObject instanceof Double) {
+            jw.writeNumber((Double) jsonObject);
+        } else if (jsonObject instanceof BigDecimal) {
+            jw.writeNumber((BigDecimal) jsonObject);
+        } else if (jsonObject instanceof BigInteger) {
+            jw.writeNumber((BigInteger) jsonObject);
+        } else {
+            jw.writeObject(jsonObject);
+        }
+    }
+
     public static void writePrettyPrint(Writer w, Object jsonObject)
             throws JsonGenerationException, JsonMappingException, IOException {
         final JsonGenerator jw = JSON_FACTORY.createGenerator(w);
@@ -244,10 +244,32 @@ public class URL {
         return rval;
     }
 
+    /**
+     * Resolves a (possibly relative) IRI against a base IRI, see
+     * {@link BaseIri#resolve(String)}. Callers which resolve many IRIs
+     * against the same base should parse it once with
+     * {@link BaseIri#parse(String)} instead.
+     * 
+     * @param baseUri
+     *            the base IRI, or null.
+     * @param pathToResolve
+     *            the IRI to resolve.
+     * @return the resolved IRI.
+     */
     public static String resolve(String baseUri, String pathToResolve) {
+        if (baseUri == null) {
+            return pathToResolve;
+        }
+        return BaseIri.parse(baseUri).resolve(pathToResolve);
+    }
+
+    /**
+     * Resolves an IRI using {@link URI}, which is still used for bases that
+     * {@link BaseIri} doesn't handle itself (relative or opaque ones).
+     */
+    static String resolveWithUri(String baseUri, String pathToResolve) {
         // TODO: some input will need to be normalized to perform the expected
         // result with java
-        // TODO: we can do this without using java URI!
         if (baseUri == null) {
             return pathToResolve;
         }
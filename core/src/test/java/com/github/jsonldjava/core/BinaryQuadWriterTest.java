@@ -0,0 +1,238 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+import com.github.jsonldjava.utils.JSONUtils;
+
+public class BinaryQuadWriterTest {
+
+    private static final String[] VALUES = { "plain", "tab\there", "café", "中文",
+            "😀", "" };
+
+    private static RDFDataset dataset(int size) {
+        final Random random = new Random(7);
+        final RDFDataset dataset = new RDFDataset();
+        for (int i = 0; i < size; i++) {
+            final String s = random.nextBoolean() ? "http://example.org/s" + random.nextInt(500)
+                    : "_:b" + random.nextInt(500);
+            final String p = "http://example.org/p" + random.nextInt(10);
+            final String graph = random.nextInt(3) == 0 ? "http://example.org/g"
+                    + random.nextInt(3) : random.nextInt(10) == 0 ? "_:g" : "@default";
+            final String value = VALUES[random.nextInt(VALUES.length)] + random.nextInt(1000);
+            switch (random.nextInt(4)) {
+            case 0:
+                dataset.addQuad(s, p, "http://example.org/o" + random.nextInt(500), graph);
+                break;
+            case 1:
+                dataset.addQuad(s, p, value, null, null, graph);
+                break;
+            case 2:
+                dataset.addQuad(s, p, value, JSONLDConsts.RDF_LANGSTRING, "en-GB", graph);
+                break;
+            default:
+                dataset.addQuad(s, p, value, JSONLDConsts.XSD_INTEGER, null, graph);
+            }
+        }
+        return dataset;
+    }
+
+    private static byte[] write(RDFDataset dataset, int blockSize, boolean compress)
+            throws JsonLdError {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinaryQuadWriter writer = new BinaryQuadWriter(out, blockSize, compress);
+        writer.write(dataset);
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    private static RDFDataset read(byte[] bytes) throws JsonLdError {
+        return new BinaryQuadReader(new ByteArrayInputStream(bytes)).parse();
+    }
+
+    @Test
+    public void roundTripsSmallerThanNQuads() throws Exception {
+        final RDFDataset dataset = dataset(5000);
+        final String nquads = RDFDatasetUtils.toNQuads(dataset);
+        for (final int blockSize : new int[] { 1, 100, BinaryQuadWriter.DEFAULT_BLOCK_SIZE }) {
+            for (final boolean compress : new boolean[] { false, true }) {
+                final byte[] bytes = write(dataset, blockSize, compress);
+                assertEquals(nquads, RDFDatasetUtils.toNQuads(read(bytes)));
+                if (blockSize > 1) {
+                    assertTrue(bytes.length < nquads.getBytes("UTF-8").length / 2);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void keepsQuadOrderNamespacesAndUnusualLiterals() throws JsonLdError {
+        final RDFDataset dataset = new RDFDataset();
+        dataset.setNamespace("ex", "http://example.org/");
+        dataset.addQuad("http://example.org/s", "http://example.org/p", "x",
+                "http://example.org/t", "fr", "@default");
+        dataset.addQuad("http://example.org/s", "http://example.org/p", "a\ud800b", null, null,
+                "@default");
+        dataset.addQuad("http://example.org/s", "http://example.org/p", "z", null, null,
+                "@default");
+        dataset.addQuad("http://example.org/s", "http://example.org/p", "a", null, null,
+                "@default");
+
+        final RDFDataset read = read(write(dataset, 2, true));
+        assertEquals("http://example.org/", read.getNamespaces().get("ex"));
+        final RDFDataset.Node first = read.getQuads("@default").get(0).getObject();
+        assertEquals("http://example.org/t", first.getDatatype());
+        assertEquals("fr", first.getLanguage());
+        // an unpaired surrogate can't be encoded in UTF-8
+        assertEquals("a?b", read.getQuads("@default").get(1).getObject().getValue());
+        assertEquals(Arrays.asList("z", "a"), Arrays.asList(read.getQuads("@default").get(2)
+                .getObject().getValue(), read.getQuads("@default").get(3).getObject()
+                .getValue()));
+    }
+
+    @Test
+    public void streamsQuadsFromACallback() throws JsonLdError {
+        final String nquads = RDFDatasetUtils.toNQuads(dataset(1000));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinaryQuadWriter writer = new BinaryQuadWriter(out);
+        new NQuadReader(nquads).parse(writer);
+        writer.finish();
+
+        final List<RDFDataset.Quad> expected = new ArrayList<RDFDataset.Quad>();
+        RDFDataset.Quad quad;
+        final NQuadReader nquadReader = new NQuadReader(nquads);
+        while ((quad = nquadReader.next()) != null) {
+            expected.add(quad);
+        }
+        final List<RDFDataset.Quad> actual = new ArrayList<RDFDataset.Quad>();
+        new BinaryQuadReader(new ByteArrayInputStream(out.toByteArray()))
+                .parse(new QuadCallback() {
+                    @Override
+                    public void call(RDFDataset.Quad quad) {
+                        actual.add(quad);
+                    }
+                });
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void isAvailableThroughTheProcessor() throws Exception {
+        final Object input = JSONUtils.fromString("{\"@context\": "
+                + "{\"ex\": \"http://example.org/\"}, \"@id\": \"ex:s\",\"ex:p\": [1, \"two\", {\"@id\": \"ex:o\"}]}");
+        final JsonLdOptions options = new JsonLdOptions();
+        options.format = BinaryQuadWriter.MEDIA_TYPE;
+        final byte[] bytes = (byte[]) JsonLdProcessor.toRDF(input, options);
+
+        final RDFDataset dataset = (RDFDataset) JsonLdProcessor.toRDF(input,
+                new JsonLdOptions());
+        assertEquals(RDFDatasetUtils.toNQuads(dataset), RDFDatasetUtils.toNQuads(read(bytes)));
+        assertEquals(JsonLdProcessor.fromRDF(RDFDatasetUtils.toNQuads(dataset)),
+                JsonLdProcessor.fromRDF(bytes, options));
+    }
+
+    @Test
+    public void rejectsTruncatedInput() throws JsonLdError {
+        final byte[] bytes = write(dataset(100), 10, true);
+        try {
+            read(Arrays.copyOf(bytes, bytes.length / 2));
+            fail();
+        } catch (final JsonLdError e) {
+            assertEquals(JsonLdError.Error.SYNTAX_ERROR, e.getType());
+        }
+        try {
+            read("<a> <b> <c> .".getBytes());
+            fail();
+        } catch (final JsonLdError e) {
+            assertEquals(JsonLdError.Error.SYNTAX_ERROR, e.getType());
+        }
+    }
+
+    @Test
+    public void keepsTheDatatypeOfLiteralsWithALanguage() throws JsonLdError {
+        final RDFDataset dataset = new RDFDataset();
+        dataset.addQuad("http://example.org/s", "http://example.org/p", "x",
+                JSONLDConsts.XSD_STRING, "en", "@default");
+        dataset.addQuad("http://example.org/s", "http://example.org/p", "y",
+                JSONLDConsts.RDF_LANGSTRING, null, "@default");
+        for (final boolean compress : new boolean[] { false, true }) {
+            final List<RDFDataset.Quad> read = read(write(dataset, 10, compress)).getQuads(
+                    "@default");
+            assertEquals(dataset.getQuads("@default"), read);
+            assertEquals(JSONLDConsts.XSD_STRING, read.get(0).getObject().getDatatype());
+            assertEquals("en", read.get(0).getObject().getLanguage());
+            assertEquals(JSONLDConsts.RDF_LANGSTRING, read.get(1).getObject().getDatatype());
+        }
+    }
+
+    private static byte[] block(int encoding, int... header) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(BinaryQuadWriter.MAGIC, 0, BinaryQuadWriter.MAGIC.length);
+        out.write(BinaryQuadWriter.VERSION);
+        out.write(BinaryQuadWriter.TERMS);
+        out.write(encoding);
+        for (int n : header) {
+            while ((n & ~0x7f) != 0) {
+                out.write((n & 0x7f) | 0x80);
+                n >>>= 7;
+            }
+            out.write(n);
+        }
+        return out.toByteArray();
+    }
+
+    private static void assertInvalid(byte[] bytes) {
+        try {
+            read(bytes);
+            fail();
+        } catch (final JsonLdError e) {
+            assertEquals(JsonLdError.Error.SYNTAX_ERROR, e.getType());
+        }
+    }
+
+    @Test
+    public void rejectsInvalidBlockLengths() {
+        final int max = BinaryQuadWriter.MAX_BLOCK_LENGTH;
+        assertInvalid(block(BinaryQuadWriter.RAW, -1));
+        assertInvalid(block(BinaryQuadWriter.RAW, max + 1));
+        assertInvalid(block(BinaryQuadWriter.DEFLATE, -1, 10));
+        assertInvalid(block(BinaryQuadWriter.DEFLATE, 10, max + 1));
+        assertInvalid(block(BinaryQuadWriter.DEFLATE, 10, -1));
+    }
+
+    @Test
+    public void rejectsCompressedBlocksOfAnotherLength() throws Exception {
+        // one IRI term "a", and a byte too many
+        final byte[] terms = { 1, BinaryQuadWriter.IRI, 0, 1, 'a', 0 };
+        final Deflater deflater = new Deflater();
+        deflater.setInput(terms);
+        deflater.finish();
+        final byte[] compressed = new byte[100];
+        final int length = deflater.deflate(compressed);
+        deflater.end();
+        for (final int rawLength : new int[] { terms.length - 1, terms.length + 1 }) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(block(BinaryQuadWriter.DEFLATE, length, rawLength));
+            out.write(compressed, 0, length);
+            assertInvalid(out.toByteArray());
+        }
+    }
+
+    @Test
+    public void writesEmptyDatasets() throws JsonLdError {
+        final RDFDataset dataset = new RDFDataset();
+        final Map<String, String> namespaces = read(write(dataset, 10, true)).getNamespaces();
+        assertTrue(namespaces.isEmpty());
+    }
+}
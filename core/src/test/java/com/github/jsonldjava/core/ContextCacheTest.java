@@ -0,0 +1,211 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContextCacheTest {
+
+    private static final String CONTEXT_URI = "http://example.org/context.jsonld";
+    private static final String OTHER_URI = "http://example.org/other.jsonld";
+
+    private int loads;
+    private JsonLdOptions opts;
+
+    @Before
+    public void setUp() {
+        loads = 0;
+        opts = new JsonLdOptions("http://example.org/doc");
+        opts.documentLoader = new DocumentLoader() {
+            @Override
+            public RemoteDocument loadDocument(String url) throws JsonLdError {
+                loads++;
+                final Map<String, Object> ctx = new LinkedHashMap<String, Object>();
+                ctx.put("name", "http://xmlns.com/foaf/0.1/name");
+                if (OTHER_URI.equals(url)) {
+                    ctx.put("knows", "http://xmlns.com/foaf/0.1/knows");
+                }
+                final Map<String, Object> doc = new LinkedHashMap<String, Object>();
+                doc.put("@context", ctx);
+                return new RemoteDocument(url, doc);
+            }
+        };
+    }
+
+    @Test
+    public void remoteContextIsOnlyLoadedOnce() throws JsonLdError {
+        final ContextCache cache = new ContextCache();
+        opts.setContextCache(cache);
+
+        final Context first = new Context(opts).parse(CONTEXT_URI);
+        final Context second = new Context(opts).parse(CONTEXT_URI);
+
+        assertEquals(1, loads);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(first.serialize(), second.serialize());
+        assertEquals("name", second.compactIri("http://xmlns.com/foaf/0.1/name", true));
+    }
+
+    @Test
+    public void nonEmptyActiveContextReusesTheDocument() throws JsonLdError {
+        final ContextCache cache = new ContextCache();
+        opts.setContextCache(cache);
+
+        final Map<String, Object> local = new LinkedHashMap<String, Object>();
+        local.put("@vocab", "http://example.org/vocab#");
+        final Context active = new Context(opts).parse(local);
+
+        final Context first = active.parse(CONTEXT_URI);
+        final Context second = active.parse(CONTEXT_URI);
+
+        assertEquals(1, loads);
+        assertEquals(first.serialize(), second.serialize());
+        assertEquals("http://example.org/vocab#", second.get("@vocab"));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() throws JsonLdError {
+        final ContextCache cache = new ContextCache(1, 0);
+        opts.setContextCache(cache);
+
+        new Context(opts).parse(CONTEXT_URI);
+        new Context(opts).parse(OTHER_URI);
+        new Context(opts).parse(CONTEXT_URI);
+
+        assertEquals(3, loads);
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    public void expiredEntryIsReloaded() throws JsonLdError {
+        final long[] time = { 0 };
+        final ContextCache cache = new ContextCache(10, 1000) {
+            @Override
+            protected long now() {
+                return time[0];
+            }
+        };
+        opts.setContextCache(cache);
+
+        new Context(opts).parse(CONTEXT_URI);
+        time[0] = 999;
+        new Context(opts).parse(CONTEXT_URI);
+        assertEquals(1, loads);
+        time[0] = 1000;
+        new Context(opts).parse(CONTEXT_URI);
+        assertEquals(2, loads);
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void cachedContextIsNotModified() throws JsonLdError {
+        opts.setContextCache(new ContextCache());
+
+        final Map<String, Object> local = new LinkedHashMap<String, Object>();
+        local.put("name", "http://schema.org/name");
+        new Context(opts).parse(CONTEXT_URI).parse(local);
+
+        final Context ctx = new Context(opts).parse(CONTEXT_URI);
+        assertEquals("name", ctx.compactIri("http://xmlns.com/foaf/0.1/name", true));
+        assertEquals("http://schema.org/name", ctx.compactIri("http://schema.org/name", true));
+    }
+
+    @Test
+    public void recursiveInclusionIsStillDetected() throws JsonLdError {
+        opts.setContextCache(new ContextCache());
+        opts.documentLoader = new DocumentLoader() {
+            @Override
+            public RemoteDocument loadDocument(String url) throws JsonLdError {
+                final Map<String, Object> doc = new LinkedHashMap<String, Object>();
+                doc.put("@context", CONTEXT_URI.equals(url) ? OTHER_URI : CONTEXT_URI);
+                return new RemoteDocument(url, doc);
+            }
+        };
+        for (int i = 0; i < 2; i++) {
+            try {
+                new Context(opts).parse(CONTEXT_URI);
+                fail("Expected a recursive context inclusion error");
+            } catch (final JsonLdError e) {
+                assertEquals(JsonLdError.Error.RECURSIVE_CONTEXT_INCLUSION, e.getType());
+            }
+        }
+    }
+
+    @Test
+    public void noCacheByDefault() throws JsonLdError {
+        assertNull(opts.getContextCache());
+        new Context(opts).parse(CONTEXT_URI);
+        new Context(opts).parse(CONTEXT_URI);
+        assertEquals(2, loads);
+    }
+
+    @Test
+    public void activeContextIsReusedForAnEqualContext() throws JsonLdError {
+        final ContextCache cache = new ContextCache();
+        opts.setContextCache(cache);
+
+        final Map<String, Object> input = new LinkedHashMap<String, Object>();
+        input.put("http://xmlns.com/foaf/0.1/name", "Alice");
+
+        final Map<String, Object> first = JsonLdProcessor.compact(input, localContext(), opts);
+        assertEquals(0, cache.getActiveContextHits());
+        assertEquals(1, cache.getActiveContextMisses());
+        final Map<String, Object> context = localContext();
+        final Map<String, Object> second = JsonLdProcessor.compact(input, context, opts);
+        assertEquals(1, cache.getActiveContextHits());
+        assertEquals(0, cache.getHits());
+        assertEquals(first, second);
+        assertEquals("Alice", second.get("name"));
+
+        // changing the context afterwards doesn't change the cached one
+        context.put("name", "http://schema.org/name");
+        final Map<String, Object> third = JsonLdProcessor.compact(input, context, opts);
+        assertEquals(1, cache.getActiveContextHits());
+        assertEquals("Alice", third.get("http://xmlns.com/foaf/0.1/name"));
+        assertEquals("Alice", JsonLdProcessor.compact(input, localContext(), opts).get("name"));
+    }
+
+    @Test
+    public void cachedActiveContextUsesTheOptionsOfEachCaller() throws JsonLdError {
+        final ContextCache cache = new ContextCache();
+        opts.setContextCache(cache);
+        final Map<String, Object> input = new LinkedHashMap<String, Object>();
+        input.put("http://xmlns.com/foaf/0.1/name", "Alice");
+        JsonLdProcessor.compact(input, localContext(), opts);
+
+        final JsonLdOptions other = new JsonLdOptions("http://example.org/doc");
+        other.setContextCache(cache);
+        other.documentLoader = new DocumentLoader() {
+            @Override
+            public RemoteDocument loadDocument(String url) throws JsonLdError {
+                throw new JsonLdError(JsonLdError.Error.LOADING_DOCUMENT_FAILED, "other " + url);
+            }
+        };
+        final String base = (String) new Context(other).get("@base");
+        final Context cached = cache.getActiveContext(localContext(), base, other);
+        assertEquals(1, cache.getActiveContextHits());
+        try {
+            // a remote context is loaded with the options of the caller
+            cached.parse(OTHER_URI);
+            fail();
+        } catch (final JsonLdError e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("other " + OTHER_URI));
+        }
+        assertEquals(0, loads);
+    }
+
+    private static Map<String, Object> localContext() {
+        final Map<String, Object> ctx = new LinkedHashMap<String, Object>();
+        ctx.put("name", "http://xmlns.com/foaf/0.1/name");
+        return ctx;
+    }
+}
@@ -1,5 +1,18 @@
 package com.github.jsonldjava.core;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Test;
 
 public class ContextTest {
@@ -8,4 +21,128 @@ public class ContextTest {
     public void testRemoveBase() {
         // TODO: test if Context.removeBase actually works
     }
+
+    @Test
+    public void parsedContextCanBeSharedBetweenThreads() throws Exception {
+        final JsonLdOptions opts = new JsonLdOptions("http://example.org/");
+        final Map<String, Object> local = new LinkedHashMap<String, Object>();
+        local.put("ex", "http://example.org/");
+        for (int i = 0; i < 50; i++) {
+            local.put("p" + i, "http://example.org/vocab#p" + i);
+        }
+        // the inverse context hasn't been created yet, all of the threads race
+        // to create it
+        final Context context = new Context(opts).parse(local);
+
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Object>> results = new ArrayList<Future<Object>>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        start.await();
+                        final List<Object> compacted = new ArrayList<Object>();
+                        for (int i = 0; i < 50; i++) {
+                            final Map<String, Object> node = new LinkedHashMap<String, Object>();
+                            node.put("@id", "http://example.org/n" + i);
+                            node.put("http://example.org/vocab#p" + i, "v" + i);
+                            compacted.add(new JsonLdApi(opts).compact(context, null,
+                                    JsonLdProcessor.expand(node, opts), true));
+                        }
+                        return compacted;
+                    }
+                }));
+            }
+            start.countDown();
+            for (final Future<Object> result : results) {
+                final List<Object> compacted = (List<Object>) result.get();
+                for (int i = 0; i < 50; i++) {
+                    final Map<String, Object> node = (Map<String, Object>) compacted.get(i);
+                    assertEquals("ex:n" + i, node.get("@id"));
+                    assertEquals("v" + i, node.get("p" + i));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void memoizedExpansionFollowsChanges() throws JsonLdError {
+        final Map<String, Object> local = new LinkedHashMap<String, Object>();
+        local.put("@vocab", "http://example.org/vocab#");
+        local.put("name", "http://xmlns.com/foaf/0.1/name");
+        local.put("nothing", null);
+        final Context context = new Context(new JsonLdOptions("http://example.org/doc"))
+                .parse(local);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals("http://xmlns.com/foaf/0.1/name",
+                    context.expandIri("name", false, true, null, null));
+            assertNull(context.expandIri("nothing", false, true, null, null));
+            assertEquals("http://example.org/vocab#age",
+                    context.expandIri("age", false, true, null, null));
+            assertEquals("http://example.org/age", context.expandIri("age", true, false, null,
+                    null));
+        }
+
+        context.put("@vocab", "http://schema.org/");
+        context.put("@base", "http://example.com/");
+        assertEquals("http://schema.org/age", context.expandIri("age", false, true, null, null));
+        assertEquals("http://example.com/age", context.expandIri("age", true, false, null, null));
+
+        final Map<String, Object> other = new LinkedHashMap<String, Object>();
+        other.put("age", "http://xmlns.com/foaf/0.1/age");
+        assertEquals("http://xmlns.com/foaf/0.1/age",
+                context.parse(other).expandIri("age", false, true, null, null));
+        assertEquals("http://schema.org/age", context.expandIri("age", false, true, null, null));
+    }
+
+    @Test
+    public void optionsAreNotModified() throws JsonLdError {
+        final JsonLdOptions opts = new JsonLdOptions();
+        JsonLdProcessor.fromRDF("<http://a> <http://b> <http://c> .\n", opts);
+        assertNull(opts.format);
+
+        opts.setUseNativeTypes(true);
+        opts.setContextCache(new ContextCache());
+        opts.format = "text/turtle";
+        final JsonLdOptions copy = opts.clone();
+        assertEquals(true, copy.getUseNativeTypes());
+        assertEquals(opts.getContextCache(), copy.getContextCache());
+        assertEquals("text/turtle", copy.format);
+    }
+
+    @Test
+    public void remoteDocumentIsCompactedAgainstItsUrl() throws JsonLdError {
+        final Map<String, Object> document = new LinkedHashMap<String, Object>();
+        document.put("@id", "http://example.org/doc/a");
+        final Map<String, Object> ref = new LinkedHashMap<String, Object>();
+        ref.put("@id", "http://example.org/doc/b");
+        document.put("http://example.org/p", ref);
+        final JsonLdOptions opts = new JsonLdOptions(null);
+        opts.documentLoader = new DocumentLoader() {
+            @Override
+            public RemoteDocument loadDocument(String url) {
+                return new RemoteDocument(url, document);
+            }
+        };
+        final String url = "http://example.org/doc/";
+        final Map<String, Object> context = new LinkedHashMap<String, Object>();
+
+        final Map<String, Object> compacted = JsonLdProcessor.compact(url, context, opts);
+        assertEquals("a", compacted.get("@id"));
+        assertEquals("b", ((Map<String, Object>) compacted.get("http://example.org/p")).get("@id"));
+        final Map<String, Object> flattened = (Map<String, Object>) JsonLdProcessor.flatten(url,
+                context, opts);
+        assertEquals("a", ((Map<String, Object>) ((List<Object>) flattened.get("@graph")).get(0))
+                .get("@id"));
+        final Map<String, Object> framed = JsonLdProcessor.frame(url, context, opts);
+        assertEquals("a", ((Map<String, Object>) ((List<Object>) framed.get("@graph")).get(0))
+                .get("@id"));
+        assertNull(opts.getBase());
+    }
 }
@@ -0,0 +1,104 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.github.jsonldjava.utils.JSONUtils;
+
+public class JsonLdCompactorTest {
+
+    private static Object load(String name) throws IOException {
+        final ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        return JSONUtils.fromInputStream(cl.getResourceAsStream("json-ld.org/" + name));
+    }
+
+    @Test
+    public void matchesCompactionTestSuite() throws IOException, JsonLdError {
+        final Map<String, Object> manifest = (Map<String, Object>) load("compact-manifest.jsonld");
+        int compared = 0;
+        for (final Map<String, Object> test : (List<Map<String, Object>>) manifest
+                .get("sequence")) {
+            if (test.containsKey("option")) {
+                // options are covered by JsonLdProcessorTest
+                continue;
+            }
+            final JsonLdOptions opts = new JsonLdOptions("http://json-ld.org/test-suite/tests/"
+                    + test.get("input"));
+            final Object context = load((String) test.get("context"));
+            Map<String, Object> expected;
+            try {
+                expected = JsonLdProcessor.compact(load((String) test.get("input")), context,
+                        opts);
+            } catch (final JsonLdError e) {
+                continue;
+            }
+            final JsonLdCompactor compactor = JsonLdProcessor.compiler(context, opts);
+            for (int i = 0; i < 2; i++) {
+                final Map<String, Object> actual = compactor.compact(load((String) test
+                        .get("input")));
+                assertTrue(test.get("input") + " expected " + JSONUtils.toString(expected)
+                        + " but was " + JSONUtils.toString(actual),
+                        JsonLdUtils.deepCompare(expected, actual, true));
+            }
+            compared++;
+        }
+        assertTrue(compared > 50);
+    }
+
+    @Test
+    public void canBeSharedBetweenThreads() throws Exception {
+        final Map<String, Object> context = new LinkedHashMap<String, Object>();
+        context.put("ex", "http://example.org/");
+        context.put("name", "http://xmlns.com/foaf/0.1/name");
+        final Map<String, Object> knows = new LinkedHashMap<String, Object>();
+        knows.put("@id", "http://xmlns.com/foaf/0.1/knows");
+        knows.put("@type", "@id");
+        context.put("knows", knows);
+        final JsonLdCompactor compactor = JsonLdProcessor.compiler(context, new JsonLdOptions());
+        // the compactor keeps its own copy of the context
+        context.clear();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Map<String, Object>>> results = new ArrayList<Future<Map<String, Object>>>();
+            for (int i = 0; i < 200; i++) {
+                final int n = i;
+                results.add(executor.submit(new Callable<Map<String, Object>>() {
+                    @Override
+                    public Map<String, Object> call() throws JsonLdError {
+                        final Map<String, Object> input = new LinkedHashMap<String, Object>();
+                        input.put("@id", "http://example.org/" + n);
+                        input.put("http://xmlns.com/foaf/0.1/name", "Node " + n);
+                        input.put("http://example.org/p" + (n % 10), "value");
+                        final Map<String, Object> friend = new LinkedHashMap<String, Object>();
+                        friend.put("@id", "http://example.org/" + (n + 1));
+                        input.put("http://xmlns.com/foaf/0.1/knows", friend);
+                        return compactor.compact(input);
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                final Map<String, Object> result = results.get(i).get();
+                assertEquals("ex:" + i, result.get("@id"));
+                assertEquals("Node " + i, result.get("name"));
+                assertEquals("value", result.get("ex:p" + (i % 10)));
+                assertEquals("ex:" + (i + 1), result.get("knows"));
+                assertEquals(3, ((Map<String, Object>) result.get("@context")).size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -281,7 +281,7 @@ public class JsonLdProcessorTest {
                     url = url.substring(this.base.length());
                 } else {
                     // we can't load remote documents from the test suite
-                    throw new JsonLdError(JsonLdError.Error.NOT_IMPLEMENTED);
+                    throw new JsonLdError(JsonLdError.Error.LOADING_REMOTE_CONTEXT_FAILED, url);
                 }
             }
             final ClassLoader cl = Thread.currentThread().getContextClassLoader();
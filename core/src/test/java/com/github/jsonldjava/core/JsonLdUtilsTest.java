@@ -0,0 +1,119 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+public class JsonLdUtilsTest {
+
+    private static Map<String, Object> document() {
+        final Map<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("@id", "http://example.org/a");
+        map.put("http://example.org/p", new ArrayList<Object>(Arrays.asList("x", 1, true)));
+        return map;
+    }
+
+    @Test
+    public void cloneIsShallow() {
+        final Map<String, Object> map = document();
+        final Map<String, Object> copy = (Map<String, Object>) JsonLdUtils.clone(map);
+        assertNotSame(map, copy);
+        assertEquals(map, copy);
+        assertTrue(copy instanceof LinkedHashMap);
+        assertSame(map.get("http://example.org/p"), copy.get("http://example.org/p"));
+
+        final List<Object> list = (List<Object>) map.get("http://example.org/p");
+        final List<Object> listCopy = (List<Object>) JsonLdUtils.clone(list);
+        assertNotSame(list, listCopy);
+        assertEquals(list, listCopy);
+
+        assertSame("x", JsonLdUtils.clone("x"));
+        assertEquals(null, JsonLdUtils.clone(null));
+    }
+
+    @Test
+    public void cloneKeepsTheTypeOfSortedMaps() {
+        final TreeMap<String, Object> map = new TreeMap<String, Object>(
+                Collections.reverseOrder());
+        map.put("a", 1);
+        map.put("b", 2);
+        final Map<String, Object> copy = (Map<String, Object>) JsonLdUtils.clone(map);
+        copy.put("c", 3);
+        assertEquals(Arrays.asList("c", "b", "a"), new ArrayList<String>(copy.keySet()));
+    }
+
+    @Test
+    public void deepCopyCopiesEverything() {
+        final Map<String, Object> map = document();
+        final Map<String, Object> copy = (Map<String, Object>) JsonLdUtils.deepCopy(map);
+        assertEquals(map, copy);
+        ((List<Object>) copy.get("http://example.org/p")).add("y");
+        assertEquals(3, ((List<Object>) map.get("http://example.org/p")).size());
+    }
+
+    @Test
+    public void invokeAllWrapsCheckedFailuresOnEitherThread() throws Exception {
+        final List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        tasks.add(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                throw new IOException("failed");
+            }
+        });
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (final ExecutorService e : new ExecutorService[] { null, executor }) {
+                try {
+                    JsonLdUtils.invokeAll(e, tasks);
+                    fail();
+                } catch (final JsonLdError error) {
+                    assertEquals(JsonLdError.Error.UNKNOWN_ERROR, error.getType());
+                    assertTrue(error.getMessage(), error.getMessage().contains("failed"));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void invokeInChunksCoversEveryItemOnce() throws Exception {
+        final List<Integer> items = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(i);
+        }
+        final int[] seen = new int[items.size()];
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            JsonLdUtils.invokeInChunks(executor, items, 10, new JsonLdUtils.ChunkTask<Integer>() {
+                @Override
+                public void run(List<Integer> chunk) {
+                    for (final int i : chunk) {
+                        seen[i]++;
+                    }
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+        for (final int n : seen) {
+            assertEquals(1, n);
+        }
+    }
+}
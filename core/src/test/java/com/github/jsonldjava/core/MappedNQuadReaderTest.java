@@ -0,0 +1,156 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.jsonldjava.impl.NQuadRDFParser;
+
+public class MappedNQuadReaderTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static String nquads(int size) {
+        final StringBuilder sb = new StringBuilder("# a comment\n");
+        for (int i = 0; i < size; i++) {
+            sb.append("<http://example.org/s").append(i % 50).append("> <http://example.org/p> ");
+            switch (i % 4) {
+            case 0:
+                sb.append("\"café 中文 😀 ").append(i).append("\"@en");
+                break;
+            case 1:
+                sb.append("_:b").append(i % 7).append(" <http://example.org/g>");
+                break;
+            case 2:
+                sb.append("\"").append(i).append("\"^^<http://www.w3.org/2001/XMLSchema#integer>");
+                break;
+            default:
+                sb.append("<http://example.org/o").append(i % 10).append(">");
+            }
+            sb.append(i % 5 == 0 ? " .\r\n" : " . # done\n");
+        }
+        return sb.toString();
+    }
+
+    private File file(String content) throws IOException {
+        final File file = tempDir.newFile();
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static List<RDFDataset.Quad> quads(MappedNQuadReader reader) throws JsonLdError {
+        final List<RDFDataset.Quad> quads = new ArrayList<RDFDataset.Quad>();
+        reader.parse(new QuadCallback() {
+            @Override
+            public void call(RDFDataset.Quad quad) {
+                quads.add(quad);
+            }
+        });
+        return quads;
+    }
+
+    @Test
+    public void parsesLikeNQuadReader() throws Exception {
+        final String nquads = nquads(3000);
+        final File file = file(nquads);
+        final List<RDFDataset.Quad> expected = new ArrayList<RDFDataset.Quad>();
+        final NQuadReader reader = new NQuadReader(nquads);
+        RDFDataset.Quad quad;
+        while ((quad = reader.next()) != null) {
+            expected.add(quad);
+        }
+
+        assertEquals(expected, quads(new MappedNQuadReader(file)));
+        // chunks of a few lines, in parallel and not
+        assertEquals(expected, quads(new MappedNQuadReader(file, null, 1000)));
+        assertEquals(expected, quads(new MappedNQuadReader(file, executor, 1000)));
+        assertEquals(expected, quads(new MappedNQuadReader(file, executor, 1)));
+
+        final String dataset = RDFDatasetUtils.toNQuads(new NQuadReader(nquads).parse());
+        assertEquals(dataset, RDFDatasetUtils.toNQuads(new MappedNQuadReader(file, executor,
+                1000).parse()));
+        assertEquals(dataset, RDFDatasetUtils.toNQuads(new NQuadRDFParser().parse(file)));
+        assertEquals(JsonLdProcessor.fromRDF(nquads), JsonLdProcessor.fromRDF(file));
+    }
+
+    @Test
+    public void fromRDFReadsFilesWithTheExecutorOfTheOptions() throws Exception {
+        final String nquads = nquads(1000);
+        final File file = file(nquads);
+        final AtomicInteger threads = new AtomicInteger();
+        final ExecutorService counted = Executors.newFixedThreadPool(2, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                threads.incrementAndGet();
+                return new Thread(r);
+            }
+        });
+        try {
+            final JsonLdOptions options = new JsonLdOptions("");
+            options.setExecutorService(counted);
+            assertEquals(JsonLdProcessor.fromRDF(nquads), JsonLdProcessor.fromRDF(file, options));
+            assertTrue(threads.get() > 0);
+        } finally {
+            counted.shutdownNow();
+        }
+    }
+
+    @Test
+    public void reportsTheLineOfErrorsInEveryChunk() throws Exception {
+        final String nquads = nquads(2000);
+        final int split = nquads.indexOf('\n', nquads.length() / 2) + 1;
+        final String invalid = nquads.substring(0, split) + "<oops> .\n";
+        final File file = file(invalid + nquads.substring(split));
+        String message = null;
+        try {
+            new NQuadReader(invalid).parse();
+            fail();
+        } catch (final JsonLdError e) {
+            message = e.getMessage();
+        }
+        assertTrue(message, message.contains("line:"));
+        for (final ExecutorService e : new ExecutorService[] { null, executor }) {
+            try {
+                new MappedNQuadReader(file, e, 5000).parse();
+                fail();
+            } catch (final JsonLdError error) {
+                assertEquals(message, error.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void parsesEmptyFiles() throws Exception {
+        assertEquals("", RDFDatasetUtils.toNQuads(new MappedNQuadReader(file(""), executor)
+                .parse()));
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class NQuadReaderTest {
+
+    @Test
+    public void parsesAllTermTypes() throws JsonLdError {
+        final RDFDataset dataset = RDFDatasetUtils
+                .parseNQuads("<http://a> <http://p> \"plain\" .\r\n"
+                        + "_:b0 <http://p> \"typed\"^^<http://t> <http://g> .\n"
+                        + "\t<http://a>\t<http://p>\t\"tagged\"@en-GB\t_:g1\t.\t\n"
+                        + "<http://a> <http://p> _:b.x.1 .");
+
+        final List<RDFDataset.Quad> quads = dataset.getQuads("@default");
+        assertEquals(2, quads.size());
+        assertEquals("plain", quads.get(0).getObject().getValue());
+        assertEquals(JSONLDConsts.XSD_STRING, quads.get(0).getObject().getDatatype());
+        assertNull(quads.get(0).getGraph());
+        assertEquals("_:b.x.1", quads.get(1).getObject().getValue());
+
+        final RDFDataset.Quad typed = dataset.getQuads("http://g").get(0);
+        assertTrue(typed.getSubject().isBlankNode());
+        assertEquals("http://t", typed.getObject().getDatatype());
+        assertEquals("http://g", typed.getGraph().getValue());
+
+        final RDFDataset.Quad tagged = dataset.getQuads("_:g1").get(0);
+        assertEquals("en-GB", tagged.getObject().getLanguage());
+        assertEquals(JSONLDConsts.RDF_LANGSTRING, tagged.getObject().getDatatype());
+        assertTrue(tagged.getGraph().isBlankNode());
+    }
+
+    @Test
+    public void unescapesLiteralsAndIris() throws JsonLdError {
+        final RDFDataset dataset = RDFDatasetUtils
+                .parseNQuads("<http://a/\\u00E9> <http://p> \"a\\\\b\\\"c\\n\\u00e9\\U0001F600\" .");
+        final RDFDataset.Quad quad = dataset.getQuads("@default").get(0);
+        assertEquals("http://a/é", quad.getSubject().getValue());
+        assertEquals("a\\b\"c\né😀", quad.getObject().getValue());
+    }
+
+    @Test
+    public void skipsBlankLinesAndComments() throws JsonLdError {
+        final RDFDataset dataset = RDFDatasetUtils.parseNQuads("# header\n\n   \n"
+                + "<http://a> <http://p> <http://b> . # trailing\n# end");
+        assertEquals(1, dataset.getQuads("@default").size());
+    }
+
+    @Test
+    public void dropsDuplicatesPerGraph() throws JsonLdError {
+        final RDFDataset dataset = RDFDatasetUtils
+                .parseNQuads("<http://a> <http://p> \"x\" .\n" + "<http://a> <http://p> \"x\" .\n"
+                        + "<http://a> <http://p> \"x\" <http://g> .\n"
+                        + "<http://a> <http://p> \"x\"@en .\n");
+        assertEquals(2, dataset.getQuads("@default").size());
+        assertEquals(1, dataset.getQuads("http://g").size());
+    }
+
+    @Test
+    public void streamsQuadsToCallback() throws JsonLdError {
+        final List<RDFDataset.Quad> quads = new ArrayList<RDFDataset.Quad>();
+        // a tiny buffer makes sure terms spanning buffer refills work
+        new NQuadReader(new StringReader("<http://a> <http://p> \"x\" .\n"
+                + "<http://a> <http://p> \"x\" .\n" + "_:long.label <http://p> _:b1 ."), 16)
+                .parse(new QuadCallback() {
+                    @Override
+                    public void call(RDFDataset.Quad quad) {
+                        quads.add(quad);
+                    }
+                });
+        assertEquals(3, quads.size());
+        assertEquals("_:long.label", quads.get(2).getSubject().getValue());
+        assertEquals("_:b1", quads.get(2).getObject().getValue());
+    }
+
+    @Test
+    public void reportsLineOfSyntaxError() {
+        try {
+            RDFDatasetUtils.parseNQuads("<http://a> <http://p> <http://b> .\n"
+                    + "<http://a> <http://p> <http://b>\n");
+            fail("Expected a syntax error");
+        } catch (final JsonLdError e) {
+            assertEquals(JsonLdError.Error.SYNTAX_ERROR, e.getType());
+            assertTrue(e.getMessage(), e.getMessage().contains("line:2"));
+        }
+    }
+
+    @Test
+    public void rejectsLiteralSubject() {
+        try {
+            RDFDatasetUtils.parseNQuads("\"a\" <http://p> <http://b> .");
+            fail("Expected a syntax error");
+        } catch (final JsonLdError e) {
+            assertEquals(JsonLdError.Error.SYNTAX_ERROR, e.getType());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NQuadWriterTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private static final String[] VALUES = { "plain", "tab\there", "new\nline", "quote\"d",
+            "back\\slash", "caf\u00e9", "\u0008\u000c\u007f", "\u4e2d\u6587", "\ud83d\ude00" };
+
+    private static RDFDataset dataset(int size) {
+        final Random random = new Random(42);
+        final RDFDataset dataset = new RDFDataset();
+        for (int i = 0; i < size; i++) {
+            final String s = random.nextBoolean() ? "http://example.org/s" + random.nextInt(100)
+                    : "_:b" + random.nextInt(100);
+            final String p = "http://example.org/p" + random.nextInt(10);
+            final String graph = random.nextInt(3) == 0 ? "http://example.org/g"
+                    + random.nextInt(3) : "@default";
+            final String value = VALUES[random.nextInt(VALUES.length)] + i;
+            switch (random.nextInt(4)) {
+            case 0:
+                dataset.addQuad(s, p, "http://example.org/o" + random.nextInt(100), graph);
+                break;
+            case 1:
+                dataset.addQuad(s, p, value, null, null, graph);
+                break;
+            case 2:
+                dataset.addQuad(s, p, value, JSONLDConsts.RDF_LANGSTRING, "en-GB", graph);
+                break;
+            default:
+                dataset.addQuad(s, p, value, JSONLDConsts.XSD_INTEGER, null, graph);
+            }
+        }
+        return dataset;
+    }
+
+    @Test
+    public void escapesLikeBefore() {
+        assertEquals("plain", RDFDatasetUtils.escape("plain"));
+        assertEquals("a\\tb\\nc\\rd\\\"e\\\\f", RDFDatasetUtils.escape("a\tb\nc\rd\"e\\f"));
+        assertEquals("\\u0008\\u000c\\u007f\\u00a0", RDFDatasetUtils.escape("\b\f\u007f\u00a0"));
+        assertEquals("caf\u00e9", RDFDatasetUtils.escape("caf\u00e9"));
+        assertEquals("\\u4e2d\\U0001f600", RDFDatasetUtils.escape("\u4e2d\ud83d\ude00"));
+    }
+
+    @Test
+    public void writesTheSameQuadsAsToNQuads() throws JsonLdError {
+        final RDFDataset dataset = dataset(2000);
+        final StringWriter sw = new StringWriter();
+        final NQuadWriter writer = new NQuadWriter(sw);
+        writer.write(dataset);
+        writer.flush();
+
+        final String[] lines = sw.toString().split("\n");
+        Arrays.sort(lines);
+        assertEquals(Arrays.asList(RDFDatasetUtils.toNQuads(dataset).split("\n")),
+                Arrays.asList(lines));
+        assertEquals(RDFDatasetUtils.toNQuads(dataset),
+                RDFDatasetUtils.toNQuads(RDFDatasetUtils.parseNQuads(sw.toString())));
+    }
+
+    @Test
+    public void sortsInMemory() throws JsonLdError {
+        final RDFDataset dataset = dataset(2000);
+        final StringWriter sw = new StringWriter();
+        RDFDatasetUtils.toNQuads(dataset, sw);
+        assertEquals(RDFDatasetUtils.toNQuads(dataset), sw.toString());
+    }
+
+    @Test
+    public void sortsUsingTemporaryFiles() throws Exception {
+        final RDFDataset dataset = dataset(5000);
+        final StringWriter sw = new StringWriter();
+        final File dir = tempDir.newFolder();
+        final SortingNQuadWriter writer = new SortingNQuadWriter(sw, 20000, dir);
+        writer.write(dataset);
+        assertTrue(writer.getTemporaryFileCount() > 10);
+        writer.finish();
+
+        assertEquals(RDFDatasetUtils.toNQuads(dataset), sw.toString());
+        assertEquals(0, dir.list().length);
+    }
+
+    @Test
+    public void deletesTheTemporaryFilesWhenASpillFails() throws Exception {
+        final File dir = tempDir.newFolder();
+        final SortingNQuadWriter writer = new SortingNQuadWriter(new StringWriter(), 20000, dir);
+        final RDFDataset dataset = dataset(5000);
+        final Iterator<RDFDataset.Quad> quads = dataset.getQuads("@default").iterator();
+        while (writer.getTemporaryFileCount() == 0) {
+            writer.write(quads.next());
+        }
+        // put a file where the directory was, so the next spill fails
+        for (final File run : dir.listFiles()) {
+            assertTrue(run.delete());
+        }
+        assertTrue(dir.delete() && dir.createNewFile());
+        try {
+            while (quads.hasNext()) {
+                writer.write(quads.next());
+            }
+            fail();
+        } catch (final JsonLdError e) {
+            assertEquals(JsonLdError.Error.IO_ERROR, e.getType());
+        }
+        // the files written before are no longer tracked
+        assertEquals(0, writer.getTemporaryFileCount());
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class NodeMapIndexTest {
+
+    private static Map<String, Object> node(String id, String... types) {
+        final Map<String, Object> node = new LinkedHashMap<String, Object>();
+        node.put("@id", id);
+        if (types.length > 0) {
+            node.put("@type", new ArrayList<Object>(Arrays.asList((Object[]) types)));
+        }
+        return node;
+    }
+
+    private static Map<String, Object> nodeMap() {
+        final Map<String, Object> nodes = new LinkedHashMap<String, Object>();
+        final Map<String, Object> a = node("_:a", "http://ex/A");
+        a.put("http://ex/p", new ArrayList<Object>());
+        nodes.put("_:a", a);
+        nodes.put("_:b", node("_:b", "http://ex/B", "http://ex/A"));
+        final Map<String, Object> c = node("_:c");
+        c.put("http://ex/p", new ArrayList<Object>());
+        c.put("http://ex/q", new ArrayList<Object>());
+        nodes.put("_:c", c);
+        nodes.put("_:d", node("_:d", "http://ex/B"));
+        return nodes;
+    }
+
+    private static Map<String, Object> frame(Object... keysAndValues) {
+        final Map<String, Object> frame = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            frame.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return frame;
+    }
+
+    private static List<Object> list(Object... values) {
+        return new ArrayList<Object>(Arrays.asList(values));
+    }
+
+    @Test
+    public void matchesByType() throws JsonLdError {
+        final NodeMapIndex index = new NodeMapIndex(nodeMap());
+        assertArrayEquals(new int[] { 0, 1 }, index.match(frame("@type", list("http://ex/A"))));
+        assertArrayEquals(new int[] { 0, 1, 3 },
+                index.match(frame("@type", list("http://ex/B", "http://ex/A"))));
+        assertArrayEquals(new int[] { 0, 1, 3 }, index.match(frame("@type",
+                list(new LinkedHashMap<String, Object>()))));
+        assertArrayEquals(new int[0], index.match(frame("@type", list("http://ex/C"))));
+        assertNull(index.match(frame("@type", list(list("http://ex/A")))));
+    }
+
+    @Test
+    public void matchesByProperty() throws JsonLdError {
+        final NodeMapIndex index = new NodeMapIndex(nodeMap());
+        assertArrayEquals(new int[] { 0, 1, 2, 3 }, index.match(frame("@embed", true)));
+        assertArrayEquals(new int[] { 0, 2 }, index.match(frame("http://ex/p", list())));
+        assertArrayEquals(new int[] { 2 },
+                index.match(frame("http://ex/p", list(), "http://ex/q", list())));
+        assertArrayEquals(new int[0], index.match(frame("http://ex/r", list())));
+        assertArrayEquals(new int[0], index.match(frame("@id", "_:a")));
+    }
+
+    @Test
+    public void selectKeepsNodeMapOrder() throws JsonLdError {
+        final NodeMapIndex index = new NodeMapIndex(nodeMap());
+        final Map<String, Object> selected = index.select(new int[] { 1, 3 });
+        assertEquals(Arrays.asList("_:b", "_:d"), new ArrayList<String>(selected.keySet()));
+    }
+
+    @Test
+    public void unionAndIntersect() {
+        assertArrayEquals(new int[] { 1, 2, 3, 5 },
+                NodeMapIndex.union(new int[] { 1, 3, 5 }, new int[] { 2, 3 }));
+        assertArrayEquals(new int[] { 3 },
+                NodeMapIndex.intersect(new int[] { 1, 3, 5 }, new int[] { 2, 3 }));
+    }
+}
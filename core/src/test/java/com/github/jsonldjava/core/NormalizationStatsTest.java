@@ -0,0 +1,137 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.github.jsonldjava.utils.JSONUtils;
+
+public class NormalizationStatsTest {
+
+    private static final String[] ALGORITHMS = { JsonLdOptions.URGNA2012,
+            JsonLdOptions.URDNA2015 };
+
+    /**
+     * Blank nodes which all refer to each other, so that they can't be told
+     * apart and every permutation has to be tried.
+     */
+    private static Object clique(int size) throws Exception {
+        final StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"@id\":\"_:n").append(i)
+                    .append("\",\"http://example.org/p\":[");
+            for (int j = 0; j < size; j++) {
+                if (j != i) {
+                    sb.append(j == 0 || (i == 0 && j == 1) ? "" : ",").append("{\"@id\":\"_:n")
+                            .append(j).append("\"}");
+                }
+            }
+            sb.append("]}");
+        }
+        return JSONUtils.fromString(sb.append(']').toString());
+    }
+
+    /**
+     * Blank nodes in a cycle, the paths between which are hashed recursively.
+     */
+    private static Object ring(int size) throws Exception {
+        final StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"@id\":\"_:n").append(i)
+                    .append("\",\"http://example.org/p\":{\"@id\":\"_:n")
+                    .append((i + 1) % size).append("\"}}");
+        }
+        return JSONUtils.fromString(sb.append(']').toString());
+    }
+
+    private static JsonLdOptions options(String algorithm, NormalizationStats stats) {
+        final JsonLdOptions opts = new JsonLdOptions();
+        opts.format = "application/nquads";
+        opts.setNormalizationAlgorithm(algorithm);
+        opts.setNormalizationStats(stats);
+        return opts;
+    }
+
+    private static void assertLimitExceeded(Object input, JsonLdOptions opts) {
+        try {
+            JsonLdProcessor.normalize(input, opts);
+            fail("Expected the normalization to be stopped");
+        } catch (final JsonLdError e) {
+            assertEquals(JsonLdError.Error.NORMALIZATION_LIMIT_EXCEEDED, e.getType());
+        }
+    }
+
+    @Test
+    public void statsAreRecorded() throws Exception {
+        for (final String algorithm : ALGORITHMS) {
+            final NormalizationStats stats = new NormalizationStats();
+            JsonLdProcessor.normalize(clique(3), options(algorithm, stats));
+            assertEquals(1, stats.getNormalizations());
+            assertEquals(0, stats.getLimitsExceeded());
+            assertTrue(stats.getPermutations() > 0);
+            assertEquals(stats.getPermutations(), stats.getMaxPermutations());
+            assertTrue(stats.getMaxRecursionDepth() > 1);
+        }
+    }
+
+    @Test
+    public void permutationLimit() throws Exception {
+        for (final String algorithm : ALGORITHMS) {
+            final NormalizationStats stats = new NormalizationStats();
+            final JsonLdOptions opts = options(algorithm, stats);
+            opts.setMaxNormalizationPermutations(1000);
+            assertLimitExceeded(clique(8), opts);
+            assertEquals(1, stats.getLimitsExceeded());
+            assertEquals(1001, stats.getMaxPermutations());
+
+            // within the limit
+            JsonLdProcessor.normalize(clique(3), opts);
+            assertEquals(2, stats.getNormalizations());
+            assertEquals(1, stats.getLimitsExceeded());
+        }
+    }
+
+    @Test
+    public void recursionDepthLimit() throws Exception {
+        for (final String algorithm : ALGORITHMS) {
+            final JsonLdOptions opts = options(algorithm, null);
+            opts.setMaxNormalizationRecursionDepth(2);
+            assertLimitExceeded(ring(6), opts);
+        }
+    }
+
+    @Test
+    public void timeLimit() throws Exception {
+        for (final String algorithm : ALGORITHMS) {
+            final NormalizationStats stats = new NormalizationStats();
+            final JsonLdOptions opts = options(algorithm, stats);
+            opts.setMaxNormalizationTime(50);
+            assertLimitExceeded(clique(10), opts);
+            assertTrue(stats.getMaxTime() >= 50);
+        }
+    }
+
+    @Test
+    public void interruptIsNotCountedAsALimit() throws Exception {
+        // blank nodes with unique first degree hashes, which are named
+        // without hashing any paths
+        final Object input = JSONUtils.fromString("[{\"@id\":\"_:a\",\"http://example.org/p\":1},"
+                + "{\"@id\":\"_:b\",\"http://example.org/p\":2}]");
+        for (final String algorithm : ALGORITHMS) {
+            final NormalizationStats stats = new NormalizationStats();
+            Thread.currentThread().interrupt();
+            try {
+                JsonLdProcessor.normalize(input, options(algorithm, stats));
+                fail("Expected the normalization to be stopped");
+            } catch (final JsonLdError e) {
+                assertEquals(JsonLdError.Error.INTERRUPTED, e.getType());
+            } finally {
+                assertTrue(Thread.interrupted());
+            }
+            assertEquals(1, stats.getNormalizations());
+            assertEquals(0, stats.getLimitsExceeded());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jsonldjava.utils.JSONUtils;
+
+public class ParallelNodeMapGeneratorTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A document with named and anonymous blank nodes shared between the top
+     * level elements, blank node types and properties, lists, indexes,
+     * reverse properties and named graphs.
+     */
+    private static String document(int size) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{\"@context\":{\"@vocab\":\"http://example.org/\","
+                + "\"knows\":{\"@type\":\"@id\"},\"list\":{\"@container\":\"@list\"},"
+                + "\"knownBy\":{\"@reverse\":\"knows\"}},\"@graph\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"@id\":\"_:n").append(i % 97).append("\",");
+            sb.append("\"@type\":[\"Person\",\"_:t").append(i % 5).append("\"],");
+            sb.append("\"name\":\"n").append(i % 13).append("\",");
+            sb.append("\"knows\":[\"_:n").append((i * 7) % 97).append("\",{\"name\":\"anon\"}],");
+            sb.append("\"list\":[1,{\"@id\":\"_:n").append(i % 3).append("\"}],");
+            sb.append("\"_:p").append(i % 2).append("\":\"x\",");
+            if (i % 10 == 0) {
+                sb.append("\"@index\":\"i").append(i % 97).append("\",");
+            }
+            sb.append("\"knownBy\":{\"@id\":\"_:n").append(i % 11).append("\"}");
+            if (i % 50 == 0) {
+                sb.append(",\"@graph\":[{\"@id\":\"_:g").append(i % 3)
+                        .append("\",\"name\":\"in graph\"},{\"name\":\"anon\"}]");
+            }
+            sb.append('}');
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    private static Map<String, Object> nodeMap(Object input, JsonLdOptions opts, int chunks)
+            throws Exception {
+        final Object expanded = JsonLdProcessor.expand(input, opts);
+        final Map<String, Object> nodeMap = new LinkedHashMap<String, Object>();
+        nodeMap.put("@default", new LinkedHashMap<String, Object>());
+        ParallelNodeMapGenerator.generateNodeMap(expanded, nodeMap, opts, chunks);
+        return nodeMap;
+    }
+
+    @Test
+    public void sameNodeMapAsSequential() throws Exception {
+        final Object input = JSONUtils.fromString(document(1000));
+        final JsonLdOptions opts = new JsonLdOptions();
+        final String expected = JSONUtils.toString(nodeMap(input, opts, 1));
+
+        opts.setExecutorService(executor);
+        for (final int chunks : new int[] { 2, 3, 7, 16 }) {
+            assertEquals(expected, JSONUtils.toString(nodeMap(input, opts, chunks)));
+        }
+    }
+
+    @Test
+    public void sameFlattenedOutputAsSequential() throws Exception {
+        final Object input = JSONUtils.fromString(document(2000));
+        final JsonLdOptions opts = new JsonLdOptions();
+        final String expected = JSONUtils.toString(JsonLdProcessor.flatten(input, opts));
+        opts.setExecutorService(executor);
+        assertEquals(expected, JSONUtils.toString(JsonLdProcessor.flatten(input, opts)));
+    }
+
+    @Test
+    public void conflictingIndexesInDifferentChunks() throws Exception {
+        final Object input = JSONUtils.fromString("[{\"@id\":\"http://example.org/a\","
+                + "\"@index\":\"1\"},{\"@id\":\"http://example.org/a\",\"@index\":\"2\"}]");
+        final JsonLdOptions opts = new JsonLdOptions();
+        opts.setExecutorService(executor);
+        try {
+            nodeMap(input, opts, 2);
+            fail("Expected a conflicting indexes error");
+        } catch (final JsonLdError e) {
+            assertEquals(JsonLdError.Error.CONFLICTING_INDEXES, e.getType());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class QuadTableTest {
+
+    @Test
+    public void termsAreEncodedOnce() {
+        final TermDictionary dictionary = new TermDictionary();
+        final int a = dictionary.encode(new RDFDataset.IRI("http://example.org/a"));
+        assertEquals(a, dictionary.encode(new RDFDataset.IRI("http://example.org/a")));
+        assertTrue(a != dictionary.encode(new RDFDataset.BlankNode("http://example.org/a")));
+        assertTrue(dictionary.encode(new RDFDataset.Literal("1", null, null)) != dictionary
+                .encode(new RDFDataset.Literal("1", JSONLDConsts.XSD_INTEGER, null)));
+        assertEquals(4, dictionary.size());
+        assertEquals(TermDictionary.NOT_FOUND,
+                dictionary.lookup(new RDFDataset.IRI("http://example.org/b")));
+        assertEquals("http://example.org/a", dictionary.decode(a).getValue());
+    }
+
+    @Test
+    public void parsedQuadsCanBeSortedAndDeduplicated() throws JsonLdError {
+        final QuadTable table = new QuadTable();
+        new NQuadReader("<http://a> <http://p> \"x\" .\n"
+                + "_:b <http://p> <http://a> <http://g> .\n"
+                + "<http://a> <http://p> \"x\" .\n"
+                + "<http://a> <http://q> \"x\"@en .\n").parse(table);
+        assertEquals(4, table.size());
+
+        table.distinct();
+        assertEquals(3, table.size());
+        for (int i = 1; i < table.size(); i++) {
+            assertTrue(table.getGraph(i - 1) <= table.getGraph(i));
+        }
+        assertEquals(QuadTable.DEFAULT_GRAPH, table.getGraph(0));
+
+        final RDFDataset.Quad quad = new RDFDataset.Quad("_:b", "http://p", "http://a",
+                "http://g");
+        assertTrue(table.contains(quad));
+        assertFalse(table.contains(new RDFDataset.Quad("_:b", "http://p", "http://a", null)));
+
+        final RDFDataset dataset = table.toDataset();
+        assertEquals(2, dataset.getQuads("@default").size());
+        assertEquals(quad, dataset.getQuads("http://g").get(0));
+    }
+
+    @Test
+    public void sortMatchesALinearScan() {
+        final QuadTable table = new QuadTable(new TermDictionary(), 16);
+        final Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            table.add(random.nextInt(50), random.nextInt(5), random.nextInt(50),
+                    random.nextInt(3) - 1);
+        }
+        table.distinct();
+        for (int i = 1; i < table.size(); i++) {
+            final boolean ordered = compare(row(table, i - 1), row(table, i)) < 0;
+            assertTrue("quads " + (i - 1) + " and " + i + " are out of order", ordered);
+            assertEquals(i, table.indexOf(table.getSubject(i), table.getPredicate(i),
+                    table.getObject(i), table.getGraph(i)));
+        }
+    }
+
+    @Test
+    public void datasetSharesTerms() throws JsonLdError {
+        final RDFDataset dataset = new RDFDataset();
+        dataset.setTermDictionary(new TermDictionary());
+        dataset.addTriple("http://a", "http://p", "http://b");
+        dataset.addTriple("http://b", "http://p", "http://a");
+        final RDFDataset.Quad first = dataset.getQuads("@default").get(0);
+        final RDFDataset.Quad second = dataset.getQuads("@default").get(1);
+        assertSame(first.getSubject(), second.getObject());
+        assertSame(first.getObject(), second.getSubject());
+        assertEquals(2, dataset.toQuadTable().size());
+    }
+
+    private static int[] row(QuadTable table, int i) {
+        return new int[] { table.getGraph(i), table.getSubject(i), table.getPredicate(i),
+                table.getObject(i) };
+    }
+
+    private static int compare(int[] a, int[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                return a[i] < b[i] ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class RDFDatasetTest {
+
+    @Test
+    public void nodesCanBeReadAsMaps() {
+        final RDFDataset.Node literal = new RDFDataset.Literal("chat", null, "fr");
+        assertEquals(Arrays.asList("type", "value", "datatype", "language"),
+                new ArrayList<String>(literal.keySet()));
+        assertEquals("literal", literal.get("type"));
+        assertEquals(JSONLDConsts.XSD_STRING, literal.get("datatype"));
+        assertEquals("fr", literal.get("language"));
+
+        final Map<String, Object> iri = new LinkedHashMap<String, Object>();
+        iri.put("type", "IRI");
+        iri.put("value", "http://example.org/a");
+        assertEquals(iri, new RDFDataset.IRI("http://example.org/a"));
+        assertEquals(new RDFDataset.IRI("http://example.org/a"), iri);
+        assertEquals(iri.hashCode(), new RDFDataset.IRI("http://example.org/a").hashCode());
+        assertFalse(new RDFDataset.BlankNode("http://example.org/a").equals(iri));
+    }
+
+    @Test
+    public void quadsCanBeReadAsMaps() {
+        final RDFDataset.Quad triple = new RDFDataset.Quad("_:b0", "http://example.org/p",
+                "http://example.org/o", "@default");
+        assertEquals(Arrays.asList("subject", "predicate", "object"), new ArrayList<String>(
+                triple.keySet()));
+        assertNull(triple.getGraph());
+        assertFalse(triple.containsKey("name"));
+        assertEquals("blank node", ((Map<String, Object>) triple.get("subject")).get("type"));
+
+        final RDFDataset.Quad quad = new RDFDataset.Quad("_:b0", "http://example.org/p",
+                "http://example.org/o", "http://example.org/g");
+        assertEquals("http://example.org/g", ((Map<String, Object>) quad.get("name")).get("value"));
+        assertEquals(new LinkedHashMap<String, Object>(quad), quad);
+        assertEquals(new LinkedHashMap<String, Object>(quad).hashCode(), quad.hashCode());
+        assertTrue(triple.compareTo(quad) < 0);
+        assertTrue(quad.compareTo(triple) > 0);
+    }
+
+    @Test
+    public void quadsAreValues() {
+        final RDFDataset.Quad a = new RDFDataset.Quad("http://example.org/s",
+                "http://example.org/p", "1", JSONLDConsts.XSD_INTEGER, null, null);
+        final RDFDataset.Quad b = new RDFDataset.Quad("http://example.org/s",
+                "http://example.org/p", "1", JSONLDConsts.XSD_INTEGER, null, "@default");
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertSame(a.getObject().getDatatype(), b.getObject().getDatatype());
+    }
+
+    @Test
+    public void datasetsSharePredicatesAndGraphNames() {
+        final RDFDataset dataset = new RDFDataset();
+        dataset.addQuad("http://example.org/s", "http://example.org/p", "1",
+                JSONLDConsts.XSD_INTEGER, null, "http://example.org/g");
+        dataset.addQuad("http://example.org/t", "http://example.org/p", "http://example.org/o",
+                "http://example.org/g");
+        final RDFDataset.Quad a = dataset.getQuads("http://example.org/g").get(0);
+        final RDFDataset.Quad b = dataset.getQuads("http://example.org/g").get(1);
+        assertSame(a.getPredicate(), b.getPredicate());
+        assertSame(a.getGraph(), b.getGraph());
+
+        // but nothing is shared between datasets
+        final RDFDataset other = new RDFDataset();
+        other.addQuad("http://example.org/s", "http://example.org/p", "http://example.org/o",
+                null);
+        assertNotSame(a.getPredicate(), other.getQuads("@default").get(0).getPredicate());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void quadsAreImmutable() {
+        new RDFDataset.Quad("http://example.org/s", "http://example.org/p",
+                "http://example.org/o", null).put("name", new RDFDataset.IRI("http://example.org/g"));
+    }
+}
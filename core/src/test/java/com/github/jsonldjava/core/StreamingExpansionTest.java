@@ -0,0 +1,99 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.github.jsonldjava.utils.JSONUtils;
+
+public class StreamingExpansionTest {
+
+    private static class Collector implements JsonLdNodeCallback {
+        final List<Object> nodes = new ArrayList<Object>();
+
+        @Override
+        public void call(Map<String, Object> node) {
+            nodes.add(node);
+        }
+    }
+
+    private static List<Object> streamExpand(JsonParser parser, JsonLdOptions opts)
+            throws JsonLdError {
+        final Collector collector = new Collector();
+        JsonLdProcessor.expand(parser, collector, opts);
+        return collector.nodes;
+    }
+
+    private static List<Object> streamExpand(String json) throws JsonLdError, IOException {
+        return streamExpand(JSONUtils.createParser(new StringReader(json)), new JsonLdOptions(
+                "http://example.org/"));
+    }
+
+    @Test
+    public void matchesExpansionTestSuite() throws IOException, JsonLdError {
+        final ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        final Map<String, Object> manifest = (Map<String, Object>) JSONUtils.fromInputStream(cl
+                .getResourceAsStream("json-ld.org/expand-manifest.jsonld"));
+        int compared = 0;
+        for (final Map<String, Object> test : (List<Map<String, Object>>) manifest
+                .get("sequence")) {
+            final String input = "json-ld.org/" + test.get("input");
+            final JsonLdOptions opts = new JsonLdOptions("http://json-ld.org/test-suite/tests/"
+                    + test.get("input"));
+            List<Object> expected;
+            try {
+                expected = JsonLdProcessor.expand(JSONUtils.fromInputStream(cl
+                        .getResourceAsStream(input)), opts);
+            } catch (final JsonLdError e) {
+                // errors and remote documents are covered by
+                // JsonLdProcessorTest
+                continue;
+            }
+            final List<Object> actual = streamExpand(JSONUtils.createParser(new InputStreamReader(
+                    cl.getResourceAsStream(input), "UTF-8")), opts);
+            assertTrue(input + " expected " + JSONUtils.toString(expected) + " but was "
+                    + JSONUtils.toString(actual), JsonLdUtils.deepCompare(expected, actual, true));
+            compared++;
+        }
+        assertTrue(compared > 50);
+    }
+
+    @Test
+    public void streamsGraphMembersInOrder() throws JsonLdError, IOException {
+        final List<Object> nodes = streamExpand("{\"@context\": {\"ex\": \"http://example.org/\"},"
+                + "\"@graph\": [{\"@id\": \"ex:a\", \"ex:p\": 1}, {\"@id\": \"ex:b\"},"
+                + "{\"@id\": \"ex:c\", \"ex:p\": 2}], \"unmapped\": true}");
+        assertEquals(2, nodes.size());
+        assertEquals("http://example.org/a", ((Map<String, Object>) nodes.get(0)).get("@id"));
+        assertEquals("http://example.org/c", ((Map<String, Object>) nodes.get(1)).get("@id"));
+    }
+
+    @Test
+    public void namedGraphAfterStreamedGraphIsRejected() throws IOException {
+        try {
+            streamExpand("{\"@context\": {\"ex\": \"http://example.org/\"},"
+                    + "\"@graph\": [{\"@id\": \"ex:a\", \"ex:p\": 1}], \"@id\": \"ex:g\"}");
+            fail("Expected an error");
+        } catch (final JsonLdError e) {
+            assertEquals(JsonLdError.Error.INVALID_INPUT, e.getType());
+        }
+    }
+
+    @Test
+    public void namedGraphBeforeGraphIsBuffered() throws JsonLdError, IOException {
+        final List<Object> nodes = streamExpand("{\"@context\": {\"ex\": \"http://example.org/\"},"
+                + "\"@id\": \"ex:g\", \"@graph\": [{\"@id\": \"ex:a\", \"ex:p\": 1}]}");
+        assertEquals(1, nodes.size());
+        assertEquals("http://example.org/g", ((Map<String, Object>) nodes.get(0)).get("@id"));
+    }
+}
@@ -0,0 +1,217 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.jsonldjava.utils.JSONUtils;
+
+public class StreamingOutputTest {
+
+    private static final String TEST_SUITE = "http://json-ld.org/test-suite/tests/";
+
+    private interface Writing {
+        void write(JsonGenerator out) throws JsonLdError;
+    }
+
+    /**
+     * Writes with a generator which has no codec, to make sure only plain
+     * JSON values are written.
+     */
+    private static Object written(Writing writing) throws IOException, JsonLdError {
+        final StringWriter sw = new StringWriter();
+        final JsonGenerator out = new JsonFactory().createGenerator(sw);
+        writing.write(out);
+        out.close();
+        return JSONUtils.fromString(sw.toString());
+    }
+
+    private static Object load(Object name) throws IOException {
+        final ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        return JSONUtils.fromInputStream(cl.getResourceAsStream("json-ld.org/" + name));
+    }
+
+    private static List<Map<String, Object>> tests(String manifest) throws IOException {
+        return (List<Map<String, Object>>) ((Map<String, Object>) load(manifest))
+                .get("sequence");
+    }
+
+    private static JsonLdOptions options(Map<String, Object> test) {
+        final JsonLdOptions opts = new JsonLdOptions(TEST_SUITE + test.get("input"));
+        final Map<String, Object> option = (Map<String, Object>) test.get("option");
+        if (option != null && Boolean.FALSE.equals(option.get("compactArrays"))) {
+            opts.setCompactArrays(false);
+        }
+        return opts;
+    }
+
+    @Test
+    public void compactMatchesCompactionTestSuite() throws IOException, JsonLdError {
+        int compared = 0;
+        for (final Map<String, Object> test : tests("compact-manifest.jsonld")) {
+            final JsonLdOptions opts = options(test);
+            final Object context = load(test.get("context"));
+            Object expected;
+            try {
+                expected = JsonLdProcessor.compact(load(test.get("input")), context, opts);
+            } catch (final JsonLdError e) {
+                // errors are covered by JsonLdProcessorTest
+                continue;
+            }
+            final Object input = load(test.get("input"));
+            final Object actual = written(new Writing() {
+                @Override
+                public void write(JsonGenerator out) throws JsonLdError {
+                    JsonLdProcessor.compact(input, context, opts, out);
+                }
+            });
+            assertEquals(test.get("input").toString(), JSONUtils.fromString(JSONUtils
+                    .toString(expected)), actual);
+            compared++;
+        }
+        assertTrue(compared > 50);
+    }
+
+    @Test
+    public void flattenMatchesFlatteningTestSuite() throws IOException, JsonLdError {
+        int compared = 0;
+        for (final Map<String, Object> test : tests("flatten-manifest.jsonld")) {
+            final JsonLdOptions opts = options(test);
+            final Object context = test.containsKey("context") ? load(test.get("context")) : null;
+            Object expected;
+            try {
+                expected = JsonLdProcessor.flatten(load(test.get("input")), context, opts);
+            } catch (final JsonLdError e) {
+                continue;
+            }
+            final Object input = load(test.get("input"));
+            final Object actual = written(new Writing() {
+                @Override
+                public void write(JsonGenerator out) throws JsonLdError {
+                    JsonLdProcessor.flatten(input, context, opts, out);
+                }
+            });
+            assertEquals(test.get("input").toString(), JSONUtils.fromString(JSONUtils
+                    .toString(expected)), actual);
+            compared++;
+        }
+        assertTrue(compared > 20);
+    }
+
+    @Test
+    public void frameMatchesFramingTestSuite() throws IOException, JsonLdError {
+        int compared = 0;
+        for (final Map<String, Object> test : tests("frame-manifest.jsonld")) {
+            final JsonLdOptions opts = options(test);
+            Object expected;
+            try {
+                expected = JsonLdProcessor.frame(load(test.get("input")), load(test.get("frame")),
+                        opts);
+            } catch (final JsonLdError e) {
+                continue;
+            }
+            final Object input = load(test.get("input"));
+            final Object frame = load(test.get("frame"));
+            final Object actual = written(new Writing() {
+                @Override
+                public void write(JsonGenerator out) throws JsonLdError {
+                    JsonLdProcessor.frame(input, frame, opts, out);
+                }
+            });
+            assertEquals(test.get("input").toString(), JSONUtils.fromString(JSONUtils
+                    .toString(expected)), actual);
+            compared++;
+        }
+        assertTrue(compared > 10);
+    }
+
+    @Test
+    public void frameWritesASingleNodeAsInTheTree() throws IOException, JsonLdError {
+        final Object input = JSONUtils.fromString("{\"@id\": \"http://example.org/a\", "
+                + "\"@type\": \"http://example.org/T\", \"http://example.org/p\": \"x\"}");
+        final Object frame = JSONUtils.fromString("{\"@context\": {\"p\": "
+                + "\"http://example.org/p\"}, \"@type\": \"http://example.org/T\"}");
+        for (final boolean compactArrays : new boolean[] { true, false }) {
+            final JsonLdOptions opts = new JsonLdOptions();
+            opts.setCompactArrays(compactArrays);
+            final Map<String, Object> expected = JsonLdProcessor.frame(input,
+                    JsonLdUtils.clone(frame), opts);
+            final Object actual = written(new Writing() {
+                @Override
+                public void write(JsonGenerator out) throws JsonLdError {
+                    JsonLdProcessor.frame(input, JsonLdUtils.clone(frame), opts, out);
+                }
+            });
+            assertEquals(JSONUtils.fromString(JSONUtils.toString(expected)), actual);
+            // @graph isn't an alias, so it stays an array
+            assertTrue(((Map<String, Object>) actual).get("@graph") instanceof List);
+        }
+    }
+
+    @Test
+    public void graphAliasIsUsedAsInTheTree() throws IOException, JsonLdError {
+        final Object input = JSONUtils.fromString("[{\"@id\": \"http://example.org/a\", "
+                + "\"@type\": \"http://example.org/T\"}, {\"@id\": \"http://example.org/b\", "
+                + "\"@type\": \"http://example.org/T\"}]");
+        final Object context = JSONUtils.fromString("{\"data\": \"@graph\"}");
+        final Object frame = JSONUtils.fromString("{\"@context\": {\"data\": \"@graph\"}, "
+                + "\"@type\": \"http://example.org/T\"}");
+        final JsonLdOptions opts = new JsonLdOptions();
+
+        // compaction uses the alias, flattening and framing don't
+        final Object compacted = written(new Writing() {
+            @Override
+            public void write(JsonGenerator out) throws JsonLdError {
+                JsonLdProcessor.compact(input, context, opts, out);
+            }
+        });
+        assertEquals(JSONUtils.fromString(JSONUtils.toString(JsonLdProcessor.compact(input,
+                context, opts))), compacted);
+        assertTrue(((Map<String, Object>) compacted).containsKey("data"));
+
+        final Object flattened = written(new Writing() {
+            @Override
+            public void write(JsonGenerator out) throws JsonLdError {
+                JsonLdProcessor.flatten(input, context, opts, out);
+            }
+        });
+        assertEquals(JSONUtils.fromString(JSONUtils.toString(JsonLdProcessor.flatten(input,
+                context, opts))), flattened);
+        assertTrue(((Map<String, Object>) flattened).containsKey("@graph"));
+
+        final Object framed = written(new Writing() {
+            @Override
+            public void write(JsonGenerator out) throws JsonLdError {
+                JsonLdProcessor.frame(input, JsonLdUtils.clone(frame), opts, out);
+            }
+        });
+        assertEquals(JSONUtils.fromString(JSONUtils.toString(JsonLdProcessor.frame(input,
+                JsonLdUtils.clone(frame), opts))), framed);
+        assertTrue(((Map<String, Object>) framed).containsKey("@graph"));
+    }
+
+    @Test
+    public void contextIsWrittenFirst() throws IOException, JsonLdError {
+        final Map<String, Object> input = new LinkedHashMap<String, Object>();
+        input.put("@id", "http://example.org/a");
+        input.put("http://xmlns.com/foaf/0.1/name", "Alice");
+        final Map<String, Object> context = new LinkedHashMap<String, Object>();
+        context.put("name", "http://xmlns.com/foaf/0.1/name");
+
+        final StringWriter sw = new StringWriter();
+        final JsonGenerator out = new JsonFactory().createGenerator(sw);
+        JsonLdProcessor.compact(input, context, new JsonLdOptions(), out);
+        out.close();
+        assertEquals("{\"@context\":{\"name\":\"http://xmlns.com/foaf/0.1/name\"},"
+                + "\"@id\":\"http://example.org/a\",\"name\":\"Alice\"}", sw.toString());
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.jsonldjava.utils.JSONUtils;
+
+public class StreamingToRDFTest {
+
+    /**
+     * Collects the quads, keeping duplicates, so that the number of quads is
+     * compared as well.
+     */
+    private static class Collector implements QuadCallback {
+        final List<RDFDataset.Quad> quads = new ArrayList<RDFDataset.Quad>();
+
+        @Override
+        public void call(RDFDataset.Quad quad) {
+            quads.add(quad);
+        }
+    }
+
+    private static List<RDFDataset.Quad> quads(RDFDataset dataset) {
+        final List<RDFDataset.Quad> quads = new ArrayList<RDFDataset.Quad>();
+        for (final String graphName : dataset.graphNames()) {
+            quads.addAll(dataset.getQuads(graphName));
+        }
+        return quads;
+    }
+
+    /**
+     * @return the quads as sorted N-Quads lines with all blank node labels
+     *         replaced, as the streaming version assigns them in a different
+     *         order. Duplicates are kept, so the number of quads is compared.
+     */
+    private static List<String> sortedLines(List<RDFDataset.Quad> quads) {
+        final List<String> lines = new ArrayList<String>();
+        for (final RDFDataset.Quad quad : quads) {
+            final String graph = quad.getGraph() == null ? null : quad.getGraph().getValue();
+            lines.add(RDFDatasetUtils.toNQuad(quad, graph).replaceAll("_:[A-Za-z0-9]+", "_:x"));
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    /**
+     * @return the canonical form of the quads, which tells apart datasets
+     *         that only differ in how their blank nodes are connected.
+     */
+    private static Object normalized(List<RDFDataset.Quad> quads) throws JsonLdError {
+        final RDFDataset dataset = new RDFDataset();
+        for (final RDFDataset.Quad quad : quads) {
+            final String graph = quad.getGraph() == null ? "@default" : quad.getGraph()
+                    .getValue();
+            if (!dataset.containsKey(graph)) {
+                dataset.put(graph, new ArrayList<RDFDataset.Quad>());
+            }
+            dataset.getQuads(graph).add(quad);
+        }
+        final JsonLdOptions opts = new JsonLdOptions();
+        opts.format = "application/nquads";
+        return new JsonLdApi(opts).normalize(dataset);
+    }
+
+    @Test
+    public void matchesToRDFTestSuite() throws IOException, JsonLdError {
+        final ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        final Map<String, Object> manifest = (Map<String, Object>) JSONUtils.fromInputStream(cl
+                .getResourceAsStream("json-ld.org/toRdf-manifest.jsonld"));
+        int compared = 0;
+        for (final Map<String, Object> test : (List<Map<String, Object>>) manifest
+                .get("sequence")) {
+            final String input = "json-ld.org/" + test.get("input");
+            final JsonLdOptions opts = new JsonLdOptions("http://json-ld.org/test-suite/tests/"
+                    + test.get("input"));
+            RDFDataset expected;
+            try {
+                expected = (RDFDataset) JsonLdProcessor.toRDF(JSONUtils.fromInputStream(cl
+                        .getResourceAsStream(input)), opts);
+            } catch (final JsonLdError e) {
+                continue;
+            }
+            final Collector actual = new Collector();
+            JsonLdProcessor.toRDFStreaming(JSONUtils.createParser(new InputStreamReader(cl
+                    .getResourceAsStream(input), "UTF-8")), actual, opts);
+            assertEquals(input, sortedLines(quads(expected)), sortedLines(actual.quads));
+            assertEquals(input, normalized(quads(expected)), normalized(actual.quads));
+            compared++;
+        }
+        assertTrue(compared > 50);
+    }
+
+    @Test
+    public void emitsQuadsForEachTopLevelNode() throws IOException, JsonLdError {
+        final List<String> subjects = new ArrayList<String>();
+        JsonLdProcessor.toRDFStreaming(JSONUtils.createParser(new StringReader(
+                "[{\"@id\": \"http://example.org/a\", \"http://example.org/p\": \"x\"},"
+                        + "{\"@id\": \"http://example.org/b\", \"http://example.org/p\": "
+                        + "{\"@list\": [1, 2]}}]")), new QuadCallback() {
+            @Override
+            public void call(RDFDataset.Quad quad) {
+                subjects.add(quad.getSubject().getValue());
+            }
+        }, new JsonLdOptions());
+        assertEquals(6, subjects.size());
+        assertEquals("http://example.org/a", subjects.get(0));
+        assertEquals("http://example.org/b", subjects.get(1));
+    }
+}
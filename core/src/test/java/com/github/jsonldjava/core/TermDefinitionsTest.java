@@ -0,0 +1,102 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TermDefinitionsTest {
+
+    @Test
+    public void behavesLikeALinkedHashMap() {
+        final Random random = new Random(42);
+        TermDefinitions terms = new TermDefinitions();
+        final Map<String, Object> expected = new LinkedHashMap<String, Object>();
+        final List<TermDefinitions> forks = new ArrayList<TermDefinitions>();
+        final List<Map<String, Object>> expectedForks = new ArrayList<Map<String, Object>>();
+
+        for (int i = 0; i < 5000; i++) {
+            final String term = "t" + random.nextInt(40);
+            final int op = random.nextInt(10);
+            if (op < 5) {
+                final Object definition = random.nextInt(5) == 0 ? null : "d" + i;
+                assertEquals(expected.put(term, definition), terms.put(term, definition));
+            } else if (op < 8) {
+                assertEquals(expected.remove(term), terms.remove(term));
+            } else {
+                // keep the old layer around and check it didn't change
+                forks.add(terms);
+                expectedForks.add(new LinkedHashMap<String, Object>(expected));
+                terms = terms.fork();
+            }
+            assertEquals(expected.size(), terms.size());
+            assertEquals(expected.containsKey(term), terms.containsKey(term));
+        }
+        assertEquals(new ArrayList<String>(expected.keySet()), terms.keys());
+        assertEquals(expected, terms);
+        for (int i = 0; i < forks.size(); i++) {
+            assertEquals(new ArrayList<String>(expectedForks.get(i).keySet()), forks.get(i)
+                    .keys());
+            assertEquals(expectedForks.get(i), forks.get(i));
+        }
+    }
+
+    @Test
+    public void forkedLayerCannotBeModified() {
+        final TermDefinitions terms = new TermDefinitions();
+        terms.put("name", "http://xmlns.com/foaf/0.1/name");
+        final TermDefinitions child = terms.fork();
+        assertTrue(terms.isFrozen());
+        assertFalse(child.isFrozen());
+        try {
+            terms.put("knows", "http://xmlns.com/foaf/0.1/knows");
+            fail("Expected the frozen layer to reject changes");
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+        child.put("knows", "http://xmlns.com/foaf/0.1/knows");
+        assertEquals(1, terms.size());
+        assertEquals(2, child.size());
+    }
+
+    @Test
+    public void deepForksAreFlattened() {
+        TermDefinitions terms = new TermDefinitions();
+        for (int i = 0; i < 3 * TermDefinitions.MAX_DEPTH; i++) {
+            terms.put("t" + i, "d" + i);
+            terms.remove("t" + (i / 2));
+            terms = terms.fork();
+        }
+        final TermDefinitions first = terms.fork();
+        final TermDefinitions second = terms.fork();
+        first.put("a", "b");
+        assertEquals(second.size() + 1, first.size());
+        assertEquals(second.keys(), first.keys().subList(0, second.size()));
+    }
+
+    @Test
+    public void changingAContextDoesNotChangeItsClones() throws JsonLdError {
+        final Map<String, Object> local = new LinkedHashMap<String, Object>();
+        local.put("name", "http://xmlns.com/foaf/0.1/name");
+        final Context context = new Context().parse(local);
+        final Context clone = context.clone();
+
+        local.put("name", "http://schema.org/name");
+        local.put("knows", "http://xmlns.com/foaf/0.1/knows");
+        final Context child = clone.parse(local);
+
+        assertEquals("http://xmlns.com/foaf/0.1/name", context.getTermDefinition("name").get("@id"));
+        assertEquals("http://xmlns.com/foaf/0.1/name", clone.getTermDefinition("name").get("@id"));
+        assertEquals(null, clone.getTermDefinition("knows"));
+        assertEquals("http://schema.org/name", child.getTermDefinition("name").get("@id"));
+        assertEquals("knows", child.compactIri("http://xmlns.com/foaf/0.1/knows", true));
+    }
+}
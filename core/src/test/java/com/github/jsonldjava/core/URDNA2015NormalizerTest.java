@@ -0,0 +1,152 @@
+package com.github.jsonldjava.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.github.jsonldjava.utils.JSONUtils;
+
+public class URDNA2015NormalizerTest {
+
+    private static final String P = "<http://example.org/p>";
+    private static final String Q = "<http://example.org/q>";
+
+    private static String normalize(String nquads) throws JsonLdError {
+        final RDFDataset dataset = RDFDatasetUtils.parseNQuads(nquads);
+        final List<RDFDataset.Quad> quads = new ArrayList<RDFDataset.Quad>();
+        for (final String graphName : dataset.graphNames()) {
+            quads.addAll(dataset.getQuads(graphName));
+        }
+        final JsonLdOptions opts = new JsonLdOptions();
+        opts.format = "application/nquads";
+        return (String) new URDNA2015Normalizer(quads, opts).normalize();
+    }
+
+    /**
+     * Renames the blank nodes at random and shuffles the quads.
+     */
+    private static String relabel(String nquads, Random random) {
+        final List<String> lines = new ArrayList<String>(Arrays.asList(nquads.split("\n")));
+        Collections.shuffle(lines, random);
+        final List<Integer> labels = new ArrayList<Integer>();
+        for (int i = 0; i < 10; i++) {
+            labels.add(i);
+        }
+        Collections.shuffle(labels, random);
+        final StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            for (int i = 0; i < 10; i++) {
+                line = line.replace("_:n" + i + " ", "_:tmp" + labels.get(i) + " ");
+            }
+            sb.append(line.replace("_:tmp", "_:x")).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void uniqueHashesAreNamedInHashOrder() throws JsonLdError {
+        // SHA-256 of '_:a <http://example.org/p> "a" .\n' (32893c0a...) is
+        // less than that of '_:a <http://example.org/p> "c" .\n' (c6aaf6a6...)
+        assertEquals("_:c14n0 " + P + " \"a\" .\n_:c14n1 " + P + " \"c\" .\n",
+                normalize("_:n0 " + P + " \"c\" .\n_:n1 " + P + " \"a\" .\n"));
+    }
+
+    @Test
+    public void literalsAreEscapedCanonically() throws JsonLdError {
+        assertEquals("_:c14n0 " + P + " \"\\\"a\\\\\\né\"@fr .\n",
+                normalize("_:n0 " + P + " \"\\\"a\\\\\\n\\u00E9\"@fr .\n"));
+    }
+
+    @Test
+    public void symmetricBlankNodes() throws JsonLdError {
+        assertEquals("_:c14n0 " + P + " _:c14n1 .\n_:c14n1 " + P + " _:c14n0 .\n",
+                normalize("_:n0 " + P + " _:n1 .\n_:n1 " + P + " _:n0 .\n"));
+    }
+
+    @Test
+    public void isomorphicDatasetsHaveTheSameNormalForm() throws JsonLdError {
+        final String[] datasets = {
+                // a cycle and a chain with the same first degree hashes
+                "_:n0 " + P + " _:n1 .\n_:n1 " + P + " _:n2 .\n_:n2 " + P + " _:n0 .\n"
+                        + "_:n3 " + P + " _:n4 .\n_:n4 " + P + " _:n5 .\n_:n5 " + P + " _:n6 .\n",
+                // two squares sharing a node, with a distinguishing edge
+                "_:n0 " + P + " _:n1 .\n_:n1 " + P + " _:n2 .\n_:n2 " + P + " _:n3 .\n"
+                        + "_:n3 " + P + " _:n0 .\n_:n0 " + P + " _:n4 .\n_:n4 " + P + " _:n5 .\n"
+                        + "_:n5 " + P + " _:n6 .\n_:n6 " + P + " _:n0 .\n_:n5 " + Q + " \"x\" .\n",
+                // blank node graph names
+                "_:n0 " + P + " _:n1 _:n2 .\n_:n1 " + P + " _:n0 _:n2 .\n"
+                        + "_:n0 " + Q + " \"y\" _:n3 .\n_:n1 " + Q + " \"y\" _:n3 .\n"
+                        + "_:n2 " + P + " _:n3 .\n" };
+        final Random random = new Random(42);
+        for (final String dataset : datasets) {
+            final String expected = normalize(dataset);
+            assertEquals(dataset.split("\n").length, expected.split("\n").length);
+            for (int i = 0; i < 20; i++) {
+                assertEquals(expected, normalize(relabel(dataset, random)));
+            }
+        }
+    }
+
+    @Test
+    public void selectedThroughTheOptions() throws Exception {
+        final Object input = JSONUtils.fromString("[{\"@id\":\"_:x\","
+                + "\"http://example.org/p\":\"c\"},{\"@id\":\"_:y\",\"http://example.org/p\":\"a\"}]");
+        final JsonLdOptions opts = new JsonLdOptions();
+        opts.format = "application/nquads";
+        opts.setNormalizationAlgorithm(JsonLdOptions.URDNA2015);
+        assertEquals("_:c14n0 " + P + " \"a\" .\n_:c14n1 " + P + " \"c\" .\n",
+                JsonLdProcessor.normalize(input, opts));
+
+        opts.setNormalizationAlgorithm("unknown");
+        try {
+            JsonLdProcessor.normalize(input, opts);
+            fail("Expected an error for an unknown algorithm");
+        } catch (final JsonLdError e) {
+            assertEquals(JsonLdError.Error.NOT_IMPLEMENTED, e.getType());
+        }
+    }
+
+    @Test
+    public void parallelHashingGivesTheSameResult() throws Exception {
+        final StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            // identical rings of three blank nodes
+            for (int j = 0; j < 3; j++) {
+                sb.append("{\"@id\":\"_:r").append(i).append('-').append(j)
+                        .append("\",\"http://example.org/p\":{\"@id\":\"_:r").append(i)
+                        .append('-').append((j + 1) % 3).append("\"}},");
+            }
+            // blank nodes with unique hashes
+            sb.append("{\"@id\":\"_:u").append(i).append("\",\"http://example.org/q\":")
+                    .append(i).append(",\"http://example.org/p\":{\"@id\":\"_:r").append(i)
+                    .append("-0\"}},");
+        }
+        sb.setLength(sb.length() - 1);
+        sb.append(']');
+        final Object input = JSONUtils.fromString(sb.toString());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (final String algorithm : new String[] { JsonLdOptions.URGNA2012,
+                    JsonLdOptions.URDNA2015 }) {
+                final JsonLdOptions opts = new JsonLdOptions();
+                opts.format = "application/nquads";
+                opts.setNormalizationAlgorithm(algorithm);
+                final Object expected = JsonLdProcessor.normalize(input, opts);
+                opts.setExecutorService(executor);
+                assertEquals(algorithm, expected, JsonLdProcessor.normalize(input, opts));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
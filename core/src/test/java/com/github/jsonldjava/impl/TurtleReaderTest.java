@@ -0,0 +1,257 @@
+package com.github.jsonldjava.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.QuadCallback;
+import com.github.jsonldjava.core.RDFDataset;
+import com.github.jsonldjava.core.RDFDatasetUtils;
+
+public class TurtleReaderTest {
+
+    private static List<String> nquads(RDFDataset dataset) {
+        final List<String> lines = new ArrayList<String>();
+        for (final String line : RDFDatasetUtils.toNQuads(dataset).split("\n")) {
+            lines.add(line);
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    private static List<String> nquads(String nquads) throws JsonLdError {
+        return nquads(RDFDatasetUtils.parseNQuads(nquads));
+    }
+
+    @Test
+    public void parsesTheTurtleGrammar() throws JsonLdError {
+        final String input = "@base <http://example.org/doc/> .\n"
+                + "@prefix : <http://example.org/vocab#> .\n"
+                + "PREFIX foaf: <http://xmlns.com/foaf/0.1/>\n"
+                + "# a comment\n"
+                + "<alice> a foaf:Person ; foaf:name \"Alice\"@en , 'Al' ;\n"
+                + "    foaf:knows [ foaf:name \"\"\"B\"o\"b\"\"\" ] ;\n"
+                + "    :list ( 1 2.5 -3e2 true ) ; :empty () ;\n"
+                + "    :esc \"a\\tb\\u00e9\" ; :typed \"x\"^^:t ; :local :a.b\\,c ;\n"
+                + "    .\n"
+                + "_:x :p [] .\n"
+                + "[ :q _:x ] .\n";
+        final String expected = "<http://example.org/doc/alice> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://xmlns.com/foaf/0.1/Person> .\n"
+                + "<http://example.org/doc/alice> <http://xmlns.com/foaf/0.1/name> \"Alice\"@en .\n"
+                + "<http://example.org/doc/alice> <http://xmlns.com/foaf/0.1/name> \"Al\" .\n"
+                + "<http://example.org/doc/alice> <http://xmlns.com/foaf/0.1/knows> _:b0 .\n"
+                + "_:b0 <http://xmlns.com/foaf/0.1/name> \"B\\\"o\\\"b\" .\n"
+                + "<http://example.org/doc/alice> <http://example.org/vocab#list> _:b1 .\n"
+                + "_:b1 <http://www.w3.org/1999/02/22-rdf-syntax-ns#first> \"1\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n"
+                + "_:b1 <http://www.w3.org/1999/02/22-rdf-syntax-ns#rest> _:b2 .\n"
+                + "_:b2 <http://www.w3.org/1999/02/22-rdf-syntax-ns#first> \"2.5\"^^<http://www.w3.org/2001/XMLSchema#decimal> .\n"
+                + "_:b2 <http://www.w3.org/1999/02/22-rdf-syntax-ns#rest> _:b3 .\n"
+                + "_:b3 <http://www.w3.org/1999/02/22-rdf-syntax-ns#first> \"-3e2\"^^<http://www.w3.org/2001/XMLSchema#double> .\n"
+                + "_:b3 <http://www.w3.org/1999/02/22-rdf-syntax-ns#rest> _:b4 .\n"
+                + "_:b4 <http://www.w3.org/1999/02/22-rdf-syntax-ns#first> \"true\"^^<http://www.w3.org/2001/XMLSchema#boolean> .\n"
+                + "_:b4 <http://www.w3.org/1999/02/22-rdf-syntax-ns#rest> <http://www.w3.org/1999/02/22-rdf-syntax-ns#nil> .\n"
+                + "<http://example.org/doc/alice> <http://example.org/vocab#empty> <http://www.w3.org/1999/02/22-rdf-syntax-ns#nil> .\n"
+                + "<http://example.org/doc/alice> <http://example.org/vocab#esc> \"a\\tbé\" .\n"
+                + "<http://example.org/doc/alice> <http://example.org/vocab#typed> \"x\"^^<http://example.org/vocab#t> .\n"
+                + "<http://example.org/doc/alice> <http://example.org/vocab#local> <http://example.org/vocab#a.b,c> .\n"
+                + "_:b5 <http://example.org/vocab#p> _:b6 .\n"
+                + "_:b7 <http://example.org/vocab#q> _:b5 .\n";
+
+        final RDFDataset dataset = new TurtleRDFParser().parse(input);
+        assertEquals(nquads(expected), nquads(dataset));
+        assertEquals("http://example.org/vocab#", dataset.getNamespaces().get(""));
+        assertEquals("http://xmlns.com/foaf/0.1/", dataset.getNamespaces().get("foaf"));
+    }
+
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+    private static List<String> parse(String turtle) throws JsonLdError {
+        return nquads(new TurtleRDFParser().parse(turtle));
+    }
+
+    @Test
+    public void parsesDirectivesInBothSyntaxes() throws JsonLdError {
+        final String input = "@prefix : <http://www.google.com/test#> .\n"
+                + "@prefix abcdef: <http://www.google.com/test#> .\n"
+                + "prefix abc: <http://www.google.com/test#>\n"
+                + "PrEfIx xyz: <http://www.google.com/test#>\n"
+                + ":s abcdef:p abc:o .\n"
+                + "@base <http://www.google.com/test#> .\n"
+                + "<a> xyz:p <b> .\n"
+                + "BASE <http://example.org/>\n"
+                + "<a> <p> <b> .\n";
+        final RDFDataset dataset = new TurtleRDFParser().parse(input);
+        assertEquals(nquads("<http://www.google.com/test#s> <http://www.google.com/test#p> <http://www.google.com/test#o> .\n"
+                + "<http://www.google.com/a> <http://www.google.com/test#p> <http://www.google.com/b> .\n"
+                + "<http://example.org/a> <http://example.org/p> <http://example.org/b> .\n"),
+                nquads(dataset));
+        assertEquals("http://www.google.com/test#", dataset.getNamespaces().get(""));
+        assertEquals("http://www.google.com/test#", dataset.getNamespaces().get("abcdef"));
+        assertEquals("http://www.google.com/test#", dataset.getNamespaces().get("xyz"));
+    }
+
+    @Test
+    public void parsesIrisPrefixedNamesAndBlankNodesInEveryPosition() throws JsonLdError {
+        final String input = "@base <http://example.org/doc> .\n"
+                + "@prefix abc: <http://example.org/abc/> .\n"
+                + "@prefix hij: <http://example.org/hij> .\n"
+                + "@prefix : <http://example.org/empty/> .\n"
+                + "<http://www.google.com/test#hello> abc:def hij: .\n"
+                + "abc:def hij: <> .\n"
+                + "hij: <http://www.google.com/test#hello> :def .\n"
+                + ":def a abc:def .\n"
+                + "_:b0 abc:def _:b0 .\n"
+                + "[ ] abc:def [ ] .\n";
+        assertEquals(nquads("<http://www.google.com/test#hello> <http://example.org/abc/def> <http://example.org/hij> .\n"
+                + "<http://example.org/abc/def> <http://example.org/hij> <http://example.org/doc> .\n"
+                + "<http://example.org/hij> <http://www.google.com/test#hello> <http://example.org/empty/def> .\n"
+                + "<http://example.org/empty/def> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://example.org/abc/def> .\n"
+                + "_:b0 <http://example.org/abc/def> _:b0 .\n"
+                + "_:b1 <http://example.org/abc/def> _:b2 .\n"), parse(input));
+    }
+
+    @Test
+    public void parsesEveryFormOfString() throws JsonLdError {
+        final String input = "@prefix : <http://example.org/> .\n"
+                + ":s :p \"dffhjkasdhfskldhfoiw'eu\\\"fhowleifh\u00F8\u02FF\u0370\u037D\" ,\n"
+                + "  'dffhjkasdhfskldh\\'foiweu\"fhowleifh \u00F8\u02FF\u0370\u037D' ,\n"
+                + "  \'\'\'dffhjkasdhfsk\nldhfoiw\"'eufhowleifh \u00F8\u02FF\u0370\u037D\'\'\' ,\n"
+                + "  \"\"\"dffhjkasdhfsk\nldhfoiw\"'eufhowleifh \u00F8\u02FF\u0370\u037D\"\"\" ,\n"
+                + "  \'\'\'x\'\'y\'\'\' , \'\'\'\n\'\'\' , \'\'\'\f\'\'\' ,\n"
+                + "  \"hello world\" .\n";
+        final List<String> values = new ArrayList<String>();
+        new TurtleReader(new StringReader(input)).parse(new QuadCallback() {
+            @Override
+            public void call(RDFDataset.Quad quad) {
+                assertEquals(XSD + "string", quad.getObject().getDatatype());
+                values.add(quad.getObject().getValue());
+            }
+        });
+        assertEquals(8, values.size());
+        assertEquals("dffhjkasdhfskldhfoiw'eu\"fhowleifh\u00F8\u02FF\u0370\u037D", values.get(0));
+        assertEquals("dffhjkasdhfskldh'foiweu\"fhowleifh \u00F8\u02FF\u0370\u037D", values.get(1));
+        assertEquals("dffhjkasdhfsk\nldhfoiw\"'eufhowleifh \u00F8\u02FF\u0370\u037D", values.get(2));
+        assertEquals("dffhjkasdhfsk\nldhfoiw\"'eufhowleifh \u00F8\u02FF\u0370\u037D", values.get(3));
+        assertEquals("x''y", values.get(4));
+        assertEquals("\n", values.get(5));
+        assertEquals("\f", values.get(6));
+        assertEquals("hello world", values.get(7));
+    }
+
+    @Test
+    public void unescapesStrings() throws JsonLdError {
+        final String input = "@prefix : <http://example.org/> .\n"
+                + ":s :p \"IRI with four digit numeric escape (\\\\u)\" ;\n"
+                + "  :q \"\\u00e9\\U0001F600\\t\\b\\n\\r\\f\\\"\\'\\\\\" .\n";
+        final List<String> values = new ArrayList<String>();
+        new TurtleReader(new StringReader(input)).parse(new QuadCallback() {
+            @Override
+            public void call(RDFDataset.Quad quad) {
+                values.add(quad.getObject().getValue());
+            }
+        });
+        assertEquals("IRI with four digit numeric escape (\\u)", values.get(0));
+        assertEquals("\u00e9\ud83d\ude00\t\b\n\r\f\"'\\", values.get(1));
+    }
+
+    @Test
+    public void parsesTypedAndLanguageTaggedLiterals() throws JsonLdError {
+        final String input = "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .\n"
+                + "@prefix def: <http://example.org/def> .\n"
+                + "<http://example.org/s> <http://example.org/p> \"hello\"@en , \"123\"^^xsd:integer ,\n"
+                + "  \"123\"^^<http://fake/type> , \"124\"^^def: .\n";
+        assertEquals(nquads("<http://example.org/s> <http://example.org/p> \"hello\"@en .\n"
+                + "<http://example.org/s> <http://example.org/p> \"123\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n"
+                + "<http://example.org/s> <http://example.org/p> \"123\"^^<http://fake/type> .\n"
+                + "<http://example.org/s> <http://example.org/p> \"124\"^^<http://example.org/def> .\n"),
+                parse(input));
+    }
+
+    @Test
+    public void parsesNumericAndBooleanLiterals() throws JsonLdError {
+        final String[] literals = { "3E1", "-5.1E-10000", "1.234E-10", "2.01", "12.34", "123",
+                "-1", "1234", "true", "false" };
+        final String[] datatypes = { "double", "double", "double", "decimal", "decimal",
+                "integer", "integer", "integer", "boolean", "boolean" };
+        for (int i = 0; i < literals.length; i++) {
+            final RDFDataset dataset = new TurtleRDFParser().parse(
+                    "<http://example.org/s> <http://example.org/p> " + literals[i] + " .");
+            final RDFDataset.Node object = dataset.getQuads("@default").get(0).getObject();
+            assertTrue(object.isLiteral());
+            assertEquals(literals[i], object.getValue());
+            assertEquals(literals[i], XSD + datatypes[i], object.getDatatype());
+        }
+    }
+
+    @Test
+    public void rejectsMalformedStrings() {
+        final String[] invalid = { "\"dffhjkasdhfs\nkldhfoiw\\\"'eufhowleifh\"",
+                "'dffhjkasdhfs\nkldhfoiw'", "\'\'\'x\'\'\'y\'\'\'", "\"\"\"x\"\"\"y\"\"\"",
+                "\"\\q\"", "\"\\u00\"" };
+        for (final String string : invalid) {
+            try {
+                new TurtleRDFParser().parse("<http://example.org/s> <http://example.org/p> "
+                        + string + " .");
+                fail("Expected a parse error for " + string);
+            } catch (final JsonLdError e) {
+                assertEquals(JsonLdError.Error.PARSE_ERROR, e.getType());
+            }
+        }
+    }
+
+    @Test
+    public void resolvesRelativeIrisAgainstTheGivenBase() throws JsonLdError {
+        final RDFDataset dataset = new TurtleReader(new StringReader(
+                "<a> <../p> <#o> . @base <http://other.org/x/> . <a> <p> 1.\n"),
+                "http://example.org/dir/doc").parse();
+        assertEquals(nquads("<http://example.org/dir/a> <http://example.org/p> <http://example.org/dir/doc#o> .\n"
+                + "<http://other.org/x/a> <http://other.org/x/p> \"1\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n"),
+                nquads(dataset));
+    }
+
+    @Test
+    public void streamsTriplesToTheCallback() throws JsonLdError {
+        final StringBuilder sb = new StringBuilder("@prefix : <http://example.org/> .\n");
+        for (int i = 0; i < 10000; i++) {
+            sb.append(":s").append(i).append(" :p \"").append(i).append("\" ; :q :o .\n");
+        }
+        final int[] count = { 0 };
+        // a small buffer, so that tokens are split across refills
+        new TurtleReader(new StringReader(sb.toString()), null, 16).parse(new QuadCallback() {
+            @Override
+            public void call(RDFDataset.Quad quad) {
+                assertTrue(quad.getSubject().getValue().startsWith("http://example.org/s"));
+                count[0]++;
+            }
+        });
+        assertEquals(20000, count[0]);
+    }
+
+    @Test
+    public void reportsTheLineAndColumnOfErrors() {
+        final String[] invalid = { "@prefix : <http://example.org/> .\n:s :p :o ;\n  :q ] .",
+                "<http://example.org/s> <http://example.org/p> \"unterminated .\n",
+                "<http://example.org/s> undefined:p <http://example.org/o> .",
+                "<http://example.org/s> <http://example.org/p> <http://example.org/o>",
+                "<http://example.org/s> <http://example.org/p> <http://example.org/o o> ." };
+        final String[] positions = { "line:3 column:6", "line:1 column:62", "line:1 column:24",
+                "line:1 column:69", "line:1 column:68" };
+        for (int i = 0; i < invalid.length; i++) {
+            try {
+                new TurtleRDFParser().parse(invalid[i]);
+                fail("Expected a parse error for " + invalid[i]);
+            } catch (final JsonLdError e) {
+                assertEquals(JsonLdError.Error.PARSE_ERROR, e.getType());
+                assertTrue(e.getMessage(), e.getMessage().endsWith(positions[i]));
+            }
+        }
+    }
+}
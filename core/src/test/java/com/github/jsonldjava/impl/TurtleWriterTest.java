@@ -0,0 +1,143 @@
+package com.github.jsonldjava.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.jsonldjava.core.JsonLdApi;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.core.RDFDataset;
+import com.github.jsonldjava.utils.JSONUtils;
+
+public class TurtleWriterTest {
+
+    private static Object normalized(RDFDataset dataset) throws JsonLdError {
+        final JsonLdOptions opts = new JsonLdOptions();
+        opts.format = "application/nquads";
+        return new JsonLdApi(opts).normalize(dataset);
+    }
+
+    @Test
+    public void roundTripsToRDFTestSuite() throws IOException, JsonLdError {
+        final ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        final Map<String, Object> manifest = (Map<String, Object>) JSONUtils.fromInputStream(cl
+                .getResourceAsStream("json-ld.org/toRdf-manifest.jsonld"));
+        int compared = 0;
+        for (final Map<String, Object> test : (List<Map<String, Object>>) manifest
+                .get("sequence")) {
+            final JsonLdOptions opts = new JsonLdOptions("http://json-ld.org/test-suite/tests/"
+                    + test.get("input"));
+            RDFDataset dataset;
+            try {
+                dataset = (RDFDataset) JsonLdProcessor.toRDF(JSONUtils.fromInputStream(cl
+                        .getResourceAsStream("json-ld.org/" + test.get("input"))), opts);
+            } catch (final JsonLdError e) {
+                continue;
+            }
+            // Turtle has no named graphs
+            if (dataset.graphNames().size() > 1) {
+                continue;
+            }
+            final String turtle = (String) new TurtleTripleCallback().call(dataset);
+            final RDFDataset parsed = new TurtleRDFParser().parse(turtle);
+            assertEquals(test.get("input") + "\n" + turtle, normalized(dataset),
+                    normalized(parsed));
+            compared++;
+        }
+        assertTrue(compared > 50);
+    }
+
+    @Test
+    public void nestsBlankNodesAndCollections() throws JsonLdError {
+        final RDFDataset dataset = new TurtleRDFParser().parse(
+                "@prefix : <http://example.org/> .\n"
+                        + ":s :p [ :q ( 1 [ :r \"x\" ] ) ] ; :shared _:a , _:a .\n"
+                        + "_:a :p :o .\n"
+                        + "_:c1 :next _:c2 . _:c2 :next _:c1 .\n");
+        final StringWriter sw = new StringWriter();
+        final TurtleWriter writer = new TurtleWriter(sw, dataset.getNamespaces());
+        writer.write(dataset);
+        writer.finish();
+        assertEquals("@prefix : <http://example.org/> .\n\n"
+                + ":s :p [ :q ( 1 [ :r \"x\" ] ) ] ;\n"
+                + "    :shared _:b4, _:b4 .\n\n"
+                + "_:b4 :p :o .\n\n"
+                + "_:b5 :next [ :next _:b5 ] .\n", sw.toString());
+    }
+
+    @Test
+    public void streamsSubjectsAsTheyEnd() throws JsonLdError {
+        final Map<String, String> namespaces = new LinkedHashMap<String, String>();
+        namespaces.put("ex", "http://example.org/");
+        final StringWriter sw = new StringWriter();
+        final TurtleWriter writer = new TurtleWriter(sw, namespaces);
+        writer.call(new RDFDataset.Quad("http://example.org/t", "http://example.org/p",
+                "true", "http://www.w3.org/2001/XMLSchema#boolean", null, null));
+        assertEquals("", sw.toString());
+        writer.call(new RDFDataset.Quad("http://example.org/s", "http://example.org/p",
+                "_:x", null));
+        writer.call(new RDFDataset.Quad("http://example.org/s", "http://example.org/p",
+                "http://example.org/a/b", null));
+        // the first subject is written once the second one starts
+        assertEquals("@prefix ex: <http://example.org/> .\n\n" + "ex:t ex:p true .\n",
+                sw.toString());
+        writer.call(new RDFDataset.Quad("http://example.org/u", "http://example.org/p",
+                "http://example.org/o", null));
+        writer.call(new RDFDataset.Quad("_:x", "http://example.org/p",
+                "http://example.org/o", null));
+        // the second one refers to a blank node, so it waits for the end
+        assertEquals("@prefix ex: <http://example.org/> .\n\n" + "ex:t ex:p true .\n",
+                sw.toString());
+        writer.finish();
+        assertEquals("@prefix ex: <http://example.org/> .\n\n" + "ex:t ex:p true .\n\n"
+                + "ex:u ex:p ex:o .\n\n"
+                + "ex:s ex:p [ ex:p ex:o ], <http://example.org/a/b> .\n", sw.toString());
+    }
+
+    @Test
+    public void writesNamedGraphsAsTriples() {
+        final RDFDataset dataset = new RDFDataset();
+        dataset.addQuad("http://example.org/s", "http://example.org/p", "http://example.org/o",
+                "@default");
+        dataset.addQuad("http://example.org/t", "http://example.org/p", "http://example.org/o",
+                "http://example.org/g");
+        assertEquals("<http://example.org/s> <http://example.org/p> <http://example.org/o> "
+                + ".\n\n"
+                + "<http://example.org/t> <http://example.org/p> <http://example.org/o> .\n",
+                new TurtleTripleCallback().call(dataset));
+    }
+
+    @Test
+    public void keepsALimitedNumberOfSubjectsForTheirBlankNodes() throws JsonLdError {
+        final StringWriter sw = new StringWriter();
+        final TurtleWriter writer = new TurtleWriter(sw);
+        for (int i = 0; i <= TurtleWriter.MAX_DEFERRED_SUBJECTS; i++) {
+            writer.call(new RDFDataset.Quad("http://example.org/s" + i, "http://example.org/p",
+                    "_:b" + i, null));
+        }
+        assertEquals("", sw.toString());
+        // one more ends the last subject, so the first one is written
+        writer.call(new RDFDataset.Quad("http://example.org/t", "http://example.org/p",
+                "http://example.org/o", null));
+        assertEquals("<http://example.org/s0> <http://example.org/p> _:b0 .\n", sw.toString());
+        for (int i = 0; i <= TurtleWriter.MAX_DEFERRED_SUBJECTS; i++) {
+            writer.call(new RDFDataset.Quad("_:b" + i, "http://example.org/p",
+                    "http://example.org/o", null));
+        }
+        writer.finish();
+        final String turtle = sw.toString();
+        assertTrue(turtle,
+                turtle.contains("\n_:b0 <http://example.org/p> <http://example.org/o> .\n"));
+        assertTrue(turtle, turtle.contains("<http://example.org/s1> <http://example.org/p> "
+                + "[ <http://example.org/p> <http://example.org/o> ] .\n"));
+    }
+}
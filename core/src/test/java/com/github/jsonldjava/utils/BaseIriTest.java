@@ -0,0 +1,64 @@
+package com.github.jsonldjava.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class BaseIriTest {
+
+    // RFC 3986 section 5.4
+    private static final String[][] EXAMPLES = { { "g:h", "g:h" }, { "g", "http://a/b/c/g" },
+            { "./g", "http://a/b/c/g" }, { "g/", "http://a/b/c/g/" }, { "/g", "http://a/g" },
+            { "//g", "http://g" }, { "?y", "http://a/b/c/d;p?y" }, { "g?y", "http://a/b/c/g?y" },
+            { "#s", "http://a/b/c/d;p?q#s" }, { "g#s", "http://a/b/c/g#s" },
+            { "g?y#s", "http://a/b/c/g?y#s" }, { ";x", "http://a/b/c/;x" },
+            { "g;x", "http://a/b/c/g;x" }, { "g;x?y#s", "http://a/b/c/g;x?y#s" },
+            { ".", "http://a/b/c/" }, { "./", "http://a/b/c/" }, { "..", "http://a/b/" },
+            { "../", "http://a/b/" }, { "../g", "http://a/b/g" }, { "../..", "http://a/" },
+            { "../../", "http://a/" }, { "../../g", "http://a/g" }, { "../../../g", "http://a/g" },
+            { "../../../../g", "http://a/g" }, { "/./g", "http://a/g" },
+            { "/../g", "http://a/g" }, { "g.", "http://a/b/c/g." }, { ".g", "http://a/b/c/.g" },
+            { "g..", "http://a/b/c/g.." }, { "..g", "http://a/b/c/..g" },
+            { "./../g", "http://a/b/g" }, { "./g/.", "http://a/b/c/g/" },
+            { "g/./h", "http://a/b/c/g/h" }, { "g/../h", "http://a/b/c/h" },
+            { "g;x=1/./y", "http://a/b/c/g;x=1/y" }, { "g;x=1/../y", "http://a/b/c/y" },
+            { "g?y/./x", "http://a/b/c/g?y/./x" }, { "g?y/../x", "http://a/b/c/g?y/../x" },
+            { "g#s/./x", "http://a/b/c/g#s/./x" }, { "g#s/../x", "http://a/b/c/g#s/../x" },
+            { "http:g", "http:g" } };
+
+    @Test
+    public void resolvesTheExamplesOfTheRfc() {
+        final BaseIri base = BaseIri.parse("http://a/b/c/d;p?q");
+        for (final String[] example : EXAMPLES) {
+            assertEquals(example[0], example[1], base.resolve(example[0]));
+            assertEquals(example[0], example[1], URL.resolve("http://a/b/c/d;p?q", example[0]));
+        }
+        assertEquals("http://a/b/c/d;p?q", base.resolve(""));
+        assertEquals("http://example.org/a", BaseIri.parse("http://example.org").resolve("a"));
+        assertEquals("http://example.org/a/b", BaseIri.parse("http://example.org/x/../a/")
+                .resolve("b"));
+    }
+
+    @Test
+    public void relativizesLikeRemoveBase() {
+        final String[] bases = { "http://example.org/", "http://example.org/a/b",
+                "http://example.org/a/b/", "http://example.org/a/b?x#y", "http://example.org" };
+        final String[] iris = { "http://example.org/", "http://example.org", "http://example.org/a",
+                "http://example.org/a/", "http://example.org/a/b", "http://example.org/a/b/c",
+                "http://example.org/a/c/d", "http://example.org/c?q", "http://example.org/a/b#f",
+                "http://example.org/a/b?", "http://example.org/x/./y", "http://example.org/x//y",
+                "http://example.com/a", "https://example.org/a" };
+        for (final String base : bases) {
+            final BaseIri parsed = BaseIri.parse(base);
+            for (final String iri : iris) {
+                assertEquals(base + " " + iri, URL.removeBase(base, iri), parsed.relativize(iri));
+            }
+        }
+    }
+
+    @Test
+    public void doesNotRelativizeAnotherHost() {
+        assertEquals("http://example.org.uk/a",
+                BaseIri.parse("http://example.org").relativize("http://example.org.uk/a"));
+    }
+}